@@ -17,6 +17,8 @@ import org.mifosplatform.integrationtests.common.BatchHelper;
 import org.mifosplatform.integrationtests.common.ClientHelper;
 import org.mifosplatform.integrationtests.common.GroupHelper;
 import org.mifosplatform.integrationtests.common.Utils;
+import org.mifosplatform.integrationtests.common.charges.ChargesHelper;
+import org.mifosplatform.integrationtests.common.loans.LoanApplicationTestBuilder;
 import org.mifosplatform.integrationtests.common.loans.LoanProductTestBuilder;
 import org.mifosplatform.integrationtests.common.loans.LoanTransactionHelper;
 
@@ -124,4 +126,59 @@ public class BatchRequestsIntegrationTest {
             Assert.assertEquals("Verify Status Code 200", 200L, (long) res.getStatusCode());
         }
     }
+
+    @Test
+    /**
+     * Tests that independent requests on the same loan, which are executed one
+     * after the other rather than concurrently, both succeed.
+     */
+    public void shouldReturnOkStatusForChargesAddedToTheSameLoan() {
+
+        final LoanTransactionHelper loanTransactionHelper = new LoanTransactionHelper(this.requestSpec, this.responseSpec);
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec);
+        final String loanProductJSON = new LoanProductTestBuilder() //
+                .withPrincipal("12,000.00") //
+                .withNumberOfRepayments("4") //
+                .withRepaymentAfterEvery("1") //
+                .withRepaymentTypeAsMonth() //
+                .withinterestRatePerPeriod("1") //
+                .withInterestRateFrequencyTypeAsMonths() //
+                .withAmortizationTypeAsEqualInstallments() //
+                .withInterestTypeAsDecliningBalance().build(null);
+        final Integer loanProductID = loanTransactionHelper.getLoanProductId(loanProductJSON);
+        final String loanApplicationJSON = new LoanApplicationTestBuilder() //
+                .withPrincipal("12,000.00") //
+                .withLoanTermFrequency("4") //
+                .withLoanTermFrequencyAsMonths() //
+                .withNumberOfRepayments("4") //
+                .withRepaymentEveryAfter("1") //
+                .withRepaymentFrequencyTypeAsMonths() //
+                .withInterestRatePerPeriod("2") //
+                .withAmortizationTypeAsEqualInstallments() //
+                .withInterestTypeAsDecliningBalance() //
+                .withInterestCalculationPeriodTypeSameAsRepaymentPeriod() //
+                .withExpectedDisbursementDate("20 September 2011") //
+                .withSubmittedOnDate("20 September 2011") //
+                .build(clientID.toString(), loanProductID.toString(), null);
+        final Integer loanID = loanTransactionHelper.getLoanId(loanApplicationJSON);
+        final Integer chargeID = ChargesHelper.createCharges(this.requestSpec, this.responseSpec,
+                ChargesHelper.getLoanSpecifiedDueDateJSON());
+
+        final List<BatchRequest> batchRequests = new ArrayList<>();
+        for (long requestId = 1; requestId <= 2; requestId++) {
+            final BatchRequest br = BatchHelper.createChargeRequest(requestId, null);
+            br.setRelativeUrl("loans/" + loanID + "/charges");
+            br.setBody("{\"chargeId\": \"" + chargeID + "\", \"locale\": \"en\", \"amount\": \"100\", "
+                    + "\"dateFormat\": \"dd MMMM yyyy\", \"dueDate\": \"20 October 2011\"}");
+            batchRequests.add(br);
+        }
+
+        final List<BatchResponse> response = BatchHelper.postBatchRequestsWithoutEnclosingTransaction(this.requestSpec, this.responseSpec,
+                BatchHelper.toJsonString(batchRequests));
+
+        Assert.assertEquals(2, response.size());
+        for (BatchResponse res : response) {
+            Assert.assertEquals("Verify Status Code 200", 200L, (long) res.getStatusCode());
+        }
+    }
 }
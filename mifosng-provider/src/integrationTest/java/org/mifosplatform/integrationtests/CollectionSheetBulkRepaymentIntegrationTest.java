@@ -0,0 +1,144 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.integrationtests.common.ClientHelper;
+import org.mifosplatform.integrationtests.common.Utils;
+import org.mifosplatform.integrationtests.common.loans.LoanApplicationTestBuilder;
+import org.mifosplatform.integrationtests.common.loans.LoanProductTestBuilder;
+import org.mifosplatform.integrationtests.common.loans.LoanTransactionHelper;
+
+import com.google.gson.Gson;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+
+/**
+ * Posts the repayments of a synthetic center (one loan per client) through an
+ * individual collection sheet, and times it against posting the same number
+ * of repayments one by one. The number of clients is set with the
+ * <code>collectionSheetClients</code> system property.
+ */
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class CollectionSheetBulkRepaymentIntegrationTest {
+
+    private static final String COLLECTION_SHEET_URL = "/mifosng-provider/api/v1/collectionsheet?command=saveCollectionSheet&tenantIdentifier=default";
+
+    private final int numberOfClients = Integer.getInteger("collectionSheetClients", 20);
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+    private LoanTransactionHelper loanTransactionHelper;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+        this.loanTransactionHelper = new LoanTransactionHelper(this.requestSpec, this.responseSpec);
+    }
+
+    @Test
+    public void collectionSheetRepaymentsMatchSingleRepayments() {
+        final Integer loanProductID = createLoanProduct();
+        final List<Integer> collectionSheetLoanIds = createDisbursedLoans(loanProductID);
+        final List<Integer> singleRepaymentLoanIds = createDisbursedLoans(loanProductID);
+
+        long start = System.currentTimeMillis();
+        final HashMap changes = Utils.performServerPost(this.requestSpec, this.responseSpec, COLLECTION_SHEET_URL,
+                collectionSheetJson(collectionSheetLoanIds), "changes");
+        final long collectionSheetMillis = System.currentTimeMillis() - start;
+        assertEquals(this.numberOfClients, ((List) changes.get("loanTransactions")).size());
+
+        start = System.currentTimeMillis();
+        for (final Integer loanId : singleRepaymentLoanIds) {
+            this.loanTransactionHelper.makeRepayment("20 October 2011", Float.valueOf(3200), loanId);
+        }
+        final long singleRepaymentsMillis = System.currentTimeMillis() - start;
+
+        for (int i = 0; i < this.numberOfClients; i++) {
+            assertEquals(summaryOf(singleRepaymentLoanIds.get(i)), summaryOf(collectionSheetLoanIds.get(i)));
+        }
+
+        System.out.println("Repayments of " + this.numberOfClients + " loans: collection sheet " + collectionSheetMillis
+                + " ms, one by one " + singleRepaymentsMillis + " ms");
+    }
+
+    private List<Integer> createDisbursedLoans(final Integer loanProductID) {
+        final List<Integer> loanIds = new ArrayList<>(this.numberOfClients);
+        for (int i = 0; i < this.numberOfClients; i++) {
+            final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec);
+            final Integer loanID = applyForLoanApplication(clientID, loanProductID);
+            this.loanTransactionHelper.approveLoan("20 September 2011", loanID);
+            this.loanTransactionHelper.disburseLoan("20 September 2011", loanID, "12,000.00");
+            loanIds.add(loanID);
+        }
+        return loanIds;
+    }
+
+    private String collectionSheetJson(final List<Integer> loanIds) {
+        final List<HashMap<String, Object>> repayments = new ArrayList<>(loanIds.size());
+        for (final Integer loanId : loanIds) {
+            final HashMap<String, Object> repayment = new HashMap<>();
+            repayment.put("loanId", loanId);
+            repayment.put("transactionAmount", "3200");
+            repayments.add(repayment);
+        }
+        final HashMap<String, Object> map = new HashMap<>();
+        map.put("locale", "en");
+        map.put("dateFormat", "dd MMMM yyyy");
+        map.put("transactionDate", "20 October 2011");
+        map.put("bulkRepaymentTransactions", repayments);
+        return new Gson().toJson(map);
+    }
+
+    private HashMap summaryOf(final Integer loanId) {
+        return this.loanTransactionHelper.getLoanSummary(this.requestSpec, this.responseSpec, loanId);
+    }
+
+    private Integer createLoanProduct() {
+        final String loanProductJSON = new LoanProductTestBuilder() //
+                .withPrincipal("12,000.00") //
+                .withNumberOfRepayments("4") //
+                .withRepaymentAfterEvery("1") //
+                .withRepaymentTypeAsMonth() //
+                .withinterestRatePerPeriod("1") //
+                .withInterestRateFrequencyTypeAsMonths() //
+                .withAmortizationTypeAsEqualInstallments() //
+                .withInterestTypeAsDecliningBalance() //
+                .withAccountingRuleAsNone().build(null);
+        return this.loanTransactionHelper.getLoanProductId(loanProductJSON);
+    }
+
+    private Integer applyForLoanApplication(final Integer clientID, final Integer loanProductID) {
+        final String loanApplicationJSON = new LoanApplicationTestBuilder() //
+                .withPrincipal("12,000.00") //
+                .withLoanTermFrequency("4") //
+                .withLoanTermFrequencyAsMonths() //
+                .withNumberOfRepayments("4") //
+                .withRepaymentEveryAfter("1") //
+                .withRepaymentFrequencyTypeAsMonths() //
+                .withInterestRatePerPeriod("2") //
+                .withAmortizationTypeAsEqualInstallments() //
+                .withInterestTypeAsDecliningBalance() //
+                .withInterestCalculationPeriodTypeSameAsRepaymentPeriod() //
+                .withExpectedDisbursementDate("20 September 2011") //
+                .withSubmittedOnDate("20 September 2011") //
+                .build(clientID.toString(), loanProductID.toString(), null);
+        return this.loanTransactionHelper.getLoanId(loanApplicationJSON);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.integrationtests;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.integrationtests.common.ClientHelper;
+import org.mifosplatform.integrationtests.common.Utils;
+import org.mifosplatform.integrationtests.common.system.DatatableHelper;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+
+public class DatatableIntegrationTest {
+
+    private static final String CLIENT_APPTABLE = "m_client";
+    private static final String NOTE_COLUMN = "Note";
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+    }
+
+    @Test
+    public void testDatatablesEntriesOfSeveralClients() {
+        final Integer firstClientId = ClientHelper.createClient(this.requestSpec, this.responseSpec);
+        final Integer secondClientId = ClientHelper.createClient(this.requestSpec, this.responseSpec);
+        final Integer clientWithoutEntryId = ClientHelper.createClient(this.requestSpec, this.responseSpec);
+
+        final String datatableName = DatatableHelper.createDatatable(this.requestSpec, this.responseSpec,
+                Utils.randomNameGenerator("dt_bulk_", 5), CLIENT_APPTABLE, NOTE_COLUMN);
+        Assert.assertNotNull(datatableName);
+
+        DatatableHelper.createDatatableEntry(this.requestSpec, this.responseSpec, datatableName, firstClientId, NOTE_COLUMN, "first");
+        DatatableHelper.createDatatableEntry(this.requestSpec, this.responseSpec, datatableName, secondClientId, NOTE_COLUMN, "second");
+
+        final String json = DatatableHelper.getDatatablesEntries(this.requestSpec, this.responseSpec, datatableName, secondClientId + ","
+                + firstClientId + "," + clientWithoutEntryId);
+        final Map<String, List<Map<String, Object>>> entries = new Gson().fromJson(json,
+                new TypeToken<Map<String, List<Map<String, Object>>>>() {}.getType());
+
+        Assert.assertEquals(1, entries.size());
+        final List<Map<String, Object>> rows = entries.get(datatableName);
+        Assert.assertEquals(2, rows.size());
+        // ordered by the client id
+        Assert.assertEquals(firstClientId.intValue(), ((Number) rows.get(0).get("client_id")).intValue());
+        Assert.assertEquals("first", rows.get(0).get(NOTE_COLUMN));
+        Assert.assertEquals(secondClientId.intValue(), ((Number) rows.get(1).get("client_id")).intValue());
+        Assert.assertEquals("second", rows.get(1).get(NOTE_COLUMN));
+
+        DatatableHelper.deleteDatatableEntries(this.requestSpec, this.responseSpec, datatableName, firstClientId);
+        DatatableHelper.deleteDatatableEntries(this.requestSpec, this.responseSpec, datatableName, secondClientId);
+        DatatableHelper.deleteDatatable(this.requestSpec, this.responseSpec, datatableName);
+    }
+
+    @Test
+    public void testDatatablesEntriesOfTooManyClientsAreRejected() {
+        final StringBuilder apptableIds = new StringBuilder();
+        for (int id = 1; id <= 201; id++) {
+            if (apptableIds.length() > 0) {
+                apptableIds.append(',');
+            }
+            apptableIds.append(id);
+        }
+
+        final ResponseSpecification badRequestSpec = new ResponseSpecBuilder().expectStatusCode(400).build();
+        final String json = DatatableHelper.getDatatablesEntries(this.requestSpec, badRequestSpec, "extra_client_details",
+                apptableIds.toString());
+        Assert.assertTrue(json.contains("error.msg.query.parameter.value.unsupported"));
+    }
+}
@@ -9,7 +9,14 @@ import org.junit.Assert;
 
 import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.http.conn.HttpHostConnectException;
 import org.junit.Before;
@@ -25,6 +32,9 @@ import com.jayway.restassured.http.ContentType;
 import com.jayway.restassured.path.json.JsonPath;
 import com.jayway.restassured.specification.RequestSpecification;
 import com.jayway.restassured.specification.ResponseSpecification;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
 public class HookIntegrationTest {
 
@@ -99,4 +109,53 @@ public class HookIntegrationTest {
     	System.out.println("---------------------SUCCESSFULLY DELETED AND VERIFIED HOOK-------------------------"+hookId);
 
     }
+
+    @Test
+    public void officeCreationShouldNotWaitForSlowHookReceiver() throws Exception {
+        final long receiverDelayMillis = 5000;
+        final CountDownLatch notificationReceived = new CountDownLatch(1);
+        final AtomicReference<String> receivedPayload = new AtomicReference<>();
+
+        // local stub which acknowledges the hook's ping at once but takes its
+        // time to answer the actual notifications
+        final HttpServer slowReceiver = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        slowReceiver.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(final HttpExchange exchange) throws IOException {
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    try (final InputStream body = exchange.getRequestBody(); final Scanner scanner = new Scanner(body, "UTF-8")) {
+                        receivedPayload.set(scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "");
+                    }
+                    notificationReceived.countDown();
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(receiverDelayMillis);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                exchange.sendResponseHeaders(200, -1);
+                try (final OutputStream response = exchange.getResponseBody()) {
+                    response.flush();
+                }
+            }
+        });
+        slowReceiver.start();
+
+        final String payloadURL = "http://localhost:" + slowReceiver.getAddress().getPort();
+        final Long hookId = this.hookHelper.createHook(payloadURL).longValue();
+        try {
+            final long start = System.currentTimeMillis();
+            final Integer createdOfficeID = this.officeHelper.createOffice("01 January 2012");
+            final long commandLatencyMillis = System.currentTimeMillis() - start;
+
+            Assert.assertTrue("Office creation took " + commandLatencyMillis + " ms, it must not wait for the hook receiver",
+                    commandLatencyMillis < receiverDelayMillis);
+            Assert.assertTrue("Hook notification was not delivered", notificationReceived.await(30, TimeUnit.SECONDS));
+            Assert.assertEquals(createdOfficeID, JsonPath.with(receivedPayload.get()).get("officeId"));
+        } finally {
+            this.hookHelper.deleteHook(hookId);
+            slowReceiver.stop(0);
+        }
+    }
 }
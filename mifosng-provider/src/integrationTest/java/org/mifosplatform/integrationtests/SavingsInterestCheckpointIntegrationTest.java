@@ -0,0 +1,151 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.integrationtests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Locale;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.integrationtests.common.ClientHelper;
+import org.mifosplatform.integrationtests.common.CommonConstants;
+import org.mifosplatform.integrationtests.common.Utils;
+import org.mifosplatform.integrationtests.common.savings.SavingsAccountHelper;
+import org.mifosplatform.integrationtests.common.savings.SavingsProductHelper;
+import org.mifosplatform.integrationtests.common.savings.SavingsStatusChecker;
+
+import com.jayway.restassured.builder.RequestSpecBuilder;
+import com.jayway.restassured.builder.ResponseSpecBuilder;
+import com.jayway.restassured.http.ContentType;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+
+/**
+ * Interest of an account calculated from its interest checkpoints, through
+ * deposits, interest postings and backdated transactions, must match the
+ * interest of an account with the same transactions calculated from its
+ * activation in one go.
+ */
+@SuppressWarnings({ "rawtypes" })
+public class SavingsInterestCheckpointIntegrationTest {
+
+    public static final String ACCOUNT_TYPE_INDIVIDUAL = "INDIVIDUAL";
+    private static final int MONTHS = 8;
+
+    private ResponseSpecification responseSpec;
+    private RequestSpecification requestSpec;
+    private SavingsAccountHelper savingsAccountHelper;
+
+    @Before
+    public void setup() {
+        Utils.initializeRESTAssured();
+        this.requestSpec = new RequestSpecBuilder().setContentType(ContentType.JSON).build();
+        this.requestSpec.header("Authorization", "Basic " + Utils.loginIntoServerAndGetBase64EncodedAuthenticationKey());
+        this.responseSpec = new ResponseSpecBuilder().expectStatusCode(200).build();
+        this.savingsAccountHelper = new SavingsAccountHelper(this.requestSpec, this.responseSpec);
+    }
+
+    @Test
+    public void interestFromCheckpointsMatchesFullRecalculation() {
+        final String startDate = dateInMonth(0, 1);
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, startDate);
+        Assert.assertNotNull(clientID);
+        final Integer savingsProductID = createSavingsProduct();
+
+        // posted as it happens: checkpoints are taken once periods are posted
+        final Integer checkpointedSavingsId = createSavingsAccount(clientID, savingsProductID, startDate);
+        for (int month = 0; month < MONTHS; month++) {
+            this.savingsAccountHelper.depositToSavingsAccount(checkpointedSavingsId, "1000", dateInMonth(month, 10),
+                    CommonConstants.RESPONSE_RESOURCE_ID);
+            this.savingsAccountHelper.postInterestForSavings(checkpointedSavingsId);
+        }
+        // backdated transactions invalidate the checkpoints after them
+        this.savingsAccountHelper.depositToSavingsAccount(checkpointedSavingsId, "500", dateInMonth(2, 20),
+                CommonConstants.RESPONSE_RESOURCE_ID);
+        final Integer withdrawalId = (Integer) this.savingsAccountHelper.withdrawalFromSavingsAccount(checkpointedSavingsId, "300",
+                dateInMonth(4, 5), CommonConstants.RESPONSE_RESOURCE_ID);
+        this.savingsAccountHelper.undoSavingsAccountTransaction(checkpointedSavingsId, withdrawalId);
+        this.savingsAccountHelper.postInterestForSavings(checkpointedSavingsId);
+
+        // same transactions, posted once at the end
+        final Integer recalculatedSavingsId = createSavingsAccount(clientID, savingsProductID, startDate);
+        for (int month = 0; month < MONTHS; month++) {
+            this.savingsAccountHelper.depositToSavingsAccount(recalculatedSavingsId, "1000", dateInMonth(month, 10),
+                    CommonConstants.RESPONSE_RESOURCE_ID);
+            if (month == 2) {
+                this.savingsAccountHelper.depositToSavingsAccount(recalculatedSavingsId, "500", dateInMonth(2, 20),
+                        CommonConstants.RESPONSE_RESOURCE_ID);
+            }
+        }
+        this.savingsAccountHelper.postInterestForSavings(recalculatedSavingsId);
+
+        final HashMap checkpointedSummary = this.savingsAccountHelper.getSavingsSummary(checkpointedSavingsId);
+        final HashMap recalculatedSummary = this.savingsAccountHelper.getSavingsSummary(recalculatedSavingsId);
+        for (final String field : new String[] { "totalDeposits", "totalInterestEarned", "totalInterestPosted", "accountBalance" }) {
+            assertEquals(field, String.valueOf(recalculatedSummary.get(field)), String.valueOf(checkpointedSummary.get(field)));
+        }
+    }
+
+    @Test
+    public void summaryOfTransactionsLoadedAfterCheckpointCoversFullHistory() {
+        final String startDate = dateInMonth(0, 1);
+        final Integer clientID = ClientHelper.createClient(this.requestSpec, this.responseSpec, startDate);
+        Assert.assertNotNull(clientID);
+        final Integer savingsProductID = createSavingsProduct();
+
+        final Integer savingsId = createSavingsAccount(clientID, savingsProductID, startDate);
+        for (int month = 0; month < MONTHS; month++) {
+            this.savingsAccountHelper.depositToSavingsAccount(savingsId, "1000", dateInMonth(month, 10),
+                    CommonConstants.RESPONSE_RESOURCE_ID);
+            this.savingsAccountHelper.postInterestForSavings(savingsId);
+        }
+        // only the transactions after the last checkpoint are loaded for these
+        this.savingsAccountHelper.withdrawalFromSavingsAccount(savingsId, "300", dateInMonth(MONTHS - 1, 15),
+                CommonConstants.RESPONSE_RESOURCE_ID);
+        this.savingsAccountHelper.depositToSavingsAccount(savingsId, "200", dateInMonth(MONTHS - 1, 16),
+                CommonConstants.RESPONSE_RESOURCE_ID);
+
+        final HashMap summary = this.savingsAccountHelper.getSavingsSummary(savingsId);
+        assertEquals(Float.valueOf(MONTHS * 1000 + 200), Float.valueOf(String.valueOf(summary.get("totalDeposits"))));
+        assertEquals(Float.valueOf(300), Float.valueOf(String.valueOf(summary.get("totalWithdrawals"))));
+        final float totalInterestPosted = Float.valueOf(String.valueOf(summary.get("totalInterestPosted")));
+        assertEquals(MONTHS * 1000 + 200 - 300 + totalInterestPosted, Float.valueOf(String.valueOf(summary.get("accountBalance"))), 0.01f);
+    }
+
+    /**
+     * @return the given day of the month, counting from the month
+     *         {@link #MONTHS} months ago.
+     */
+    private static String dateInMonth(final int month, final int day) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.DAY_OF_MONTH, 1);
+        calendar.add(Calendar.MONTH, month - MONTHS);
+        calendar.set(Calendar.DAY_OF_MONTH, day);
+        return new SimpleDateFormat(CommonConstants.dateFormat, Locale.US).format(calendar.getTime());
+    }
+
+    private Integer createSavingsAccount(final Integer clientID, final Integer savingsProductID, final String startDate) {
+        final Integer savingsId = this.savingsAccountHelper.applyForSavingsApplicationOnDate(clientID, savingsProductID,
+                ACCOUNT_TYPE_INDIVIDUAL, startDate);
+        Assert.assertNotNull(savingsId);
+        HashMap savingsStatusHashMap = this.savingsAccountHelper.approveSavingsOnDate(savingsId, startDate);
+        SavingsStatusChecker.verifySavingsIsApproved(savingsStatusHashMap);
+        savingsStatusHashMap = this.savingsAccountHelper.activateSavingsAccount(savingsId, startDate);
+        SavingsStatusChecker.verifySavingsIsActive(savingsStatusHashMap);
+        return savingsId;
+    }
+
+    private Integer createSavingsProduct() {
+        final String savingsProductJSON = new SavingsProductHelper().withInterestCompoundingPeriodTypeAsDaily()
+                .withInterestPostingPeriodTypeAsMonthly().withInterestCalculationPeriodTypeAsDailyBalance().build();
+        return SavingsProductHelper.createSavingsProduct(savingsProductJSON, this.requestSpec, this.responseSpec);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.integrationtests.common.system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.mifosplatform.integrationtests.common.Utils;
+
+import com.google.gson.Gson;
+import com.jayway.restassured.specification.RequestSpecification;
+import com.jayway.restassured.specification.ResponseSpecification;
+
+@SuppressWarnings({ "rawtypes", "unchecked" })
+public class DatatableHelper {
+
+    private static final String DATATABLE_URL = "/mifosng-provider/api/v1/datatables";
+
+    public static String createDatatable(final RequestSpecification requestSpec, final ResponseSpecification responseSpec,
+            final String datatableName, final String apptableName, final String columnName) {
+        System.out.println("---------------------------------CREATING A DATATABLE---------------------------------------------");
+        return Utils.performServerPost(requestSpec, responseSpec, DATATABLE_URL + "?" + Utils.TENANT_IDENTIFIER,
+                getTestDatatableAsJSON(datatableName, apptableName, columnName), "resourceIdentifier");
+    }
+
+    public static String getTestDatatableAsJSON(final String datatableName, final String apptableName, final String columnName) {
+        final HashMap column = new HashMap();
+        column.put("name", columnName);
+        column.put("type", "String");
+        column.put("length", 50);
+        column.put("mandatory", false);
+
+        final List<HashMap> columns = new ArrayList<>();
+        columns.add(column);
+
+        final HashMap map = new HashMap<>();
+        map.put("datatableName", datatableName);
+        map.put("apptableName", apptableName);
+        map.put("multiRow", false);
+        map.put("columns", columns);
+        System.out.println("map : " + map);
+        return new Gson().toJson(map);
+    }
+
+    public static Object createDatatableEntry(final RequestSpecification requestSpec, final ResponseSpecification responseSpec,
+            final String datatableName, final Integer apptableId, final String columnName, final String value) {
+        final HashMap map = new HashMap<>();
+        map.put(columnName, value);
+        map.put("locale", "en");
+        return Utils.performServerPost(requestSpec, responseSpec, DATATABLE_URL + "/" + datatableName + "/" + apptableId + "?"
+                + Utils.TENANT_IDENTIFIER, new Gson().toJson(map), "resourceId");
+    }
+
+    public static String getDatatablesEntries(final RequestSpecification requestSpec, final ResponseSpecification responseSpec,
+            final String datatables, final String apptableIds) {
+        System.out.println("---------------------------------GET DATATABLES ENTRIES---------------------------------------------");
+        return Utils.performServerGet(requestSpec, responseSpec, DATATABLE_URL + "/bulk?datatables=" + datatables + "&apptableIds="
+                + apptableIds + "&" + Utils.TENANT_IDENTIFIER, null);
+    }
+
+    public static Object deleteDatatableEntries(final RequestSpecification requestSpec, final ResponseSpecification responseSpec,
+            final String datatableName, final Integer apptableId) {
+        return Utils.performServerDelete(requestSpec, responseSpec, DATATABLE_URL + "/" + datatableName + "/" + apptableId + "?"
+                + Utils.TENANT_IDENTIFIER, "resourceId");
+    }
+
+    public static Object deleteDatatable(final RequestSpecification requestSpec, final ResponseSpecification responseSpec,
+            final String datatableName) {
+        System.out.println("---------------------------------DELETING DATATABLE " + datatableName + "-----------------------------------");
+        return Utils.performServerDelete(requestSpec, responseSpec, DATATABLE_URL + "/" + datatableName + "?" + Utils.TENANT_IDENTIFIER,
+                "resourceIdentifier");
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.core.service.TomcatJdbcDataSourcePerTenantService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lookup of the tenant's datasource as done for every connection
+ * ({@link TomcatJdbcDataSourcePerTenantService#retrieveDataSource()}), by
+ * request threads spread over a number of tenants. The pools are created but
+ * never connected, so no database is needed.
+ *
+ * Each lookup is measured with 1, 4 and 16 request threads, against the
+ * lookup through one synchronized map it replaced ({@link SynchronizedLookup})
+ * as the baseline. Contention on the lock only shows with as many cores as
+ * threads; on one thread the baseline is faster, as it does not read the clock
+ * to record the last use of the pool for its eviction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TenantDataSourceLookupBenchmark {
+
+    @Param({ "1", "50" })
+    private int tenants;
+
+    private TomcatJdbcDataSourcePerTenantService dataSourceService;
+    private SynchronizedLookup synchronizedLookup;
+    private MifosPlatformTenant[] platformTenants;
+
+    @Setup
+    public void setUp() {
+        this.dataSourceService = new TomcatJdbcDataSourcePerTenantService(new org.apache.tomcat.jdbc.pool.DataSource());
+        this.synchronizedLookup = new SynchronizedLookup(new org.apache.tomcat.jdbc.pool.DataSource());
+        this.platformTenants = new MifosPlatformTenant[this.tenants];
+        for (int i = 0; i < this.tenants; i++) {
+            this.platformTenants[i] = new MifosPlatformTenant(Long.valueOf(i + 1), "tenant" + i, "Tenant " + i, "mifostenant-" + i,
+                    "localhost", "3306", "root", "mysql", "Asia/Kolkata", false, 5, false, 30000, false, 800, false, 50, 40, 10, 20, 60,
+                    34000, 60000, 3, 1);
+        }
+    }
+
+    /**
+     * The tenant of the requests of one thread.
+     */
+    @State(Scope.Thread)
+    public static class RequestThread {
+
+        @Setup
+        public void setUp(final TenantDataSourceLookupBenchmark benchmark) {
+            final MifosPlatformTenant[] tenants = benchmark.platformTenants;
+            ThreadLocalContextUtil.setTenant(tenants[ThreadLocalRandom.current().nextInt(tenants.length)]);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DataSource retrieveDataSource1Thread(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.dataSourceService.retrieveDataSource();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DataSource retrieveDataSource4Threads(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.dataSourceService.retrieveDataSource();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public DataSource retrieveDataSource16Threads(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.dataSourceService.retrieveDataSource();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public DataSource synchronizedLookup1Thread(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.synchronizedLookup.retrieveDataSource();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DataSource synchronizedLookup4Threads(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.synchronizedLookup.retrieveDataSource();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public DataSource synchronizedLookup16Threads(@SuppressWarnings("unused") final RequestThread requestThread) {
+        return this.synchronizedLookup.retrieveDataSource();
+    }
+
+    /**
+     * The lookup of {@link TomcatJdbcDataSourcePerTenantService} before it was
+     * made lock-free: every lookup takes the lock of the map of all tenants.
+     * Pools are created unconfigured, which only matters to the first lookup
+     * of each tenant.
+     */
+    static final class SynchronizedLookup {
+
+        private final Map<Long, DataSource> tenantToDataSourceMap = new HashMap<>(1);
+        private final DataSource tenantDataSource;
+
+        SynchronizedLookup(final DataSource tenantDataSource) {
+            this.tenantDataSource = tenantDataSource;
+        }
+
+        DataSource retrieveDataSource() {
+            DataSource tenantDataSource = this.tenantDataSource;
+
+            final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+            if (tenant != null) {
+                synchronized (this.tenantToDataSourceMap) {
+                    if (this.tenantToDataSourceMap.containsKey(tenant.getId())) {
+                        tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
+                    } else {
+                        tenantDataSource = new org.apache.tomcat.jdbc.pool.DataSource();
+                        this.tenantToDataSourceMap.put(tenant.getId(), tenantDataSource);
+                    }
+                }
+            }
+
+            return tenantDataSource;
+        }
+    }
+}
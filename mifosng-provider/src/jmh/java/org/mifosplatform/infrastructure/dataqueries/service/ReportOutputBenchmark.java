@@ -0,0 +1,131 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing of report rows as done by the CSV and JSON report endpoints
+ * ({@link GenericResultsetCursor#writeTo(GenericResultsetWriter)}), without
+ * the database. Kept in the package of the (package private) writers.
+ *
+ * The gradle jmh task runs it with '-prof gc'. As no row is kept once
+ * written, the allocation per operation grows with the rows but the heap
+ * needed does not: the million rows case also runs with a small heap, e.g.
+ * -PjmhArgs="ReportOutputBenchmark -p rows=1000000 -jvmArgsAppend -Xmx64m".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReportOutputBenchmark {
+
+    public enum Format {
+        CSV, JSON, GENERIC_RESULTSET_JSON
+    }
+
+    @Param({ "CSV", "JSON", "GENERIC_RESULTSET_JSON" })
+    private Format format;
+
+    @Param({ "1000", "100000", "1000000" })
+    private int rows;
+
+    private final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>();
+    private final String[] columnValues = new String[8];
+
+    @Setup
+    public void setUp() {
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("id", "BIGINT"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Office", "VARCHAR"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Client Name", "VARCHAR"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Loan Account No", "VARCHAR"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Disbursed On", "DATE"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Principal", "DECIMAL"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Outstanding", "DECIMAL"));
+        this.columnHeaders.add(ResultsetColumnHeaderData.basic("Note", "VARCHAR"));
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        final CountingWriter out = new CountingWriter();
+        final GenericResultsetWriter writer = writerFor(out);
+        final List<String> row = Arrays.asList(this.columnValues);
+
+        writer.writeColumnHeaders(this.columnHeaders);
+        for (int i = 0; i < this.rows; i++) {
+            this.columnValues[0] = Integer.toString(i);
+            this.columnValues[1] = "Head Office";
+            this.columnValues[2] = "Client \"" + (i % 100) + "\"";
+            this.columnValues[3] = "000000" + i;
+            this.columnValues[4] = "2014-06-01";
+            this.columnValues[5] = "10000.000000";
+            this.columnValues[6] = i % 3 == 0 ? null : "2500.500000";
+            this.columnValues[7] = "line one\nline, two";
+            writer.writeRow(row);
+        }
+        writer.finish();
+        return out.count;
+    }
+
+    private GenericResultsetWriter writerFor(final Writer out) {
+        switch (this.format) {
+            case CSV:
+                return new GenericResultsetCsvWriter(out);
+            case JSON:
+                return new GenericResultsetJsonWriter(out);
+            default:
+                return new GenericResultsetDataJsonWriter(out, false);
+        }
+    }
+
+    /**
+     * Discards the output, as the servlet response would once sent.
+     */
+    private static final class CountingWriter extends Writer {
+
+        private long count;
+
+        @Override
+        public void write(final char[] buffer, final int offset, final int length) {
+            this.count += length;
+        }
+
+        @Override
+        public void write(final String text, final int offset, final int length) {
+            this.count += length;
+        }
+
+        @Override
+        public void flush() {
+            // nothing buffered
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.organisation.monetary.benchmark;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@link Money} arithmetic of a declining balance amortization (interest
+ * on the outstanding balance, principal as the rest of the installment and
+ * running totals), without the date handling of the schedule generators.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final MathContext MATH_CONTEXT = new MathContext(8, RoundingMode.HALF_EVEN);
+
+    @Param({ "USD", "IDR" })
+    private String currencyCode;
+
+    @Param({ "360" })
+    private int numberOfRepayments;
+
+    private final BigDecimal periodicInterestRate = BigDecimal.valueOf(2).divide(BigDecimal.valueOf(100), MATH_CONTEXT);
+
+    @Benchmark
+    public Money decliningBalanceAmortization() {
+        // IDR has no decimals and is rounded to multiples of 100
+        final MonetaryCurrency currency = "IDR".equals(this.currencyCode) ? new MonetaryCurrency("IDR", 0, 100) : new MonetaryCurrency(
+                "USD", 2, null);
+        final Money principal = Money.of(currency, BigDecimal.valueOf(100000000));
+        final Money installmentAmount = principal.multiplyRetainScale(this.periodicInterestRate, RoundingMode.HALF_EVEN).plus(
+                principal.dividedBy(this.numberOfRepayments, RoundingMode.HALF_EVEN));
+
+        Money outstandingBalance = principal;
+        Money totalInterest = principal.zero();
+        Money totalPrincipal = principal.zero();
+        for (int period = 1; period <= this.numberOfRepayments && outstandingBalance.isGreaterThanZero(); period++) {
+            final Money interest = outstandingBalance.multiplyRetainScale(this.periodicInterestRate, RoundingMode.HALF_EVEN);
+            Money principalForPeriod = installmentAmount.minus(interest);
+            if (principalForPeriod.isGreaterThan(outstandingBalance) || period == this.numberOfRepayments) {
+                principalForPeriod = outstandingBalance;
+            }
+            outstandingBalance = outstandingBalance.minus(principalForPeriod);
+            totalInterest = totalInterest.plus(interest);
+            totalPrincipal = totalPrincipal.plus(principalForPeriod);
+        }
+        return totalPrincipal.plus(totalInterest);
+    }
+}
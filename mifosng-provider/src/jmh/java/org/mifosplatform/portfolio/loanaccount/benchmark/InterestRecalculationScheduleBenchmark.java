@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.benchmark;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Schedule regeneration of a declining balance loan with interest
+ * recalculation, as done on every repayment of such a loan
+ * ({@link LoanScheduleGenerator#rescheduleNextInstallments} with the loan's
+ * prior repayments). Compare with {@link LoanScheduleGenerationBenchmark} for
+ * the cost of the same loan without interest recalculation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterestRecalculationScheduleBenchmark {
+
+    @Param({ "12", "60", "240" })
+    private int numberOfRepayments;
+
+    @Param({ "1", "4" })
+    private int tranches;
+
+    @Param({ "NONE", "INTEREST_AND_FEE" })
+    private InterestRecalculationCompoundingMethod compounding;
+
+    @Param({ "0", "12" })
+    private int priorTransactions;
+
+    private final Set<LoanCharge> charges = new HashSet<>();
+    private LoanScheduleGenerator generator;
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private List<LoanTransaction> transactions;
+
+    @Setup
+    public void setUp() {
+        this.generator = new DefaultLoanScheduleGeneratorFactory().create(InterestMethod.DECLINING_BALANCE);
+        this.processor = LoanBenchmarkData.processorFor("mifos-standard-strategy");
+
+        final LoanScheduleModel schedule = this.generator.generate(LoanBenchmarkData.MATH_CONTEXT, terms(false), this.charges,
+                LoanBenchmarkData.holidayDetails());
+        this.transactions = LoanBenchmarkData.repaymentsOf(LoanBenchmarkData.installmentsOf(schedule), this.priorTransactions);
+    }
+
+    @Benchmark
+    public LoanScheduleModel rescheduleNextInstallments() {
+        return this.generator.rescheduleNextInstallments(LoanBenchmarkData.MATH_CONTEXT, terms(true), this.charges,
+                LoanBenchmarkData.holidayDetails(), this.transactions, this.processor);
+    }
+
+    private LoanApplicationTerms terms(final boolean interestRecalculation) {
+        return LoanBenchmarkData.loanApplicationTerms(InterestMethod.DECLINING_BALANCE, this.numberOfRepayments, this.tranches,
+                interestRecalculation, this.compounding);
+    }
+}
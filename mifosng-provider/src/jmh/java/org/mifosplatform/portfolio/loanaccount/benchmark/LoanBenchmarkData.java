@@ -0,0 +1,182 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.benchmark;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.organisation.workingdays.domain.RepaymentRescheduleType;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
+import org.mifosplatform.portfolio.common.domain.DayOfWeekType;
+import org.mifosplatform.portfolio.common.domain.DaysInMonthType;
+import org.mifosplatform.portfolio.common.domain.DaysInYearType;
+import org.mifosplatform.portfolio.common.domain.NthDayType;
+import org.mifosplatform.portfolio.common.domain.PeriodFrequencyType;
+import org.mifosplatform.portfolio.loanaccount.data.DisbursementData;
+import org.mifosplatform.portfolio.loanaccount.data.HolidayDetailDTO;
+import org.mifosplatform.portfolio.loanaccount.data.LoanTermVariationsData;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import org.mifosplatform.portfolio.loanproduct.domain.AmortizationMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestCalculationPeriodMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanPreClosureInterestCalculationStrategy;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanProductRelatedDetail;
+import org.mifosplatform.portfolio.loanproduct.domain.LoanRescheduleStrategyMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.RecalculationFrequencyType;
+
+/**
+ * In-memory loans for the benchmarks: a monthly, equal installments loan of
+ * 100 000 USD at 24% a year, disbursed on {@link #DISBURSEMENT_DATE}, without
+ * holidays and with every day a working day.
+ */
+final class LoanBenchmarkData {
+
+    static final MonetaryCurrency CURRENCY = new MonetaryCurrency("USD", 2, null);
+    static final MathContext MATH_CONTEXT = new MathContext(8, RoundingMode.HALF_EVEN);
+    static final LocalDate DISBURSEMENT_DATE = new LocalDate(2014, 1, 6);
+
+    private static final BigDecimal PRINCIPAL = BigDecimal.valueOf(100000);
+
+    private LoanBenchmarkData() {
+        //
+    }
+
+    /**
+     * Schedule generation updates the terms it is given (loan end date and,
+     * for multi-tranche loans, the principal), so every generation needs new
+     * terms.
+     */
+    static LoanApplicationTerms loanApplicationTerms(final InterestMethod interestMethod, final int numberOfRepayments,
+            final int tranches, final boolean interestRecalculation, final InterestRecalculationCompoundingMethod compoundingMethod) {
+
+        final LoanProductRelatedDetail loanProductRelatedDetail = LoanProductRelatedDetail.createFrom(CURRENCY, PRINCIPAL,
+                BigDecimal.valueOf(2), PeriodFrequencyType.MONTHS, BigDecimal.valueOf(24), interestMethod,
+                InterestCalculationPeriodMethod.SAME_AS_REPAYMENT_PERIOD, 1, PeriodFrequencyType.MONTHS, numberOfRepayments, 0, 0, 0,
+                AmortizationMethod.EQUAL_INSTALLMENTS, BigDecimal.ZERO, 0, DaysInMonthType.ACTUAL.getValue(),
+                DaysInYearType.ACTUAL.getValue(), interestRecalculation);
+
+        final List<DisbursementData> disbursementDatas = new ArrayList<>(tranches);
+        if (tranches > 1) {
+            final BigDecimal trancheAmount = PRINCIPAL.divide(BigDecimal.valueOf(tranches));
+            for (int tranche = 0; tranche < tranches; tranche++) {
+                disbursementDatas.add(new DisbursementData(null, DISBURSEMENT_DATE.plusMonths(tranche), null, trancheAmount));
+            }
+        }
+
+        final RecalculationFrequencyType recalculationFrequencyType = interestRecalculation ? RecalculationFrequencyType.SAME_AS_REPAYMENT_PERIOD
+                : null;
+        final InterestRecalculationCompoundingMethod compounding = interestRecalculation ? compoundingMethod : null;
+        final RecalculationFrequencyType compoundingFrequencyType = interestRecalculation && compoundingMethod.isCompoundingEnabled() ? RecalculationFrequencyType.SAME_AS_REPAYMENT_PERIOD
+                : null;
+        final LoanRescheduleStrategyMethod rescheduleStrategyMethod = interestRecalculation ? LoanRescheduleStrategyMethod.REDUCE_EMI_AMOUNT
+                : null;
+        final LoanPreClosureInterestCalculationStrategy preClosureInterestCalculationStrategy = interestRecalculation ? LoanPreClosureInterestCalculationStrategy.TILL_PRE_CLOSURE_DATE
+                : null;
+
+        final LocalDate repaymentsStartingFromDate = null;
+        final LocalDate calculatedRepaymentsStartingFromDate = null;
+        final LocalDate interestChargedFromDate = null;
+        return LoanApplicationTerms.assembleFrom(applicationCurrency(), numberOfRepayments, PeriodFrequencyType.MONTHS,
+                NthDayType.INVALID, DayOfWeekType.INVALID, DISBURSEMENT_DATE, repaymentsStartingFromDate,
+                calculatedRepaymentsStartingFromDate, Money.zero(CURRENCY), loanProductRelatedDetail, tranches > 1, null,
+                disbursementDatas, PRINCIPAL, new ArrayList<LoanTermVariationsData>(), interestChargedFromDate, null, null,
+                recalculationFrequencyType, null, compounding, null, compoundingFrequencyType, preClosureInterestCalculationStrategy,
+                rescheduleStrategyMethod);
+    }
+
+    /**
+     * Schedule generation may switch the rescheduling type of the working
+     * days, so every generation needs new holiday details.
+     */
+    static HolidayDetailDTO holidayDetails() {
+        final WorkingDays workingDays = new WorkingDays("FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR,SA,SU",
+                RepaymentRescheduleType.SAME_DAY.getValue(), false) {
+            //
+        };
+        return new HolidayDetailDTO(false, new ArrayList<Holiday>(), workingDays);
+    }
+
+    static List<LoanRepaymentScheduleInstallment> installmentsOf(final LoanScheduleModel loanScheduleModel) {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (final LoanScheduleModelPeriod period : loanScheduleModel.getPeriods()) {
+            if (period.isRepaymentPeriod()) {
+                installments.add(new LoanRepaymentScheduleInstallment(null, period.periodNumber(), period.periodFromDate(), period
+                        .periodDueDate(), period.principalDue(), period.interestDue(), period.feeChargesDue(), period
+                        .penaltyChargesDue(), period.isRecalculatedInterestComponent()));
+            }
+        }
+        return installments;
+    }
+
+    /**
+     * @return on time repayments of the first <code>count</code> installments
+     *         (or of all of them if the schedule is shorter).
+     */
+    static List<LoanTransaction> repaymentsOf(final List<LoanRepaymentScheduleInstallment> installments, final int count) {
+        final int repayments = Math.min(count, installments.size());
+        final List<LoanTransaction> transactions = new ArrayList<>(repayments);
+        for (int i = 0; i < repayments; i++) {
+            final LoanRepaymentScheduleInstallment installment = installments.get(i);
+            final Money amount = installment.getPrincipal(CURRENCY).plus(installment.getInterestCharged(CURRENCY));
+            transactions.add(LoanTransaction.repayment(null, amount, null, installment.getDueDate(), null, new LocalDateTime(), null));
+        }
+        return transactions;
+    }
+
+    /**
+     * @param strategy
+     *            the code of a loan transaction processing strategy
+     */
+    static LoanRepaymentScheduleTransactionProcessor processorFor(final String strategy) {
+        switch (strategy) {
+            case "mifos-standard-strategy":
+                return new MifosStyleLoanRepaymentScheduleTransactionProcessor();
+            case "heavensfamily-strategy":
+                return new HeavensFamilyLoanRepaymentScheduleTransactionProcessor();
+            case "early-repayment-strategy":
+                return new EarlyPaymentLoanRepaymentScheduleTransactionProcessor();
+            case "creocore-strategy":
+                return new CreocoreLoanRepaymentScheduleTransactionProcessor();
+            case "rbi-india-strategy":
+                return new RBILoanRepaymentScheduleTransactionProcessor();
+            case "principal-interest-penalties-fees-order-strategy":
+                return new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            case "interest-principal-penalties-fees-order-strategy":
+                return new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor();
+            default:
+                throw new IllegalArgumentException("Unknown loan transaction processing strategy: " + strategy);
+        }
+    }
+
+    private static ApplicationCurrency applicationCurrency() {
+        // the schedule only hands it on to its data representation
+        return new ApplicationCurrency() {
+            //
+        };
+    }
+}
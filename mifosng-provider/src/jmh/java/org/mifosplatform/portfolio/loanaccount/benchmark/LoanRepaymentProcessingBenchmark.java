@@ -0,0 +1,91 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.portfolio.loanaccount.domain.ChangedTransactionDetail;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reprocessing of a loan's repayments over its schedule, as done by every
+ * repayment, adjustment and undo, for each of the loan transaction processing
+ * strategies.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanRepaymentProcessingBenchmark {
+
+    @Param({ "mifos-standard-strategy", "heavensfamily-strategy", "early-repayment-strategy", "creocore-strategy", "rbi-india-strategy",
+            "principal-interest-penalties-fees-order-strategy", "interest-principal-penalties-fees-order-strategy" })
+    private String strategy;
+
+    @Param({ "12", "60", "240" })
+    private int numberOfRepayments;
+
+    @Param({ "1", "6", "12" })
+    private int priorTransactions;
+
+    private final Set<LoanCharge> charges = new HashSet<>();
+    private LoanRepaymentScheduleTransactionProcessor processor;
+    private List<LoanRepaymentScheduleInstallment> installments;
+    private List<LoanTransaction> transactions;
+
+    @Setup
+    public void setUp() {
+        this.processor = LoanBenchmarkData.processorFor(this.strategy);
+
+        final LoanScheduleModel schedule = new DefaultLoanScheduleGeneratorFactory().create(InterestMethod.DECLINING_BALANCE).generate(
+                LoanBenchmarkData.MATH_CONTEXT,
+                LoanBenchmarkData.loanApplicationTerms(InterestMethod.DECLINING_BALANCE, this.numberOfRepayments, 1, false,
+                        InterestRecalculationCompoundingMethod.NONE), this.charges, LoanBenchmarkData.holidayDetails());
+        this.installments = LoanBenchmarkData.installmentsOf(schedule);
+        this.transactions = LoanBenchmarkData.repaymentsOf(this.installments, this.priorTransactions);
+    }
+
+    /**
+     * The installments are reset by the processor itself; the transactions are
+     * copied (as the processor does for persisted transactions) so that every
+     * invocation starts from the same state.
+     */
+    @Benchmark
+    public ChangedTransactionDetail reprocessRepayments() {
+        final List<LoanTransaction> repayments = new ArrayList<>(this.transactions.size());
+        for (final LoanTransaction transaction : this.transactions) {
+            final LoanTransaction repayment = LoanTransaction.copyTransactionProperties(transaction);
+            repayment.resetDerivedComponents();
+            repayments.add(repayment);
+        }
+        return this.processor.handleTransaction(LoanBenchmarkData.DISBURSEMENT_DATE, repayments, LoanBenchmarkData.CURRENCY,
+                this.installments, this.charges);
+    }
+}
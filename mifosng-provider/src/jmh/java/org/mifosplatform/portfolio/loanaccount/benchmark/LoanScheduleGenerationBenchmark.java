@@ -0,0 +1,67 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.benchmark;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.DefaultLoanScheduleGeneratorFactory;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanApplicationTerms;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleGenerator;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestMethod;
+import org.mifosplatform.portfolio.loanproduct.domain.InterestRecalculationCompoundingMethod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Schedule generation as done on loan creation, disbursement and schedule
+ * previews ({@link LoanScheduleGenerator#generate}), for single and
+ * multi-tranche loans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoanScheduleGenerationBenchmark {
+
+    @Param({ "12", "60", "240", "360" })
+    private int numberOfRepayments;
+
+    @Param({ "DECLINING_BALANCE", "FLAT" })
+    private InterestMethod interestMethod;
+
+    @Param({ "1", "4" })
+    private int tranches;
+
+    private final Set<LoanCharge> charges = new HashSet<>();
+    private LoanScheduleGenerator generator;
+
+    @Setup
+    public void setUp() {
+        this.generator = new DefaultLoanScheduleGeneratorFactory().create(this.interestMethod);
+    }
+
+    @Benchmark
+    public LoanScheduleModel generate() {
+        final LoanApplicationTerms terms = LoanBenchmarkData.loanApplicationTerms(this.interestMethod, this.numberOfRepayments,
+                this.tranches, false, InterestRecalculationCompoundingMethod.NONE);
+        return this.generator.generate(LoanBenchmarkData.MATH_CONTEXT, terms, this.charges, LoanBenchmarkData.holidayDetails());
+    }
+}
@@ -235,7 +235,7 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
         GLJournalEntryMapper rm = new GLJournalEntryMapper(associationParametersData);
         final StringBuilder sqlBuilder = new StringBuilder(200);
-        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
+        sqlBuilder.append(PaginationHelper.selectSql(searchParameters.isTotalCountRequested()));
         sqlBuilder.append(rm.schema());
 
         final Object[] objectArray = new Object[15];
@@ -341,6 +341,14 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
             whereClose = " and ";
         }
 
+        if (searchParameters.isPageTokenPassed()) {
+            sqlBuilder.append(whereClose + searchParameters.pageTokenSql("journalEntry.id"));
+            objectArray[arrayPos] = searchParameters.getPageTokenLastId();
+            arrayPos = arrayPos + 1;
+
+            whereClose = " and ";
+        }
+
         if (searchParameters.isOrderByRequested()) {
             sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
 
@@ -360,7 +368,8 @@ public class JournalEntryReadPlatformServiceImpl implements JournalEntryReadPlat
 
         final Object[] finalObjectArray = Arrays.copyOf(objectArray, arrayPos);
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray, rm);
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray, rm,
+                searchParameters.isTotalCountRequested(), searchParameters.getPageTokenLimit());
     }
 
     @Override
@@ -8,22 +8,17 @@ package org.mifosplatform.accounting.journalentry.service;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import org.mifosplatform.accounting.common.AccountingEnumerations;
 import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
 import org.mifosplatform.accounting.journalentry.api.JournalEntryJsonInputParams;
-import org.mifosplatform.accounting.journalentry.data.JournalEntryData;
 import org.mifosplatform.accounting.journalentry.data.JournalEntryDataValidator;
 import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
-import org.mifosplatform.infrastructure.core.data.EnumOptionData;
-import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
@@ -34,26 +29,37 @@ import org.mifosplatform.organisation.office.exception.OfficeNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 @Service
 public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntryRunningBalanceUpdateService {
 
     private final static Logger logger = LoggerFactory.getLogger(JournalEntryRunningBalanceUpdateServiceImpl.class);
 
+    /**
+     * Number of journal entries whose running balances are written (and
+     * committed) together.
+     */
+    public final static String CHUNK_SIZE = "mifos.accounting.runningBalance.chunkSize";
+    @Value("${" + CHUNK_SIZE + ":1000}")
+    private int chunkSize = 1000;
+
     private final JdbcTemplate jdbcTemplate;
 
+    private final JpaTransactionManager transactionManager;
+
     private final OfficeRepository officeRepository;
 
     private final JournalEntryDataValidator dataValidator;
 
     private final FromJsonHelper fromApiJsonHelper;
-
-    private final GLJournalEntryMapper entryMapper = new GLJournalEntryMapper();
     
     // if a limit is not added to the running balance select statements below and the resultset is more than 400,000, 
     // the script will eat up all of the server memory
@@ -77,8 +83,10 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
 
     @Autowired
     public JournalEntryRunningBalanceUpdateServiceImpl(final RoutingDataSource dataSource, final OfficeRepository officeRepository,
-            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper) {
+            final JournalEntryDataValidator dataValidator, final FromJsonHelper fromApiJsonHelper,
+            final JpaTransactionManager transactionManager) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionManager = transactionManager;
         this.officeRepository = officeRepository;
         this.dataValidator = dataValidator;
         this.fromApiJsonHelper = fromApiJsonHelper;
@@ -123,102 +131,147 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
         return commandProcessingResultBuilder.build();
     }
 
-    @Transactional
-    private void updateOrganizationRunningBalance(Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
-        Map<Long, Map<Long, BigDecimal>> officesRunningBalance = new HashMap<>();
+    /**
+     * Walks all journal entries from <code>entityDate</code> on in (entry
+     * date, id) order, one chunk of {@link #CHUNK_SIZE} entries at a time,
+     * and stores the organization and office running balance of every entry.
+     * Each chunk is committed on its own, so an interrupted run only leaves
+     * entries for the next run that are still flagged as not calculated.
+     */
+    private void updateOrganizationRunningBalance(final Date entityDate) {
+        final RunningBalanceMap organizationBalances = new RunningBalanceMap();
+        final RunningBalanceMap officeBalances = new RunningBalanceMap();
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(organizationRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : list) {
-            Long accountId = (Long) entries.get("accountId");
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+        this.jdbcTemplate.query(this.organizationRunningBalanceSql, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                organizationBalances.putIfAbsent(RunningBalanceMap.ORGANIZATION, rs.getLong("accountId"),
+                        rs.getBigDecimal("runningBalance"));
             }
-        }
+        }, entityDate, entityDate);
 
-        List<Map<String, Object>> officesRunningBalanceList = jdbcTemplate.queryForList(officesRunningBalanceSql, entityDate, entityDate);
-        for (Map<String, Object> entries : officesRunningBalanceList) {
-            Long accountId = (Long) entries.get("accountId");
-            Long officeId = (Long) entries.get("officeId");
-            Map<Long, BigDecimal> runningBalance = null;
-            if (officesRunningBalance.containsKey(officeId)) {
-                runningBalance = officesRunningBalance.get(officeId);
-            } else {
-                runningBalance = new HashMap<>();
-                officesRunningBalance.put(officeId, runningBalance);
+        this.jdbcTemplate.query(this.officesRunningBalanceSql, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                officeBalances.putIfAbsent(rs.getLong("officeId"), rs.getLong("accountId"), rs.getBigDecimal("runningBalance"));
             }
-            if (!runningBalance.containsKey(accountId)) {
-                runningBalance.put(accountId, (BigDecimal) entries.get("runningBalance"));
+        }, entityDate, entityDate);
+
+        final String updateSql = "UPDATE acc_gl_journal_entry SET is_running_balance_calculated=1, organization_running_balance=?, "
+                + "office_running_balance=? WHERE id=?";
+        updateRunningBalances(entityDate, null, updateSql, new RunningBalanceCalculator() {
+
+            @Override
+            public Object[] updateArguments(final long id, final long officeId, final long accountId, final BigDecimal amount,
+                    final boolean isIncrease) {
+                final BigDecimal officeRunningBalance = calculateRunningBalance(officeBalances, officeId, accountId, amount, isIncrease);
+                final BigDecimal runningBalance = calculateRunningBalance(organizationBalances, RunningBalanceMap.ORGANIZATION, accountId,
+                        amount, isIncrease);
+                return new Object[] { runningBalance, officeRunningBalance, id };
             }
-        }
+        });
+    }
 
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.organizationRunningBalanceSchema(), entryMapper,
-                new Object[] { entityDate });
-        if (entryDatas.size() > 0) {
-            // run a batch update of 1000 SQL statements at a time
-            final Integer batchUpdateSize = 1000;
-            final Integer batchUpdateSizeMinusOne = batchUpdateSize - 1;
-            String[] updateSql = new String[batchUpdateSize];
-            int i = 0;
-            for (JournalEntryData entryData : entryDatas) {
-                Map<Long, BigDecimal> officeRunningBalanceMap = null;
-                if (officesRunningBalance.containsKey(entryData.getOfficeId())) {
-                    officeRunningBalanceMap = officesRunningBalance.get(entryData.getOfficeId());
-                } else {
-                    officeRunningBalanceMap = new HashMap<>();
-                    officesRunningBalance.put(entryData.getOfficeId(), officeRunningBalanceMap);
-                }
-                BigDecimal officeRunningBalance = calculateRunningBalance(entryData, officeRunningBalanceMap);
-                BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-                String sql = "UPDATE acc_gl_journal_entry je SET je.is_running_balance_calculated=1, je.organization_running_balance="
-                        + runningBalance + ",je.office_running_balance=" + officeRunningBalance + " WHERE  je.id=" + entryData.getId();
-                updateSql[i++] = sql;
-                
-                if (i == batchUpdateSizeMinusOne) {
-                    // run a batch update of the 1000 update SQL statements
-                    this.jdbcTemplate.batchUpdate(updateSql);
-                    
-                    // reset counter and string array
-                    i = 0;
-                    updateSql = new String[batchUpdateSize];
-                }
+    private void updateRunningBalance(final Long officeId, final Date entityDate) {
+        final RunningBalanceMap officeBalances = new RunningBalanceMap();
+
+        this.jdbcTemplate.query(this.officeRunningBalanceSql, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                officeBalances.putIfAbsent(officeId, rs.getLong("accountId"), rs.getBigDecimal("runningBalance"));
             }
-            this.jdbcTemplate.batchUpdate(updateSql);
-        }
+        }, officeId, entityDate, officeId, entityDate);
+
+        final String updateSql = "UPDATE acc_gl_journal_entry SET office_running_balance=? WHERE id=?";
+        updateRunningBalances(entityDate, officeId, updateSql, new RunningBalanceCalculator() {
 
+            @Override
+            public Object[] updateArguments(final long id, final long entryOfficeId, final long accountId, final BigDecimal amount,
+                    final boolean isIncrease) {
+                final BigDecimal runningBalance = calculateRunningBalance(officeBalances, entryOfficeId, accountId, amount, isIncrease);
+                return new Object[] { runningBalance, id };
+            }
+        });
     }
 
-    @Transactional
-    private void updateRunningBalance(Long officeId, Date entityDate) {
-        Map<Long, BigDecimal> runningBalanceMap = new HashMap<>(5);
+    /**
+     * Reads the journal entries (of the office, if given) from
+     * <code>entityDate</code> on with keyset pagination on (entry date, id)
+     * and writes the running balances of each chunk with one batched prepared
+     * statement in a transaction of its own.
+     */
+    private void updateRunningBalances(final Date entityDate, final Long officeId, final String updateSql,
+            final RunningBalanceCalculator calculator) {
+        final int chunkSize = Math.max(this.chunkSize, 1);
+
+        final StringBuilder sqlBuilder = new StringBuilder(400);
+        sqlBuilder.append("select je.id as id, je.account_id as glAccountId, je.type_enum as entryType, je.amount as amount, ")
+                .append("glAccount.classification_enum as classification, je.office_id as officeId, je.entry_date as entryDate ")
+                .append("from acc_gl_journal_entry je inner join acc_gl_account glAccount on glAccount.id = je.account_id ")
+                .append("where (je.entry_date > ? or (je.entry_date = ? and je.id > ?)) ");
+        if (officeId != null) {
+            sqlBuilder.append("and je.office_id = ? ");
+        }
+        sqlBuilder.append("order by je.entry_date, je.id limit ").append(chunkSize);
+        final String chunkSql = sqlBuilder.toString();
 
-        List<Map<String, Object>> list = jdbcTemplate.queryForList(officeRunningBalanceSql, officeId, entityDate, officeId, entityDate);
-        for (Map<String, Object> entries : list) {
-            Long accountId = (Long) entries.get("accountId");
-            if (!runningBalanceMap.containsKey(accountId)) {
-                runningBalanceMap.put(accountId, (BigDecimal) entries.get("runningBalance"));
+        final List<Object[]> batchArgs = new ArrayList<>(chunkSize);
+        // (entry date, id) of the last entry read, ids start at one
+        final Object[] cursor = new Object[] { entityDate, Long.valueOf(0) };
+        final RowCallbackHandler entryHandler = new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final long id = rs.getLong("id");
+                final boolean isIncrease = isIncrease(rs.getInt("classification"), rs.getInt("entryType"));
+                batchArgs.add(calculator.updateArguments(id, rs.getLong("officeId"), rs.getLong("glAccountId"),
+                        rs.getBigDecimal("amount"), isIncrease));
+                cursor[0] = rs.getDate("entryDate");
+                cursor[1] = id;
             }
+        };
+
+        do {
+            batchArgs.clear();
+            if (officeId == null) {
+                this.jdbcTemplate.query(chunkSql, entryHandler, cursor[0], cursor[0], cursor[1]);
+            } else {
+                this.jdbcTemplate.query(chunkSql, entryHandler, cursor[0], cursor[0], cursor[1], officeId);
+            }
+            if (!batchArgs.isEmpty()) {
+                final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+                try {
+                    this.jdbcTemplate.batchUpdate(updateSql, batchArgs);
+                } catch (final RuntimeException e) {
+                    this.transactionManager.rollback(transactionStatus);
+                    throw e;
+                }
+                this.transactionManager.commit(transactionStatus);
+            }
+        } while (batchArgs.size() == chunkSize);
+    }
+
+    private static BigDecimal calculateRunningBalance(final RunningBalanceMap runningBalances, final long officeId, final long accountId,
+            final BigDecimal amount, final boolean isIncrease) {
+        BigDecimal runningBalance = runningBalances.get(officeId, accountId);
+        if (runningBalance == null) {
+            runningBalance = BigDecimal.ZERO;
         }
-        List<JournalEntryData> entryDatas = jdbcTemplate.query(entryMapper.officeRunningBalanceSchema(), entryMapper, new Object[] {
-                officeId, entityDate });
-        String[] updateSql = new String[entryDatas.size()];
-        int i = 0;
-        for (JournalEntryData entryData : entryDatas) {
-            BigDecimal runningBalance = calculateRunningBalance(entryData, runningBalanceMap);
-            String sql = "UPDATE acc_gl_journal_entry je SET je.office_running_balance=" + runningBalance + " WHERE  je.id="
-                    + entryData.getId();
-            updateSql[i++] = sql;
+        if (isIncrease) {
+            runningBalance = runningBalance.add(amount);
+        } else {
+            runningBalance = runningBalance.subtract(amount);
         }
-        this.jdbcTemplate.batchUpdate(updateSql);
+        runningBalances.put(officeId, accountId, runningBalance);
+        return runningBalance;
     }
 
-    private BigDecimal calculateRunningBalance(JournalEntryData entry, Map<Long, BigDecimal> runningBalanceMap) {
-        BigDecimal runningBalance = BigDecimal.ZERO;
-        if (runningBalanceMap.containsKey(entry.getGlAccountId())) {
-            runningBalance = runningBalanceMap.get(entry.getGlAccountId());
-        }
-        GLAccountType accounttype = GLAccountType.fromInt(entry.getGlAccountType().getId().intValue());
-        JournalEntryType entryType = JournalEntryType.fromInt(entry.getEntryType().getId().intValue());
+    private static boolean isIncrease(final int accountTypeId, final int entryTypeId) {
+        GLAccountType accounttype = GLAccountType.fromInt(accountTypeId);
+        JournalEntryType entryType = JournalEntryType.fromInt(entryTypeId);
         boolean isIncrease = false;
         switch (accounttype) {
             case ASSET:
@@ -247,46 +300,16 @@ public class JournalEntryRunningBalanceUpdateServiceImpl implements JournalEntry
                 }
             break;
         }
-        if (isIncrease) {
-            runningBalance = runningBalance.add(entry.getAmount());
-        } else {
-            runningBalance = runningBalance.subtract(entry.getAmount());
-        }
-        runningBalanceMap.put(entry.getGlAccountId(), runningBalance);
-        return runningBalance;
+        return isIncrease;
     }
 
-    private static final class GLJournalEntryMapper implements RowMapper<JournalEntryData> {
-
-        public String officeRunningBalanceSchema() {
-            return "select je.id as id,je.account_id as glAccountId,je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId "
-                    + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.office_id=? and je.entry_date >= ? order by je.entry_date,je.id";
-        }
-
-        public String organizationRunningBalanceSchema() {
-            return "select je.id as id,je.account_id as glAccountId," + "je.type_enum as entryType,je.amount as amount, "
-                    + "glAccount.classification_enum as classification,je.office_id as officeId  "
-                    + "from acc_gl_journal_entry je , acc_gl_account glAccount " + "where je.account_id = glAccount.id "
-                    + "and je.entry_date >= ? order by je.entry_date,je.id";
-        }
-
-        @Override
-        public JournalEntryData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+    /**
+     * Computes the running balance(s) of one journal entry and returns the
+     * arguments of its update statement.
+     */
+    private interface RunningBalanceCalculator {
 
-            final Long id = rs.getLong("id");
-            final Long glAccountId = rs.getLong("glAccountId");
-            final Long officeId = rs.getLong("officeId");
-            final int accountTypeId = JdbcSupport.getInteger(rs, "classification");
-            final EnumOptionData accountType = AccountingEnumerations.gLAccountType(accountTypeId);
-            final BigDecimal amount = rs.getBigDecimal("amount");
-            final int entryTypeId = JdbcSupport.getInteger(rs, "entryType");
-            final EnumOptionData entryType = AccountingEnumerations.journalEntryType(entryTypeId);
-
-            return new JournalEntryData(id, officeId, null, null, glAccountId, null, accountType, null, entryType, amount, null, null,
-                    null, null, null, null, null, null, null, null, null, null, null, null, null);
-        }
+        Object[] updateArguments(long id, long officeId, long accountId, BigDecimal amount, boolean isIncrease);
     }
 
 }
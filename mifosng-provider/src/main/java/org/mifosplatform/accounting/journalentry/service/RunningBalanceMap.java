@@ -0,0 +1,97 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Running balances keyed by office and GL account id, held in primitive arrays
+ * (open addressing) so that walking millions of journal entries does not box a
+ * key for every lookup.
+ */
+final class RunningBalanceMap {
+
+    /**
+     * Office id under which organization wide balances are kept; ids of
+     * offices start at one.
+     */
+    static final long ORGANIZATION = 0;
+
+    private long[] officeIds;
+    private long[] accountIds;
+    private BigDecimal[] balances;
+    private int size;
+
+    RunningBalanceMap() {
+        allocate(64);
+    }
+
+    BigDecimal get(final long officeId, final long accountId) {
+        final int mask = this.balances.length - 1;
+        int slot = hash(officeId, accountId) & mask;
+        while (this.balances[slot] != null) {
+            if (this.officeIds[slot] == officeId && this.accountIds[slot] == accountId) { return this.balances[slot]; }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    void put(final long officeId, final long accountId, final BigDecimal balance) {
+        put(officeId, accountId, balance, true);
+    }
+
+    void putIfAbsent(final long officeId, final long accountId, final BigDecimal balance) {
+        put(officeId, accountId, balance, false);
+    }
+
+    private void put(final long officeId, final long accountId, final BigDecimal balance, final boolean replace) {
+        if (balance == null) { return; }
+        final int mask = this.balances.length - 1;
+        int slot = hash(officeId, accountId) & mask;
+        while (this.balances[slot] != null) {
+            if (this.officeIds[slot] == officeId && this.accountIds[slot] == accountId) {
+                if (replace) {
+                    this.balances[slot] = balance;
+                }
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        this.officeIds[slot] = officeId;
+        this.accountIds[slot] = accountId;
+        this.balances[slot] = balance;
+        if (++this.size * 2 > this.balances.length) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        final long[] oldOfficeIds = this.officeIds;
+        final long[] oldAccountIds = this.accountIds;
+        final BigDecimal[] oldBalances = this.balances;
+        allocate(oldBalances.length * 2);
+        for (int i = 0; i < oldBalances.length; i++) {
+            if (oldBalances[i] != null) {
+                put(oldOfficeIds[i], oldAccountIds[i], oldBalances[i], true);
+            }
+        }
+    }
+
+    private void allocate(final int capacity) {
+        this.officeIds = new long[capacity];
+        this.accountIds = new long[capacity];
+        this.balances = new BigDecimal[capacity];
+        this.size = 0;
+    }
+
+    static int hash(final long officeId, final long accountId) {
+        long h = officeId * 0x9E3779B97F4A7C15L + accountId;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
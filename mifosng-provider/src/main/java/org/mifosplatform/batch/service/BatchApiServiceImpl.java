@@ -6,9 +6,25 @@
 package org.mifosplatform.batch.service;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
-
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
@@ -21,7 +37,12 @@ import org.mifosplatform.batch.domain.BatchResponse;
 import org.mifosplatform.batch.exception.ErrorHandler;
 import org.mifosplatform.batch.exception.ErrorInfo;
 import org.mifosplatform.batch.service.ResolutionHelper.BatchRequestNode;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
@@ -30,13 +51,22 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import com.google.gson.Gson;
 
-import edu.emory.mathcs.backport.java.util.Collections;
-
 /**
  * Implementation for {@link BatchApiService} to iterate through all the
  * incoming requests and obtain the appropriate CommandStrategy from
  * CommandStrategyProvider.
  * 
+ * Without an enclosing transaction, independent requests (the root requests
+ * of {@link ResolutionHelper#getDependingRequests}, each together with the
+ * requests depending on it) are executed concurrently on a bounded pool of
+ * threads, in the tenant and security context of the batch request. Root
+ * requests on the same resource (e.g. two repayments of one loan) are not
+ * independent: they are executed one after the other, in order, see
+ * {@link #groupByTargetedResource(List)}. Requests depending on another
+ * request are still executed after it, in order. With an enclosing
+ * transaction all requests are executed on the request thread, in the one
+ * transaction.
+ * 
  * @author Rishabh Shukla
  * 
  * @see org.mifosplatform.batch.domain.BatchRequest
@@ -46,10 +76,25 @@ import edu.emory.mathcs.backport.java.util.Collections;
 @Service
 public class BatchApiServiceImpl implements BatchApiService {
 
+    /**
+     * The resource and id a relative URL starts with, e.g.
+     * <code>loans/12</code> of <code>loans/12/transactions?command=repayment</code>.
+     */
+    private static final Pattern TARGETED_RESOURCE = Pattern.compile("^/?([a-z]+)/(\\d+)(?:[/?]|$)");
+
     private final CommandStrategyProvider strategyProvider;
     private final ResolutionHelper resolutionHelper;
     private final TransactionTemplate transactionTemplate;
-    private List<BatchResponse> checkList = new ArrayList<>();
+
+    public final static String THREADS = "mifos.batch.threads";
+    @Value("${" + THREADS + ":4}")
+    private int threads = 4;
+
+    public final static String QUEUE_CAPACITY = "mifos.batch.queueCapacity";
+    @Value("${" + QUEUE_CAPACITY + ":200}")
+    private int queueCapacity = 200;
+
+    private ThreadPoolExecutor executor;
 
     /**
      * Constructs a 'BatchApiServiceImpl' with an argument of
@@ -67,6 +112,20 @@ public class BatchApiServiceImpl implements BatchApiService {
         this.transactionTemplate = transactionTemplate;
     }
 
+    @PostConstruct
+    public void start() {
+        // a batch runs its requests on the calling thread when the pool is
+        // busy with other batches
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(
+                this.queueCapacity), new NamedDaemonThreadFactory("batch-request"), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.executor.shutdownNow();
+    }
+
     /**
      * Returns the response list by getting a proper
      * {@link org.mifosplatform.batch.command.CommandStrategy}. execute() method
@@ -74,23 +133,24 @@ public class BatchApiServiceImpl implements BatchApiService {
      * 
      * @param requestList
      * @param uriInfo
+     * @param concurrently
+     *            whether independent requests may be executed concurrently
      * @return List<BatchResponse>
      */
-    private List<BatchResponse> handleBatchRequests(final List<BatchRequest> requestList, final UriInfo uriInfo) {
-
-        final List<BatchResponse> responseList = new ArrayList<>(requestList.size());
+    private List<BatchResponse> handleBatchRequests(final List<BatchRequest> requestList, final UriInfo uriInfo,
+            final boolean concurrently) {
 
         final List<BatchRequestNode> batchRequestNodes = this.resolutionHelper.getDependingRequests(requestList);
-        checkList.clear();
-
-        for (BatchRequestNode rootNode : batchRequestNodes) {
-            final BatchRequest rootRequest = rootNode.getRequest();
-            final CommandStrategy commandStrategy = this.strategyProvider.getCommandStrategy(CommandContext
-                    .resource(rootRequest.getRelativeUrl()).method(rootRequest.getMethod()).build());
-            final BatchResponse rootResponse = commandStrategy.execute(rootRequest, uriInfo);
 
-            responseList.add(rootResponse);
-            responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+        final List<BatchResponse> responseList;
+        final List<List<BatchRequestNode>> independentRequests = concurrently ? groupByTargetedResource(batchRequestNodes) : null;
+        if (independentRequests != null && independentRequests.size() > 1) {
+            responseList = this.processRequestsConcurrently(independentRequests, uriInfo);
+        } else {
+            responseList = new ArrayList<>(requestList.size());
+            for (BatchRequestNode rootNode : batchRequestNodes) {
+                responseList.addAll(this.processRequest(rootNode, uriInfo));
+            }
         }
 
         Collections.sort(responseList, new Comparator<BatchResponse>() {
@@ -101,11 +161,156 @@ public class BatchApiServiceImpl implements BatchApiService {
             }
         });
 
-        checkList = responseList;
         return responseList;
 
     }
 
+    /**
+     * Executes the root request and then the requests depending on it.
+     */
+    private List<BatchResponse> processRequest(final BatchRequestNode rootNode, final UriInfo uriInfo) {
+
+        final BatchRequest rootRequest = rootNode.getRequest();
+        final CommandStrategy commandStrategy = this.strategyProvider.getCommandStrategy(CommandContext
+                .resource(rootRequest.getRelativeUrl()).method(rootRequest.getMethod()).build());
+        final BatchResponse rootResponse = commandStrategy.execute(rootRequest, uriInfo);
+
+        final List<BatchResponse> responseList = new ArrayList<>();
+        responseList.add(rootResponse);
+        responseList.addAll(this.processChildRequests(rootNode, rootResponse, uriInfo));
+        return responseList;
+    }
+
+    /**
+     * Executes the root requests of a group one after the other.
+     */
+    private List<BatchResponse> processRequests(final List<BatchRequestNode> rootNodes, final UriInfo uriInfo) {
+        final List<BatchResponse> responseList = new ArrayList<>();
+        for (final BatchRequestNode rootNode : rootNodes) {
+            responseList.addAll(this.processRequest(rootNode, uriInfo));
+        }
+        return responseList;
+    }
+
+    private List<BatchResponse> processRequestsConcurrently(final List<List<BatchRequestNode>> independentRequests, final UriInfo uriInfo) {
+
+        final Thread batchThread = Thread.currentThread();
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final String authToken = ThreadLocalContextUtil.getAuthToken();
+        final SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        final List<Callable<List<BatchResponse>>> tasks = new ArrayList<>(independentRequests.size());
+        for (final List<BatchRequestNode> rootNodes : independentRequests) {
+            tasks.add(new Callable<List<BatchResponse>>() {
+
+                @Override
+                public List<BatchResponse> call() {
+                    if (Thread.currentThread() == batchThread) { return processRequests(rootNodes, uriInfo); }
+
+                    ThreadLocalContextUtil.setTenant(tenant);
+                    ThreadLocalContextUtil.setAuthToken(authToken);
+                    SecurityContextHolder.setContext(securityContext);
+                    try {
+                        return processRequests(rootNodes, uriInfo);
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                        ThreadLocalContextUtil.setAuthToken(null);
+                        ThreadLocalContextUtil.clearTenant();
+                    }
+                }
+            });
+        }
+
+        final List<BatchResponse> responseList = new ArrayList<>();
+        try {
+            for (final Future<List<BatchResponse>> responses : this.executor.invokeAll(tasks)) {
+                responseList.addAll(responses.get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing batch requests", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) { throw (RuntimeException) e.getCause(); }
+            if (e.getCause() instanceof Error) { throw (Error) e.getCause(); }
+            throw new IllegalStateException(e.getCause());
+        }
+        return responseList;
+    }
+
+    /**
+     * Groups the root requests which may change the same resource: the roots
+     * whose request, or one of the requests depending on them, has a relative
+     * URL starting with the same resource and id (e.g. <code>loans/12</code>).
+     * Concurrent changes of one loan, savings account or client would fail on
+     * its version or deadlock, so the roots of a group are executed one after
+     * the other, in the order of the batch. Ids resolved from the response of
+     * a parent request are not known up front; such requests are only grouped
+     * by their parent.
+     * 
+     * @return groups of root requests which can be executed concurrently
+     */
+    static List<List<BatchRequestNode>> groupByTargetedResource(final List<BatchRequestNode> rootNodes) {
+        final List<List<BatchRequestNode>> groups = new ArrayList<>();
+        final List<Set<String>> resourcesOfGroups = new ArrayList<>();
+
+        for (final BatchRequestNode rootNode : rootNodes) {
+            final List<BatchRequestNode> group = new ArrayList<>();
+            final Set<String> resources = new HashSet<>();
+            addTargetedResources(rootNode, resources);
+
+            // merges the groups changing any of the same resources into the
+            // place of the first one, the roots of the merged groups are in
+            // the order of the batch
+            int index = -1;
+            int otherIndex = 0;
+            final Iterator<List<BatchRequestNode>> groupIterator = groups.iterator();
+            final Iterator<Set<String>> resourcesIterator = resourcesOfGroups.iterator();
+            while (groupIterator.hasNext()) {
+                final List<BatchRequestNode> otherGroup = groupIterator.next();
+                final Set<String> otherResources = resourcesIterator.next();
+                if (!Collections.disjoint(resources, otherResources)) {
+                    if (index < 0) {
+                        index = otherIndex;
+                    }
+                    group.addAll(otherGroup);
+                    resources.addAll(otherResources);
+                    groupIterator.remove();
+                    resourcesIterator.remove();
+                } else {
+                    otherIndex++;
+                }
+            }
+            group.add(rootNode);
+            Collections.sort(group, new Comparator<BatchRequestNode>() {
+
+                @Override
+                public int compare(final BatchRequestNode first, final BatchRequestNode second) {
+                    return Integer.compare(rootNodes.indexOf(first), rootNodes.indexOf(second));
+                }
+            });
+
+            if (index < 0) {
+                index = groups.size();
+            }
+            groups.add(index, group);
+            resourcesOfGroups.add(index, resources);
+        }
+        return groups;
+    }
+
+    private static void addTargetedResources(final BatchRequestNode node, final Set<String> resources) {
+        final String relativeUrl = node.getRequest().getRelativeUrl();
+        if (relativeUrl != null) {
+            final Matcher matcher = TARGETED_RESOURCE.matcher(relativeUrl);
+            if (matcher.find()) {
+                resources.add(matcher.group(1) + "/" + matcher.group(2));
+            }
+        }
+        for (final BatchRequestNode childNode : node.getChildRequests()) {
+            addTargetedResources(childNode, resources);
+        }
+    }
+
     private List<BatchResponse> processChildRequests(final BatchRequestNode rootRequest, BatchResponse rootResponse, UriInfo uriInfo) {
 
         final List<BatchResponse> childResponses = new ArrayList<>();
@@ -157,19 +362,24 @@ public class BatchApiServiceImpl implements BatchApiService {
     @Override
     public List<BatchResponse> handleBatchRequestsWithoutEnclosingTransaction(final List<BatchRequest> requestList, UriInfo uriInfo) {
 
-        return handleBatchRequests(requestList, uriInfo);
+        return handleBatchRequests(requestList, uriInfo, true);
     }
 
     @Override
     public List<BatchResponse> handleBatchRequestsWithEnclosingTransaction(final List<BatchRequest> requestList, final UriInfo uriInfo) {
 
+        // responses of the requests, to report the erroneous one when the
+        // transaction fails to commit
+        final List<BatchResponse> checkList = new ArrayList<>();
         try {
             return this.transactionTemplate.execute(new TransactionCallback<List<BatchResponse>>() {
 
                 @Override
                 public List<BatchResponse> doInTransaction(TransactionStatus status) {
                     try {
-                        return handleBatchRequests(requestList, uriInfo);
+                        final List<BatchResponse> responseList = handleBatchRequests(requestList, uriInfo, false);
+                        checkList.addAll(responseList);
+                        return responseList;
                     } catch (RuntimeException ex) {
 
                         ErrorInfo e = ErrorHandler.handler(ex);
@@ -198,7 +408,6 @@ public class BatchApiServiceImpl implements BatchApiService {
                 }
             }
 
-            checkList.clear();
             List<BatchResponse> errResponseList = new ArrayList<>();
             errResponseList.add(errResponse);
 
@@ -206,4 +415,21 @@ public class BatchApiServiceImpl implements BatchApiService {
         }
 
     }
-}
+
+    private static final class NamedDaemonThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        NamedDaemonThreadFactory(final String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, this.namePrefix + "-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
\ No newline at end of file
@@ -193,9 +193,15 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
             updatedExtraCriteria = " where (" + extraCriteria + ")";
         }
 
+        Object[] args = new Object[] {};
+        if (parameters.isPageTokenPassed()) {
+            updatedExtraCriteria += (updatedExtraCriteria.isEmpty() ? " where " : " and ") + parameters.pageTokenSql("aud.id");
+            args = new Object[] { parameters.getPageTokenLastId() };
+        }
+
         final AuditMapper rm = new AuditMapper();
         final StringBuilder sqlBuilder = new StringBuilder(200);
-        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
+        sqlBuilder.append(PaginationHelper.selectSql(parameters.isTotalCountRequested()));
         sqlBuilder.append(rm.schema(includeJson, hierarchy));
         sqlBuilder.append(' ').append(updatedExtraCriteria);
 
@@ -212,7 +218,8 @@ public class AuditReadPlatformServiceImpl implements AuditReadPlatformService {
         logger.info("sql: " + sqlBuilder.toString());
 
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {}, rm);
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), args, rm,
+                parameters.isTotalCountRequested(), parameters.getPageTokenLimit());
     }
 
     @Override
@@ -5,9 +5,11 @@
  */
 package org.mifosplatform.infrastructure.cache.api;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import javax.ws.rs.Consumes;
@@ -23,6 +25,8 @@ import org.mifosplatform.commands.domain.CommandWrapper;
 import org.mifosplatform.commands.service.CommandWrapperBuilder;
 import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformService;
 import org.mifosplatform.infrastructure.cache.data.CacheData;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
 import org.mifosplatform.infrastructure.cache.service.RuntimeDelegatingCacheManager;
 import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -49,17 +53,23 @@ public class CacheApiResource {
     private final ApiRequestParameterHelper apiRequestParameterHelper;
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
     private final RuntimeDelegatingCacheManager cacheService;
+    private final DefaultToApiJsonSerializer<CacheStatisticsData> statisticsToApiJsonSerializer;
+    private final List<CacheStatisticsProvider> cacheStatisticsProviders;
 
     @Autowired
     public CacheApiResource(final PlatformSecurityContext context,
             @Qualifier("runtimeDelegatingCacheManager") final RuntimeDelegatingCacheManager cacheService,
             final DefaultToApiJsonSerializer<CacheData> toApiJsonSerializer, final ApiRequestParameterHelper apiRequestParameterHelper,
-            final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService) {
+            final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService,
+            final DefaultToApiJsonSerializer<CacheStatisticsData> statisticsToApiJsonSerializer,
+            final List<CacheStatisticsProvider> cacheStatisticsProviders) {
         this.context = context;
         this.cacheService = cacheService;
         this.toApiJsonSerializer = toApiJsonSerializer;
         this.apiRequestParameterHelper = apiRequestParameterHelper;
         this.commandsSourceWritePlatformService = commandsSourceWritePlatformService;
+        this.statisticsToApiJsonSerializer = statisticsToApiJsonSerializer;
+        this.cacheStatisticsProviders = cacheStatisticsProviders;
     }
 
     @GET
@@ -73,6 +83,21 @@ public class CacheApiResource {
         return this.toApiJsonSerializer.serialize(settings, codes, this.RESPONSE_DATA_PARAMETERS);
     }
 
+    @GET
+    @Path("statistics")
+    public String retrieveStatistics(@Context final UriInfo uriInfo) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final Collection<CacheStatisticsData> statistics = new ArrayList<>(this.cacheStatisticsProviders.size());
+        for (final CacheStatisticsProvider provider : this.cacheStatisticsProviders) {
+            statistics.add(provider.retrieveCacheStatistics());
+        }
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.statisticsToApiJsonSerializer.serialize(settings, statistics, this.RESPONSE_DATA_PARAMETERS);
+    }
+
     @PUT
     public String switchCache(final String apiRequestBodyAsJson) {
 
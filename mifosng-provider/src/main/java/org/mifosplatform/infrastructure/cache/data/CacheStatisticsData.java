@@ -0,0 +1,38 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.data;
+
+/**
+ * Immutable data object representing the hit/miss/rebuild counters of one of
+ * the platform's in-memory caches.
+ */
+public class CacheStatisticsData {
+
+    @SuppressWarnings("unused")
+    private final String cacheName;
+    @SuppressWarnings("unused")
+    private final long hits;
+    @SuppressWarnings("unused")
+    private final long misses;
+    @SuppressWarnings("unused")
+    private final long rebuilds;
+    @SuppressWarnings("unused")
+    private final long invalidations;
+
+    public static CacheStatisticsData instance(final String cacheName, final long hits, final long misses, final long rebuilds,
+            final long invalidations) {
+        return new CacheStatisticsData(cacheName, hits, misses, rebuilds, invalidations);
+    }
+
+    private CacheStatisticsData(final String cacheName, final long hits, final long misses, final long rebuilds,
+            final long invalidations) {
+        this.cacheName = cacheName;
+        this.hits = hits;
+        this.misses = misses;
+        this.rebuilds = rebuilds;
+        this.invalidations = invalidations;
+    }
+}
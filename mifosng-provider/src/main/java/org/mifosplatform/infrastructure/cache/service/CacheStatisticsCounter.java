@@ -0,0 +1,47 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+
+/**
+ * Thread safe hit/miss/rebuild/invalidation counters for an in-memory cache.
+ */
+public class CacheStatisticsCounter {
+
+    private final String cacheName;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CacheStatisticsCounter(final String cacheName) {
+        this.cacheName = cacheName;
+    }
+
+    public void recordHit() {
+        this.hits.incrementAndGet();
+    }
+
+    public void recordMiss() {
+        this.misses.incrementAndGet();
+    }
+
+    public void recordRebuild() {
+        this.rebuilds.incrementAndGet();
+    }
+
+    public void recordInvalidation() {
+        this.invalidations.incrementAndGet();
+    }
+
+    public CacheStatisticsData toData() {
+        return CacheStatisticsData.instance(this.cacheName, this.hits.get(), this.misses.get(), this.rebuilds.get(),
+                this.invalidations.get());
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+
+/**
+ * Implemented by services holding an in-memory cache whose counters should be
+ * exposed through the <code>/caches/statistics</code> API.
+ */
+public interface CacheStatisticsProvider {
+
+    CacheStatisticsData retrieveCacheStatistics();
+}
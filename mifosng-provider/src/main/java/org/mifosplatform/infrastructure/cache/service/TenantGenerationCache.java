@@ -0,0 +1,151 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-memory cache of one value per tenant, kept until the next
+ * {@link #invalidate()} of the tenant has completed.
+ *
+ * Each tenant has a generation, incremented by an invalidation once the
+ * transaction it was made in has completed (or right away outside of a
+ * transaction). A cached value is only served while the generation it was
+ * loaded in is current. Without a tenant, and for the rest of a transaction
+ * that made an invalidation, nothing is cached so that the writer sees its
+ * own changes.
+ */
+public class TenantGenerationCache<T> {
+
+    private final CacheStatisticsCounter statistics;
+    private final ConcurrentMap<String, TenantEntry<T>> entriesByTenant = new ConcurrentHashMap<>();
+
+    /**
+     * Loads the value of the current tenant when it is not cached.
+     */
+    public interface Loader<T> {
+
+        /**
+         * @param cached
+         *            whether the value is going to be cached, in which case it
+         *            must only be loaded from committed data.
+         */
+        T load(boolean cached);
+    }
+
+    public TenantGenerationCache(final CacheStatisticsCounter statistics) {
+        this.statistics = statistics;
+    }
+
+    public T get(final Loader<T> loader) {
+        final T value = getIfCurrent();
+        if (value != null) { return value; }
+        return rebuild(loader);
+    }
+
+    /**
+     * @return the value cached for the current tenant, or null if there is
+     *         none of the current generation.
+     */
+    public T getIfCurrent() {
+        final TenantEntry<T> entry = currentEntry();
+        if (entry == null) { return null; }
+
+        final CachedValue<T> cached = entry.cached;
+        if (cached != null && cached.generation == entry.generation.get()) { return cached.value; }
+        return null;
+    }
+
+    /**
+     * Loads the value of the current tenant and caches it, unless the tenant
+     * has been invalidated while it was loaded.
+     */
+    public T rebuild(final Loader<T> loader) {
+        final TenantEntry<T> entry = currentEntry();
+        if (entry == null) { return loader.load(false); }
+
+        final long generation = entry.generation.get();
+        this.statistics.recordRebuild();
+        final T value = loader.load(true);
+        // a value loaded concurrently with an invalidation may already be
+        // stale; it is returned to this reader only
+        if (entry.generation.get() == generation) {
+            entry.cached = new CachedValue<>(generation, value);
+        }
+        return value;
+    }
+
+    public void invalidate() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return; }
+
+        final AtomicLong generation = entryOf(tenant.getTenantIdentifier()).generation;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            final boolean marked = !TransactionSynchronizationManager.hasResource(this);
+            if (marked) {
+                TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            }
+            // values loaded by other transactions before the change is
+            // committed (or rolled back) must not be served after it
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                @Override
+                public void afterCompletion(@SuppressWarnings("unused") final int status) {
+                    if (marked) {
+                        TransactionSynchronizationManager.unbindResourceIfPossible(TenantGenerationCache.this);
+                    }
+                    generation.incrementAndGet();
+                    TenantGenerationCache.this.statistics.recordInvalidation();
+                }
+            });
+        } else {
+            generation.incrementAndGet();
+            this.statistics.recordInvalidation();
+        }
+    }
+
+    private TenantEntry<T> currentEntry() {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null || TransactionSynchronizationManager.hasResource(this)) { return null; }
+        return entryOf(tenant.getTenantIdentifier());
+    }
+
+    private TenantEntry<T> entryOf(final String tenantIdentifier) {
+        TenantEntry<T> entry = this.entriesByTenant.get(tenantIdentifier);
+        if (entry == null) {
+            final TenantEntry<T> newEntry = new TenantEntry<>();
+            entry = this.entriesByTenant.putIfAbsent(tenantIdentifier, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        return entry;
+    }
+
+    private static final class TenantEntry<T> {
+
+        private final AtomicLong generation = new AtomicLong();
+        private volatile CachedValue<T> cached;
+    }
+
+    private static final class CachedValue<T> {
+
+        private final long generation;
+        private final T value;
+
+        CachedValue(final long generation, final T value) {
+            this.generation = generation;
+            this.value = value;
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.mifosplatform.infrastructure.dataqueries.service.DatatableMetadataCache;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,16 +38,18 @@ public class CodeValueWritePlatformServiceJpaRepositoryImpl implements CodeValue
     private final CodeValueRepository codeValueRepository;
     private final CodeRepository codeRepository;
     private final CodeValueCommandFromApiJsonDeserializer fromApiJsonDeserializer;
+    private final DatatableMetadataCache datatableMetadataCache;
 
     @Autowired
     public CodeValueWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context, final CodeRepository codeRepository,
             final CodeValueRepositoryWrapper codeValueRepositoryWrapper, final CodeValueRepository codeValueRepository,
-            final CodeValueCommandFromApiJsonDeserializer fromApiJsonDeserializer) {
+            final CodeValueCommandFromApiJsonDeserializer fromApiJsonDeserializer, final DatatableMetadataCache datatableMetadataCache) {
         this.context = context;
         this.codeRepository = codeRepository;
         this.codeValueRepositoryWrapper = codeValueRepositoryWrapper;
         this.codeValueRepository = codeValueRepository;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
+        this.datatableMetadataCache = datatableMetadataCache;
     }
 
     @Transactional
@@ -54,6 +57,7 @@ public class CodeValueWritePlatformServiceJpaRepositoryImpl implements CodeValue
     @CacheEvict(value = "code_values", allEntries = true)
     public CommandProcessingResult createCodeValue(final JsonCommand command) {
 
+        this.datatableMetadataCache.invalidate();
         try {
             this.context.authenticatedUser();
 
@@ -102,6 +106,7 @@ public class CodeValueWritePlatformServiceJpaRepositoryImpl implements CodeValue
     @CacheEvict(value = "code_values", allEntries = true)
     public CommandProcessingResult updateCodeValue(final Long codeValueId, final JsonCommand command) {
 
+        this.datatableMetadataCache.invalidate();
         try {
             this.context.authenticatedUser();
 
@@ -133,6 +138,7 @@ public class CodeValueWritePlatformServiceJpaRepositoryImpl implements CodeValue
     @CacheEvict(value = "code_values", allEntries = true)
     public CommandProcessingResult deleteCodeValue(final Long codeId, final Long codeValueId) {
 
+        this.datatableMetadataCache.invalidate();
         try {
             this.context.authenticatedUser();
 
@@ -47,4 +47,10 @@ public interface ConfigurationDomainService {
 
     boolean isMeetingMandatoryForJLGLoans();
 
+    /**
+     * Discards the current tenant's cached configuration once the surrounding
+     * transaction (if any) commits.
+     */
+    void invalidateConfigurationSnapshot();
+
 }
\ No newline at end of file
@@ -6,55 +6,92 @@
 package org.mifosplatform.infrastructure.configuration.domain;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
 import org.mifosplatform.infrastructure.cache.domain.CacheType;
 import org.mifosplatform.infrastructure.cache.domain.PlatformCache;
 import org.mifosplatform.infrastructure.cache.domain.PlatformCacheRepository;
-import org.mifosplatform.useradministration.domain.Permission;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsCounter;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.cache.service.TenantGenerationCache;
+import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationSnapshot.ConfigurationValue;
+import org.mifosplatform.infrastructure.configuration.exception.GlobalConfigurationPropertyNotFoundException;
 import org.mifosplatform.useradministration.domain.PermissionRepository;
 import org.mifosplatform.useradministration.exception.PermissionNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**
+ * Answers configuration questions from an in-memory, per tenant
+ * {@link GlobalConfigurationSnapshot} so that the command processing path does
+ * not query <code>c_configuration</code> and <code>m_permission</code> for
+ * every request.
+ *
+ * Write services changing configuration or maker-checker flags call
+ * {@link #invalidateConfigurationSnapshot()}; the snapshot is then rebuilt by
+ * the first reader after the change has been committed. Until then the writer
+ * reads its own changes without the snapshot.
+ */
 @Service
-public class ConfigurationDomainServiceJpa implements ConfigurationDomainService {
+public class ConfigurationDomainServiceJpa implements ConfigurationDomainService, CacheStatisticsProvider {
 
     private final PermissionRepository permissionRepository;
     private final GlobalConfigurationRepositoryWrapper globalConfigurationRepository;
     private final PlatformCacheRepository cacheTypeRepository;
+    private final TransactionTemplate snapshotTransaction;
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter("globalConfiguration");
+    private final TenantGenerationCache<GlobalConfigurationSnapshot> snapshots = new TenantGenerationCache<>(this.statistics);
 
     @Autowired
     public ConfigurationDomainServiceJpa(final PermissionRepository permissionRepository,
-            final GlobalConfigurationRepositoryWrapper globalConfigurationRepository, final PlatformCacheRepository cacheTypeRepository) {
+            final GlobalConfigurationRepositoryWrapper globalConfigurationRepository, final PlatformCacheRepository cacheTypeRepository,
+            final PlatformTransactionManager transactionManager) {
         this.permissionRepository = permissionRepository;
         this.globalConfigurationRepository = globalConfigurationRepository;
         this.cacheTypeRepository = cacheTypeRepository;
+        // a snapshot to be cached is read in a transaction of its own, the
+        // (repeatable read) transaction of the caller may predate the last
+        // committed change
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.snapshotTransaction.setReadOnly(true);
     }
 
     @Override
     public boolean isMakerCheckerEnabledForTask(final String taskPermissionCode) {
         if (StringUtils.isBlank(taskPermissionCode)) { throw new PermissionNotFoundException(taskPermissionCode); }
 
-        final Permission thisTask = this.permissionRepository.findOneByCode(taskPermissionCode);
-        if (thisTask == null) { throw new PermissionNotFoundException(taskPermissionCode); }
+        GlobalConfigurationSnapshot snapshot = snapshot();
+        Boolean taskMakerCheckerEnabled = snapshot.makerCheckerEnabledFor(taskPermissionCode);
+        if (taskMakerCheckerEnabled == null) {
+            // permissions may have been added since the snapshot was taken
+            // (e.g. by registering a data table)
+            snapshot = rebuildSnapshot();
+            taskMakerCheckerEnabled = snapshot.makerCheckerEnabledFor(taskPermissionCode);
+            if (taskMakerCheckerEnabled == null) { throw new PermissionNotFoundException(taskPermissionCode); }
+        }
 
         final String makerCheckerConfigurationProperty = "maker-checker";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(makerCheckerConfigurationProperty);
+        final ConfigurationValue property = retrieveProperty(snapshot, makerCheckerConfigurationProperty);
 
-        return thisTask.hasMakerCheckerEnabled() && property.isEnabled();
+        return taskMakerCheckerEnabled.booleanValue() && property.isEnabled();
     }
 
     @Override
     public boolean isAmazonS3Enabled() {
-        return this.globalConfigurationRepository.findOneByNameWithNotFoundDetection("amazon-S3").isEnabled();
+        return retrieveProperty("amazon-S3").isEnabled();
     }
 
     @Override
     public boolean isRescheduleFutureRepaymentsEnabled() {
         final String rescheduleRepaymentsConfigurationProperty = "reschedule-future-repayments";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(rescheduleRepaymentsConfigurationProperty);
+        final ConfigurationValue property = retrieveProperty(rescheduleRepaymentsConfigurationProperty);
         return property.isEnabled();
     }
 
@@ -67,36 +104,34 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
     @Override
     public boolean isRescheduleRepaymentsOnHolidaysEnabled() {
         final String holidaysConfigurationProperty = "reschedule-repayments-on-holidays";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(holidaysConfigurationProperty);
+        final ConfigurationValue property = retrieveProperty(holidaysConfigurationProperty);
         return property.isEnabled();
     }
 
     @Override
     public boolean allowTransactionsOnHolidayEnabled() {
         final String allowTransactionsOnHolidayProperty = "allow-transactions-on-holiday";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository
-                .findOneByNameWithNotFoundDetection(allowTransactionsOnHolidayProperty);
+        final ConfigurationValue property = retrieveProperty(allowTransactionsOnHolidayProperty);
         return property.isEnabled();
     }
 
     @Override
     public boolean allowTransactionsOnNonWorkingDayEnabled() {
         final String propertyName = "allow-transactions-on-non_workingday";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.isEnabled();
     }
 
     @Override
     public boolean isConstraintApproachEnabledForDatatables() {
         final String propertyName = "constraint_approach_for_datatables";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.isEnabled();
     }
 
     @Override
     public boolean isEhcacheEnabled() {
-        return this.cacheTypeRepository.findOne(Long.valueOf(1)).isEhcacheEnabled();
+        return snapshot().isEhcacheEnabled();
     }
 
     @Transactional
@@ -105,54 +140,55 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
         final PlatformCache cache = this.cacheTypeRepository.findOne(Long.valueOf(1));
         cache.update(cacheType);
         this.cacheTypeRepository.save(cache);
+        invalidateConfigurationSnapshot();
     }
 
     @Override
     public Long retrievePenaltyWaitPeriod() {
         final String propertyName = "penalty-wait-period";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.getValue();
     }
 
     @Override
     public Long retrieveGraceOnPenaltyPostingPeriod() {
         final String propertyName = "grace-on-penalty-posting";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.getValue();
     }
 
     @Override
     public boolean isPasswordForcedResetEnable() {
         final String propertyName = "force-password-reset-days";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.isEnabled();
     }
 
     @Override
     public Long retrievePasswordLiveTime() {
         final String propertyName = "force-password-reset-days";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.getValue();
     }
 
     @Override
     public Long retrieveOpeningBalancesContraAccount() {
         final String propertyName = "office-opening-balances-contra-account";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.getValue();
     }
 
     @Override
     public boolean isSavingsInterestPostingAtCurrentPeriodEnd() {
         final String propertyName = "savings-interest-posting-current-period-end";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.isEnabled();
     }
 
     @Override
     public Integer retrieveFinancialYearBeginningMonth() {
         final String propertyName = "financial-year-beginning-month";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         if (property.isEnabled()) return property.getValue().intValue();
         return 1;
     }
@@ -160,7 +196,7 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
     @Override
     public Integer retrieveMinAllowedClientsInGroup() {
         final String propertyName = "min-clients-in-group";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         if (property.isEnabled()) { return property.getValue().intValue(); }
         return null;
     }
@@ -168,7 +204,7 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
     @Override
     public Integer retrieveMaxAllowedClientsInGroup() {
         final String propertyName = "max-clients-in-group";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         if (property.isEnabled()) { return property.getValue().intValue(); }
         return null;
     }
@@ -176,8 +212,64 @@ public class ConfigurationDomainServiceJpa implements ConfigurationDomainService
     @Override
     public boolean isMeetingMandatoryForJLGLoans() {
         final String propertyName = "meetings-mandatory-for-jlg-loans";
-        final GlobalConfigurationProperty property = this.globalConfigurationRepository.findOneByNameWithNotFoundDetection(propertyName);
+        final ConfigurationValue property = retrieveProperty(propertyName);
         return property.isEnabled();
     }
 
-}
\ No newline at end of file
+    @Override
+    public void invalidateConfigurationSnapshot() {
+        this.snapshots.invalidate();
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return this.statistics.toData();
+    }
+
+    private ConfigurationValue retrieveProperty(final String propertyName) {
+        return retrieveProperty(snapshot(), propertyName);
+    }
+
+    private ConfigurationValue retrieveProperty(final GlobalConfigurationSnapshot snapshot, final String propertyName) {
+        ConfigurationValue property = snapshot.property(propertyName);
+        if (property == null) {
+            // properties may have been added since the snapshot was taken
+            property = rebuildSnapshot().property(propertyName);
+            if (property == null) { throw new GlobalConfigurationPropertyNotFoundException(propertyName); }
+        }
+        return property;
+    }
+
+    private GlobalConfigurationSnapshot snapshot() {
+        final GlobalConfigurationSnapshot snapshot = this.snapshots.getIfCurrent();
+        if (snapshot != null) {
+            this.statistics.recordHit();
+            return snapshot;
+        }
+        this.statistics.recordMiss();
+        return rebuildSnapshot();
+    }
+
+    private GlobalConfigurationSnapshot rebuildSnapshot() {
+        return this.snapshots.rebuild(new TenantGenerationCache.Loader<GlobalConfigurationSnapshot>() {
+
+            @Override
+            public GlobalConfigurationSnapshot load(final boolean cached) {
+                if (!cached) { return loadSnapshot(); }
+                return ConfigurationDomainServiceJpa.this.snapshotTransaction.execute(new TransactionCallback<GlobalConfigurationSnapshot>() {
+
+                    @Override
+                    public GlobalConfigurationSnapshot doInTransaction(@SuppressWarnings("unused") final TransactionStatus status) {
+                        return loadSnapshot();
+                    }
+                });
+            }
+        });
+    }
+
+    private GlobalConfigurationSnapshot loadSnapshot() {
+        final boolean ehcacheEnabled = this.cacheTypeRepository.findOne(Long.valueOf(1)).isEhcacheEnabled();
+        return GlobalConfigurationSnapshot.from(this.globalConfigurationRepository.findAll(), this.permissionRepository.findAll(),
+                ehcacheEnabled);
+    }
+}
@@ -47,6 +47,10 @@ public class GlobalConfigurationProperty extends AbstractPersistable<Long> {
         this.description = description;
     }
 
+    public String getName() {
+        return this.name;
+    }
+
     public boolean isEnabled() {
         return this.enabled;
     }
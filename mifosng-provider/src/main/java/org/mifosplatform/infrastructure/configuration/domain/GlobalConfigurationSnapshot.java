@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.configuration.domain;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.mifosplatform.useradministration.domain.Permission;
+
+/**
+ * Immutable, point in time view of a tenant's global configuration properties,
+ * the maker-checker flag of every permission and the cache type in use.
+ *
+ * Lookups are case insensitive to match how the underlying (MySQL) columns are
+ * compared when queried through the repositories.
+ */
+public final class GlobalConfigurationSnapshot {
+
+    private final Map<String, ConfigurationValue> properties;
+    private final Map<String, Boolean> makerCheckerByPermissionCode;
+    private final boolean ehcacheEnabled;
+
+    public static GlobalConfigurationSnapshot from(final Collection<GlobalConfigurationProperty> properties,
+            final Collection<Permission> permissions, final boolean ehcacheEnabled) {
+
+        final Map<String, ConfigurationValue> propertiesByName = new HashMap<>(properties.size() * 2);
+        for (final GlobalConfigurationProperty property : properties) {
+            propertiesByName.put(propertyKey(property.getName()), new ConfigurationValue(property.isEnabled(), property.getValue()));
+        }
+
+        final Map<String, Boolean> makerCheckerByPermissionCode = new HashMap<>(permissions.size() * 2);
+        for (final Permission permission : permissions) {
+            makerCheckerByPermissionCode.put(permissionKey(permission.getCode()), Boolean.valueOf(permission.hasMakerCheckerEnabled()));
+        }
+
+        return new GlobalConfigurationSnapshot(propertiesByName, makerCheckerByPermissionCode, ehcacheEnabled);
+    }
+
+    private GlobalConfigurationSnapshot(final Map<String, ConfigurationValue> properties,
+            final Map<String, Boolean> makerCheckerByPermissionCode, final boolean ehcacheEnabled) {
+        this.properties = Collections.unmodifiableMap(properties);
+        this.makerCheckerByPermissionCode = Collections.unmodifiableMap(makerCheckerByPermissionCode);
+        this.ehcacheEnabled = ehcacheEnabled;
+    }
+
+    /**
+     * @return the property or <code>null</code> if the snapshot does not know
+     *         about a property with this name.
+     */
+    public ConfigurationValue property(final String name) {
+        return this.properties.get(propertyKey(name));
+    }
+
+    /**
+     * @return the maker-checker flag of the permission or <code>null</code> if
+     *         the snapshot does not know about a permission with this code.
+     */
+    public Boolean makerCheckerEnabledFor(final String permissionCode) {
+        return this.makerCheckerByPermissionCode.get(permissionKey(permissionCode));
+    }
+
+    public boolean isEhcacheEnabled() {
+        return this.ehcacheEnabled;
+    }
+
+    private static String propertyKey(final String name) {
+        return name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static String permissionKey(final String code) {
+        return code.toUpperCase(Locale.ENGLISH);
+    }
+
+    public static final class ConfigurationValue {
+
+        private final boolean enabled;
+        private final Long value;
+
+        ConfigurationValue(final boolean enabled, final Long value) {
+            this.enabled = enabled;
+            this.value = value;
+        }
+
+        public boolean isEnabled() {
+            return this.enabled;
+        }
+
+        public Long getValue() {
+            return this.value;
+        }
+    }
+}
@@ -8,6 +8,7 @@ package org.mifosplatform.infrastructure.configuration.service;
 import java.util.Map;
 
 import org.mifosplatform.infrastructure.configuration.data.GlobalConfigurationDataValidator;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationProperty;
 import org.mifosplatform.infrastructure.configuration.domain.GlobalConfigurationRepositoryWrapper;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -18,6 +19,7 @@ import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,18 +32,22 @@ public class GlobalConfigurationWritePlatformServiceJpaRepositoryImpl implements
     private final PlatformSecurityContext context;
     private final GlobalConfigurationRepositoryWrapper repository;
     private final GlobalConfigurationDataValidator globalConfigurationDataValidator;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
     public GlobalConfigurationWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
-            final GlobalConfigurationRepositoryWrapper codeRepository, final GlobalConfigurationDataValidator dataValidator) {
+            final GlobalConfigurationRepositoryWrapper codeRepository, final GlobalConfigurationDataValidator dataValidator,
+            final ConfigurationDomainService configurationDomainService) {
         this.context = context;
         this.repository = codeRepository;
         this.globalConfigurationDataValidator = dataValidator;
+        this.configurationDomainService = configurationDomainService;
 
     }
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult update(final Long configId, final JsonCommand command) {
 
         this.context.authenticatedUser();
@@ -55,6 +61,7 @@ public class GlobalConfigurationWritePlatformServiceJpaRepositoryImpl implements
 
             if (!changes.isEmpty()) {
                 this.repository.save(configItemForUpdate);
+                this.configurationDomainService.invalidateConfigurationSnapshot();
             }
 
             return new CommandProcessingResultBuilder().withCommandId(command.commandId()).withEntityId(configId).with(changes).build();
@@ -73,6 +80,7 @@ public class GlobalConfigurationWritePlatformServiceJpaRepositoryImpl implements
         try{
             final GlobalConfigurationProperty ppi = GlobalConfigurationProperty.newSurveyConfiguration(name);
             this.repository.save(ppi);
+            this.configurationDomainService.invalidateConfigurationSnapshot();
         }
         catch (final DataIntegrityViolationException dve)
         {
@@ -6,6 +6,7 @@
 package org.mifosplatform.infrastructure.core.data;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 
 /**
  * <p>
@@ -19,6 +20,8 @@ public class PaginationParameters {
     private final Integer limit;
     private final String orderBy;
     private final String sortOrder;
+    private final Long pageTokenLastId;
+    private final boolean totalCountRequested;
 
     public static PaginationParameters instance(Boolean paged, Integer offset, Integer limit, String orderBy, String sortOrder) {
         if (null == paged) {
@@ -31,11 +34,32 @@ public class PaginationParameters {
     }
 
     private PaginationParameters(boolean paged, Integer offset, Integer limit, String orderBy, String sortOrder) {
+        this(paged, offset, limit, orderBy, sortOrder, null, true);
+    }
+
+    private PaginationParameters(boolean paged, Integer offset, Integer limit, String orderBy, String sortOrder, Long pageTokenLastId,
+            boolean totalCountRequested) {
         this.paged = paged;
         this.offset = offset;
         this.limit = limit;
         this.orderBy = orderBy;
         this.sortOrder = sortOrder;
+        this.pageTokenLastId = pageTokenLastId;
+        this.totalCountRequested = totalCountRequested;
+    }
+
+    /**
+     * Continues after the page the <code>pageToken</code> was returned with,
+     * ordered by id, instead of skipping <code>offset</code> rows; and leaves
+     * out the total count when <code>withTotalCount</code> is false.
+     */
+    public PaginationParameters withPaging(final String pageToken, final Boolean withTotalCount) {
+        final Long lastId = PaginationHelper.lastIdOf(pageToken, this.orderBy);
+
+        final Integer offset = lastId == null ? this.offset : null;
+        final String orderBy = lastId == null ? this.orderBy : PaginationHelper.PAGE_TOKEN_ORDER_BY;
+        final boolean totalCountRequested = PaginationHelper.isTotalCountRequested(withTotalCount);
+        return new PaginationParameters(this.paged, offset, this.limit, orderBy, this.sortOrder, lastId, totalCountRequested);
     }
 
     public static Integer getCheckedLimit(final Integer limit) {
@@ -82,6 +106,34 @@ public class PaginationParameters {
         return StringUtils.isNotBlank(this.sortOrder);
     }
 
+    public boolean isOrderedById() {
+        return PaginationHelper.isOrderedById(this.orderBy);
+    }
+
+    public boolean isPageTokenPassed() {
+        return this.pageTokenLastId != null;
+    }
+
+    public Long getPageTokenLastId() {
+        return this.pageTokenLastId;
+    }
+
+    public boolean isTotalCountRequested() {
+        return this.totalCountRequested;
+    }
+
+    /**
+     * Condition selecting the rows after the last row of the previous page,
+     * bound to {@link #getPageTokenLastId()}.
+     */
+    public String pageTokenSql(final String idColumn) {
+        return PaginationHelper.pageTokenSql(idColumn, this.sortOrder);
+    }
+
+    public Integer getPageTokenLimit() {
+        return PaginationHelper.pageTokenLimit(this.orderBy, this.limit);
+    }
+
     public boolean isLimited() {
         return this.limit != null && this.limit.intValue() > 0;
     }
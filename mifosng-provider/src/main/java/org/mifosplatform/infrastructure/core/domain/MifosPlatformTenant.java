@@ -73,6 +73,14 @@ public class MifosPlatformTenant {
         return url;
     }
 
+    /**
+     * @return host and port of the MySQL server holding this tenant's schema,
+     *         shared by all tenants on the same server.
+     */
+    public String databaseServer() {
+        return this.schemaServer + ':' + this.schemaServerPort;
+    }
+
     public int getMaxActive() {
         return this.maxActive;
     }
@@ -9,19 +9,36 @@ import java.util.List;
 
 public class Page<E> {
 
-    private final int totalFilteredRecords;
+    /**
+     * Null when the rows matching the search were not counted.
+     */
+    private final Integer totalFilteredRecords;
     private final List<E> pageItems;
+    /**
+     * Token to pass for the next page, when the page is full and ordered by
+     * id.
+     */
+    private final String nextPageToken;
 
     public Page(final List<E> pageItems, final int totalFilteredRecords) {
+        this(pageItems, Integer.valueOf(totalFilteredRecords), null);
+    }
+
+    public Page(final List<E> pageItems, final Integer totalFilteredRecords, final String nextPageToken) {
         this.pageItems = pageItems;
         this.totalFilteredRecords = totalFilteredRecords;
+        this.nextPageToken = nextPageToken;
     }
 
-    public int getTotalFilteredRecords() {
+    public Integer getTotalFilteredRecords() {
         return this.totalFilteredRecords;
     }
 
     public List<E> getPageItems() {
         return this.pageItems;
     }
-}
\ No newline at end of file
+
+    public String getNextPageToken() {
+        return this.nextPageToken;
+    }
+}
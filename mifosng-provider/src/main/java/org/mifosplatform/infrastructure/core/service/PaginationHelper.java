@@ -5,13 +5,22 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
 public class PaginationHelper<E> {
 
+    /**
+     * The only order pages can be continued with a page token in.
+     */
+    public static final String PAGE_TOKEN_ORDER_BY = "id";
+
     public Page<E> fetchPage(final JdbcTemplate jt, final String sqlCountRows, final String sqlFetchRows, final Object args[],
             final RowMapper<E> rowMapper) {
 
@@ -23,4 +32,98 @@ public class PaginationHelper<E> {
 
         return new Page<>(items, totalFilteredRecords);
     }
-}
\ No newline at end of file
+
+    /**
+     * Fetches a page which is counted only when <code>countRows</code> is
+     * set, in which case <code>sqlFetchRows</code> must select
+     * <code>SQL_CALC_FOUND_ROWS</code> (see {@link #selectSql(boolean)}).
+     * When <code>pageTokenLimit</code> is set, the rows are ordered by their
+     * <code>id</code> column and a full page carries the token of the page
+     * after it.
+     */
+    public Page<E> fetchPage(final JdbcTemplate jt, final String sqlCountRows, final String sqlFetchRows, final Object args[],
+            final RowMapper<E> rowMapper, final boolean countRows, final Integer pageTokenLimit) {
+
+        final long[] lastId = new long[1];
+        final RowMapper<E> idRecordingRowMapper = new RowMapper<E>() {
+
+            @Override
+            public E mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+                lastId[0] = rs.getLong(PAGE_TOKEN_ORDER_BY);
+                return rowMapper.mapRow(rs, rowNum);
+            }
+        };
+        final List<E> items = jt.query(sqlFetchRows, args, pageTokenLimit == null ? rowMapper : idRecordingRowMapper);
+
+        Integer totalFilteredRecords = null;
+        if (countRows) {
+            totalFilteredRecords = jt.queryForObject(sqlCountRows, Integer.class);
+        }
+
+        String nextPageToken = null;
+        if (pageTokenLimit != null && items.size() == pageTokenLimit.intValue()) {
+            nextPageToken = pageTokenOf(lastId[0]);
+        }
+
+        return new Page<>(items, totalFilteredRecords, nextPageToken);
+    }
+
+    public static String selectSql(final boolean countRows) {
+        return countRows ? "select SQL_CALC_FOUND_ROWS " : "select ";
+    }
+
+    /**
+     * The token only carries the id of the last row of the page, but clients
+     * should not rely on its format.
+     */
+    public static String pageTokenOf(final long lastId) {
+        return Long.toString(lastId, Character.MAX_RADIX);
+    }
+
+    public static Long lastIdOf(final String pageToken) {
+        if (StringUtils.isBlank(pageToken)) { return null; }
+        try {
+            return Long.valueOf(pageToken, Character.MAX_RADIX);
+        } catch (final NumberFormatException e) {
+            throw new UnrecognizedQueryParamException("pageToken", pageToken);
+        }
+    }
+
+    /**
+     * @return the id of the last row of the page the token was returned with,
+     *         or null if no token is passed.
+     * @throws UnrecognizedQueryParamException
+     *             if a token is passed with any order but by id.
+     */
+    public static Long lastIdOf(final String pageToken, final String orderBy) {
+        final Long lastId = lastIdOf(pageToken);
+        if (lastId != null && StringUtils.isNotBlank(orderBy) && !isOrderedById(orderBy)) { throw new UnrecognizedQueryParamException(
+                "orderBy", orderBy, PAGE_TOKEN_ORDER_BY); }
+        return lastId;
+    }
+
+    public static boolean isOrderedById(final String orderBy) {
+        return PAGE_TOKEN_ORDER_BY.equalsIgnoreCase(orderBy);
+    }
+
+    public static boolean isTotalCountRequested(final Boolean withTotalCount) {
+        return withTotalCount == null || withTotalCount.booleanValue();
+    }
+
+    /**
+     * Condition selecting the rows after the last row of the previous page,
+     * bound to its id.
+     */
+    public static String pageTokenSql(final String idColumn, final String sortOrder) {
+        final boolean descending = StringUtils.isNotBlank(sortOrder) && "desc".equalsIgnoreCase(sortOrder.trim());
+        return idColumn + (descending ? " < ?" : " > ?");
+    }
+
+    /**
+     * Limit up to which a page is followed by a page token, or null if pages
+     * are not ordered by id.
+     */
+    public static Integer pageTokenLimit(final String orderBy, final Integer limit) {
+        return isOrderedById(orderBy) && limit != null && limit.intValue() > 0 ? limit : null;
+    }
+}
@@ -30,6 +30,9 @@ public final class SearchParameters {
     private final Long savingsId;
     private final Boolean orphansOnly;
 
+    private final Long pageTokenLastId;
+    private final boolean totalCountRequested;
+
     public static SearchParameters from(final String sqlSearch, final Long officeId, final String externalId, final String name,
             final String hierarchy) {
         final Long staffId = null;
@@ -169,6 +172,8 @@ public final class SearchParameters {
         this.savingsId = savingsId;
         this.orphansOnly = orphansOnly;
         this.currencyCode = null;
+        this.pageTokenLastId = null;
+        this.totalCountRequested = true;
     }
 
     public SearchParameters(final String sqlSearch, final Long officeId, final String externalId, final String name,
@@ -192,6 +197,47 @@ public final class SearchParameters {
         this.savingsId = savingsId;
         this.orphansOnly = orphansOnly;
         this.currencyCode = currencyCode;
+        this.pageTokenLastId = null;
+        this.totalCountRequested = true;
+    }
+
+    private SearchParameters(final SearchParameters searchParameters, final Integer offset, final String orderBy,
+            final Long pageTokenLastId, final boolean totalCountRequested) {
+        this.sqlSearch = searchParameters.sqlSearch;
+        this.officeId = searchParameters.officeId;
+        this.externalId = searchParameters.externalId;
+        this.name = searchParameters.name;
+        this.hierarchy = searchParameters.hierarchy;
+        this.firstname = searchParameters.firstname;
+        this.lastname = searchParameters.lastname;
+        this.offset = offset;
+        this.limit = searchParameters.limit;
+        this.orderBy = orderBy;
+        this.sortOrder = searchParameters.sortOrder;
+        this.staffId = searchParameters.staffId;
+        this.accountNo = searchParameters.accountNo;
+        this.loanId = searchParameters.loanId;
+        this.savingsId = searchParameters.savingsId;
+        this.orphansOnly = searchParameters.orphansOnly;
+        this.currencyCode = searchParameters.currencyCode;
+        this.pageTokenLastId = pageTokenLastId;
+        this.totalCountRequested = totalCountRequested;
+    }
+
+    /**
+     * Continues the search after the page the <code>pageToken</code> was
+     * returned with, instead of skipping <code>offset</code> rows, so that
+     * deep pages cost as much as the first one. Pages are then ordered by id.
+     * The rows matching the search are not counted when
+     * <code>withTotalCount</code> is false.
+     */
+    public SearchParameters withPaging(final String pageToken, final Boolean withTotalCount) {
+        final Long lastId = PaginationHelper.lastIdOf(pageToken, this.orderBy);
+
+        final Integer offset = lastId == null ? this.offset : null;
+        final String orderBy = lastId == null ? this.orderBy : PaginationHelper.PAGE_TOKEN_ORDER_BY;
+        final boolean totalCountRequested = PaginationHelper.isTotalCountRequested(withTotalCount);
+        return new SearchParameters(this, offset, orderBy, lastId, totalCountRequested);
     }
 
     public boolean isOrderByRequested() {
@@ -202,6 +248,34 @@ public final class SearchParameters {
         return StringUtils.isNotBlank(this.sortOrder);
     }
 
+    public boolean isOrderedById() {
+        return PaginationHelper.isOrderedById(this.orderBy);
+    }
+
+    public boolean isPageTokenPassed() {
+        return this.pageTokenLastId != null;
+    }
+
+    public Long getPageTokenLastId() {
+        return this.pageTokenLastId;
+    }
+
+    public boolean isTotalCountRequested() {
+        return this.totalCountRequested;
+    }
+
+    /**
+     * Condition selecting the rows after the last row of the previous page,
+     * bound to {@link #getPageTokenLastId()}.
+     */
+    public String pageTokenSql(final String idColumn) {
+        return PaginationHelper.pageTokenSql(idColumn, this.sortOrder);
+    }
+
+    public Integer getPageTokenLimit() {
+        return PaginationHelper.pageTokenLimit(this.orderBy, this.limit);
+    }
+
     public static Integer getCheckedLimit(final Integer limit) {
 
         final Integer maxLimitAllowed = 200;
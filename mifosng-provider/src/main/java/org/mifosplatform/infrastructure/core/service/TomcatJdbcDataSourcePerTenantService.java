@@ -5,37 +5,113 @@
  */
 package org.mifosplatform.infrastructure.core.service;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
  * Implementation that returns a new or existing tomcat 7 jdbc connection pool
  * datasource based on the tenant details stored in a {@link ThreadLocal}
  * variable for this request.
- * 
+ *
  * {@link ThreadLocalContextUtil} is used to retrieve the
  * {@link MifosPlatformTenant} for the request.
+ *
+ * Lookups of an already created datasource are lock-free; creation of a
+ * tenant's pool happens exactly once, only threads asking for that same
+ * tenant wait for it. Pools of tenants which have not been used for
+ * {@link #IDLE_EVICTION_MILLIS} are removed in the background, so that the
+ * next request of the tenant creates a new pool, and closed once no
+ * connection has been borrowed from them for a grace period.
  */
 @Service
 public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceService {
 
-    private final Map<Long, DataSource> tenantToDataSourceMap = new HashMap<>(1);
+    private final static Logger logger = LoggerFactory.getLogger(TomcatJdbcDataSourcePerTenantService.class);
+
+    /**
+     * Milliseconds after which the pool of a tenant without any activity is
+     * closed; zero or a negative value disables idle tenant pool eviction.
+     */
+    public final static String IDLE_EVICTION_MILLIS = "mifos.tenantdb.pool.idleEvictionMillis";
+    @Value("${" + IDLE_EVICTION_MILLIS + ":1800000}")
+    private long idleEvictionMillis = 1800000;
+
+    /**
+     * MySQL driver properties of the tenant connection pools, as
+     * <code>name=value</code> pairs separated by semicolons. By default each
+     * connection keeps its most used statements prepared on the server. Note
+     * that all pools of a MySQL server together must stay below its
+     * <code>max_prepared_stmt_count</code>.
+     */
+    public final static String CONNECTION_PROPERTIES = "mifos.tenantdb.pool.connectionProperties";
+    final static String DEFAULT_CONNECTION_PROPERTIES = "useServerPrepStmts=true;cachePrepStmts=true;"
+            + "prepStmtCacheSize=64;prepStmtCacheSqlLimit=2048";
+    @Value("${" + CONNECTION_PROPERTIES + ":" + DEFAULT_CONNECTION_PROPERTIES + "}")
+    private String connectionProperties = DEFAULT_CONNECTION_PROPERTIES;
+
+    private final ConcurrentMap<Long, TenantDataSourceHolder> tenantToDataSourceMap = new ConcurrentHashMap<>();
+    private final Queue<RetiredDataSource> retiredDataSources = new ConcurrentLinkedQueue<>();
     private final DataSource tenantDataSource;
+    private ScheduledExecutorService idlePoolEvictor;
 
     @Autowired
     public TomcatJdbcDataSourcePerTenantService(final @Qualifier("tenantDataSourceJndi") DataSource tenantDataSource) {
         this.tenantDataSource = tenantDataSource;
     }
 
+    @PostConstruct
+    public void startIdlePoolEviction() {
+        if (this.idleEvictionMillis <= 0) { return; }
+
+        this.idlePoolEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                final Thread thread = new Thread(runnable, "tenant-pool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final long period = evictionPeriodMillis();
+        this.idlePoolEvictor.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                evictIdlePools(System.currentTimeMillis());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stopIdlePoolEviction() {
+        if (this.idlePoolEvictor != null) {
+            this.idlePoolEvictor.shutdownNow();
+        }
+    }
+
     @Override
     public DataSource retrieveDataSource() {
 
@@ -44,27 +120,60 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
 
         final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
         if (tenant != null) {
-            synchronized (this.tenantToDataSourceMap) {
-                // if tenant information available switch to appropriate
-                // datasource
-                // for that tenant.
-                if (this.tenantToDataSourceMap.containsKey(tenant.getId())) {
-                    tenantDataSource = this.tenantToDataSourceMap.get(tenant.getId());
-                } else {
-                    tenantDataSource = createNewDataSourceFor(tenant);
-                    this.tenantToDataSourceMap.put(tenant.getId(), tenantDataSource);
+            // if tenant information available switch to appropriate datasource
+            // for that tenant.
+            TenantDataSourceHolder holder = this.tenantToDataSourceMap.get(tenant.getId());
+            if (holder == null) {
+                final TenantDataSourceHolder newHolder = new TenantDataSourceHolder();
+                holder = this.tenantToDataSourceMap.putIfAbsent(tenant.getId(), newHolder);
+                if (holder == null) {
+                    holder = newHolder;
                 }
             }
+            tenantDataSource = holder.dataSourceFor(tenant, this.connectionProperties);
         }
 
         return tenantDataSource;
     }
 
-    private DataSource createNewDataSourceFor(final MifosPlatformTenant tenant) {
+    /**
+     * Removes the datasources of all tenants that have not asked for them
+     * since <code>now - idleEvictionMillis</code> and have no borrowed
+     * connections. Their pools are only closed by a later run, as threads
+     * which got the datasource just before it was removed may still borrow a
+     * connection from it.
+     */
+    void evictIdlePools(final long now) {
+        closeRetiredPools(now);
+
+        for (final Map.Entry<Long, TenantDataSourceHolder> entry : this.tenantToDataSourceMap.entrySet()) {
+            final TenantDataSourceHolder holder = entry.getValue();
+            if (holder.isIdleSince(now - this.idleEvictionMillis) && this.tenantToDataSourceMap.remove(entry.getKey(), holder)) {
+                this.retiredDataSources.add(new RetiredDataSource(entry.getKey(), holder, now));
+            }
+        }
+    }
+
+    private void closeRetiredPools(final long now) {
+        final Iterator<RetiredDataSource> retired = this.retiredDataSources.iterator();
+        while (retired.hasNext()) {
+            final RetiredDataSource dataSource = retired.next();
+            if (now - dataSource.retiredMillis >= evictionPeriodMillis() && dataSource.holder.closeIfUnused()) {
+                retired.remove();
+                logger.info("Closed idle connection pool of tenant with id " + dataSource.tenantId);
+            }
+        }
+    }
+
+    private long evictionPeriodMillis() {
+        return Math.max(this.idleEvictionMillis / 4, 1000);
+    }
+
+    private static DataSource createNewDataSourceFor(final MifosPlatformTenant tenant, final String connectionProperties) {
         // see
         // http://www.tomcatexpert.com/blog/2010/04/01/configuring-jdbc-pool-high-concurrency
 
-	// see also org.mifosplatform.DataSourceProperties.setMifosDefaults()
+        // see also org.mifosplatform.DataSourceProperties.setMifosDefaults()
 
         final String jdbcUrl = tenant.databaseURL();
 
@@ -74,6 +183,9 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         poolConfiguration.setUrl(jdbcUrl);
         poolConfiguration.setUsername(tenant.getSchemaUsername());
         poolConfiguration.setPassword(tenant.getSchemaPassword());
+        if (StringUtils.isNotBlank(connectionProperties)) {
+            poolConfiguration.setConnectionProperties(connectionProperties);
+        }
 
         poolConfiguration.setInitialSize(tenant.getInitialSize());
 
@@ -86,21 +198,93 @@ public class TomcatJdbcDataSourcePerTenantService implements RoutingDataSourceSe
         poolConfiguration.setLogAbandoned(tenant.isLogAbandoned());
         poolConfiguration.setAbandonWhenPercentageFull(tenant.getAbandonWhenPercentageFull());
 
-        /**
-         * Vishwas- Do we need to enable the below properties and add
-         * ResetAbandonedTimer for long running batch Jobs?
-         **/
-        // poolConfiguration.setMaxActive(tenant.getMaxActive());
-        // poolConfiguration.setMinIdle(tenant.getMinIdle());
-        // poolConfiguration.setMaxIdle(tenant.getMaxIdle());
-
-        // poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
-        // poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
-        // poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
+        // columns which are NULL in the tenants table come back as 0, in which
+        // case the tomcat jdbc pool defaults are kept
+        if (tenant.getMaxActive() > 0) {
+            poolConfiguration.setMaxActive(tenant.getMaxActive());
+        }
+        if (tenant.getMaxIdle() > 0) {
+            poolConfiguration.setMaxIdle(Math.max(tenant.getMaxIdle(), tenant.getMinIdle()));
+        }
+        if (tenant.getMinIdle() > 0) {
+            poolConfiguration.setMinIdle(tenant.getMinIdle());
+        }
+        if (tenant.getSuspectTimeout() > 0) {
+            poolConfiguration.setSuspectTimeout(tenant.getSuspectTimeout());
+        }
+        if (tenant.getTimeBetweenEvictionRunsMillis() > 0) {
+            poolConfiguration.setTimeBetweenEvictionRunsMillis(tenant.getTimeBetweenEvictionRunsMillis());
+        }
+        if (tenant.getMinEvictableIdleTimeMillis() > 0) {
+            poolConfiguration.setMinEvictableIdleTimeMillis(tenant.getMinEvictableIdleTimeMillis());
+        }
 
         poolConfiguration.setJdbcInterceptors("org.apache.tomcat.jdbc.pool.interceptor.ConnectionState;"
                 + "org.apache.tomcat.jdbc.pool.interceptor.StatementFinalizer;org.apache.tomcat.jdbc.pool.interceptor.SlowQueryReport");
 
         return new org.apache.tomcat.jdbc.pool.DataSource(poolConfiguration);
     }
-}
\ No newline at end of file
+
+    /**
+     * Holds the lazily created datasource of one tenant together with the time
+     * it was last handed out.
+     */
+    private static final class TenantDataSourceHolder {
+
+        private volatile org.apache.tomcat.jdbc.pool.DataSource dataSource;
+        private volatile long lastAccessMillis = System.currentTimeMillis();
+
+        DataSource dataSourceFor(final MifosPlatformTenant tenant, final String connectionProperties) {
+            final long now = System.currentTimeMillis();
+            // avoid a volatile write (and cache line ping-pong) on every call
+            if (now - this.lastAccessMillis > 1000) {
+                this.lastAccessMillis = now;
+            }
+
+            org.apache.tomcat.jdbc.pool.DataSource result = this.dataSource;
+            if (result == null) {
+                synchronized (this) {
+                    result = this.dataSource;
+                    if (result == null) {
+                        result = (org.apache.tomcat.jdbc.pool.DataSource) createNewDataSourceFor(tenant, connectionProperties);
+                        this.dataSource = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        boolean isIdleSince(final long idleThresholdMillis) {
+            final org.apache.tomcat.jdbc.pool.DataSource current = this.dataSource;
+            if (current == null || this.lastAccessMillis > idleThresholdMillis) { return false; }
+
+            // the pool is only created on first use
+            return current.getPool() == null || current.getPool().getActive() == 0;
+        }
+
+        /**
+         * Only called once the holder can no longer be handed out.
+         */
+        synchronized boolean closeIfUnused() {
+            final org.apache.tomcat.jdbc.pool.DataSource current = this.dataSource;
+            if (current == null) { return true; }
+            if (current.getPool() != null && current.getPool().getActive() > 0) { return false; }
+
+            current.close();
+            return true;
+        }
+    }
+
+    private static final class RetiredDataSource {
+
+        private final Long tenantId;
+        private final TenantDataSourceHolder holder;
+        private final long retiredMillis;
+
+        RetiredDataSource(final Long tenantId, final TenantDataSourceHolder holder, final long retiredMillis) {
+            this.tenantId = tenantId;
+            this.holder = holder;
+            this.retiredMillis = retiredMillis;
+        }
+    }
+}
@@ -5,7 +5,11 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.api;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
@@ -26,6 +30,7 @@ import org.mifosplatform.commands.service.PortfolioCommandSourceWritePlatformSer
 import org.mifosplatform.infrastructure.core.api.ApiParameterHelper;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.dataqueries.data.DatatableData;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
@@ -37,6 +42,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
+import com.google.gson.JsonPrimitive;
+
 //import org.slf4j.Logger;
 
 @Path("/datatables")
@@ -51,6 +58,9 @@ public class DatatablesApiResource {
     private final PortfolioCommandSourceWritePlatformService commandsSourceWritePlatformService;
     private final static org.slf4j.Logger logger = LoggerFactory.getLogger(DatatablesApiResource.class);
 
+    // as many entities as the largest page of the list APIs
+    private final static int MAX_BULK_APPTABLE_IDS = 200;
+
     @Autowired
     public DatatablesApiResource(final PlatformSecurityContext context, final GenericDataService genericDataService,
             final ReadWriteNonCoreDataService readWriteNonCoreDataService,
@@ -137,6 +147,55 @@ public class DatatablesApiResource {
         return this.toApiJsonSerializer.serialize(result);
     }
 
+    /**
+     * Reads the entries of several entities from one or more datatables in a
+     * single request, e.g. for list views showing datatable columns, or for
+     * all datatables of one entity. Returns an object with the entries of
+     * each datatable, ordered by the application table id.
+     */
+    @GET
+    @Path("bulk")
+    @Consumes({ MediaType.APPLICATION_JSON })
+    @Produces({ MediaType.APPLICATION_JSON })
+    public String getDatatablesEntries(@QueryParam("datatables") final String datatables,
+            @QueryParam("apptableIds") final String apptableIds, @QueryParam("order") final String order, @Context final UriInfo uriInfo) {
+
+        final Set<String> datatableNames = new LinkedHashSet<>();
+        for (final String datatable : splitQueryParam("datatables", datatables)) {
+            this.context.authenticatedUser().validateHasDatatableReadPermission(datatable);
+            datatableNames.add(datatable);
+        }
+        final Set<Long> appTableIds = new LinkedHashSet<>();
+        for (final String apptableId : splitQueryParam("apptableIds", apptableIds)) {
+            try {
+                appTableIds.add(Long.valueOf(apptableId));
+            } catch (final NumberFormatException e) {
+                throw new UnrecognizedQueryParamException("apptableIds", apptableId);
+            }
+        }
+        if (appTableIds.size() > MAX_BULK_APPTABLE_IDS) { throw new UnrecognizedQueryParamException("apptableIds", apptableIds,
+                "at most " + MAX_BULK_APPTABLE_IDS + " ids"); }
+
+        final Map<String, GenericResultsetData> results = this.readWriteNonCoreDataService.retrieveDataTableGenericResultSets(
+                datatableNames, appTableIds, order);
+
+        final boolean genericResultSet = ApiParameterHelper.genericResultSet(uriInfo.getQueryParameters());
+        if (genericResultSet) {
+            final boolean prettyPrint = ApiParameterHelper.prettyPrint(uriInfo.getQueryParameters());
+            return this.toApiJsonSerializer.serializePretty(prettyPrint, results);
+        }
+
+        final StringBuilder json = new StringBuilder("{");
+        for (final Map.Entry<String, GenericResultsetData> result : results.entrySet()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(new JsonPrimitive(result.getKey()).toString()).append(':')
+                    .append(this.genericDataService.generateJsonFromGenericResultsetData(result.getValue()));
+        }
+        return json.append('}').toString();
+    }
+
     @GET
     @Path("{datatable}")
     @Consumes({ MediaType.APPLICATION_JSON })
@@ -281,4 +340,17 @@ public class DatatablesApiResource {
 
         return this.toApiJsonSerializer.serialize(result);
     }
-}
\ No newline at end of file
+
+    private static List<String> splitQueryParam(final String name, final String value) {
+        final List<String> values = new ArrayList<>();
+        if (value != null) {
+            for (final String part : value.split(",")) {
+                if (!part.trim().isEmpty()) {
+                    values.add(part.trim());
+                }
+            }
+        }
+        if (values.isEmpty()) { throw new UnrecognizedQueryParamException(name, value); }
+        return values;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsCounter;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.cache.service.TenantGenerationCache;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory, per tenant cache of the datatable metadata (column headers with
+ * their code values, and the application table each datatable is registered
+ * against) so that reading a datatable does not query
+ * <code>information_schema</code>, <code>x_registered_table</code> and the
+ * code tables every time.
+ *
+ * Services changing datatables, their registration or codes call
+ * {@link #invalidate()}; the metadata is then reloaded by the first reader
+ * after the change has been committed.
+ */
+@Component
+public class DatatableMetadataCache implements CacheStatisticsProvider {
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter("datatableMetadata");
+    private final TenantGenerationCache<DatatableMetadata> metadataByTenant = new TenantGenerationCache<>(this.statistics);
+
+    /**
+     * Loads metadata of a datatable on a cache miss.
+     */
+    public interface Loader<T> {
+
+        T load(String datatable);
+    }
+
+    public List<ResultsetColumnHeaderData> columnHeaders(final String datatable, final Loader<List<ResultsetColumnHeaderData>> loader) {
+        return cached(metadata().columnHeaders, datatable, loader);
+    }
+
+    public String applicationTableName(final String datatable, final Loader<String> loader) {
+        return cached(metadata().applicationTableNames, datatable, loader);
+    }
+
+    public void invalidate() {
+        this.metadataByTenant.invalidate();
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return this.statistics.toData();
+    }
+
+    private <T> T cached(final ConcurrentMap<String, T> metadata, final String datatable, final Loader<T> loader) {
+        T cached = metadata.get(datatable);
+        if (cached != null) {
+            this.statistics.recordHit();
+            return cached;
+        }
+
+        this.statistics.recordMiss();
+        cached = loader.load(datatable);
+        metadata.put(datatable, cached);
+        return cached;
+    }
+
+    private DatatableMetadata metadata() {
+        // metadata loaded concurrently with an invalidation is added to the
+        // instance of the old generation and therefore never served
+        return this.metadataByTenant.get(new TenantGenerationCache.Loader<DatatableMetadata>() {
+
+            @Override
+            public DatatableMetadata load(@SuppressWarnings("unused") final boolean cached) {
+                return new DatatableMetadata();
+            }
+        });
+    }
+
+    private static final class DatatableMetadata {
+
+        private final ConcurrentMap<String, List<ResultsetColumnHeaderData>> columnHeaders = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, String> applicationTableNames = new ConcurrentHashMap<>();
+    }
+}
@@ -12,7 +12,20 @@ import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderDa
 
 public interface GenericDataService {
 
-    GenericResultsetData fillGenericResultSet(final String sql);
+    /**
+     * @param parameters
+     *            values bound to the <code>?</code> markers of the query, in
+     *            order.
+     */
+    GenericResultsetData fillGenericResultSet(String sql, Object... parameters);
+
+    /**
+     * Runs the query on a forward-only, streaming cursor and fetches the first
+     * row, so that errors of the query are thrown here rather than once rows
+     * are being written. The rows are read as the returned cursor writes them,
+     * so memory use does not grow with the number of rows.
+     */
+    GenericResultsetCursor openGenericResultSet(String sql, Object... parameters);
 
     String generateJsonFromGenericResultsetData(GenericResultsetData grs);
 
@@ -20,5 +33,9 @@ public interface GenericDataService {
 
     String wrapSQL(String sql);
 
+    /**
+     * @return the column headers of the datatable, served from the
+     *         {@link DatatableMetadataCache}; the list is not modifiable.
+     */
     List<ResultsetColumnHeaderData> fillResultsetColumnHeaders(String datatable);
 }
\ No newline at end of file
@@ -5,13 +5,19 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.sql.DataSource;
 
-import org.joda.time.LocalDate;
-import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
@@ -21,7 +27,11 @@ import org.mifosplatform.infrastructure.dataqueries.exception.DatatableNotFoundE
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSetMetaData;
 import org.springframework.stereotype.Service;
@@ -31,19 +41,30 @@ public class GenericDataServiceImpl implements GenericDataService {
 
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
+    private final DatatableMetadataCache datatableMetadataCache;
     private final static Logger logger = LoggerFactory.getLogger(GenericDataServiceImpl.class);
 
+    /**
+     * Fetch size of the cursor used to stream generic resultsets; the MySQL
+     * driver only streams rows one by one (instead of reading the complete
+     * resultset into memory) with {@link Integer#MIN_VALUE}.
+     */
+    public final static String STREAMING_FETCH_SIZE = "mifos.reports.streaming.fetchSize";
+    @Value("${" + STREAMING_FETCH_SIZE + ":-2147483648}")
+    private int streamingFetchSize = Integer.MIN_VALUE;
+
     @Autowired
-    public GenericDataServiceImpl(final RoutingDataSource dataSource) {
+    public GenericDataServiceImpl(final RoutingDataSource dataSource, final DatatableMetadataCache datatableMetadataCache) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
+        this.datatableMetadataCache = datatableMetadataCache;
 
     }
 
     @Override
-    public GenericResultsetData fillGenericResultSet(final String sql) {
+    public GenericResultsetData fillGenericResultSet(final String sql, final Object... parameters) {
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql, parameters);
 
         final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>();
         final List<ResultsetRowData> resultsetDataRows = new ArrayList<>();
@@ -74,6 +95,27 @@ public class GenericDataServiceImpl implements GenericDataService {
         return new GenericResultsetData(columnHeaders, resultsetDataRows);
     }
 
+    @Override
+    public GenericResultsetCursor openGenericResultSet(final String sql, final Object... parameters) {
+
+        final Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(this.streamingFetchSize);
+            new ArgumentPreparedStatementSetter(parameters).setValues(ps);
+            rs = ps.executeQuery();
+            final boolean hasRow = rs.next();
+            return new GenericResultsetCursor(this.dataSource, connection, ps, rs, hasRow);
+        } catch (final SQLException e) {
+            JdbcUtils.closeResultSet(rs);
+            JdbcUtils.closeStatement(ps);
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+            throw this.jdbcTemplate.getExceptionTranslator().translate("openGenericResultSet", sql, e);
+        }
+    }
+
     @Override
     public String replace(final String str, final String pattern, final String replace) {
         // JPW - this replace may / may not be any better or quicker than the
@@ -106,80 +148,33 @@ public class GenericDataServiceImpl implements GenericDataService {
     @Override
     public String generateJsonFromGenericResultsetData(final GenericResultsetData grs) {
 
-        final StringBuffer writer = new StringBuffer();
-
-        writer.append("[");
-
-        final List<ResultsetColumnHeaderData> columnHeaders = grs.getColumnHeaders();
-
-        final List<ResultsetRowData> data = grs.getData();
-        List<String> row;
-        Integer rSize;
-        final String doubleQuote = "\"";
-        final String slashDoubleQuote = "\\\"";
-        String currColType;
-        String currVal;
-
-        for (int i = 0; i < data.size(); i++) {
-            writer.append("\n{");
-
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-
-                writer.append(doubleQuote + columnHeaders.get(j).getColumnName() + doubleQuote + ": ");
-                currColType = columnHeaders.get(j).getColumnDisplayType();
-                final String colType = columnHeaders.get(j).getColumnType();
-                if (currColType == null && colType.equalsIgnoreCase("INT")) {
-                    currColType = "INTEGER";
-                }
-                if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
-                    currColType = "VARCHAR";
-                }
-                if (currColType == null && colType.equalsIgnoreCase("DATE")) {
-                    currColType = "DATE";
-                }
-                currVal = row.get(j);
-                if (currVal != null && currColType != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("INTEGER")) {
-                        writer.append(currVal);
-                    } else {
-                        if (currColType.equals("DATE")) {
-                            final LocalDate localDate = new LocalDate(currVal);
-                            writer.append("[" + localDate.getYear() + ", " + localDate.getMonthOfYear() + ", " + localDate.getDayOfMonth()
-                                    + "]");
-                        } else if (currColType.equals("DATETIME")) {
-                            final LocalDateTime localDateTime = new LocalDateTime(currVal);
-                            writer.append("[" + localDateTime.getYear() + ", " + localDateTime.getMonthOfYear() + ", "
-                                    + localDateTime.getDayOfMonth() + " " + localDateTime.getHourOfDay() + ", "
-                                    + localDateTime.getMinuteOfHour() + ", " + localDateTime.getSecondOfMinute() + ", "
-                                    + localDateTime.getMillisOfSecond() + "]");
-                        } else {
-                            writer.append(doubleQuote + replace(currVal, doubleQuote, slashDoubleQuote) + doubleQuote);
-                        }
-                    }
-                } else {
-                    writer.append("null");
-                }
-                if (j < (rSize - 1)) {
-                    writer.append(",\n");
-                }
-            }
-
-            if (i < (data.size() - 1)) {
-                writer.append("},");
-            } else {
-                writer.append("}");
+        final StringWriter stringWriter = new StringWriter();
+        final GenericResultsetWriter writer = new GenericResultsetJsonWriter(stringWriter);
+        try {
+            writer.writeColumnHeaders(grs.getColumnHeaders());
+            for (final ResultsetRowData row : grs.getData()) {
+                writer.writeRow(row.getRow());
             }
+            writer.finish();
+        } catch (final IOException e) {
+            // not thrown by a StringWriter
+            throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
         }
-
-        writer.append("\n]");
-        return writer.toString();
-
+        return stringWriter.toString();
     }
 
     @Override
     public List<ResultsetColumnHeaderData> fillResultsetColumnHeaders(final String datatable) {
+        return this.datatableMetadataCache.columnHeaders(datatable, new DatatableMetadataCache.Loader<List<ResultsetColumnHeaderData>>() {
+
+            @Override
+            public List<ResultsetColumnHeaderData> load(final String datatableName) {
+                return Collections.unmodifiableList(retrieveResultsetColumnHeaders(datatableName));
+            }
+        });
+    }
+
+    private List<ResultsetColumnHeaderData> retrieveResultsetColumnHeaders(final String datatable) {
 
         logger.debug("::3 Was inside the fill ResultSetColumnHeader");
 
@@ -237,10 +232,6 @@ public class GenericDataServiceImpl implements GenericDataService {
         return columnHeaders;
     }
 
-    /*
-     * Candidate for using caching there to get allowed 'column values' from
-     * code/codevalue tables
-     */
     private List<ResultsetColumnValueData> retreiveColumnValues(final String codeName) {
 
         final List<ResultsetColumnValueData> columnValues = new ArrayList<>();
@@ -0,0 +1,133 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * A generic resultset query that has been run and its first row fetched, see
+ * {@link GenericDataService#openGenericResultSet(String, Object...)}. The
+ * remaining rows are read while they are written.
+ *
+ * Holds a connection until {@link #writeTo(GenericResultsetWriter)} or
+ * {@link #close()} has been called. A response whose entity is never written,
+ * for instance because the client went away first, leaves its cursor open, so
+ * the request thread closes what is still open once the request is done, see
+ * {@link #closeOpenedOnThisThread()}.
+ */
+public final class GenericResultsetCursor implements Closeable {
+
+    private static final ThreadLocal<Set<GenericResultsetCursor>> openedOnThisThread = new ThreadLocal<>();
+
+    private final DataSource dataSource;
+    private final Connection connection;
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private boolean hasRow;
+    private boolean closed;
+
+    GenericResultsetCursor(final DataSource dataSource, final Connection connection, final Statement statement,
+            final ResultSet resultSet, final boolean hasRow) {
+        this.dataSource = dataSource;
+        this.connection = connection;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.hasRow = hasRow;
+
+        Set<GenericResultsetCursor> opened = openedOnThisThread.get();
+        if (opened == null) {
+            opened = Collections.newSetFromMap(new IdentityHashMap<GenericResultsetCursor, Boolean>());
+            openedOnThisThread.set(opened);
+        }
+        opened.add(this);
+    }
+
+    /**
+     * Closes the cursors opened on this thread and not closed yet, returning
+     * how many there were.
+     */
+    public static int closeOpenedOnThisThread() {
+        final Set<GenericResultsetCursor> opened = openedOnThisThread.get();
+        if (opened == null) { return 0; }
+        openedOnThisThread.remove();
+
+        final int count = opened.size();
+        for (final GenericResultsetCursor cursor : opened) {
+            cursor.release();
+        }
+        return count;
+    }
+
+    /**
+     * Hands the column headers and each row to the writer and closes the
+     * cursor.
+     */
+    public void writeTo(final GenericResultsetWriter writer) throws IOException {
+        try {
+            final ResultSetMetaData rsmd = this.resultSet.getMetaData();
+            final int columnCount = rsmd.getColumnCount();
+
+            final List<ResultsetColumnHeaderData> columnHeaders = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                final String columnName = rsmd.getColumnLabel(i + 1);
+                final String columnType = rsmd.getColumnTypeName(i + 1);
+                columnHeaders.add(ResultsetColumnHeaderData.basic(columnName, columnType));
+            }
+            writer.writeColumnHeaders(columnHeaders);
+
+            final String[] columnValues = new String[columnCount];
+            final List<String> row = Arrays.asList(columnValues);
+            while (this.hasRow) {
+                for (int i = 0; i < columnCount; i++) {
+                    columnValues[i] = this.resultSet.getString(i + 1);
+                }
+                writer.writeRow(row);
+                this.hasRow = this.resultSet.next();
+            }
+            writer.finish();
+        } catch (final SQLException e) {
+            // part of the rows may already have been sent
+            throw new IOException("Reading the rows of the resultset failed", e);
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        final Set<GenericResultsetCursor> opened = openedOnThisThread.get();
+        if (opened != null && opened.remove(this) && opened.isEmpty()) {
+            openedOnThisThread.remove();
+        }
+        release();
+    }
+
+    private void release() {
+        if (this.closed) { return; }
+        this.closed = true;
+        JdbcUtils.closeResultSet(this.resultSet);
+        JdbcUtils.closeStatement(this.statement);
+        DataSourceUtils.releaseConnection(this.connection, this.dataSource);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+
+/**
+ * Writes a generic resultset as a JSON array with one object per row, keyed by
+ * column name (the <code>genericResultSet=false</code> representation).
+ */
+final class GenericResultsetJsonWriter implements GenericResultsetWriter {
+
+    private static final String DOUBLE_QUOTE = "\"";
+    private static final String SLASH_DOUBLE_QUOTE = "\\\"";
+
+    private final Writer writer;
+    private List<ResultsetColumnHeaderData> columnHeaders;
+    private String[] columnTypes;
+    private boolean firstRow = true;
+
+    GenericResultsetJsonWriter(final Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void writeColumnHeaders(final List<ResultsetColumnHeaderData> columnHeaders) throws IOException {
+        this.columnHeaders = columnHeaders;
+        this.columnTypes = new String[columnHeaders.size()];
+        for (int j = 0; j < columnHeaders.size(); j++) {
+            String currColType = columnHeaders.get(j).getColumnDisplayType();
+            final String colType = columnHeaders.get(j).getColumnType();
+            if (currColType == null && colType.equalsIgnoreCase("INT")) {
+                currColType = "INTEGER";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("VARCHAR")) {
+                currColType = "VARCHAR";
+            }
+            if (currColType == null && colType.equalsIgnoreCase("DATE")) {
+                currColType = "DATE";
+            }
+            this.columnTypes[j] = currColType;
+        }
+        this.writer.append('[');
+    }
+
+    @Override
+    public void writeRow(final List<String> row) throws IOException {
+        if (this.firstRow) {
+            this.firstRow = false;
+        } else {
+            this.writer.append(',');
+        }
+        this.writer.append("\n{");
+
+        final int rSize = row.size();
+        for (int j = 0; j < rSize; j++) {
+
+            this.writer.append(DOUBLE_QUOTE).append(this.columnHeaders.get(j).getColumnName()).append(DOUBLE_QUOTE).append(": ");
+            final String currColType = this.columnTypes[j];
+            final String currVal = row.get(j);
+            if (currVal != null && currColType != null) {
+                if (currColType.equals("DECIMAL") || currColType.equals("INTEGER")) {
+                    this.writer.append(currVal);
+                } else {
+                    if (currColType.equals("DATE")) {
+                        final LocalDate localDate = new LocalDate(currVal);
+                        this.writer.append("[" + localDate.getYear() + ", " + localDate.getMonthOfYear() + ", "
+                                + localDate.getDayOfMonth() + "]");
+                    } else if (currColType.equals("DATETIME")) {
+                        final LocalDateTime localDateTime = new LocalDateTime(currVal);
+                        this.writer.append("[" + localDateTime.getYear() + ", " + localDateTime.getMonthOfYear() + ", "
+                                + localDateTime.getDayOfMonth() + " " + localDateTime.getHourOfDay() + ", "
+                                + localDateTime.getMinuteOfHour() + ", " + localDateTime.getSecondOfMinute() + ", "
+                                + localDateTime.getMillisOfSecond() + "]");
+                    } else {
+                        this.writer.append(DOUBLE_QUOTE).append(currVal.replace(DOUBLE_QUOTE, SLASH_DOUBLE_QUOTE)).append(DOUBLE_QUOTE);
+                    }
+                }
+            } else {
+                this.writer.append("null");
+            }
+            if (j < (rSize - 1)) {
+                this.writer.append(",\n");
+            }
+        }
+        this.writer.append('}');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        this.writer.append("\n]");
+        this.writer.flush();
+    }
+}
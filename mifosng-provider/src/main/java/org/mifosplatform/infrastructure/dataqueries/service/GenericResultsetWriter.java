@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
+
+/**
+ * Receives a generic resultset one row at a time, see
+ * {@link GenericResultsetCursor#writeTo(GenericResultsetWriter)}.
+ */
+public interface GenericResultsetWriter {
+
+    void writeColumnHeaders(List<ResultsetColumnHeaderData> columnHeaders) throws IOException;
+
+    /**
+     * @param row
+     *            values of the current row; the list is reused for the next
+     *            row so must not be kept.
+     */
+    void writeRow(List<String> row) throws IOException;
+
+    void finish() throws IOException;
+}
@@ -15,11 +15,21 @@ import javax.ws.rs.core.StreamingOutput;
 import org.mifosplatform.infrastructure.dataqueries.data.GenericResultsetData;
 import org.mifosplatform.infrastructure.dataqueries.data.ReportData;
 import org.mifosplatform.infrastructure.dataqueries.data.ReportParameterData;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
 
 public interface ReadReportingService {
 
     StreamingOutput retrieveReportCSV(String name, String type, Map<String, String> extractedQueryParams);
 
+    /**
+     * @param genericResultSet
+     *            <code>true</code> for the column headers and rows
+     *            representation of {@link GenericResultsetData},
+     *            <code>false</code> for an array of one object per row.
+     */
+    StreamingOutput retrieveReportJSON(String name, String type, Map<String, String> extractedQueryParams, boolean genericResultSet,
+            boolean prettyPrint);
+
     GenericResultsetData retrieveGenericResultset(String name, String type, Map<String, String> extractedQueryParams);
 
     Response processPentahoRequest(String reportName, String outputType, Map<String, String> queryParams, Locale locale);
@@ -33,4 +43,10 @@ public interface ReadReportingService {
     Collection<ReportParameterData> getAllowedParameters();
 
     ReportData retrieveReport(final Long id);
+
+    /**
+     * @return latencies of the runs of each report (and report parameter) of
+     *         the current tenant since startup.
+     */
+    Collection<RequestLatencyData> retrieveReportLatencies();
 }
\ No newline at end of file
@@ -5,29 +5,37 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.sql.DataSource;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsCounter;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
 import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
@@ -40,8 +48,11 @@ import org.mifosplatform.infrastructure.dataqueries.data.ReportParameterJoinData
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetColumnHeaderData;
 import org.mifosplatform.infrastructure.dataqueries.data.ResultsetRowData;
 import org.mifosplatform.infrastructure.dataqueries.exception.ReportNotFoundException;
+import org.mifosplatform.infrastructure.dataqueries.service.ReportSqlTemplate.BoundSql;
 import org.mifosplatform.infrastructure.documentmanagement.contentrepository.FileSystemContentRepository;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.mifosplatform.infrastructure.security.service.RequestLatencyHistograms;
 import org.mifosplatform.useradministration.domain.AppUser;
 import org.pentaho.reporting.engine.classic.core.ClassicEngineBoot;
 import org.pentaho.reporting.engine.classic.core.DefaultReportEnvironment;
@@ -71,108 +82,91 @@ import com.lowagie.text.pdf.PdfPTable;
 import com.lowagie.text.pdf.PdfWriter;
 
 @Service
-public class ReadReportingServiceImpl implements ReadReportingService {
+public class ReadReportingServiceImpl implements ReadReportingService, CacheStatisticsProvider {
 
     private final static Logger logger = LoggerFactory.getLogger(ReadReportingServiceImpl.class);
 
+    private final static int MAX_REPORT_LATENCIES = 1000;
+
     private final JdbcTemplate jdbcTemplate;
     private final DataSource dataSource;
     private final PlatformSecurityContext context;
     private final GenericDataService genericDataService;
     private boolean noPentaho = false;
 
+    private final ResourceManager resourceManager;
+    private final ConcurrentMap<String, CachedMasterReport> masterReports = new ConcurrentHashMap<>();
+    private final RenderedReportFiles renderedReportFiles = RenderedReportFiles.inTemporaryDirectory();
+    private final CacheStatisticsCounter masterReportStatistics = new CacheStatisticsCounter("pentahoReportDefinitions");
+
+    private final ReportSqlCache reportSqlCache;
+    private final RequestLatencyHistograms reportLatencies = new RequestLatencyHistograms(MAX_REPORT_LATENCIES);
+
     @Autowired
     public ReadReportingServiceImpl(final PlatformSecurityContext context, final RoutingDataSource dataSource,
-            final GenericDataService genericDataService) {
+            final GenericDataService genericDataService, final ReportSqlCache reportSqlCache) {
         // kick off pentaho reports server
         ClassicEngineBoot.getInstance().start();
         this.noPentaho = false;
+        this.resourceManager = new ResourceManager();
+        this.resourceManager.registerDefaults();
 
         this.context = context;
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.genericDataService = genericDataService;
+        this.reportSqlCache = reportSqlCache;
     }
 
     @Override
     public StreamingOutput retrieveReportCSV(final String name, final String type, final Map<String, String> queryParams) {
 
+        final ReportRun run = startReport(name, type, queryParams);
         return new StreamingOutput() {
 
             @Override
-            public void write(final OutputStream out) {
-                try {
+            public void write(final OutputStream out) throws IOException {
+                run.writeTo(new GenericResultsetCsvWriter(bufferedWriterFor(out)));
+            }
+        };
 
-                    final GenericResultsetData result = retrieveGenericResultset(name, type, queryParams);
-                    final StringBuffer sb = generateCsvFileBuffer(result);
+    }
 
-                    final InputStream in = new ByteArrayInputStream(sb.toString().getBytes("UTF-8"));
+    @Override
+    public StreamingOutput retrieveReportJSON(final String name, final String type, final Map<String, String> queryParams,
+            final boolean genericResultSet, final boolean prettyPrint) {
 
-                    final byte[] outputByte = new byte[4096];
-                    Integer readLen = in.read(outputByte, 0, 4096);
+        final ReportRun run = startReport(name, type, queryParams);
+        return new StreamingOutput() {
 
-                    while (readLen != -1) {
-                        out.write(outputByte, 0, readLen);
-                        readLen = in.read(outputByte, 0, 4096);
-                    }
-                    // in.close();
-                    // out.flush();
-                    // out.close();
-                } catch (final Exception e) {
-                    throw new PlatformDataIntegrityException("error.msg.exception.error", e.getMessage());
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                final Writer writer = bufferedWriterFor(out);
+                if (genericResultSet) {
+                    run.writeTo(new GenericResultsetDataJsonWriter(writer, prettyPrint));
+                } else {
+                    run.writeTo(new GenericResultsetJsonWriter(writer));
                 }
             }
         };
-
     }
 
-    private StringBuffer generateCsvFileBuffer(final GenericResultsetData result) {
-        final StringBuffer writer = new StringBuffer();
+    private static Writer bufferedWriterFor(final OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
 
-        final List<ResultsetColumnHeaderData> columnHeaders = result.getColumnHeaders();
-        logger.info("NO. of Columns: " + columnHeaders.size());
-        final Integer chSize = columnHeaders.size();
-        for (int i = 0; i < chSize; i++) {
-            writer.append('"' + columnHeaders.get(i).getColumnName() + '"');
-            if (i < (chSize - 1)) {
-                writer.append(",");
-            }
-        }
-        writer.append('\n');
-
-        final List<ResultsetRowData> data = result.getData();
-        List<String> row;
-        Integer rSize;
-        // String currCol;
-        String currColType;
-        String currVal;
-        final String doubleQuote = "\"";
-        final String twoDoubleQuotes = doubleQuote + doubleQuote;
-        logger.info("NO. of Rows: " + data.size());
-        for (int i = 0; i < data.size(); i++) {
-            row = data.get(i).getRow();
-            rSize = row.size();
-            for (int j = 0; j < rSize; j++) {
-                // currCol = columnHeaders.get(j).getColumnName();
-                currColType = columnHeaders.get(j).getColumnType();
-                currVal = row.get(j);
-                if (currVal != null) {
-                    if (currColType.equals("DECIMAL") || currColType.equals("DOUBLE") || currColType.equals("BIGINT")
-                            || currColType.equals("SMALLINT") || currColType.equals("INT")) {
-                        writer.append(currVal);
-                    } else {
-                        writer.append('"' + this.genericDataService.replace(currVal, doubleQuote, twoDoubleQuotes) + '"');
-                    }
+    /**
+     * Runs the report query before the response is started, so that its errors
+     * are still reported as such.
+     */
+    private ReportRun startReport(final String name, final String type, final Map<String, String> queryParams) {
 
-                }
-                if (j < (rSize - 1)) {
-                    writer.append(",");
-                }
-            }
-            writer.append('\n');
-        }
+        final long startTime = System.currentTimeMillis();
+        logger.info("STARTING REPORT: " + name + "   Type: " + type);
 
-        return writer;
+        final BoundSql sql = getSQLtoRun(name, type, queryParams);
+        final GenericResultsetCursor cursor = this.genericDataService.openGenericResultSet(sql.getSql(), sql.getParameters());
+        return new ReportRun(name, type, startTime, cursor);
     }
 
     @Override
@@ -181,49 +175,65 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         final long startTime = System.currentTimeMillis();
         logger.info("STARTING REPORT: " + name + "   Type: " + type);
 
-        final String sql = getSQLtoRun(name, type, queryParams);
+        final BoundSql sql = getSQLtoRun(name, type, queryParams);
 
-        final GenericResultsetData result = this.genericDataService.fillGenericResultSet(sql);
+        final GenericResultsetData result = this.genericDataService.fillGenericResultSet(sql.getSql(), sql.getParameters());
 
         final long elapsed = System.currentTimeMillis() - startTime;
+        recordLatency(name, type, elapsed);
         logger.info("FINISHING Report/Request Name: " + name + " - " + type + "     Elapsed Time: " + elapsed);
         return result;
     }
 
-    private String getSQLtoRun(final String name, final String type, final Map<String, String> queryParams) {
+    private BoundSql getSQLtoRun(final String name, final String type, final Map<String, String> queryParams) {
 
-        String sql = getSql(name, type);
+        final ReportSqlTemplate template = this.reportSqlCache.template(type, name, new ReportSqlCache.Loader() {
 
-        final Set<String> keys = queryParams.keySet();
-        for (final String key : keys) {
-            final String pValue = queryParams.get(key);
-            // logger.info("(" + key + " : " + pValue + ")");
-            sql = this.genericDataService.replace(sql, key, pValue);
-        }
+            @Override
+            public String load(final String sqlType, final String sqlName) {
+                return getSql(sqlName, sqlType);
+            }
+        });
 
+        final Map<String, String> values = new HashMap<>(queryParams);
         final AppUser currentUser = this.context.authenticatedUser();
         // Allows sql query to restrict data by office hierarchy if required
-        sql = this.genericDataService.replace(sql, "${currentUserHierarchy}", currentUser.getOffice().getHierarchy());
+        values.put("${currentUserHierarchy}", currentUser.getOffice().getHierarchy());
         // Allows sql query to restrict data by current user Id if required
         // (typically used to return report lists containing only reports
         // permitted to be run by the user
-        sql = this.genericDataService.replace(sql, "${currentUserId}", currentUser.getId().toString());
-
-        sql = this.genericDataService.wrapSQL(sql);
-
-        return sql;
+        values.put("${currentUserId}", currentUser.getId().toString());
 
+        final BoundSql sql = template.bind(values);
+        return new BoundSql(this.genericDataService.wrapSQL(sql.getSql()), sql.getParameters());
     }
 
     private String getSql(final String name, final String type) {
 
-        final String inputSql = "select " + type + "_sql as the_sql from stretchy_" + type + " where " + type + "_name = '" + name + "'";
+        final String inputSql = "select " + type + "_sql as the_sql from stretchy_" + type + " where " + type + "_name = ?";
         final String inputSqlWrapped = this.genericDataService.wrapSQL(inputSql);
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(inputSqlWrapped);
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(inputSqlWrapped, name);
 
         if (rs.next()) { return rs.getString("the_sql"); }
-        throw new ReportNotFoundException(inputSql);
+        throw new ReportNotFoundException(inputSql.replace("?", "'" + name + "'"));
+    }
+
+    /**
+     * Runs of reports and of report parameters are counted separately, a
+     * parameter may have the same name as a report.
+     */
+    private void recordLatency(final String name, final String type, final long elapsed) {
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        if (tenant == null) { return; }
+
+        final String key = "report".equals(type) ? name : type + ": " + name;
+        this.reportLatencies.record(tenant.getTenantIdentifier(), key, elapsed);
+    }
+
+    @Override
+    public Collection<RequestLatencyData> retrieveReportLatencies() {
+        return this.reportLatencies.retrieve(ThreadLocalContextUtil.getTenant().getTenantIdentifier());
     }
 
     @Override
@@ -255,56 +265,108 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         if (this.noPentaho) { throw new PlatformDataIntegrityException("error.msg.no.pentaho", "Pentaho is not enabled",
                 "Pentaho is not enabled"); }
 
-        final String reportPath = FileSystemContentRepository.MIFOSX_BASE_DIR + File.separator + "pentahoReports" + File.separator
-                + reportName + ".prpt";
-        logger.info("Report path: " + reportPath);
+        final MasterReport masterReport = retrieveMasterReport(reportName);
+        final DefaultReportEnvironment reportEnvironment = (DefaultReportEnvironment) masterReport.getReportEnvironment();
+        if (locale != null) {
+            reportEnvironment.setLocale(locale);
+        }
+        addParametersToReport(masterReport, queryParams);
 
-        // load report definition
-        final ResourceManager manager = new ResourceManager();
-        manager.registerDefaults();
-        Resource res;
+        final File renderedReport = renderReport(this.renderedReportFiles, masterReport, outputType);
+        final StreamingOutput reportOutput = new StreamingOutput() {
 
-        try {
-            res = manager.createDirectly(reportPath, MasterReport.class);
-            final MasterReport masterReport = (MasterReport) res.getResource();
-            final DefaultReportEnvironment reportEnvironment = (DefaultReportEnvironment) masterReport.getReportEnvironment();
-            if (locale != null) {
-                reportEnvironment.setLocale(locale);
+            @Override
+            public void write(final OutputStream out) throws IOException {
+                try {
+                    Files.copy(renderedReport.toPath(), out);
+                } finally {
+                    Files.deleteIfExists(renderedReport.toPath());
+                }
             }
-            addParametersToReport(masterReport, queryParams);
+        };
 
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        if ("PDF".equalsIgnoreCase(outputType)) { return Response.ok().entity(reportOutput).type("application/pdf").build(); }
 
-            if ("PDF".equalsIgnoreCase(outputType)) {
-                PdfReportUtil.createPDF(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/pdf").build();
-            }
+        if ("XLS".equalsIgnoreCase(outputType)) { return Response.ok().entity(reportOutput).type("application/vnd.ms-excel")
+                .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".xls").build(); }
 
-            if ("XLS".equalsIgnoreCase(outputType)) {
-                ExcelReportUtil.createXLS(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("application/vnd.ms-excel")
-                        .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".xls").build();
-            }
+        if ("CSV".equalsIgnoreCase(outputType)) { return Response.ok().entity(reportOutput).type("text/csv")
+                .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build(); }
 
-            if ("CSV".equalsIgnoreCase(outputType)) {
-                CSVReportUtil.createCSV(masterReport, baos, "UTF-8");
-                return Response.ok().entity(baos.toByteArray()).type("text/csv")
-                        .header("Content-Disposition", "attachment;filename=" + reportName.replaceAll(" ", "") + ".csv").build();
-            }
+        return Response.ok().entity(reportOutput).type("text/html").build();
+    }
 
-            if ("HTML".equalsIgnoreCase(outputType)) {
-                HtmlReportUtil.createStreamHTML(masterReport, baos);
-                return Response.ok().entity(baos.toByteArray()).type("text/html").build();
+    /**
+     * Renders the report into a temporary file before the response is
+     * started, so that a report that fails to render is answered with an
+     * error rather than a truncated document.
+     */
+    private static File renderReport(final RenderedReportFiles renderedReportFiles, final MasterReport masterReport,
+            final String outputType) {
+        File renderedReport = null;
+        try {
+            renderedReport = renderedReportFiles.create(outputType);
+            try (final OutputStream out = new BufferedOutputStream(new FileOutputStream(renderedReport))) {
+                if ("PDF".equalsIgnoreCase(outputType)) {
+                    PdfReportUtil.createPDF(masterReport, out);
+                } else if ("XLS".equalsIgnoreCase(outputType)) {
+                    ExcelReportUtil.createXLS(masterReport, out);
+                } else if ("CSV".equalsIgnoreCase(outputType)) {
+                    CSVReportUtil.createCSV(masterReport, out, "UTF-8");
+                } else {
+                    HtmlReportUtil.createStreamHTML(masterReport, out);
+                }
+            }
+            return renderedReport;
+        } catch (final ReportProcessingException | IOException e) {
+            if (renderedReport != null) {
+                renderedReport.delete();
             }
-        } catch (final ResourceException e) {
-            throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
-        } catch (final ReportProcessingException e) {
-            throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
-        } catch (final IOException e) {
             throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
         }
+    }
+
+    /**
+     * Returns a private copy of the parsed report definition, the parsed
+     * definition itself is cached until its <code>.prpt</code> file changes.
+     */
+    private MasterReport retrieveMasterReport(final String reportName) {
+
+        final String reportPath = FileSystemContentRepository.MIFOSX_BASE_DIR + File.separator + "pentahoReports" + File.separator
+                + reportName + ".prpt";
+        final long lastModified = new File(reportPath).lastModified();
+
+        CachedMasterReport cached = this.masterReports.get(reportName);
+        if (cached != null && cached.isOf(lastModified)) {
+            this.masterReportStatistics.recordHit();
+        } else {
+            this.masterReportStatistics.recordMiss();
+            logger.info("Report path: " + reportPath);
+            try {
+                final Resource res = this.resourceManager.createDirectly(reportPath, MasterReport.class);
+                cached = new CachedMasterReport((MasterReport) res.getResource(), lastModified);
+            } catch (final ResourceException e) {
+                throw new PlatformDataIntegrityException("error.msg.reporting.error", e.getMessage());
+            }
+            this.masterReports.put(reportName, cached);
+        }
+
+        return copyOf(cached.getMasterReport());
+    }
 
-        throw new PlatformDataIntegrityException("error.msg.invalid.outputType", "No matching Output Type: " + outputType);
+    /**
+     * Copies a report definition along with its own report environment, as
+     * parameters and locale are set per request.
+     */
+    static MasterReport copyOf(final MasterReport masterReport) {
+        final MasterReport copy = (MasterReport) masterReport.clone();
+        copy.setReportEnvironment(new DefaultReportEnvironment(copy.getConfiguration()));
+        return copy;
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return this.masterReportStatistics.toData();
     }
 
     private void addParametersToReport(final MasterReport report, final Map<String, String> queryParams) {
@@ -625,4 +687,46 @@ public class ReadReportingServiceImpl implements ReadReportingService {
         }
     }
 
-}
\ No newline at end of file
+
+    private static final class CachedMasterReport {
+
+        private final MasterReport masterReport;
+        private final long lastModified;
+
+        CachedMasterReport(final MasterReport masterReport, final long lastModified) {
+            this.masterReport = masterReport;
+            this.lastModified = lastModified;
+        }
+
+        boolean isOf(final long fileLastModified) {
+            return this.lastModified == fileLastModified;
+        }
+
+        MasterReport getMasterReport() {
+            return this.masterReport;
+        }
+    }
+
+    private final class ReportRun {
+
+        private final String name;
+        private final String type;
+        private final long startTime;
+        private final GenericResultsetCursor cursor;
+
+        ReportRun(final String name, final String type, final long startTime, final GenericResultsetCursor cursor) {
+            this.name = name;
+            this.type = type;
+            this.startTime = startTime;
+            this.cursor = cursor;
+        }
+
+        void writeTo(final GenericResultsetWriter writer) throws IOException {
+            this.cursor.writeTo(writer);
+
+            final long elapsed = System.currentTimeMillis() - this.startTime;
+            recordLatency(this.name, this.type, elapsed);
+            logger.info("FINISHING Report/Request Name: " + this.name + " - " + this.type + "     Elapsed Time: " + elapsed);
+        }
+    }
+}
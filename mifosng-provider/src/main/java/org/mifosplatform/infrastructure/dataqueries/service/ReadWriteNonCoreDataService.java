@@ -5,7 +5,9 @@
  */
 package org.mifosplatform.infrastructure.dataqueries.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
@@ -33,6 +35,17 @@ public interface ReadWriteNonCoreDataService {
 
     GenericResultsetData retrieveDataTableGenericResultSet(String datatable, Long appTableId, String order, Long id);
 
+    /**
+     * Reads the entries of several application table entities from several
+     * datatables registered against the same application table, with one
+     * query per datatable.
+     * 
+     * @return the entries of each datatable, ordered by the application table
+     *         id, in the order of the datatables given.
+     */
+    Map<String, GenericResultsetData> retrieveDataTableGenericResultSets(Collection<String> datatables, Collection<Long> appTableIds,
+            String order);
+
     CommandProcessingResult createDatatable(JsonCommand command);
 
     void updateDatatable(String datatableName, JsonCommand command);
@@ -9,7 +9,10 @@ import java.lang.reflect.Type;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -101,6 +104,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     private final ConfigurationDomainService configurationDomainService;
     private final CodeReadPlatformService codeReadPlatformService;
     private final DataTableValidator dataTableValidator;
+    private final DatatableMetadataCache datatableMetadataCache;
 
     // private final GlobalConfigurationWritePlatformServiceJpaRepositoryImpl
     // configurationWriteService;
@@ -109,7 +113,8 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     public ReadWriteNonCoreDataServiceImpl(final RoutingDataSource dataSource, final PlatformSecurityContext context,
             final FromJsonHelper fromJsonHelper, final GenericDataService genericDataService,
             final DatatableCommandFromApiJsonDeserializer fromApiJsonDeserializer, final CodeReadPlatformService codeReadPlatformService,
-            final ConfigurationDomainService configurationDomainService, final DataTableValidator dataTableValidator) {
+            final ConfigurationDomainService configurationDomainService, final DataTableValidator dataTableValidator,
+            final DatatableMetadataCache datatableMetadataCache) {
         this.dataSource = dataSource;
         this.jdbcTemplate = new JdbcTemplate(this.dataSource);
         this.context = context;
@@ -120,6 +125,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         this.codeReadPlatformService = codeReadPlatformService;
         this.configurationDomainService = configurationDomainService;
         this.dataTableValidator = dataTableValidator;
+        this.datatableMetadataCache = datatableMetadataCache;
         // this.configurationWriteService = configurationWriteService;
     }
 
@@ -230,6 +236,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     private void _registerDataTable(final String applicationTableName, final String dataTableName, final Integer category,
             final String permissionsSql) {
 
+        this.datatableMetadataCache.invalidate();
         validateAppTable(applicationTableName);
         assertDataTableExists(dataTableName);
 
@@ -318,6 +325,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     @Transactional
     @Override
     public void deregisterDatatable(final String datatable) {
+        this.datatableMetadataCache.invalidate();
         final String permissionList = "('CREATE_" + datatable + "', 'CREATE_" + datatable + "_CHECKER', 'READ_" + datatable + "', 'UPDATE_"
                 + datatable + "', 'UPDATE_" + datatable + "_CHECKER', 'DELETE_" + datatable + "', 'DELETE_" + datatable + "_CHECKER')";
 
@@ -337,6 +345,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         sqlArray[3] = deleteFromConfigurationSql;
 
         this.jdbcTemplate.batchUpdate(sqlArray);
+        this.configurationDomainService.invalidateConfigurationSnapshot();
     }
 
     @Transactional
@@ -426,9 +435,12 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
 
     private boolean isRegisteredDataTable(final String name) {
         // PERMITTED datatables
-        final String sql = "select if((exists (select 1 from x_registered_table where registered_table_name = ?)) = 1, 'true', 'false')";
-        final String isRegisteredDataTable = this.jdbcTemplate.queryForObject(sql, String.class, new Object[] { name });
-        return new Boolean(isRegisteredDataTable);
+        try {
+            queryForApplicationTableName(name);
+            return true;
+        } catch (final DatatableNotFoundException e) {
+            return false;
+        }
     }
 
     private void assertDataTableExists(final String datatableName) {
@@ -504,6 +516,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     @Override
     public CommandProcessingResult createDatatable(final JsonCommand command) {
 
+        this.datatableMetadataCache.invalidate();
         String datatableName = null;
 
         try {
@@ -811,6 +824,9 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     @Override
     public void updateDatatable(final String datatableName, final JsonCommand command) {
 
+        // columns are altered outside of the transaction, so the metadata is
+        // reloaded even when the update fails halfway
+        this.datatableMetadataCache.invalidate();
         try {
             this.context.authenticatedUser();
             this.fromApiJsonDeserializer.validateForUpdate(command.json());
@@ -963,6 +979,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     @Override
     public void deleteDatatable(final String datatableName) {
 
+        this.datatableMetadataCache.invalidate();
         try {
             this.context.authenticatedUser();
             if (!isRegisteredDataTable(datatableName)) { throw new DatatableNotFoundException(datatableName); }
@@ -1122,6 +1139,43 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         return new GenericResultsetData(columnHeaders, result);
     }
 
+    @Override
+    public Map<String, GenericResultsetData> retrieveDataTableGenericResultSets(final Collection<String> dataTableNames,
+            final Collection<Long> appTableIds, final String order) {
+
+        String appTable = null;
+        String appTableDataTableName = null;
+        for (final String dataTableName : dataTableNames) {
+            final String dataTableAppTable = queryForApplicationTableName(dataTableName);
+            if (appTable == null) {
+                appTable = dataTableAppTable;
+                appTableDataTableName = dataTableName;
+            } else if (!appTable.equals(dataTableAppTable)) { throw new PlatformDataIntegrityException(
+                    "error.msg.datatables.registered.against.different.application.tables", "Datatables `" + appTableDataTableName
+                            + "` and `" + dataTableName + "` are not registered against the same application table.", "datatables",
+                    dataTableName); }
+        }
+
+        final String appTableIdCondition = "in (" + StringUtils.join(appTableIds, ",") + ")";
+        checkMainResourcesExistWithinScope(appTable, appTableIds, appTableIdCondition);
+
+        final String fkField = getFKField(appTable);
+        final Map<String, GenericResultsetData> results = new LinkedHashMap<>();
+        for (final String dataTableName : dataTableNames) {
+            final List<ResultsetColumnHeaderData> columnHeaders = this.genericDataService.fillResultsetColumnHeaders(dataTableName);
+
+            String sql = "select * from `" + dataTableName + "` where " + fkField + " " + appTableIdCondition + " order by " + fkField;
+            if (order != null) {
+                sql = sql + ", " + order;
+            }
+
+            final List<ResultsetRowData> result = fillDatatableResultSetDataRows(sql);
+            results.put(dataTableName, new GenericResultsetData(columnHeaders, result));
+        }
+
+        return results;
+    }
+
     private GenericResultsetData retrieveDataTableGenericResultSetForUpdate(final String appTable, final String dataTableName,
             final Long appTableId, final Long id) {
 
@@ -1144,7 +1198,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
 
     private CommandProcessingResult checkMainResourceExistsWithinScope(final String appTable, final Long appTableId) {
 
-        final String sql = dataScopedSQL(appTable, appTableId);
+        final String sql = dataScopedSQL(appTable, "= " + appTableId);
         logger.info("data scoped sql: " + sql);
         final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
 
@@ -1168,6 +1222,37 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
                 .build();
     }
 
+    private void checkMainResourcesExistWithinScope(final String appTable, final Collection<Long> appTableIds,
+            final String appTableIdCondition) {
+
+        final String sql = dataScopedSQL(appTable, appTableIdCondition);
+        logger.info("data scoped sql: " + sql);
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
+
+        final String idColumn = dataScopedIdColumn(appTable);
+        final Set<Long> appTableIdsWithinScope = new HashSet<>();
+        while (rs.next()) {
+            appTableIdsWithinScope.add(rs.getLong(idColumn));
+        }
+
+        for (final Long appTableId : appTableIds) {
+            if (!appTableIdsWithinScope.contains(appTableId)) { throw new DatatableNotFoundException(appTable, appTableId); }
+        }
+    }
+
+    /**
+     * @return the column of the {@link #dataScopedSQL(String, String)} query
+     *         holding the id of the application table.
+     */
+    private String dataScopedIdColumn(final String appTable) {
+        if (appTable.equalsIgnoreCase("m_loan")) { return "loanId"; }
+        if (appTable.equalsIgnoreCase("m_savings_account")) { return "savingsId"; }
+        if (appTable.equalsIgnoreCase("m_client")) { return "clientId"; }
+        if (appTable.equalsIgnoreCase("m_group") || appTable.equalsIgnoreCase("m_center")) { return "groupId"; }
+        if (appTable.equalsIgnoreCase("m_office")) { return "officeId"; }
+        return "entityId";
+    }
+
     private Long getLongSqlRowSet(final SqlRowSet rs, final String column) {
         Long val = rs.getLong(column);
         if (val == 0) {
@@ -1176,7 +1261,7 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
         return val;
     }
 
-    private String dataScopedSQL(final String appTable, final Long appTableId) {
+    private String dataScopedSQL(final String appTable, final String appTableIdCondition) {
         /*
          * unfortunately have to, one way or another, be able to restrict data
          * to the users office hierarchy. Here, a few key tables are done. But
@@ -1198,13 +1283,13 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
                     + " join m_office o on o.id = c.office_id and o.hierarchy like '"
                     + currentUser.getOffice().getHierarchy()
                     + "%'"
-                    + " where l.id = "
-                    + appTableId
+                    + " where l.id "
+                    + appTableIdCondition
                     + ")"
                     + " union all "
                     + " (select o.id as officeId, l.group_id as groupId, l.client_id as clientId, null as savingsId, l.id as loanId, null as entityId from m_loan l "
                     + " join m_group g on g.id = l.group_id " + " join m_office o on o.id = g.office_id and o.hierarchy like '"
-                    + currentUser.getOffice().getHierarchy() + "%'" + " where l.id = " + appTableId + ")" + " ) x";
+                    + currentUser.getOffice().getHierarchy() + "%'" + " where l.id " + appTableIdCondition + ")" + " ) x";
         }
         if (appTable.equalsIgnoreCase("m_savings_account")) {
             scopedSQL = "select  distinctrow x.* from ("
@@ -1213,36 +1298,36 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
                     + " join m_office o on o.id = c.office_id and o.hierarchy like '"
                     + currentUser.getOffice().getHierarchy()
                     + "%'"
-                    + " where s.id = "
-                    + appTableId
+                    + " where s.id "
+                    + appTableIdCondition
                     + ")"
                     + " union all "
                     + " (select o.id as officeId, s.group_id as groupId, s.client_id as clientId, s.id as savingsId, null as loanId, null as entityId from m_savings_account s "
                     + " join m_group g on g.id = s.group_id " + " join m_office o on o.id = g.office_id and o.hierarchy like '"
-                    + currentUser.getOffice().getHierarchy() + "%'" + " where s.id = " + appTableId + ")" + " ) x";
+                    + currentUser.getOffice().getHierarchy() + "%'" + " where s.id " + appTableIdCondition + ")" + " ) x";
         }
         if (appTable.equalsIgnoreCase("m_client")) {
             scopedSQL = "select o.id as officeId, null as groupId, c.id as clientId, null as savingsId, null as loanId, null as entityId from m_client c "
                     + " join m_office o on o.id = c.office_id and o.hierarchy like '"
                     + currentUser.getOffice().getHierarchy()
                     + "%'"
-                    + " where c.id = " + appTableId;
+                    + " where c.id " + appTableIdCondition;
         }
         if (appTable.equalsIgnoreCase("m_group") || appTable.equalsIgnoreCase("m_center")) {
             scopedSQL = "select o.id as officeId, g.id as groupId, null as clientId, null as savingsId, null as loanId, null as entityId from m_group g "
                     + " join m_office o on o.id = g.office_id and o.hierarchy like '"
                     + currentUser.getOffice().getHierarchy()
                     + "%'"
-                    + " where g.id = " + appTableId;
+                    + " where g.id " + appTableIdCondition;
         }
         if (appTable.equalsIgnoreCase("m_office")) {
             scopedSQL = "select o.id as officeId, null as groupId, null as clientId, null as savingsId, null as loanId, null as entityId from m_office o "
-                    + " where o.hierarchy like '" + currentUser.getOffice().getHierarchy() + "%'" + " and o.id = " + appTableId;
+                    + " where o.hierarchy like '" + currentUser.getOffice().getHierarchy() + "%'" + " and o.id " + appTableIdCondition;
         }
 
         if (appTable.equalsIgnoreCase("m_product_loan") || appTable.equalsIgnoreCase("m_savings_product")) {
             scopedSQL = "select null as officeId, null as groupId, null as clientId, null as savingsId, null as loanId, p.id as entityId from "
-                    + appTable + " as p WHERE p.id = " + appTableId;
+                    + appTable + " as p WHERE p.id " + appTableIdCondition;
         }
 
         if (scopedSQL == null) { throw new PlatformDataIntegrityException("error.msg.invalid.dataScopeCriteria", "Application Table: "
@@ -1296,9 +1381,19 @@ public class ReadWriteNonCoreDataServiceImpl implements ReadWriteNonCoreDataServ
     }
 
     private String queryForApplicationTableName(final String datatable) {
-        final String sql = "SELECT application_table_name FROM x_registered_table where registered_table_name = '" + datatable + "'";
+        return this.datatableMetadataCache.applicationTableName(datatable, new DatatableMetadataCache.Loader<String>() {
 
-        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql);
+            @Override
+            public String load(final String datatableName) {
+                return retrieveApplicationTableName(datatableName);
+            }
+        });
+    }
+
+    private String retrieveApplicationTableName(final String datatable) {
+        final String sql = "SELECT application_table_name FROM x_registered_table where registered_table_name = ?";
+
+        final SqlRowSet rs = this.jdbcTemplate.queryForRowSet(sql, new Object[] { datatable });
 
         String applicationTableName = null;
         if (rs.next()) {
@@ -0,0 +1,79 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Temporary files that Pentaho reports are rendered into before the response
+ * is started.
+ *
+ * A file is deleted once the response has been written. A response that is
+ * never written leaves its file behind, so files older than
+ * {@link #STALE_AFTER_MILLIS} are removed whenever a new one is created.
+ */
+final class RenderedReportFiles {
+
+    private final static Logger logger = LoggerFactory.getLogger(RenderedReportFiles.class);
+
+    static final String FILE_PREFIX = "pentahoReport";
+    static final long STALE_AFTER_MILLIS = 60 * 60 * 1000L;
+
+    private final Path directory;
+
+    RenderedReportFiles(final Path directory) {
+        this.directory = directory;
+    }
+
+    static RenderedReportFiles inTemporaryDirectory() {
+        return new RenderedReportFiles(Paths.get(System.getProperty("java.io.tmpdir"), "mifosx-pentaho-reports"));
+    }
+
+    /**
+     * Returns the file name suffix of a report output type, or rejects the
+     * output type when it is none of HTML, PDF, XLS and CSV.
+     */
+    static String suffixOf(final String outputType) {
+        if ("PDF".equalsIgnoreCase(outputType)) { return ".pdf"; }
+        if ("XLS".equalsIgnoreCase(outputType)) { return ".xls"; }
+        if ("CSV".equalsIgnoreCase(outputType)) { return ".csv"; }
+        if ("HTML".equalsIgnoreCase(outputType)) { return ".html"; }
+        throw new PlatformDataIntegrityException("error.msg.invalid.outputType", "No matching Output Type: " + outputType);
+    }
+
+    File create(final String outputType) throws IOException {
+        final String suffix = suffixOf(outputType);
+        Files.createDirectories(this.directory);
+        deleteStaleFiles(System.currentTimeMillis() - STALE_AFTER_MILLIS);
+        return Files.createTempFile(this.directory, FILE_PREFIX, suffix).toFile();
+    }
+
+    void deleteStaleFiles(final long modifiedBefore) {
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, FILE_PREFIX + "*")) {
+            for (final Path file : files) {
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < modifiedBefore) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (final IOException e) {
+                    // another request may have deleted it in the meantime
+                    logger.debug("Could not delete rendered report " + file, e);
+                }
+            }
+        } catch (final IOException e) {
+            logger.warn("Could not clean up rendered reports in " + this.directory, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsCounter;
+import org.mifosplatform.infrastructure.cache.service.CacheStatisticsProvider;
+import org.mifosplatform.infrastructure.cache.service.TenantGenerationCache;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory, per tenant cache of the parsed SQL of reports and report
+ * parameters, so that running a report does not read
+ * <code>stretchy_report</code> every time.
+ *
+ * {@link ReportWritePlatformServiceImpl} calls {@link #invalidate()} when
+ * reports change; their SQL is then reloaded by the first run after the
+ * change has been committed.
+ */
+@Component
+public class ReportSqlCache implements CacheStatisticsProvider {
+
+    private final CacheStatisticsCounter statistics = new CacheStatisticsCounter("reportSql");
+    private final TenantGenerationCache<ReportSqlTemplates> templatesByTenant = new TenantGenerationCache<>(this.statistics);
+
+    /**
+     * Loads the SQL of a report or report parameter on a cache miss.
+     */
+    interface Loader {
+
+        String load(String type, String name);
+    }
+
+    ReportSqlTemplate template(final String type, final String name, final Loader loader) {
+        final ConcurrentMap<String, ReportSqlTemplate> templates = templates().templates;
+        final String key = type + ':' + name;
+
+        ReportSqlTemplate template = templates.get(key);
+        if (template != null) {
+            this.statistics.recordHit();
+            return template;
+        }
+
+        this.statistics.recordMiss();
+        template = ReportSqlTemplate.parse(loader.load(type, name));
+        templates.put(key, template);
+        return template;
+    }
+
+    public void invalidate() {
+        this.templatesByTenant.invalidate();
+    }
+
+    @Override
+    public CacheStatisticsData retrieveCacheStatistics() {
+        return this.statistics.toData();
+    }
+
+    private ReportSqlTemplates templates() {
+        // SQL loaded concurrently with an invalidation is added to the
+        // instance of the old generation and therefore never run again
+        return this.templatesByTenant.get(new TenantGenerationCache.Loader<ReportSqlTemplates>() {
+
+            @Override
+            public ReportSqlTemplates load(@SuppressWarnings("unused") final boolean cached) {
+                return new ReportSqlTemplates();
+            }
+        });
+    }
+
+    private static final class ReportSqlTemplates {
+
+        private final ConcurrentMap<String, ReportSqlTemplate> templates = new ConcurrentHashMap<>();
+    }
+}
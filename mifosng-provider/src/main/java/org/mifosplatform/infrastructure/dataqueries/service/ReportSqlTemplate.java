@@ -0,0 +1,283 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL of a report or report parameter, parsed once into the text between
+ * its <code>${name}</code> placeholders, so that running the report binds the
+ * parameter values to a prepared statement instead of building a different
+ * SQL string for every run.
+ *
+ * A placeholder which is a complete string literal (<code>'${name}'</code> or
+ * <code>"${name}"</code>) is bound as a string, a placeholder outside of any
+ * literal is bound as a number when its value is an integer. Any other value
+ * (e.g. a list of ids, or a placeholder within a larger literal or within a
+ * comment) is still written into the SQL text, as it was before.
+ *
+ * Placeholders where a bound value would mean something other than the
+ * written one are never bound: anywhere in an <code>order by</code>,
+ * <code>group by</code> or <code>limit</code> clause (a bound number is no
+ * column position), and where a name is expected, i.e. after
+ * <code>from</code>, <code>join</code>, <code>into</code>,
+ * <code>update</code> or <code>table</code> or as part of a name.
+ */
+final class ReportSqlTemplate {
+
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,18}");
+    private static final Set<String> INLINED_CLAUSES = new HashSet<>(Arrays.asList("limit", "offset"));
+    private static final Set<String> CLAUSES_ENDING_INLINED_CLAUSES = new HashSet<>(Arrays.asList("select", "from", "where", "having",
+            "union", "for", "lock"));
+    private static final Set<String> WORDS_BEFORE_NAMES = new HashSet<>(Arrays.asList("from", "join", "into", "update", "table"));
+
+    private final List<String> fragments;
+    private final List<Placeholder> placeholders;
+    private final boolean bindable;
+
+    /**
+     * @return the template of the SQL, with placeholders in the form
+     *         <code>${name}</code>.
+     */
+    static ReportSqlTemplate parse(final String sql) {
+        final List<String> fragments = new ArrayList<>();
+        final List<Placeholder> placeholders = new ArrayList<>();
+
+        final StringBuilder fragment = new StringBuilder();
+        boolean bindable = true;
+        // the quote or comment the parser is in, or zero
+        char state = 0;
+        // the parenthesis depth, and the depth of the order by, group by or
+        // limit clause the parser is in or -1
+        int depth = 0;
+        int inlinedClauseDepth = -1;
+        String previousWord = "";
+        int i = 0;
+        while (i < sql.length()) {
+            final char c = sql.charAt(i);
+            final int placeholderEnd = placeholderEnd(sql, i);
+            if (placeholderEnd > 0) {
+                final boolean bindNumber = state == 0 && inlinedClauseDepth < 0 && !WORDS_BEFORE_NAMES.contains(previousWord)
+                        && !isPartOfName(sql, i, placeholderEnd);
+                fragments.add(fragment.toString());
+                fragment.setLength(0);
+                placeholders.add(new Placeholder(sql.substring(i, placeholderEnd), bindNumber ? BindType.NUMBER : BindType.NONE));
+                i = placeholderEnd;
+                continue;
+            }
+
+            switch (state) {
+                case 0:
+                    if (c == '\'' || c == '"') {
+                        final int quotedPlaceholderEnd = placeholderEnd(sql, i + 1);
+                        if (quotedPlaceholderEnd > 0 && quotedPlaceholderEnd < sql.length() && sql.charAt(quotedPlaceholderEnd) == c) {
+                            fragments.add(fragment.toString());
+                            fragment.setLength(0);
+                            placeholders.add(new Placeholder(sql.substring(i + 1, quotedPlaceholderEnd), BindType.STRING, c));
+                            i = quotedPlaceholderEnd + 1;
+                            continue;
+                        }
+                        state = c;
+                    } else if (c == '`') {
+                        state = c;
+                    } else if (c == '#' || (sql.startsWith("--", i) && i + 2 < sql.length() && Character.isWhitespace(sql.charAt(i + 2)))) {
+                        state = '\n';
+                    } else if (c == '/' && sql.startsWith("/*", i)) {
+                        state = '*';
+                        fragment.append(c);
+                        i++;
+                    } else if (c == '?') {
+                        // markers of the report's own cannot be told apart
+                        // from the ones of bound parameters
+                        bindable = false;
+                    } else if (c == '(') {
+                        depth++;
+                    } else if (c == ')') {
+                        if (inlinedClauseDepth == depth) {
+                            inlinedClauseDepth = -1;
+                        }
+                        depth--;
+                    } else if (isNameCharacter(c) && (i == 0 || !isNameCharacter(sql.charAt(i - 1)))) {
+                        int wordEnd = i + 1;
+                        while (wordEnd < sql.length() && isNameCharacter(sql.charAt(wordEnd))) {
+                            wordEnd++;
+                        }
+                        final String word = sql.substring(i, wordEnd).toLowerCase();
+                        if (INLINED_CLAUSES.contains(word)
+                                || ("by".equals(word) && ("order".equals(previousWord) || "group".equals(previousWord)))) {
+                            inlinedClauseDepth = depth;
+                        } else if (CLAUSES_ENDING_INLINED_CLAUSES.contains(word) && inlinedClauseDepth == depth) {
+                            inlinedClauseDepth = -1;
+                        }
+                        previousWord = word;
+                        fragment.append(sql, i, wordEnd);
+                        i = wordEnd;
+                        continue;
+                    }
+                break;
+                case '*':
+                    if (c == '*' && sql.startsWith("*/", i)) {
+                        state = 0;
+                        fragment.append(c);
+                        i++;
+                    }
+                break;
+                case '\n':
+                    if (c == '\n') {
+                        state = 0;
+                    }
+                break;
+                default:
+                    if (c == '\\' && state != '`' && i + 1 < sql.length()) {
+                        fragment.append(c);
+                        i++;
+                    } else if (c == state) {
+                        state = 0;
+                    }
+                break;
+            }
+            fragment.append(sql.charAt(i));
+            i++;
+        }
+        fragments.add(fragment.toString());
+
+        return new ReportSqlTemplate(fragments, placeholders, bindable);
+    }
+
+    private static boolean isNameCharacter(final char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    /**
+     * @return whether the placeholder is written next to other characters of
+     *         a (possibly qualified) name or to another placeholder, e.g.
+     *         <code>m_${table}.id</code>.
+     */
+    private static boolean isPartOfName(final String sql, final int start, final int end) {
+        final boolean afterName = start > 0 && isNextToName(sql.charAt(start - 1), '}');
+        final boolean beforeName = end < sql.length() && isNextToName(sql.charAt(end), '$');
+        return afterName || beforeName;
+    }
+
+    private static boolean isNextToName(final char c, final char placeholderBoundary) {
+        return isNameCharacter(c) || c == '.' || c == placeholderBoundary;
+    }
+
+    /**
+     * @return the index after the placeholder starting at the index, or -1
+     *         when there is none.
+     */
+    private static int placeholderEnd(final String sql, final int index) {
+        if (!sql.startsWith("${", index)) { return -1; }
+        int end = index + 2;
+        while (end < sql.length() && (Character.isLetterOrDigit(sql.charAt(end)) || sql.charAt(end) == '_')) {
+            end++;
+        }
+        if (end == index + 2 || end == sql.length() || sql.charAt(end) != '}') { return -1; }
+        return end + 1;
+    }
+
+    private ReportSqlTemplate(final List<String> fragments, final List<Placeholder> placeholders, final boolean bindable) {
+        this.fragments = Collections.unmodifiableList(fragments);
+        this.placeholders = Collections.unmodifiableList(placeholders);
+        this.bindable = bindable;
+    }
+
+    /**
+     * @param values
+     *            values of the placeholders, keyed by placeholder e.g.
+     *            <code>${officeId}</code>; placeholders without a value are
+     *            left in the SQL.
+     */
+    BoundSql bind(final Map<String, String> values) {
+        final StringBuilder sql = new StringBuilder();
+        final List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < this.placeholders.size(); i++) {
+            sql.append(this.fragments.get(i));
+
+            final Placeholder placeholder = this.placeholders.get(i);
+            final String value = values.get(placeholder.name);
+            if (value == null) {
+                sql.append(placeholder.text());
+            } else if (!this.bindable) {
+                sql.append(placeholder.quote(value));
+            } else if (placeholder.bindType == BindType.STRING) {
+                sql.append('?');
+                parameters.add(value);
+            } else if (placeholder.bindType == BindType.NUMBER && INTEGER.matcher(value).matches()) {
+                sql.append('?');
+                parameters.add(Long.valueOf(value));
+            } else {
+                sql.append(placeholder.quote(value));
+            }
+        }
+        sql.append(this.fragments.get(this.fragments.size() - 1));
+
+        return new BoundSql(sql.toString(), parameters.toArray());
+    }
+
+    private enum BindType {
+        STRING, NUMBER, NONE;
+    }
+
+    private static final class Placeholder {
+
+        private final String name;
+        private final BindType bindType;
+        /**
+         * The quote around a string placeholder, or zero.
+         */
+        private final char quote;
+
+        Placeholder(final String name, final BindType bindType) {
+            this(name, bindType, (char) 0);
+        }
+
+        Placeholder(final String name, final BindType bindType, final char quote) {
+            this.name = name;
+            this.bindType = bindType;
+            this.quote = quote;
+        }
+
+        String text() {
+            return quote(this.name);
+        }
+
+        String quote(final String value) {
+            if (this.quote == 0) { return value; }
+            return this.quote + value + this.quote;
+        }
+    }
+
+    /**
+     * SQL with <code>?</code> markers and the parameters to bind to them.
+     */
+    static final class BoundSql {
+
+        private final String sql;
+        private final Object[] parameters;
+
+        BoundSql(final String sql, final Object[] parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        String getSql() {
+            return this.sql;
+        }
+
+        Object[] getParameters() {
+            return this.parameters;
+        }
+    }
+}
@@ -48,18 +48,20 @@ public class ReportWritePlatformServiceImpl implements ReportWritePlatformServic
     private final ReportParameterUsageRepository reportParameterUsageRepository;
     private final ReportParameterRepository reportParameterRepository;
     private final PermissionRepository permissionRepository;
+    private final ReportSqlCache reportSqlCache;
 
     @Autowired
     public ReportWritePlatformServiceImpl(final PlatformSecurityContext context,
             final ReportCommandFromApiJsonDeserializer fromApiJsonDeserializer, final ReportRepository reportRepository,
             final ReportParameterRepository reportParameterRepository, final ReportParameterUsageRepository reportParameterUsageRepository,
-            final PermissionRepository permissionRepository) {
+            final PermissionRepository permissionRepository, final ReportSqlCache reportSqlCache) {
         this.context = context;
         this.fromApiJsonDeserializer = fromApiJsonDeserializer;
         this.reportRepository = reportRepository;
         this.reportParameterRepository = reportParameterRepository;
         this.reportParameterUsageRepository = reportParameterUsageRepository;
         this.permissionRepository = permissionRepository;
+        this.reportSqlCache = reportSqlCache;
     }
 
     @Transactional
@@ -76,6 +78,7 @@ public class ReportWritePlatformServiceImpl implements ReportWritePlatformServic
             report.update(reportParameterUsages);
 
             this.reportRepository.save(report);
+            this.reportSqlCache.invalidate();
 
             final Permission permission = new Permission("report", report.getReportName(), "READ");
             this.permissionRepository.save(permission);
@@ -114,6 +117,7 @@ public class ReportWritePlatformServiceImpl implements ReportWritePlatformServic
 
             if (!changes.isEmpty()) {
                 this.reportRepository.saveAndFlush(report);
+                this.reportSqlCache.invalidate();
             }
 
             return new CommandProcessingResultBuilder() //
@@ -144,6 +148,7 @@ public class ReportWritePlatformServiceImpl implements ReportWritePlatformServic
 
         this.reportRepository.delete(report);
         this.permissionRepository.delete(permission);
+        this.reportSqlCache.invalidate();
 
         return new CommandProcessingResultBuilder() //
                 .withEntityId(reportId) //
@@ -0,0 +1,60 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.data;
+
+/**
+ * Immutable data object representing a pending entry of the hook delivery
+ * outbox.
+ */
+public class HookDeliveryData {
+
+    private final Long id;
+    private final Long hookId;
+    private final String entityName;
+    private final String actionName;
+    private final String payload;
+    private final Long appUserId;
+    private final int attempts;
+
+    public HookDeliveryData(final Long id, final Long hookId, final String entityName, final String actionName, final String payload,
+            final Long appUserId, final int attempts) {
+        this.id = id;
+        this.hookId = hookId;
+        this.entityName = entityName;
+        this.actionName = actionName;
+        this.payload = payload;
+        this.appUserId = appUserId;
+        this.attempts = attempts;
+    }
+
+    public Long getId() {
+        return this.id;
+    }
+
+    public Long getHookId() {
+        return this.hookId;
+    }
+
+    public String getEntityName() {
+        return this.entityName;
+    }
+
+    public String getActionName() {
+        return this.actionName;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+
+    public Long getAppUserId() {
+        return this.appUserId;
+    }
+
+    public int getAttempts() {
+        return this.attempts;
+    }
+}
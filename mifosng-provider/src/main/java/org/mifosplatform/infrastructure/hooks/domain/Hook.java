@@ -97,6 +97,10 @@ public class Hook extends AbstractAuditableCustom<AppUser, Long> {
         return events;
     }
 
+    public boolean isActive() {
+        return this.isActive != null && this.isActive.booleanValue();
+    }
+
     public HookTemplate getHookTemplate() {
         return this.template;
     }
@@ -0,0 +1,41 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.domain;
+
+/**
+ * Enum representation of the states of an entry in the
+ * <code>m_hook_delivery</code> outbox. Delivered entries are deleted.
+ */
+public enum HookDeliveryStatus {
+
+    INVALID(0), //
+    PENDING(100), //
+    FAILED(300);
+
+    private final Integer value;
+
+    public static HookDeliveryStatus fromInt(final Integer statusValue) {
+
+        HookDeliveryStatus enumeration = HookDeliveryStatus.INVALID;
+        switch (statusValue) {
+            case 100:
+                enumeration = HookDeliveryStatus.PENDING;
+            break;
+            case 300:
+                enumeration = HookDeliveryStatus.FAILED;
+            break;
+        }
+        return enumeration;
+    }
+
+    private HookDeliveryStatus(final Integer value) {
+        this.value = value;
+    }
+
+    public Integer getValue() {
+        return this.value;
+    }
+}
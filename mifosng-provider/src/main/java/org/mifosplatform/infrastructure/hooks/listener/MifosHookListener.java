@@ -5,47 +5,50 @@
  */
 package org.mifosplatform.infrastructure.hooks.listener;
 
+import java.util.List;
+
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.infrastructure.hooks.event.HookEvent;
 import org.mifosplatform.infrastructure.hooks.event.HookEventSource;
-import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
-import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.hooks.service.HookDeliveryDispatcher;
+import org.mifosplatform.infrastructure.hooks.service.HookDeliveryWritePlatformService;
 import org.mifosplatform.infrastructure.hooks.service.HookReadPlatformService;
-import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
-import org.mifosplatform.useradministration.domain.AppUser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.List;
-
+/**
+ * Records a delivery in the hook outbox for every hook registered for the
+ * event. The outbox entries are written in the transaction of the command that
+ * raised the event and are only handed to the {@link HookDeliveryDispatcher}
+ * once that transaction has committed.
+ *
+ * Must therefore be called on the thread of the command, not through the
+ * application event multicaster, which calls listeners on threads of its own.
+ */
 @Service
 public class MifosHookListener implements HookListener {
 
-    private final HookProcessorProvider hookProcessorProvider;
     private final HookReadPlatformService hookReadPlatformService;
-    private final TenantDetailsService tenantDetailsService;
+    private final HookDeliveryWritePlatformService hookDeliveryWritePlatformService;
+    private final HookDeliveryDispatcher hookDeliveryDispatcher;
 
     @Autowired
-    public MifosHookListener(final HookProcessorProvider hookProcessorProvider,
-            final HookReadPlatformService hookReadPlatformService,
-            final TenantDetailsService tenantDetailsService) {
+    public MifosHookListener(final HookReadPlatformService hookReadPlatformService,
+            final HookDeliveryWritePlatformService hookDeliveryWritePlatformService,
+            final HookDeliveryDispatcher hookDeliveryDispatcher) {
         this.hookReadPlatformService = hookReadPlatformService;
-        this.hookProcessorProvider = hookProcessorProvider;
-        this.tenantDetailsService = tenantDetailsService;
+        this.hookDeliveryWritePlatformService = hookDeliveryWritePlatformService;
+        this.hookDeliveryDispatcher = hookDeliveryDispatcher;
     }
 
     @Override
     public void onApplicationEvent(final HookEvent event) {
 
-        final String tenantIdentifier = event.getTenantIdentifier();
-        final MifosPlatformTenant tenant = this.tenantDetailsService
-                .loadTenantById(tenantIdentifier);
-        ThreadLocalContextUtil.setTenant(tenant);
-
-        final AppUser appUser = event.getAppUser();
-        final String authToken = event.getAuthToken();
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
 
         final HookEventSource hookEventSource = event.getSource();
         final String entityName = hookEventSource.getEntityName();
@@ -55,12 +58,26 @@ public class MifosHookListener implements HookListener {
         final List<Hook> hooks = this.hookReadPlatformService
                 .retrieveHooksByEvent(hookEventSource.getEntityName(),
                         hookEventSource.getActionName());
+        if (hooks.isEmpty()) { return; }
+
+        final List<Long> deliveryIds = this.hookDeliveryWritePlatformService
+                .enqueue(hooks, entityName, actionName, payload,
+                        event.getAppUser() == null ? null : event.getAppUser().getId());
+        final String authorization = event.getAuthToken() == null ? null
+                : "Basic " + event.getAuthToken();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager
+                    .registerSynchronization(new TransactionSynchronizationAdapter() {
 
-        for (final Hook hook : hooks) {
-            final HookProcessor processor = this.hookProcessorProvider
-                    .getProcessor(hook);
-            processor.process(hook, appUser, payload, entityName, actionName,
-                    tenantIdentifier, authToken);
+                        @Override
+                        public void afterCommit() {
+                            MifosHookListener.this.hookDeliveryDispatcher
+                                    .dispatch(tenant, deliveryIds, authorization);
+                        }
+                    });
+        } else {
+            this.hookDeliveryDispatcher.dispatch(tenant, deliveryIds, authorization);
         }
     }
 
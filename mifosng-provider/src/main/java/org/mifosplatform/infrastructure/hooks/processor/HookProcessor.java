@@ -10,7 +10,13 @@ import org.mifosplatform.useradministration.domain.AppUser;
 
 public interface HookProcessor {
 
+	/**
+	 * @param authorization
+	 *            authorization header value to call back the platform with,
+	 *            either the basic credentials of the request that triggered
+	 *            the hook or a short lived token; may be null.
+	 */
 	void process(Hook hook, AppUser appUser, String payload, String entityName,
-			String actionName, String tenantIdentifier, String authToken);
+			String actionName, String tenantIdentifier, String authorization);
 
 }
@@ -8,6 +8,9 @@ package org.mifosplatform.infrastructure.hooks.processor;
 import java.security.SecureRandom;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
@@ -18,11 +21,8 @@ import javax.net.ssl.X509TrustManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import retrofit.Callback;
 import retrofit.RestAdapter;
-import retrofit.RetrofitError;
 import retrofit.client.OkClient;
-import retrofit.client.Response;
 
 import com.squareup.okhttp.OkHttpClient;
 
@@ -32,6 +32,14 @@ public class ProcessorHelper {
 	private final static Logger logger = LoggerFactory
 			.getLogger(ProcessorHelper.class);
 
+	/**
+	 * A single client shares its connection pool (and keep-alive connections)
+	 * across all hook deliveries; the rest adapters built on top of it are
+	 * cached per target URL.
+	 */
+	private final static OkHttpClient sharedClient = createClient();
+	private final static ConcurrentMap<String, WebHookService> webHookServicesByUrl = new ConcurrentHashMap<>();
+
 	@SuppressWarnings("null")
 	public static OkHttpClient configureClient(final OkHttpClient client) {
 		final TrustManager[] certs = new TrustManager[] { new X509TrustManager() {
@@ -77,34 +85,27 @@ public class ProcessorHelper {
 
 	public static OkHttpClient createClient() {
 		final OkHttpClient client = new OkHttpClient();
+		// a slow receiver must not hold a delivery worker indefinitely
+		client.setConnectTimeout(10, TimeUnit.SECONDS);
+		client.setReadTimeout(30, TimeUnit.SECONDS);
 		return configureClient(client);
 	}
 
-	@SuppressWarnings("rawtypes")
-	public static Callback createCallback(final String url) {
-
-		return new Callback() {
-			@Override
-			public void success(final Object o, final Response response) {
-				logger.info("URL : " + url + "\tStatus : "
-						+ response.getStatus());
-			}
-
-			@Override
-			public void failure(final RetrofitError retrofitError) {
-				logger.info(retrofitError.getMessage());
-			}
-		};
-	}
-
 	public static WebHookService createWebHookService(final String url) {
 
-		final OkHttpClient client = ProcessorHelper.createClient();
-
-		final RestAdapter restAdapter = new RestAdapter.Builder()
-				.setEndpoint(url).setClient(new OkClient(client)).build();
-
-		return restAdapter.create(WebHookService.class);
+		WebHookService service = webHookServicesByUrl.get(url);
+		if (service == null) {
+			final RestAdapter restAdapter = new RestAdapter.Builder()
+					.setEndpoint(url).setClient(new OkClient(sharedClient))
+					.build();
+			final WebHookService newService = restAdapter
+					.create(WebHookService.class);
+			service = webHookServicesByUrl.putIfAbsent(url, newService);
+			if (service == null) {
+				service = newService;
+			}
+		}
+		return service;
 	}
 
 }
\ No newline at end of file
@@ -17,9 +17,11 @@ import org.mifosplatform.portfolio.client.domain.Client;
 import org.mifosplatform.portfolio.client.domain.ClientRepository;
 import org.mifosplatform.template.service.TemplateMergeService;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import retrofit.Callback;
+import retrofit.client.Response;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -30,6 +32,8 @@ import static org.mifosplatform.infrastructure.hooks.api.HookApiConstants.apiKey
 @Service
 public class TwilioHookProcessor implements HookProcessor {
 
+    private final static Logger logger = LoggerFactory.getLogger(TwilioHookProcessor.class);
+
     private final HookConfigurationRepository hookConfigurationRepository;
     private final TemplateMergeService templateMergeService;
     private final ClientRepository clientRepository;
@@ -49,27 +53,23 @@ public class TwilioHookProcessor implements HookProcessor {
             @SuppressWarnings("unused") final AppUser appUser,
             final String payload, final String entityName,
             final String actionName, final String tenantIdentifier,
-            final String authToken) {
+            final String authorization) {
 
         final SmsProviderData smsProviderData = new SmsProviderData(
                 hook.getHookConfig());
 
         sendRequest(smsProviderData, payload, entityName, actionName,
-                tenantIdentifier, authToken, hook);
+                tenantIdentifier, authorization, hook);
     }
 
-    @SuppressWarnings("unchecked")
     private void sendRequest(final SmsProviderData smsProviderData,
             final String payload, String entityName, String actionName,
-            final String tenantIdentifier, final String authToken,
+            final String tenantIdentifier, final String authorization,
             final Hook hook) {
 
+        final String url = smsProviderData.getUrl();
         final WebHookService service = ProcessorHelper
-                .createWebHookService(smsProviderData.getUrl());
-
-        @SuppressWarnings("rawtypes")
-        final Callback callback = ProcessorHelper
-                .createCallback(smsProviderData.getUrl());
+                .createWebHookService(url);
 
         String apiKey = this.hookConfigurationRepository
                 .findOneByHookIdAndFieldName(hook.getId(), apiKeyName);
@@ -77,7 +77,9 @@ public class TwilioHookProcessor implements HookProcessor {
             smsProviderData.setUrl(null);
             smsProviderData.setEndpoint(System.getProperty("baseUrl"));
             smsProviderData.setTenantId(tenantIdentifier);
-            smsProviderData.setMifosToken(authToken);
+            // the bridge keeps the token to call back the platform, a short
+            // lived one would not do
+            smsProviderData.setMifosToken(basicCredentialsOf(authorization));
             apiKey = service.sendSmsBridgeConfigRequest(smsProviderData);
             final HookConfiguration apiKeyEntry = HookConfiguration.createNew(
                     hook, "string", apiKeyName, apiKey);
@@ -89,21 +91,23 @@ public class TwilioHookProcessor implements HookProcessor {
             if (hook.getUgdTemplate() != null) {
                 entityName = "sms";
                 actionName = "send";
-                json = processUgdTemplate(payload, hook, authToken);
+                json = processUgdTemplate(payload, hook, authorization);
                 if (json == null) {
                     return;
                 }
             } else {
                 json = new JsonParser().parse(payload).getAsJsonObject();
             }
-            service.sendSmsBridgeRequest(entityName, actionName,
-                    tenantIdentifier, apiKey, json, callback);
+            final Response response = service.sendSmsBridgeRequest(entityName,
+                    actionName, tenantIdentifier, apiKey, json);
+            logger.info("URL : " + url + "\tStatus : "
+                    + response.getStatus());
         }
 
     }
 
     private JsonObject processUgdTemplate(final String payload,
-            final Hook hook, final String authToken) {
+            final Hook hook, final String authorization) {
         JsonObject json = null;
         try {
             @SuppressWarnings("unchecked")
@@ -116,7 +120,7 @@ public class TwilioHookProcessor implements HookProcessor {
                 final Client client = this.clientRepository.findOne(clientId);
                 final String mobileNo = client.mobileNo();
                 if (mobileNo != null && !mobileNo.isEmpty()) {
-                    this.templateMergeService.setAuthToken(authToken);
+                    this.templateMergeService.setAuthorization(authorization);
                     final String compiledMessage = this.templateMergeService
                             .compile(hook.getUgdTemplate(), map)
                             .replace("<p>", "").replace("</p>", "");
@@ -132,4 +136,8 @@ public class TwilioHookProcessor implements HookProcessor {
         return json;
     }
 
+    private static String basicCredentialsOf(final String authorization) {
+        if (authorization != null && authorization.startsWith("Basic ")) { return authorization.substring("Basic ".length()); }
+        return null;
+    }
 }
@@ -15,9 +15,11 @@ import java.util.Set;
 import org.mifosplatform.infrastructure.hooks.domain.Hook;
 import org.mifosplatform.infrastructure.hooks.domain.HookConfiguration;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-import retrofit.Callback;
+import retrofit.client.Response;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
@@ -26,12 +28,15 @@ import com.google.gson.JsonParser;
 @Service
 public class WebHookProcessor implements HookProcessor {
 
+	private final static Logger logger = LoggerFactory
+			.getLogger(WebHookProcessor.class);
+
 	@Override
 	public void process(final Hook hook,
 			@SuppressWarnings("unused") final AppUser appUser,
 			final String payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
-			final String authToken) {
+			final String authorization) {
 
 		final Set<HookConfiguration> config = hook.getHookConfig();
 
@@ -49,7 +54,7 @@ public class WebHookProcessor implements HookProcessor {
 		}
 
 		sendRequest(url, contentType, payload, entityName, actionName,
-				tenantIdentifier, authToken);
+				tenantIdentifier, authorization);
 
 	}
 
@@ -57,27 +62,26 @@ public class WebHookProcessor implements HookProcessor {
 	private void sendRequest(final String url, final String contentType,
 			final String payload, final String entityName,
 			final String actionName, final String tenantIdentifier,
-			@SuppressWarnings("unused") final String authToken) {
+			@SuppressWarnings("unused") final String authorization) {
 
 		final String mifosEndpointUrl = System.getProperty("baseUrl");
 		final WebHookService service = ProcessorHelper
 				.createWebHookService(url);
 
-		@SuppressWarnings("rawtypes")
-		final Callback callback = ProcessorHelper.createCallback(url);
-
+		final Response response;
 		if (contentType.equalsIgnoreCase("json")
 				|| contentType.contains("json")) {
 			final JsonObject json = new JsonParser().parse(payload)
 					.getAsJsonObject();
-			service.sendJsonRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, json, callback);
+			response = service.sendJsonRequest(entityName, actionName,
+					tenantIdentifier, mifosEndpointUrl, json);
 		} else {
 			Map<String, String> map = new HashMap<>();
 			map = new Gson().fromJson(payload, map.getClass());
-			service.sendFormRequest(entityName, actionName, tenantIdentifier,
-					mifosEndpointUrl, map, callback);
+			response = service.sendFormRequest(entityName, actionName,
+					tenantIdentifier, mifosEndpointUrl, map);
 		}
+		logger.info("URL : " + url + "\tStatus : " + response.getStatus());
 
 	}
 
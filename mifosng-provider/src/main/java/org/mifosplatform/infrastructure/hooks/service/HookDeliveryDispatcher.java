@@ -0,0 +1,245 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryData;
+import org.mifosplatform.infrastructure.security.service.TenantDetailsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Drains the <code>m_hook_delivery</code> outbox on a bounded pool of worker
+ * threads, so that slow or unavailable hook receivers never add latency to the
+ * commands that triggered them.
+ *
+ * Entries are handed to the workers right after the triggering transaction
+ * commits; a poller picks up entries which are due for a retry, which could
+ * not be queued or which were left over by a restart. Delivery is at least
+ * once.
+ */
+@Service
+public class HookDeliveryDispatcher {
+
+    private final static Logger logger = LoggerFactory.getLogger(HookDeliveryDispatcher.class);
+
+    public final static String WORKER_THREADS = "mifos.hooks.delivery.threads";
+    @Value("${" + WORKER_THREADS + ":4}")
+    private int workerThreads = 4;
+
+    public final static String QUEUE_CAPACITY = "mifos.hooks.delivery.queueCapacity";
+    @Value("${" + QUEUE_CAPACITY + ":1000}")
+    private int queueCapacity = 1000;
+
+    public final static String MAX_CONCURRENT_PER_HOOK = "mifos.hooks.delivery.maxConcurrentPerHook";
+    @Value("${" + MAX_CONCURRENT_PER_HOOK + ":2}")
+    private int maxConcurrentPerHook = 2;
+
+    public final static String MAX_ATTEMPTS = "mifos.hooks.delivery.maxAttempts";
+    @Value("${" + MAX_ATTEMPTS + ":10}")
+    private int maxAttempts = 10;
+
+    public final static String POLL_INTERVAL_SECONDS = "mifos.hooks.delivery.pollIntervalSeconds";
+    @Value("${" + POLL_INTERVAL_SECONDS + ":30}")
+    private long pollIntervalSeconds = 30;
+
+    private final HookDeliveryWritePlatformService hookDeliveryWritePlatformService;
+    private final TenantDetailsService tenantDetailsService;
+
+    private final ConcurrentMap<String, Boolean> deliveriesInFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Semaphore> permitsByHook = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor workers;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public HookDeliveryDispatcher(final HookDeliveryWritePlatformService hookDeliveryWritePlatformService,
+            final TenantDetailsService tenantDetailsService) {
+        this.hookDeliveryWritePlatformService = hookDeliveryWritePlatformService;
+        this.tenantDetailsService = tenantDetailsService;
+    }
+
+    @PostConstruct
+    public void start() {
+        this.workers = new ThreadPoolExecutor(this.workerThreads, this.workerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(this.queueCapacity), new NamedDaemonThreadFactory("hook-delivery"));
+        this.workers.allowCoreThreadTimeOut(true);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new NamedDaemonThreadFactory("hook-delivery-poller"));
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                pollDueDeliveries();
+            }
+        }, this.pollIntervalSeconds, this.pollIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.scheduler.shutdownNow();
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * Queues the given outbox entries of the tenant for delivery. Entries which
+     * cannot be queued right now stay in the outbox for the poller.
+     *
+     * @param authorization
+     *            the authorization header of the request that triggered the
+     *            deliveries, kept in memory only; null for entries picked up
+     *            by the poller.
+     */
+    public void dispatch(final MifosPlatformTenant tenant, final List<Long> deliveryIds, final String authorization) {
+        for (final Long deliveryId : deliveryIds) {
+            submit(new DeliveryTask(tenant, deliveryId, authorization));
+        }
+    }
+
+    private void submit(final DeliveryTask task) {
+        if (this.deliveriesInFlight.putIfAbsent(task.key(), Boolean.TRUE) != null) { return; }
+        try {
+            this.workers.execute(task);
+        } catch (final RejectedExecutionException e) {
+            this.deliveriesInFlight.remove(task.key());
+        }
+    }
+
+    private void pollDueDeliveries() {
+        try {
+            for (final MifosPlatformTenant tenant : this.tenantDetailsService.findAllTenants()) {
+                ThreadLocalContextUtil.setTenant(tenant);
+                try {
+                    final int freeCapacity = this.workers.getQueue().remainingCapacity();
+                    if (freeCapacity == 0) { return; }
+                    final List<Long> dueDeliveryIds = this.hookDeliveryWritePlatformService.retrieveDueDeliveryIds(freeCapacity);
+                    dispatch(tenant, dueDeliveryIds, null);
+                } catch (final Exception e) {
+                    logger.error("Polling hook deliveries of tenant " + tenant.getTenantIdentifier() + " failed", e);
+                } finally {
+                    ThreadLocalContextUtil.clearTenant();
+                }
+            }
+        } catch (final Exception e) {
+            logger.error("Polling hook deliveries failed", e);
+        }
+    }
+
+    private Semaphore permitsFor(final MifosPlatformTenant tenant, final Long hookId) {
+        final String key = tenant.getTenantIdentifier() + ":" + hookId;
+        Semaphore permits = this.permitsByHook.get(key);
+        if (permits == null) {
+            final Semaphore newPermits = new Semaphore(this.maxConcurrentPerHook);
+            permits = this.permitsByHook.putIfAbsent(key, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private final class DeliveryTask implements Runnable {
+
+        private final MifosPlatformTenant tenant;
+        private final Long deliveryId;
+        private final String authorization;
+
+        DeliveryTask(final MifosPlatformTenant tenant, final Long deliveryId, final String authorization) {
+            this.tenant = tenant;
+            this.deliveryId = deliveryId;
+            this.authorization = authorization;
+        }
+
+        String key() {
+            return this.tenant.getTenantIdentifier() + ":" + this.deliveryId;
+        }
+
+        @Override
+        public void run() {
+            boolean resubmit = false;
+            ThreadLocalContextUtil.setTenant(this.tenant);
+            try {
+                final HookDeliveryData delivery = HookDeliveryDispatcher.this.hookDeliveryWritePlatformService
+                        .retrieveDelivery(this.deliveryId);
+                if (delivery == null) { return; }
+
+                final Semaphore permits = permitsFor(this.tenant, delivery.getHookId());
+                if (!permits.tryAcquire()) {
+                    // the hook's receiver is already busy with other deliveries
+                    resubmit = true;
+                    return;
+                }
+                try {
+                    HookDeliveryDispatcher.this.hookDeliveryWritePlatformService.deliver(delivery, this.authorization);
+                } catch (final Exception e) {
+                    logger.warn("Delivery " + this.deliveryId + " of hook " + delivery.getHookId() + " failed: " + e.getMessage());
+                    HookDeliveryDispatcher.this.hookDeliveryWritePlatformService.recordFailedAttempt(delivery, e.getMessage(),
+                            HookDeliveryDispatcher.this.maxAttempts);
+                } finally {
+                    permits.release();
+                }
+            } catch (final Exception e) {
+                logger.error("Hook delivery " + this.deliveryId + " could not be processed", e);
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+                HookDeliveryDispatcher.this.deliveriesInFlight.remove(key());
+                if (resubmit) {
+                    resubmitLater();
+                }
+            }
+        }
+
+        private void resubmitLater() {
+            try {
+                HookDeliveryDispatcher.this.scheduler.schedule(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        submit(DeliveryTask.this);
+                    }
+                }, 1, TimeUnit.SECONDS);
+            } catch (final RejectedExecutionException e) {
+                // shutting down, the entry stays in the outbox
+            }
+        }
+    }
+
+    private static final class NamedDaemonThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        NamedDaemonThreadFactory(final String namePrefix) {
+            this.namePrefix = namePrefix;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, this.namePrefix + "-" + this.threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.util.List;
+
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryData;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+
+public interface HookDeliveryWritePlatformService {
+
+    /**
+     * Writes one outbox entry per hook; participates in the caller's
+     * transaction.
+     *
+     * @param appUserId
+     *            the user whose command triggered the hooks, the receivers
+     *            are handed a token of theirs when the request's own
+     *            credentials are no longer at hand.
+     */
+    List<Long> enqueue(List<Hook> hooks, String entityName, String actionName, String payload, Long appUserId);
+
+    List<Long> retrieveDueDeliveryIds(int limit);
+
+    HookDeliveryData retrieveDelivery(Long deliveryId);
+
+    /**
+     * Sends the notification and removes the entry from the outbox. Not
+     * transactional, so that no connection is held while the receiver is
+     * called.
+     *
+     * @param authorization
+     *            the authorization header of the request that triggered the
+     *            hook, only kept in memory; null if it is not at hand, e.g.
+     *            for retries.
+     */
+    void deliver(HookDeliveryData delivery, String authorization);
+
+    void recordFailedAttempt(HookDeliveryData delivery, String error, int maxAttempts);
+}
@@ -0,0 +1,183 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang.StringUtils;
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryData;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookDeliveryStatus;
+import org.mifosplatform.infrastructure.hooks.domain.HookRepository;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mifosplatform.useradministration.domain.AppUserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class HookDeliveryWritePlatformServiceImpl implements HookDeliveryWritePlatformService {
+
+    private static final long INITIAL_RETRY_DELAY_SECONDS = 30;
+    private static final long MAX_RETRY_DELAY_SECONDS = 3600;
+    private static final int HOOK_TOKEN_TIME_TO_LIVE_SECONDS = 300;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HookRepository hookRepository;
+    private final HookProcessorProvider hookProcessorProvider;
+    private final AppUserRepository appUserRepository;
+    private final AuthenticationTokenStore authenticationTokenStore;
+
+    @Autowired
+    public HookDeliveryWritePlatformServiceImpl(final RoutingDataSource dataSource, final HookRepository hookRepository,
+            final HookProcessorProvider hookProcessorProvider, final AppUserRepository appUserRepository,
+            final AuthenticationTokenStore authenticationTokenStore) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.hookRepository = hookRepository;
+        this.hookProcessorProvider = hookProcessorProvider;
+        this.appUserRepository = appUserRepository;
+        this.authenticationTokenStore = authenticationTokenStore;
+    }
+
+    @Override
+    public List<Long> enqueue(final List<Hook> hooks, final String entityName, final String actionName, final String payload,
+            final Long appUserId) {
+
+        final String sql = "insert into m_hook_delivery (hook_id, entity_name, action_name, payload, app_user_id, status_enum, attempts, next_attempt_time, created_date) "
+                + " values (?, ?, ?, ?, ?, ?, 0, NOW(), NOW())";
+
+        final List<Long> deliveryIds = new ArrayList<>(hooks.size());
+        for (final Hook hook : hooks) {
+            final KeyHolder keyHolder = new GeneratedKeyHolder();
+            this.jdbcTemplate.update(new PreparedStatementCreator() {
+
+                @Override
+                public PreparedStatement createPreparedStatement(final Connection connection) throws SQLException {
+                    final PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                    ps.setLong(1, hook.getId());
+                    ps.setString(2, entityName);
+                    ps.setString(3, actionName);
+                    ps.setString(4, payload);
+                    if (appUserId == null) {
+                        ps.setNull(5, Types.BIGINT);
+                    } else {
+                        ps.setLong(5, appUserId);
+                    }
+                    ps.setInt(6, HookDeliveryStatus.PENDING.getValue());
+                    return ps;
+                }
+            }, keyHolder);
+            deliveryIds.add(keyHolder.getKey().longValue());
+        }
+        return deliveryIds;
+    }
+
+    @Override
+    public List<Long> retrieveDueDeliveryIds(final int limit) {
+        final String sql = "select hd.id from m_hook_delivery hd where hd.status_enum = ? and hd.next_attempt_time <= NOW() order by hd.id limit ?";
+        return this.jdbcTemplate.queryForList(sql, Long.class, HookDeliveryStatus.PENDING.getValue(), limit);
+    }
+
+    @Override
+    public HookDeliveryData retrieveDelivery(final Long deliveryId) {
+        try {
+            final HookDeliveryMapper rm = new HookDeliveryMapper();
+            final String sql = "select " + rm.schema() + " where hd.id = ? and hd.status_enum = ?";
+            return this.jdbcTemplate.queryForObject(sql, rm, deliveryId, HookDeliveryStatus.PENDING.getValue());
+        } catch (final EmptyResultDataAccessException e) {
+            // already delivered by another worker or the hook was deleted
+            return null;
+        }
+    }
+
+    @Override
+    public void deliver(final HookDeliveryData delivery, final String authorization) {
+
+        // the hook is read in a transaction of its own (its configuration is
+        // fetched eagerly), the receiver is called outside of any
+        final Hook hook = this.hookRepository.findOne(delivery.getHookId());
+        final HookProcessor processor = hook == null ? null : this.hookProcessorProvider.getProcessor(hook);
+
+        if (processor != null && hook.isActive()) {
+            final String tenantIdentifier = ThreadLocalContextUtil.getTenant().getTenantIdentifier();
+            final String hookAuthorization = authorization != null ? authorization : issueAuthorization(tenantIdentifier,
+                    delivery.getAppUserId());
+            processor.process(hook, null, delivery.getPayload(), delivery.getEntityName(), delivery.getActionName(), tenantIdentifier,
+                    hookAuthorization);
+        }
+
+        this.jdbcTemplate.update("delete from m_hook_delivery where id = ?", delivery.getId());
+    }
+
+    /**
+     * Issues a short lived authentication token to the user who triggered the
+     * hook, if tokens are enabled and the user still exists.
+     */
+    private String issueAuthorization(final String tenantIdentifier, final Long appUserId) {
+        if (appUserId == null || !this.authenticationTokenStore.isEnabled()) { return null; }
+
+        final AppUser appUser = this.appUserRepository.findOne(appUserId);
+        if (appUser == null || appUser.isDeleted()) { return null; }
+
+        final String token = this.authenticationTokenStore.issue(tenantIdentifier, appUser.getId(), appUser.getUsername(),
+                appUser.getPassword(), HOOK_TOKEN_TIME_TO_LIVE_SECONDS);
+        return "Token " + token;
+    }
+
+    @Transactional
+    @Override
+    public void recordFailedAttempt(final HookDeliveryData delivery, final String error, final int maxAttempts) {
+
+        final int attempts = delivery.getAttempts() + 1;
+        final HookDeliveryStatus status = attempts >= maxAttempts ? HookDeliveryStatus.FAILED : HookDeliveryStatus.PENDING;
+
+        // exponential back off: 30s, 60s, 120s ... capped at one hour
+        final long delaySeconds = Math.min(INITIAL_RETRY_DELAY_SECONDS << Math.min(attempts - 1, 16), MAX_RETRY_DELAY_SECONDS);
+
+        final String sql = "update m_hook_delivery set attempts = ?, status_enum = ?, last_error = ?, "
+                + " next_attempt_time = DATE_ADD(NOW(), INTERVAL ? SECOND) where id = ?";
+        this.jdbcTemplate.update(sql, attempts, status.getValue(), StringUtils.abbreviate(error, 500), delaySeconds, delivery.getId());
+    }
+
+    private static final class HookDeliveryMapper implements RowMapper<HookDeliveryData> {
+
+        public String schema() {
+            return " hd.id as id, hd.hook_id as hookId, hd.entity_name as entityName, hd.action_name as actionName, "
+                    + " hd.payload as payload, hd.app_user_id as appUserId, hd.attempts as attempts from m_hook_delivery hd ";
+        }
+
+        @Override
+        public HookDeliveryData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long id = rs.getLong("id");
+            final Long hookId = rs.getLong("hookId");
+            final String entityName = rs.getString("entityName");
+            final String actionName = rs.getString("actionName");
+            final String payload = rs.getString("payload");
+            final Long appUserId = JdbcSupport.getLong(rs, "appUserId");
+            final int attempts = rs.getInt("attempts");
+            return new HookDeliveryData(id, hookId, entityName, actionName, payload, appUserId, attempts);
+        }
+    }
+}
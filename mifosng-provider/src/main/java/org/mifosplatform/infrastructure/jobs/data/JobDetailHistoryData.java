@@ -15,6 +15,9 @@ public class JobDetailHistoryData {
     @SuppressWarnings("unused")
     private final Date jobRunStartTime;
 
+    @SuppressWarnings("unused")
+    private final Long jobRunQueueWaitMillis;
+
     @SuppressWarnings("unused")
     private final Date jobRunEndTime;
 
@@ -30,14 +33,21 @@ public class JobDetailHistoryData {
     @SuppressWarnings("unused")
     private final String jobRunErrorLog;
 
-    public JobDetailHistoryData(final Long version, final Date jobRunStartTime, final Date jobRunEndTime, final String status,
-            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog) {
+    @SuppressWarnings("unused")
+    private final String jobRunDetails;
+
+    public JobDetailHistoryData(final Long version, final Date jobRunStartTime, final Long jobRunQueueWaitMillis,
+            final Date jobRunEndTime, final String status,
+            final String jobRunErrorMessage, final String triggerType, final String jobRunErrorLog,
+            final String jobRunDetails) {
         this.version = version;
         this.jobRunStartTime = jobRunStartTime;
+        this.jobRunQueueWaitMillis = jobRunQueueWaitMillis;
         this.jobRunEndTime = jobRunEndTime;
         this.status = status;
         this.jobRunErrorMessage = jobRunErrorMessage;
         this.triggerType = triggerType;
         this.jobRunErrorLog = jobRunErrorLog;
+        this.jobRunDetails = jobRunDetails;
     }
 }
\ No newline at end of file
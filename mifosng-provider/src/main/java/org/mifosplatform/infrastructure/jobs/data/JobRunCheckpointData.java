@@ -0,0 +1,36 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.data;
+
+/**
+ * Range of entity ids (both inclusive) which a chunked job already committed.
+ */
+public class JobRunCheckpointData {
+
+    private final Long fromId;
+    private final Long toId;
+
+    public static JobRunCheckpointData instance(final Long fromId, final Long toId) {
+        return new JobRunCheckpointData(fromId, toId);
+    }
+
+    private JobRunCheckpointData(final Long fromId, final Long toId) {
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    public boolean covers(final Long id) {
+        return this.fromId.compareTo(id) <= 0 && this.toId.compareTo(id) >= 0;
+    }
+
+    public Long getFromId() {
+        return this.fromId;
+    }
+
+    public Long getToId() {
+        return this.toId;
+    }
+}
@@ -32,6 +32,9 @@ public class ScheduledJobRunHistory extends AbstractPersistable<Long> {
     @Temporal(TemporalType.TIMESTAMP)
     private Date startTime;
 
+    @Column(name = "queue_wait_millis")
+    private Long queueWaitMillis;
+
     @Column(name = "end_time")
     @Temporal(TemporalType.TIMESTAMP)
     private Date endTime;
@@ -48,20 +51,26 @@ public class ScheduledJobRunHistory extends AbstractPersistable<Long> {
     @Column(name = "error_log")
     private String errorLog;
 
+    @Column(name = "run_details")
+    private String runDetails;
+
     public ScheduledJobRunHistory() {
 
     }
 
     public ScheduledJobRunHistory(final ScheduledJobDetail scheduledJobDetail, final Long version, final Date startTime,
-            final Date endTime, final String status, final String errorMessage, final String triggerType, final String errorLog) {
+            final Long queueWaitMillis, final Date endTime, final String status, final String errorMessage, final String triggerType, final String errorLog,
+            final String runDetails) {
         this.scheduledJobDetail = scheduledJobDetail;
         this.version = version;
         this.startTime = startTime;
+        this.queueWaitMillis = queueWaitMillis;
         this.endTime = endTime;
         this.status = status;
         this.errorMessage = errorMessage;
         this.triggerType = triggerType;
         this.errorLog = errorLog;
+        this.runDetails = runDetails;
     }
 
 }
@@ -7,10 +7,11 @@ package org.mifosplatform.infrastructure.jobs.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.PostConstruct;
 
@@ -65,7 +66,8 @@ public class JobRegisterServiceImpl implements JobRegisterService, ApplicationLi
     private SchedulerStopListener schedulerStopListener;
     private SchedulerTriggerListener globalSchedulerTriggerListener;
 
-    private final HashMap<String, Scheduler> schedulers = new HashMap<>(4);
+    // also modified by jobs triggered through the API
+    private final ConcurrentMap<String, Scheduler> schedulers = new ConcurrentHashMap<>(4);
 
     @Autowired
     public void setApplicationContext(ApplicationContext applicationContext) {
@@ -0,0 +1,36 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.jobs.data.JobRunCheckpointData;
+
+/**
+ * Progress checkpoints of jobs which process their entities in id ordered
+ * chunks, so that a run which was interrupted (failure, restart) can skip the
+ * chunks it already committed when it is started again on the same day.
+ */
+public interface JobRunCheckpointService {
+
+    /**
+     * Drops the checkpoints of earlier runs and returns the ranges already
+     * committed by an interrupted run of the job on <code>runDate</code>.
+     */
+    List<JobRunCheckpointData> retrieveCheckpointsOfRun(JobName jobName, LocalDate runDate);
+
+    /**
+     * Records the range as committed; meant to be called from within the
+     * transaction that processed the chunk.
+     */
+    void recordCheckpoint(JobName jobName, LocalDate runDate, Long fromId, Long toId);
+
+    /**
+     * Called once every chunk of the run was committed.
+     */
+    void clearCheckpointsOfRun(JobName jobName, LocalDate runDate);
+}
@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.jobs.data.JobRunCheckpointData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+@Service
+public class JobRunCheckpointServiceImpl implements JobRunCheckpointService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public JobRunCheckpointServiceImpl(final RoutingDataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public List<JobRunCheckpointData> retrieveCheckpointsOfRun(final JobName jobName, final LocalDate runDate) {
+        this.jdbcTemplate.update("delete from job_run_checkpoint where job_name = ? and run_date <> ?", jobName.name(), runDate.toDate());
+
+        final JobRunCheckpointMapper rm = new JobRunCheckpointMapper();
+        final String sql = "select " + rm.schema() + " where chk.job_name = ? and chk.run_date = ? order by chk.from_id";
+        return this.jdbcTemplate.query(sql, rm, new Object[] { jobName.name(), runDate.toDate() });
+    }
+
+    @Override
+    public void recordCheckpoint(final JobName jobName, final LocalDate runDate, final Long fromId, final Long toId) {
+        final String sql = "insert into job_run_checkpoint (job_name, run_date, from_id, to_id, created_date) values (?, ?, ?, ?, ?)";
+        this.jdbcTemplate.update(sql, jobName.name(), runDate.toDate(), fromId, toId, new Date());
+    }
+
+    @Override
+    public void clearCheckpointsOfRun(final JobName jobName, final LocalDate runDate) {
+        this.jdbcTemplate.update("delete from job_run_checkpoint where job_name = ? and run_date = ?", jobName.name(), runDate.toDate());
+    }
+
+    private static final class JobRunCheckpointMapper implements RowMapper<JobRunCheckpointData> {
+
+        public String schema() {
+            return " chk.from_id as fromId, chk.to_id as toId from job_run_checkpoint chk ";
+        }
+
+        @Override
+        public JobRunCheckpointData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
+            final Long fromId = rs.getLong("fromId");
+            final Long toId = rs.getLong("toId");
+            return JobRunCheckpointData.instance(fromId, toId);
+        }
+    }
+}
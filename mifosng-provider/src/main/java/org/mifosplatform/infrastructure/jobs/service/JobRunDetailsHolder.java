@@ -0,0 +1,40 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+/**
+ * Collects free text details (timings, counts) reported by a job while it runs
+ * on the scheduler thread. {@link SchedulerJobListener} stores them with the
+ * job's run history once the job has finished.
+ */
+public class JobRunDetailsHolder {
+
+    private static final ThreadLocal<StringBuilder> runDetails = new ThreadLocal<>();
+
+    public static void append(final String line) {
+        StringBuilder details = runDetails.get();
+        if (details == null) {
+            details = new StringBuilder();
+            runDetails.set(details);
+        } else {
+            details.append('\n');
+        }
+        details.append(line);
+    }
+
+    /**
+     * @return the details reported so far or <code>null</code> if the job did
+     *         not report any.
+     */
+    public static String getRunDetails() {
+        final StringBuilder details = runDetails.get();
+        return details == null ? null : details.toString();
+    }
+
+    public static void clear() {
+        runDetails.remove();
+    }
+}
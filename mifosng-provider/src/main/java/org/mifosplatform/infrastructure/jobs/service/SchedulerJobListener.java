@@ -7,6 +7,7 @@ package org.mifosplatform.infrastructure.jobs.service;
 
 import java.util.Date;
 
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
 import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobRunHistory;
@@ -15,6 +16,8 @@ import org.quartz.JobExecutionException;
 import org.quartz.JobKey;
 import org.quartz.JobListener;
 import org.quartz.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -31,11 +34,20 @@ public class SchedulerJobListener implements JobListener {
 
     private final String name = SchedulerServiceConstants.DEFAULT_LISTENER_NAME;
 
+    private final static Logger logger = LoggerFactory.getLogger(SchedulerJobListener.class);
+
+    private static final String ADMITTED_TENANT = "admittedTenant";
+    private static final String START_TIME = "startTime";
+
     private final SchedularWritePlatformService schedularService;
 
+    private final TenantJobExecutionGate tenantJobExecutionGate;
+
     @Autowired
-    public SchedulerJobListener(final SchedularWritePlatformService schedularService) {
+    public SchedulerJobListener(final SchedularWritePlatformService schedularService,
+            final TenantJobExecutionGate tenantJobExecutionGate) {
         this.schedularService = schedularService;
+        this.tenantJobExecutionGate = tenantJobExecutionGate;
     }
 
     @Override
@@ -44,17 +56,33 @@ public class SchedulerJobListener implements JobListener {
     }
 
     @Override
-    public void jobToBeExecuted(@SuppressWarnings("unused") final JobExecutionContext context) {
-
+    public void jobToBeExecuted(final JobExecutionContext context) {
+        JobRunDetailsHolder.clear();
+
+        // the trigger listener has set the tenant of the job
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        try {
+            this.tenantJobExecutionGate.admit(tenant);
+            context.put(ADMITTED_TENANT, tenant);
+        } catch (final InterruptedException e) {
+            // scheduler is shutting down, let the job run without a slot
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted waiting to run job " + context.getJobDetail().getKey() + " of tenant "
+                    + tenant.getTenantIdentifier());
+        }
+        // the run starts once admitted, the time before is queue wait
+        context.put(START_TIME, new Date());
     }
 
     @Override
-    public void jobExecutionVetoed(@SuppressWarnings("unused") final JobExecutionContext context) {
-
+    public void jobExecutionVetoed(final JobExecutionContext context) {
+        releaseAdmission(context);
     }
 
     @Override
     public void jobWasExecuted(final JobExecutionContext context, final JobExecutionException jobException) {
+        releaseAdmission(context);
+
         final Trigger trigger = context.getTrigger();
         final JobKey key = context.getJobDetail().getKey();
         final String jobKey = key.getName() + SchedulerServiceConstants.JOB_KEY_SEPERATOR + key.getGroup();
@@ -88,17 +116,36 @@ public class SchedulerJobListener implements JobListener {
             scheduledJobDetails.updateNextRunTime(trigger.getNextFireTime());
         }
 
-        scheduledJobDetails.updatePreviousRunStartTime(context.getFireTime());
+        final Date startTime = startTimeOf(context);
+        scheduledJobDetails.updatePreviousRunStartTime(startTime);
         scheduledJobDetails.updateCurrentlyRunningStatus(false);
 
-        final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, context.getFireTime(),
-                new Date(), status, errorMessage, triggerType, errorLog);
+        final String runDetails = JobRunDetailsHolder.getRunDetails();
+        JobRunDetailsHolder.clear();
+
+        final Long queueWaitMillis = Math.max(startTime.getTime() - context.getFireTime().getTime(), 0);
+
+        final ScheduledJobRunHistory runHistory = new ScheduledJobRunHistory(scheduledJobDetails, version, startTime,
+                queueWaitMillis, new Date(), status, errorMessage, triggerType, errorLog, runDetails);
         // scheduledJobDetails.addRunHistory(runHistory);
 
         this.schedularService.saveOrUpdate(scheduledJobDetails, runHistory);
 
     }
 
+    private void releaseAdmission(final JobExecutionContext context) {
+        final MifosPlatformTenant admittedTenant = (MifosPlatformTenant) context.get(ADMITTED_TENANT);
+        if (admittedTenant != null) {
+            context.put(ADMITTED_TENANT, null);
+            this.tenantJobExecutionGate.release(admittedTenant);
+        }
+    }
+
+    private static Date startTimeOf(final JobExecutionContext context) {
+        final Date startTime = (Date) context.get(START_TIME);
+        return startTime == null ? context.getFireTime() : startTime;
+    }
+
     private Throwable getCauseFromException(final Throwable exception) {
         if (this.stackTraceLevel <= SchedulerServiceConstants.STACK_TRACE_LEVEL
                 && exception.getCause() != null
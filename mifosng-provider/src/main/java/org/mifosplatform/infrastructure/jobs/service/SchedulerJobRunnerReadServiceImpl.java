@@ -10,6 +10,7 @@ import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
 
+import org.mifosplatform.infrastructure.core.domain.JdbcSupport;
 import org.mifosplatform.infrastructure.core.service.Page;
 import org.mifosplatform.infrastructure.core.service.PaginationHelper;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
@@ -111,7 +112,7 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
 
         private final StringBuilder sqlBuilder = new StringBuilder("select")
                 .append(" job.id,job.display_name as displayName,job.next_run_time as nextRunTime,job.initializing_errorlog as initializingError,job.cron_expression as cronExpression,job.is_active as active,job.currently_running as currentlyRunning,")
-                .append(" runHistory.version,runHistory.start_time as lastRunStartTime,runHistory.end_time as lastRunEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                .append(" runHistory.version,runHistory.start_time as lastRunStartTime,runHistory.queue_wait_millis as lastRunQueueWaitMillis,runHistory.end_time as lastRunEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.run_details as jobRunDetails ")
                 .append(" from job job  left join job_run_history runHistory ON job.id=runHistory.job_id and job.previous_run_start_time=runHistory.start_time ");
 
         public String schema() {
@@ -130,16 +131,18 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
 
             final Long version = rs.getLong("version");
             final Date jobRunStartTime = rs.getTimestamp("lastRunStartTime");
+            final Long jobRunQueueWaitMillis = JdbcSupport.getLong(rs, "lastRunQueueWaitMillis");
             final Date jobRunEndTime = rs.getTimestamp("lastRunEndTime");
             final String status = rs.getString("status");
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
+            final String jobRunDetails = rs.getString("jobRunDetails");
 
             JobDetailHistoryData lastRunHistory = null;
             if (version > 0) {
-                lastRunHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status, jobRunErrorMessage, triggerType,
-                        jobRunErrorLog);
+                lastRunHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunQueueWaitMillis, jobRunEndTime, status,
+                        jobRunErrorMessage, triggerType, jobRunErrorLog, jobRunDetails);
             }
             final JobDetailData jobDetail = new JobDetailData(id, displayName, nextRunTime, initializingError, cronExpression, active,
                     currentlyRunning, lastRunHistory);
@@ -151,7 +154,7 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
     private static final class JobHistoryMapper implements RowMapper<JobDetailHistoryData> {
 
         private final StringBuilder sqlBuilder = new StringBuilder(200)
-                .append(" runHistory.version,runHistory.start_time as runStartTime,runHistory.end_time as runEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog ")
+                .append(" runHistory.version,runHistory.start_time as runStartTime,runHistory.queue_wait_millis as runQueueWaitMillis,runHistory.end_time as runEndTime,runHistory.`status`,runHistory.error_message as jobRunErrorMessage,runHistory.trigger_type as triggerType,runHistory.error_log as jobRunErrorLog,runHistory.run_details as jobRunDetails ")
                 .append(" from job job join job_run_history runHistory ON job.id=runHistory.job_id");
 
         public String schema() {
@@ -162,13 +165,15 @@ public class SchedulerJobRunnerReadServiceImpl implements SchedulerJobRunnerRead
         public JobDetailHistoryData mapRow(final ResultSet rs, @SuppressWarnings("unused") final int rowNum) throws SQLException {
             final Long version = rs.getLong("version");
             final Date jobRunStartTime = rs.getTimestamp("runStartTime");
+            final Long jobRunQueueWaitMillis = JdbcSupport.getLong(rs, "runQueueWaitMillis");
             final Date jobRunEndTime = rs.getTimestamp("runEndTime");
             final String status = rs.getString("status");
             final String jobRunErrorMessage = rs.getString("jobRunErrorMessage");
             final String triggerType = rs.getString("triggerType");
             final String jobRunErrorLog = rs.getString("jobRunErrorLog");
-            final JobDetailHistoryData jobDetailHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunEndTime, status,
-                    jobRunErrorMessage, triggerType, jobRunErrorLog);
+            final String jobRunDetails = rs.getString("jobRunDetails");
+            final JobDetailHistoryData jobDetailHistory = new JobDetailHistoryData(version, jobRunStartTime, jobRunQueueWaitMillis,
+                    jobRunEndTime, status, jobRunErrorMessage, triggerType, jobRunErrorLog, jobRunDetails);
             return jobDetailHistory;
         }
 
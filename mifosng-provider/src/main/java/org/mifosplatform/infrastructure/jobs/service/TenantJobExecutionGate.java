@@ -0,0 +1,171 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admission control for scheduled jobs of all tenants.
+ *
+ * Every tenant has its own quartz schedulers (and thread pools), so without
+ * this gate the number of jobs hitting the database at the same time grows
+ * with the number of tenants. A job only starts once the global, its tenant's
+ * and its database server's limits allow it; waiting jobs are admitted round
+ * robin across tenants, so one tenant's backlog cannot starve the others.
+ *
+ * Zero or a negative value disables the respective limit.
+ */
+@Component
+public class TenantJobExecutionGate {
+
+    public final static String MAX_CONCURRENT_JOBS = "mifos.jobs.maxConcurrent";
+    @Value("${" + MAX_CONCURRENT_JOBS + ":20}")
+    private int maxConcurrentJobs = 20;
+
+    public final static String MAX_CONCURRENT_JOBS_PER_TENANT = "mifos.jobs.maxConcurrentPerTenant";
+    @Value("${" + MAX_CONCURRENT_JOBS_PER_TENANT + ":7}")
+    private int maxConcurrentJobsPerTenant = 7;
+
+    public final static String MAX_CONCURRENT_JOBS_PER_DATABASE_SERVER = "mifos.jobs.maxConcurrentPerDatabaseServer";
+    @Value("${" + MAX_CONCURRENT_JOBS_PER_DATABASE_SERVER + ":10}")
+    private int maxConcurrentJobsPerDatabaseServer = 10;
+
+    private int runningJobs = 0;
+    private final Map<String, Integer> runningJobsByTenant = new HashMap<>();
+    private final Map<String, Integer> runningJobsByDatabaseServer = new HashMap<>();
+
+    /**
+     * Waiting jobs per tenant; the iteration order is the order in which
+     * tenants get their turn.
+     */
+    private final LinkedHashMap<String, ArrayDeque<Ticket>> waitingJobsByTenant = new LinkedHashMap<>();
+
+    /**
+     * Blocks until a job of the tenant may run. Every successful call must be
+     * matched by a call to {@link #release(MifosPlatformTenant)}.
+     */
+    public synchronized void admit(final MifosPlatformTenant tenant) throws InterruptedException {
+        final Ticket ticket = new Ticket(tenant.getTenantIdentifier(), tenant.databaseServer());
+        ArrayDeque<Ticket> waitingJobs = this.waitingJobsByTenant.get(ticket.tenantKey);
+        if (waitingJobs == null) {
+            waitingJobs = new ArrayDeque<>();
+            this.waitingJobsByTenant.put(ticket.tenantKey, waitingJobs);
+        }
+        waitingJobs.addLast(ticket);
+        admitWaitingJobs();
+
+        try {
+            while (!ticket.admitted) {
+                wait();
+            }
+        } catch (final InterruptedException e) {
+            if (ticket.admitted) {
+                // admitted concurrently, the caller does not run the job
+                release(ticket.tenantKey, ticket.databaseServerKey);
+            } else {
+                waitingJobs.remove(ticket);
+                if (waitingJobs.isEmpty()) {
+                    this.waitingJobsByTenant.remove(ticket.tenantKey);
+                }
+            }
+            throw e;
+        }
+    }
+
+    public synchronized void release(final MifosPlatformTenant tenant) {
+        release(tenant.getTenantIdentifier(), tenant.databaseServer());
+    }
+
+    private void release(final String tenantKey, final String databaseServerKey) {
+        this.runningJobs--;
+        decrement(this.runningJobsByTenant, tenantKey);
+        decrement(this.runningJobsByDatabaseServer, databaseServerKey);
+        admitWaitingJobs();
+    }
+
+    /**
+     * Admits the first waiting job of each tenant in turn, as long as the
+     * limits allow; a tenant that got a job admitted moves to the end of the
+     * line.
+     */
+    private void admitWaitingJobs() {
+        boolean admittedAny = false;
+        boolean admitted = true;
+        while (admitted && !isFull(this.runningJobs, this.maxConcurrentJobs)) {
+            admitted = false;
+            final Iterator<Map.Entry<String, ArrayDeque<Ticket>>> tenants = this.waitingJobsByTenant.entrySet().iterator();
+            while (tenants.hasNext()) {
+                final Map.Entry<String, ArrayDeque<Ticket>> entry = tenants.next();
+                final ArrayDeque<Ticket> waitingJobs = entry.getValue();
+                final Ticket ticket = waitingJobs.peekFirst();
+                if (isFull(count(this.runningJobsByTenant, ticket.tenantKey), this.maxConcurrentJobsPerTenant)
+                        || isFull(count(this.runningJobsByDatabaseServer, ticket.databaseServerKey),
+                                this.maxConcurrentJobsPerDatabaseServer)) {
+                    continue;
+                }
+
+                waitingJobs.removeFirst();
+                tenants.remove();
+                if (!waitingJobs.isEmpty()) {
+                    this.waitingJobsByTenant.put(entry.getKey(), waitingJobs);
+                }
+
+                this.runningJobs++;
+                increment(this.runningJobsByTenant, ticket.tenantKey);
+                increment(this.runningJobsByDatabaseServer, ticket.databaseServerKey);
+                ticket.admitted = true;
+                admitted = true;
+                admittedAny = true;
+                break;
+            }
+        }
+        if (admittedAny) {
+            notifyAll();
+        }
+    }
+
+    private static boolean isFull(final int running, final int limit) {
+        return limit > 0 && running >= limit;
+    }
+
+    private static int count(final Map<String, Integer> counts, final String key) {
+        final Integer count = counts.get(key);
+        return count == null ? 0 : count;
+    }
+
+    private static void increment(final Map<String, Integer> counts, final String key) {
+        counts.put(key, count(counts, key) + 1);
+    }
+
+    private static void decrement(final Map<String, Integer> counts, final String key) {
+        final int count = count(counts, key) - 1;
+        if (count > 0) {
+            counts.put(key, count);
+        } else {
+            counts.remove(key);
+        }
+    }
+
+    private static final class Ticket {
+
+        private final String tenantKey;
+        private final String databaseServerKey;
+        private boolean admitted;
+
+        Ticket(final String tenantKey, final String databaseServerKey) {
+            this.tenantKey = tenantKey;
+            this.databaseServerKey = databaseServerKey;
+        }
+    }
+}
@@ -17,7 +17,9 @@ import javax.ws.rs.core.MediaType;
 
 import org.mifosplatform.infrastructure.core.data.EnumOptionData;
 import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.security.data.AuthenticatedUserData;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore;
 import org.mifosplatform.infrastructure.security.service.SpringSecurityPlatformSecurityContext;
 import org.mifosplatform.useradministration.data.RoleData;
 import org.mifosplatform.useradministration.domain.AppUser;
@@ -41,15 +43,18 @@ public class AuthenticationApiResource {
     private final DaoAuthenticationProvider customAuthenticationProvider;
     private final ToApiJsonSerializer<AuthenticatedUserData> apiJsonSerializerService;
     private final SpringSecurityPlatformSecurityContext springSecurityPlatformSecurityContext;
+    private final AuthenticationTokenStore authenticationTokenStore;
 
     @Autowired
     public AuthenticationApiResource(
             @Qualifier("customAuthenticationProvider") final DaoAuthenticationProvider customAuthenticationProvider,
             final ToApiJsonSerializer<AuthenticatedUserData> apiJsonSerializerService,
-            final SpringSecurityPlatformSecurityContext springSecurityPlatformSecurityContext) {
+            final SpringSecurityPlatformSecurityContext springSecurityPlatformSecurityContext,
+            final AuthenticationTokenStore authenticationTokenStore) {
         this.customAuthenticationProvider = customAuthenticationProvider;
         this.apiJsonSerializerService = apiJsonSerializerService;
         this.springSecurityPlatformSecurityContext = springSecurityPlatformSecurityContext;
+        this.authenticationTokenStore = authenticationTokenStore;
     }
 
     @POST
@@ -89,8 +94,15 @@ public class AuthenticationApiResource {
                 authenticatedUserData = new AuthenticatedUserData(username, principal.getId(), new String(base64EncodedAuthenticationKey));
             } else {
 
+                String authenticationToken = null;
+                if (this.authenticationTokenStore.isEnabled()) {
+                    authenticationToken = this.authenticationTokenStore.issue(ThreadLocalContextUtil.getTenant().getTenantIdentifier(),
+                            principal.getId(), principal.getUsername(), principal.getPassword());
+                }
+
                 authenticatedUserData = new AuthenticatedUserData(username, officeId, officeName, staffId, staffDisplayName,
-                        organisationalRole, roles, permissions, principal.getId(), new String(base64EncodedAuthenticationKey));
+                        organisationalRole, roles, permissions, principal.getId(), new String(base64EncodedAuthenticationKey),
+                        authenticationToken);
             }
 
         }
@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriInfo;
+
+import org.mifosplatform.infrastructure.core.api.ApiRequestParameterHelper;
+import org.mifosplatform.infrastructure.core.serialization.ApiRequestJsonSerializationSettings;
+import org.mifosplatform.infrastructure.core.serialization.DefaultToApiJsonSerializer;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.dataqueries.service.ReadReportingService;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+import org.mifosplatform.infrastructure.security.service.PlatformRequestLogWriter;
+import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+@Path("/requestlatencies")
+@Consumes({ MediaType.APPLICATION_JSON })
+@Produces({ MediaType.APPLICATION_JSON })
+@Component
+@Scope("singleton")
+public class RequestLatenciesApiResource {
+
+    private final Set<String> RESPONSE_DATA_PARAMETERS = new HashSet<>(Arrays.asList("endpoint", "count", "meanMillis", "maxMillis",
+            "percentile50Millis", "percentile95Millis", "percentile99Millis", "bucketUpperBoundsMillis", "bucketCounts"));
+    private final String resourceNameForPermissions = "REQUESTLATENCY";
+
+    private final PlatformSecurityContext context;
+    private final PlatformRequestLogWriter platformRequestLogWriter;
+    private final ReadReportingService readReportingService;
+    private final DefaultToApiJsonSerializer<RequestLatencyData> toApiJsonSerializer;
+    private final ApiRequestParameterHelper apiRequestParameterHelper;
+
+    @Autowired
+    public RequestLatenciesApiResource(final PlatformSecurityContext context, final PlatformRequestLogWriter platformRequestLogWriter,
+            final ReadReportingService readReportingService, final DefaultToApiJsonSerializer<RequestLatencyData> toApiJsonSerializer,
+            final ApiRequestParameterHelper apiRequestParameterHelper) {
+        this.context = context;
+        this.platformRequestLogWriter = platformRequestLogWriter;
+        this.readReportingService = readReportingService;
+        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.apiRequestParameterHelper = apiRequestParameterHelper;
+    }
+
+    @GET
+    public String retrieveAll(@Context final UriInfo uriInfo) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final List<RequestLatencyData> latencies = sortedByEndpoint(this.platformRequestLogWriter.retrieveLatencies(ThreadLocalContextUtil.getTenant()
+                .getTenantIdentifier()));
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, latencies, this.RESPONSE_DATA_PARAMETERS);
+    }
+
+    /**
+     * Latencies of the runs of reports, the endpoint of each is the name of
+     * the report.
+     */
+    @GET
+    @Path("reports")
+    public String retrieveReportLatencies(@Context final UriInfo uriInfo) {
+
+        this.context.authenticatedUser().validateHasReadPermission(this.resourceNameForPermissions);
+
+        final List<RequestLatencyData> latencies = sortedByEndpoint(this.readReportingService.retrieveReportLatencies());
+
+        final ApiRequestJsonSerializationSettings settings = this.apiRequestParameterHelper.process(uriInfo.getQueryParameters());
+        return this.toApiJsonSerializer.serialize(settings, latencies, this.RESPONSE_DATA_PARAMETERS);
+    }
+
+    private static List<RequestLatencyData> sortedByEndpoint(final Collection<RequestLatencyData> unsorted) {
+        final List<RequestLatencyData> latencies = new ArrayList<>(unsorted);
+        Collections.sort(latencies, new Comparator<RequestLatencyData>() {
+
+            @Override
+            public int compare(final RequestLatencyData first, final RequestLatencyData second) {
+                return first.getEndpoint().compareTo(second.getEndpoint());
+            }
+        });
+        return latencies;
+    }
+}
@@ -5,14 +5,8 @@
  */
 package org.mifosplatform.infrastructure.security.data;
 
-import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
-import javax.servlet.http.HttpServletRequest;
-
-import org.apache.commons.lang.time.StopWatch;
-
 /**
  * Immutable data object representing platform API request used for
  * logging/debugging.
@@ -30,14 +24,9 @@ public class PlatformRequestLog {
     @SuppressWarnings("unused")
     private final Map<String, String[]> parameters;
 
-    public static PlatformRequestLog from(final StopWatch task, final HttpServletRequest request) throws IOException {
-        final String requestUrl = request.getRequestURL().toString();
-
-        final Map<String, String[]> parameters = new HashMap<>(request.getParameterMap());
-        parameters.remove("password");
-        parameters.remove("_");
-
-        return new PlatformRequestLog(task.getStartTime(), task.getTime(), request.getMethod(), requestUrl, parameters);
+    public static PlatformRequestLog from(final long startTime, final long totalTime, final String method, final String requestUrl,
+            final Map<String, String[]> parameters) {
+        return new PlatformRequestLog(startTime, totalTime, method, requestUrl, parameters);
     }
 
     private PlatformRequestLog(final long startTime, final long time, final String method, final String requestUrl,
@@ -0,0 +1,49 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.data;
+
+/**
+ * Immutable data object representing the latency histogram of the requests to
+ * one API endpoint since the server started.
+ */
+public class RequestLatencyData {
+
+    private final String endpoint;
+    @SuppressWarnings("unused")
+    private final long count;
+    @SuppressWarnings("unused")
+    private final long meanMillis;
+    @SuppressWarnings("unused")
+    private final long maxMillis;
+    @SuppressWarnings("unused")
+    private final long percentile50Millis;
+    @SuppressWarnings("unused")
+    private final long percentile95Millis;
+    @SuppressWarnings("unused")
+    private final long percentile99Millis;
+    @SuppressWarnings("unused")
+    private final long[] bucketUpperBoundsMillis;
+    @SuppressWarnings("unused")
+    private final long[] bucketCounts;
+
+    public RequestLatencyData(final String endpoint, final long count, final long meanMillis, final long maxMillis,
+            final long percentile50Millis, final long percentile95Millis, final long percentile99Millis,
+            final long[] bucketUpperBoundsMillis, final long[] bucketCounts) {
+        this.endpoint = endpoint;
+        this.count = count;
+        this.meanMillis = meanMillis;
+        this.maxMillis = maxMillis;
+        this.percentile50Millis = percentile50Millis;
+        this.percentile95Millis = percentile95Millis;
+        this.percentile99Millis = percentile99Millis;
+        this.bucketUpperBoundsMillis = bucketUpperBoundsMillis;
+        this.bucketCounts = bucketCounts;
+    }
+
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+}
@@ -19,16 +19,20 @@ import org.mifosplatform.infrastructure.cache.domain.CacheType;
 import org.mifosplatform.infrastructure.cache.service.CacheWritePlatformService;
 import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
-import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
 import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
-import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
+import org.mifosplatform.infrastructure.dataqueries.service.GenericResultsetCursor;
 import org.mifosplatform.infrastructure.security.exception.InvalidTenantIdentiferException;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore.IssuedToken;
 import org.mifosplatform.infrastructure.security.service.BasicAuthTenantDetailsService;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.mifosplatform.infrastructure.security.service.PlatformRequestLogWriter;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.stereotype.Service;
@@ -38,7 +42,9 @@ import org.springframework.stereotype.Service;
  * 
  * This filter is responsible for extracting multi-tenant and basic auth
  * credentials from the request and checking that the details provided are
- * valid.
+ * valid. When enabled, a token issued by the authentication API (sent as
+ * <code>Authorization: Token &lt;token&gt;</code>) can be used instead of the
+ * basic auth credentials, see {@link AuthenticationTokenStore}.
  * 
  * If multi-tenant and basic auth credentials are valid, the details of the
  * tenant are stored in {@link MifosPlatformTenant} and stored in a
@@ -47,17 +53,21 @@ import org.springframework.stereotype.Service;
  * 
  * If multi-tenant and basic auth credentials are invalid, a http error response
  * is returned.
+ * 
+ * The timing of every request is handed to the {@link PlatformRequestLogWriter}
+ * to be logged off the request thread.
  */
 @Service(value = "basicAuthenticationProcessingFilter")
 public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFilter {
 
     private static boolean firstRequestProcessed = false;
-    private final static Logger logger = LoggerFactory.getLogger(TenantAwareBasicAuthenticationFilter.class);
     
     private final BasicAuthTenantDetailsService basicAuthTenantDetailsService;
-    private final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer;
+    private final PlatformRequestLogWriter platformRequestLogWriter;
     private final ConfigurationDomainService configurationDomainService;
     private final CacheWritePlatformService cacheWritePlatformService;
+    private final AuthenticationTokenStore authenticationTokenStore;
+    private final PlatformUserDetailsService userDetailsService;
 
     private final String tenantRequestHeader = "X-Mifos-Platform-TenantId";
     private final boolean exceptionIfHeaderMissing = true;
@@ -65,13 +75,16 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
     @Autowired
     public TenantAwareBasicAuthenticationFilter(final AuthenticationManager authenticationManager,
             final AuthenticationEntryPoint authenticationEntryPoint, final BasicAuthTenantDetailsService basicAuthTenantDetailsService,
-            final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer, final ConfigurationDomainService configurationDomainService,
-            final CacheWritePlatformService cacheWritePlatformService) {
+            final PlatformRequestLogWriter platformRequestLogWriter, final ConfigurationDomainService configurationDomainService,
+            final CacheWritePlatformService cacheWritePlatformService, final AuthenticationTokenStore authenticationTokenStore,
+            final PlatformUserDetailsService userDetailsService) {
         super(authenticationManager, authenticationEntryPoint);
         this.basicAuthTenantDetailsService = basicAuthTenantDetailsService;
-        this.toApiJsonSerializer = toApiJsonSerializer;
+        this.platformRequestLogWriter = platformRequestLogWriter;
         this.configurationDomainService = configurationDomainService;
         this.cacheWritePlatformService = cacheWritePlatformService;
+        this.authenticationTokenStore = authenticationTokenStore;
+        this.userDetailsService = userDetailsService;
     }
 
     @Override
@@ -83,6 +96,7 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
         final StopWatch task = new StopWatch();
         task.start();
 
+        String requestTenantIdentifier = null;
         try {
 
             if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
@@ -103,10 +117,16 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
                 final MifosPlatformTenant tenant = this.basicAuthTenantDetailsService.loadTenantById(tenantIdentifier);
 
                 ThreadLocalContextUtil.setTenant(tenant);
+                requestTenantIdentifier = tenant.getTenantIdentifier();
                 String authToken = request.getHeader("Authorization");
 
+                // only basic credentials are handed on to hooks and batch
+                // requests, never those of an earlier request on this thread
+                ThreadLocalContextUtil.setAuthToken(null);
                 if (authToken != null && authToken.startsWith("Basic ")) {
                     ThreadLocalContextUtil.setAuthToken(authToken.replaceFirst("Basic ", ""));
+                } else if (authToken != null && authToken.startsWith("Token ") && this.authenticationTokenStore.isEnabled()) {
+                    authenticateWithToken(tenantIdentifier, authToken.substring("Token ".length()).trim());
                 }
 
                 if (!firstRequestProcessed) {
@@ -131,9 +151,41 @@ public class TenantAwareBasicAuthenticationFilter extends BasicAuthenticationFil
             response.addHeader("WWW-Authenticate", "Basic realm=\"" + "Mifos Platform API" + "\"");
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
         } finally {
+            ThreadLocalContextUtil.setAuthToken(null);
+            // report responses that were never written still hold a connection
+            final int unwrittenReports = GenericResultsetCursor.closeOpenedOnThisThread();
+            if (unwrittenReports > 0) {
+                logger.warn("Closed " + unwrittenReports + " report resultset(s) never written for " + request.getRequestURI());
+            }
             task.stop();
-            final PlatformRequestLog log = PlatformRequestLog.from(task, request);
-            logger.info(this.toApiJsonSerializer.serialize(log));
+            this.platformRequestLogWriter.record(request, requestTenantIdentifier, task.getStartTime(), task.getTime());
         }
     }
+
+    /**
+     * Authenticates the request as the user the token was issued to, without
+     * checking the user's password again. The user is loaded as for basic
+     * authentication, so changes to its roles and permissions apply at once.
+     * Requests with an unknown or expired token, or of a user who may no
+     * longer log in, stay unauthenticated and are refused.
+     * 
+     * The store does not keep the basic authentication credentials, so hooks
+     * triggered by such requests are handed a short lived token of the user
+     * instead.
+     */
+    private void authenticateWithToken(final String tenantIdentifier, final String token) {
+        final IssuedToken issuedToken = this.authenticationTokenStore.find(tenantIdentifier, token);
+        if (issuedToken == null) { return; }
+
+        final UserDetails user;
+        try {
+            user = this.userDetailsService.loadUserByUsername(issuedToken.getUsername());
+        } catch (final UsernameNotFoundException e) {
+            return;
+        }
+        if (!this.authenticationTokenStore.isValidFor(issuedToken, user)) { return; }
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory store of the authentication tokens issued by the authentication
+ * API, an alternative to sending the basic authentication credentials (and
+ * so hashing the password) with every request.
+ *
+ * A token is only valid for the tenant and the user it was issued to, until
+ * its time to live is over, it is revoked or the user's password changes.
+ * The store is bounded, the oldest tokens are dropped first when it is full.
+ * Tokens do not survive a restart of the server, clients then authenticate
+ * again.
+ *
+ * Neither the tokens nor the credentials of the users are kept, only salted
+ * hashes of them.
+ */
+@Component
+public class AuthenticationTokenStore {
+
+    public final static String ENABLED = "mifos.security.authenticationTokens.enabled";
+    @Value("${" + ENABLED + ":false}")
+    private boolean enabled = false;
+
+    public final static String TIME_TO_LIVE_SECONDS = "mifos.security.authenticationTokens.timeToLiveSeconds";
+    @Value("${" + TIME_TO_LIVE_SECONDS + ":3600}")
+    private int timeToLiveSeconds = 3600;
+
+    public final static String MAX_TOKENS = "mifos.security.authenticationTokens.maxTokens";
+    @Value("${" + MAX_TOKENS + ":10000}")
+    private int maxTokens = 10000;
+
+    private final SecureRandom random = new SecureRandom();
+    private final byte[] salt = new byte[16];
+
+    /**
+     * Issued tokens keyed by their hash, oldest first.
+     */
+    private final LinkedHashMap<String, IssuedToken> tokens = new LinkedHashMap<String, IssuedToken>() {
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, IssuedToken> eldest) {
+            return size() > AuthenticationTokenStore.this.maxTokens;
+        }
+    };
+
+    public AuthenticationTokenStore() {
+        this.random.nextBytes(this.salt);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param encodedPassword
+     *            the password of the user as stored, tokens are no longer
+     *            valid once it changes.
+     */
+    public String issue(final String tenantIdentifier, final Long userId, final String username, final String encodedPassword) {
+        return issue(tenantIdentifier, userId, username, encodedPassword, this.timeToLiveSeconds);
+    }
+
+    /**
+     * Issues a token which expires earlier than the configured time to live,
+     * e.g. one handed to a hook receiver.
+     */
+    public String issue(final String tenantIdentifier, final Long userId, final String username, final String encodedPassword,
+            final int timeToLiveSeconds) {
+
+        final byte[] randomBytes = new byte[32];
+        this.random.nextBytes(randomBytes);
+        final String token = String.format("%064x", new BigInteger(1, randomBytes));
+
+        final long expiresAt = System.currentTimeMillis() + Math.min(timeToLiveSeconds, this.timeToLiveSeconds) * 1000L;
+        synchronized (this.tokens) {
+            this.tokens.put(hash(token), new IssuedToken(tenantIdentifier, userId, username, hash(encodedPassword), expiresAt));
+        }
+        return token;
+    }
+
+    /**
+     * @return the details of the token, or null if the token is unknown,
+     *         expired, revoked or was issued for another tenant.
+     */
+    public IssuedToken find(final String tenantIdentifier, final String token) {
+        final String tokenHash = hash(token);
+        synchronized (this.tokens) {
+            final IssuedToken issuedToken = this.tokens.get(tokenHash);
+            if (issuedToken == null) { return null; }
+            if (issuedToken.expiresAt <= System.currentTimeMillis()) {
+                this.tokens.remove(tokenHash);
+                return null;
+            }
+            return issuedToken.tenantIdentifier.equals(tenantIdentifier) ? issuedToken : null;
+        }
+    }
+
+    /**
+     * @param user
+     *            the user the token was issued to, as currently stored.
+     * @return whether the user can still be authenticated by the token: the
+     *         same checks apply as to basic authentication, and the password
+     *         must not have changed since the token was issued.
+     */
+    public boolean isValidFor(final IssuedToken issuedToken, final UserDetails user) {
+        return user.isEnabled() && user.isAccountNonLocked() && user.isAccountNonExpired() && user.isCredentialsNonExpired()
+                && issuedToken.username.equals(user.getUsername()) && issuedToken.passwordHash.equals(hash(user.getPassword()));
+    }
+
+    public void revokeTokensOf(final String tenantIdentifier, final Long userId) {
+        synchronized (this.tokens) {
+            final Iterator<IssuedToken> issuedTokens = this.tokens.values().iterator();
+            while (issuedTokens.hasNext()) {
+                final IssuedToken issuedToken = issuedTokens.next();
+                if (issuedToken.tenantIdentifier.equals(tenantIdentifier) && issuedToken.userId.equals(userId)) {
+                    issuedTokens.remove();
+                }
+            }
+        }
+    }
+
+    private String hash(final String value) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.salt);
+            return String.format("%064x", new BigInteger(1, digest.digest(String.valueOf(value).getBytes(StandardCharsets.UTF_8))));
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static final class IssuedToken {
+
+        private final String tenantIdentifier;
+        private final Long userId;
+        private final String username;
+        private final String passwordHash;
+        private final long expiresAt;
+
+        IssuedToken(final String tenantIdentifier, final Long userId, final String username, final String passwordHash,
+                final long expiresAt) {
+            this.tenantIdentifier = tenantIdentifier;
+            this.userId = userId;
+            this.username = username;
+            this.passwordHash = passwordHash;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getUsername() {
+            return this.username;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.http.HttpServletRequest;
+
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+import org.mifosplatform.infrastructure.security.filter.TenantAwareBasicAuthenticationFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Logs the API requests and keeps latency histograms per tenant and endpoint,
+ * off the request threads.
+ *
+ * Request threads only copy the timing of the request into a preallocated
+ * ring buffer; a single background thread records it in the histograms and
+ * formats and logs the requests which are sampled or slower than the
+ * threshold. When the writer falls behind and the buffer is full, further
+ * requests are neither logged nor counted until it catches up.
+ *
+ * The writer writes the requests in the order their slots were claimed, so a
+ * slot claimed and never published (its request thread died in between)
+ * would stop it for good; it skips such a slot once it has waited for it
+ * longer than it takes to publish one by far.
+ */
+@Component
+public class PlatformRequestLogWriter {
+
+    /**
+     * Requests are logged under the name of the filter, as they were before
+     * logging was moved off the request threads.
+     */
+    private final static Logger logger = LoggerFactory.getLogger(TenantAwareBasicAuthenticationFilter.class);
+
+    private final static int MAX_ENDPOINTS = 1000;
+
+    public final static String SAMPLE_RATE = "mifos.requestLog.sampleRate";
+    @Value("${" + SAMPLE_RATE + ":1.0}")
+    private double sampleRate = 1.0;
+
+    public final static String SLOW_REQUEST_THRESHOLD_MILLIS = "mifos.requestLog.slowRequestThresholdMillis";
+    @Value("${" + SLOW_REQUEST_THRESHOLD_MILLIS + ":1000}")
+    private long slowRequestThresholdMillis = 1000;
+
+    public final static String BUFFER_SIZE = "mifos.requestLog.bufferSize";
+    @Value("${" + BUFFER_SIZE + ":4096}")
+    private int bufferSize = 4096;
+
+    private final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer;
+
+    private RequestTiming[] buffer;
+    /**
+     * Sequence number the next request will be written at.
+     */
+    private final AtomicLong nextSequence = new AtomicLong();
+    /**
+     * Sequence number the writer thread is at; all slots before it are free.
+     */
+    private volatile long writtenSequence;
+    private final AtomicLong droppedRequests = new AtomicLong();
+
+    private long unpublishedSlotTimeoutMillis = 1000;
+    /**
+     * Claimed slot the writer thread is waiting for, and since when.
+     */
+    private long unpublishedSequence = -1;
+    private long unpublishedSince;
+
+    private final RequestLatencyHistograms histograms = new RequestLatencyHistograms(MAX_ENDPOINTS);
+    private volatile boolean running;
+    private Thread writer;
+
+    @Autowired
+    public PlatformRequestLogWriter(final ToApiJsonSerializer<PlatformRequestLog> toApiJsonSerializer) {
+        this.toApiJsonSerializer = toApiJsonSerializer;
+    }
+
+    @PostConstruct
+    public void start() {
+        allocateBuffer();
+
+        this.running = true;
+        this.writer = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                writeRequests();
+            }
+        }, "request-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        this.running = false;
+        LockSupport.unpark(this.writer);
+    }
+
+    void allocateBuffer() {
+        this.buffer = new RequestTiming[this.bufferSize];
+        for (int slot = 0; slot < this.buffer.length; slot++) {
+            this.buffer[slot] = new RequestTiming();
+        }
+    }
+
+    /**
+     * Called on the request thread once the request has been processed.
+     * 
+     * @param tenantIdentifier
+     *            the tenant of the request, or null when it has none; the
+     *            requests without tenant are logged but not counted.
+     */
+    public void record(final HttpServletRequest request, final String tenantIdentifier, final long startTime, final long totalTime) {
+
+        long sequence;
+        do {
+            sequence = this.nextSequence.get();
+            if (sequence - this.writtenSequence >= this.buffer.length) {
+                this.droppedRequests.incrementAndGet();
+                return;
+            }
+        } while (!this.nextSequence.compareAndSet(sequence, sequence + 1));
+
+        final RequestTiming timing = this.buffer[(int) (sequence % this.buffer.length)];
+        try {
+            timing.startTime = startTime;
+            timing.totalTime = totalTime;
+            timing.tenantIdentifier = tenantIdentifier;
+            timing.method = request.getMethod();
+            timing.pathInfo = request.getPathInfo();
+            if (totalTime >= this.slowRequestThresholdMillis || ThreadLocalRandom.current().nextDouble() < this.sampleRate) {
+                timing.url = request.getRequestURL().toString();
+                timing.parameters = new HashMap<>(request.getParameterMap());
+            }
+        } catch (final RuntimeException e) {
+            // the slot is published empty, the writer thread skips it
+            timing.clear();
+            throw e;
+        } finally {
+            // publishes the slot to the writer thread
+            timing.sequence = sequence;
+        }
+    }
+
+    public Collection<RequestLatencyData> retrieveLatencies(final String tenantIdentifier) {
+        return this.histograms.retrieve(tenantIdentifier);
+    }
+
+    private void writeRequests() {
+        long reportedDroppedRequests = 0;
+        while (this.running) {
+            if (writeRecordedRequests() > 0) {
+                continue;
+            }
+
+            final long droppedRequests = this.droppedRequests.get();
+            if (droppedRequests != reportedDroppedRequests) {
+                logger.warn((droppedRequests - reportedDroppedRequests) + " requests were not logged, the request log buffer was full");
+                reportedDroppedRequests = droppedRequests;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    /**
+     * Writes the requests recorded so far and frees their slots. Only ever
+     * called by one thread at a time.
+     * 
+     * @return the number of requests written.
+     */
+    int writeRecordedRequests() {
+        long sequence = this.writtenSequence;
+        int written = 0;
+        while (true) {
+            final RequestTiming timing = this.buffer[(int) (sequence % this.buffer.length)];
+            if (timing.sequence == sequence) {
+                try {
+                    write(timing);
+                } catch (final Exception e) {
+                    logger.error("Request could not be logged", e);
+                }
+                written++;
+            } else if (!isAbandoned(sequence)) { return written; }
+
+            timing.clear();
+            sequence++;
+            this.writtenSequence = sequence;
+        }
+    }
+
+    /**
+     * @return true if the slot of <code>sequence</code> was claimed and has
+     *         not been published for longer than the timeout.
+     */
+    private boolean isAbandoned(final long sequence) {
+        if (sequence >= this.nextSequence.get()) { return false; }
+
+        final long now = System.nanoTime();
+        if (this.unpublishedSequence != sequence) {
+            this.unpublishedSequence = sequence;
+            this.unpublishedSince = now;
+            return false;
+        }
+        if (now - this.unpublishedSince < TimeUnit.MILLISECONDS.toNanos(this.unpublishedSlotTimeoutMillis)) { return false; }
+
+        logger.warn("A request was not logged, its request log slot was claimed but never published");
+        return true;
+    }
+
+    private void write(final RequestTiming timing) {
+        if (timing.tenantIdentifier != null) {
+            this.histograms.record(timing.tenantIdentifier, timing.method + " " + endpointPath(timing.pathInfo), timing.totalTime);
+        }
+
+        if (timing.url != null) {
+            timing.parameters.remove("password");
+            timing.parameters.remove("_");
+            final PlatformRequestLog log = PlatformRequestLog.from(timing.startTime, timing.totalTime, timing.method, timing.url,
+                    timing.parameters);
+            logger.info(this.toApiJsonSerializer.serialize(log));
+        }
+    }
+
+    /**
+     * Replaces the ids in the path, so that the requests for all resources of
+     * a kind are counted together, e.g. <code>/loans/{id}/transactions</code>.
+     */
+    private static String endpointPath(final String pathInfo) {
+        if (pathInfo == null) { return "/"; }
+        final StringBuilder path = new StringBuilder(pathInfo.length());
+        for (final String segment : pathInfo.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            path.append('/').append(isNumeric(segment) ? "{id}" : segment);
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
+    private static boolean isNumeric(final String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) { return false; }
+        }
+        return true;
+    }
+
+    private static final class RequestTiming {
+
+        volatile long sequence = -1;
+        long startTime;
+        long totalTime;
+        String tenantIdentifier;
+        String method;
+        String pathInfo;
+        /**
+         * Only set for requests to be logged.
+         */
+        String url;
+        Map<String, String[]> parameters;
+
+        void clear() {
+            this.tenantIdentifier = null;
+            this.method = null;
+            this.pathInfo = null;
+            this.url = null;
+            this.parameters = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+
+/**
+ * Latencies of the requests to one endpoint (or of the runs of one report),
+ * counted in fixed buckets. Recorded and read by any thread.
+ */
+public final class RequestLatencyHistogram {
+
+    /**
+     * Inclusive upper bounds of the buckets; the last bucket counts all
+     * slower requests.
+     */
+    private static final long[] BUCKET_UPPER_BOUNDS_MILLIS = { 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000 };
+
+    private final String endpoint;
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMillis = new AtomicLong();
+    private final AtomicLong maxMillis = new AtomicLong();
+
+    public RequestLatencyHistogram(final String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public void record(final long millis) {
+        int bucket = 0;
+        while (bucket < BUCKET_UPPER_BOUNDS_MILLIS.length && millis > BUCKET_UPPER_BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        this.bucketCounts.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.totalMillis.addAndGet(millis);
+        long max = this.maxMillis.get();
+        while (millis > max && !this.maxMillis.compareAndSet(max, millis)) {
+            max = this.maxMillis.get();
+        }
+    }
+
+    public RequestLatencyData toData() {
+        final long[] counts = new long[this.bucketCounts.length()];
+        long total = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            counts[bucket] = this.bucketCounts.get(bucket);
+            total += counts[bucket];
+        }
+        final long mean = total == 0 ? 0 : this.totalMillis.get() / total;
+
+        return new RequestLatencyData(this.endpoint, total, mean, this.maxMillis.get(), percentile(counts, total, 50),
+                percentile(counts, total, 95), percentile(counts, total, 99), BUCKET_UPPER_BOUNDS_MILLIS.clone(), counts);
+    }
+
+    /**
+     * @return the upper bound of the bucket holding the percentile, or the
+     *         maximum seen if it falls in the last bucket.
+     */
+    private long percentile(final long[] counts, final long total, final int percentile) {
+        if (total == 0) { return 0; }
+        final long rank = (total * percentile + 99) / 100;
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_UPPER_BOUNDS_MILLIS.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) { return Math.min(BUCKET_UPPER_BOUNDS_MILLIS[bucket], this.maxMillis.get()); }
+        }
+        return this.maxMillis.get();
+    }
+}
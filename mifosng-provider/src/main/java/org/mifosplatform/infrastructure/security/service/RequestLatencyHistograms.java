@@ -0,0 +1,80 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+
+/**
+ * Latency histograms of each tenant, by endpoint (or report). A tenant only
+ * ever gets to see its own. The number of endpoints of a tenant is bounded,
+ * any further endpoints are counted together as <code>OTHER</code>.
+ * Recorded and read by any thread.
+ */
+public final class RequestLatencyHistograms {
+
+    private static final String OTHER_ENDPOINTS = "OTHER";
+
+    private final int maxEndpoints;
+    private final ConcurrentMap<String, ConcurrentMap<String, RequestLatencyHistogram>> histogramsByTenant = new ConcurrentHashMap<>();
+
+    public RequestLatencyHistograms(final int maxEndpoints) {
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    public void record(final String tenantIdentifier, final String endpoint, final long millis) {
+        histogramOf(histogramsOf(tenantIdentifier), endpoint).record(millis);
+    }
+
+    public Collection<RequestLatencyData> retrieve(final String tenantIdentifier) {
+        final Map<String, RequestLatencyHistogram> histograms = this.histogramsByTenant.get(tenantIdentifier);
+        if (histograms == null) { return Collections.emptyList(); }
+
+        final Collection<RequestLatencyData> latencies = new ArrayList<>(histograms.size());
+        for (final RequestLatencyHistogram histogram : histograms.values()) {
+            latencies.add(histogram.toData());
+        }
+        return latencies;
+    }
+
+    private ConcurrentMap<String, RequestLatencyHistogram> histogramsOf(final String tenantIdentifier) {
+        ConcurrentMap<String, RequestLatencyHistogram> histograms = this.histogramsByTenant.get(tenantIdentifier);
+        if (histograms == null) {
+            final ConcurrentMap<String, RequestLatencyHistogram> newHistograms = new ConcurrentHashMap<>();
+            histograms = this.histogramsByTenant.putIfAbsent(tenantIdentifier, newHistograms);
+            if (histograms == null) {
+                histograms = newHistograms;
+            }
+        }
+        return histograms;
+    }
+
+    private RequestLatencyHistogram histogramOf(final ConcurrentMap<String, RequestLatencyHistogram> histograms, final String endpoint) {
+        String key = endpoint;
+        RequestLatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            // the bound is not exact when endpoints are added concurrently
+            if (histograms.size() >= this.maxEndpoints) {
+                key = OTHER_ENDPOINTS;
+                histogram = histograms.get(key);
+            }
+            if (histogram == null) {
+                final RequestLatencyHistogram newHistogram = new RequestLatencyHistogram(key);
+                histogram = histograms.putIfAbsent(key, newHistogram);
+                if (histogram == null) {
+                    histogram = newHistogram;
+                }
+            }
+        }
+        return histogram;
+    }
+}
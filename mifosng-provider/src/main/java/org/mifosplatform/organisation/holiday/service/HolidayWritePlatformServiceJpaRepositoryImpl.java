@@ -34,6 +34,7 @@ import org.mifosplatform.organisation.workingdays.service.WorkingDaysUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -70,6 +71,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult createHoliday(final JsonCommand command) {
 
         try {
@@ -93,6 +95,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult updateHoliday(final JsonCommand command) {
 
         try {
@@ -123,6 +126,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult activateHoliday(final Long holidayId) {
         this.context.authenticatedUser();
         final Holiday holiday = this.holidayRepository.findOneWithNotFoundDetection(holidayId);
@@ -134,6 +138,7 @@ public class HolidayWritePlatformServiceJpaRepositoryImpl implements HolidayWrit
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult deleteHoliday(final Long holidayId) {
         this.context.authenticatedUser();
         final Holiday holiday = this.holidayRepository.findOneWithNotFoundDetection(holidayId);
@@ -67,9 +67,9 @@ public class Money implements Comparable<Money> {
         this.currencyDigitsAfterDecimal = digitsAfterDecimal;
         this.inMultiplesOf = inMultiplesOf;
 
-        final BigDecimal amountZeroed = defaultToZeroIfNull(amount);
-        final BigDecimal amountStripped = amountZeroed.stripTrailingZeros();
-        BigDecimal amountScaled = amountStripped;
+        // setScale only depends on the value of the amount, so there is no
+        // need to strip its trailing zeros first
+        BigDecimal amountScaled = defaultToZeroIfNull(amount);
 
         // round monetary amounts into multiplesof say 20/50.
         if (inMultiplesOf != null && this.currencyDigitsAfterDecimal == 0 && inMultiplesOf > 0 && amountScaled.doubleValue() > 0) {
@@ -128,7 +128,7 @@ public class Money implements Comparable<Money> {
     }
 
     public Money copy() {
-        return new Money(this.currencyCode, this.currencyDigitsAfterDecimal, this.amount.stripTrailingZeros(), this.inMultiplesOf);
+        return withAmount(this.amount);
     }
 
     public Money plus(final Iterable<? extends Money> moniesToAdd) {
@@ -137,7 +137,7 @@ public class Money implements Comparable<Money> {
             final Money money = checkCurrencyEqual(moneyProvider);
             total = total.add(money.amount);
         }
-        return Money.of(monetaryCurrency(), total);
+        return withAmount(total);
     }
 
     public Money plus(final Money moneyToAdd) {
@@ -148,13 +148,13 @@ public class Money implements Comparable<Money> {
     public Money plus(final BigDecimal amountToAdd) {
         if (amountToAdd == null || amountToAdd.compareTo(BigDecimal.ZERO) == 0) { return this; }
         final BigDecimal newAmount = this.amount.add(amountToAdd);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money plus(final double amountToAdd) {
         if (amountToAdd == 0) { return this; }
         final BigDecimal newAmount = this.amount.add(BigDecimal.valueOf(amountToAdd));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money minus(final Money moneyToSubtract) {
@@ -165,7 +165,7 @@ public class Money implements Comparable<Money> {
     public Money minus(final BigDecimal amountToSubtract) {
         if (amountToSubtract == null || amountToSubtract.compareTo(BigDecimal.ZERO) == 0) { return this; }
         final BigDecimal newAmount = this.amount.subtract(amountToSubtract);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     private Money checkCurrencyEqual(final Money money) {
@@ -180,44 +180,44 @@ public class Money implements Comparable<Money> {
     public Money dividedBy(final BigDecimal valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         final BigDecimal newAmount = this.amount.divide(valueToDivideBy, roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money dividedBy(final double valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.divide(BigDecimal.valueOf(valueToDivideBy), roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money dividedBy(final long valueToDivideBy, final RoundingMode roundingMode) {
         if (valueToDivideBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.divide(BigDecimal.valueOf(valueToDivideBy), roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final BigDecimal valueToMultiplyBy) {
         if (valueToMultiplyBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         final BigDecimal newAmount = this.amount.multiply(valueToMultiplyBy);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final double valueToMultiplyBy) {
         if (valueToMultiplyBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.multiply(BigDecimal.valueOf(valueToMultiplyBy));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multipliedBy(final long valueToMultiplyBy) {
         if (valueToMultiplyBy == 1) { return this; }
         final BigDecimal newAmount = this.amount.multiply(BigDecimal.valueOf(valueToMultiplyBy));
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multiplyRetainScale(final BigDecimal valueToMultiplyBy, final RoundingMode roundingMode) {
         if (valueToMultiplyBy.compareTo(BigDecimal.ONE) == 0) { return this; }
         BigDecimal newAmount = this.amount.multiply(valueToMultiplyBy);
         newAmount = newAmount.setScale(this.currencyDigitsAfterDecimal, roundingMode);
-        return Money.of(monetaryCurrency(), newAmount);
+        return withAmount(newAmount);
     }
 
     public Money multiplyRetainScale(final double valueToMultiplyBy, final RoundingMode roundingMode) {
@@ -233,7 +233,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isZero() {
-        return isEqualTo(Money.zero(getCurrency()));
+        return this.amount.signum() == 0;
     }
 
     public boolean isEqualTo(final Money other) {
@@ -253,7 +253,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isGreaterThanZero() {
-        return isGreaterThan(Money.zero(getCurrency()));
+        return this.amount.signum() > 0;
     }
 
     public boolean isLessThan(final Money other) {
@@ -261,7 +261,7 @@ public class Money implements Comparable<Money> {
     }
 
     public boolean isLessThanZero() {
-        return isLessThan(Money.zero(getCurrency()));
+        return this.amount.signum() < 0;
     }
 
     public String getCurrencyCode() {
@@ -299,7 +299,7 @@ public class Money implements Comparable<Money> {
 
     public Money negated() {
         if (isZero()) { return this; }
-        return Money.of(monetaryCurrency(), this.amount.negate());
+        return withAmount(this.amount.negate());
     }
 
     public Money abs() {
@@ -314,7 +314,15 @@ public class Money implements Comparable<Money> {
         return new MonetaryCurrency(this.currencyCode, this.currencyDigitsAfterDecimal, this.inMultiplesOf);
     }
 
+    /**
+     * Same as <code>Money.of(getCurrency(), newAmount)</code>, without creating
+     * a {@link MonetaryCurrency} for every result of the arithmetic methods.
+     */
+    private Money withAmount(final BigDecimal newAmount) {
+        return new Money(this.currencyCode, this.currencyDigitsAfterDecimal, newAmount, this.inMultiplesOf);
+    }
+
     public Money zero() {
-        return Money.zero(getCurrency());
+        return withAmount(BigDecimal.ZERO);
     }
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ import org.mifosplatform.organisation.workingdays.data.WorkingDayValidator;
 import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
 import org.mifosplatform.organisation.workingdays.domain.WorkingDaysRepositoryWrapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -52,6 +53,7 @@ public class WorkingDaysWritePlatformServiceJpaRepositoryImpl implements Working
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult updateWorkingDays(JsonCommand command) {
         String recurrence = "";
         RRule rrule = null;
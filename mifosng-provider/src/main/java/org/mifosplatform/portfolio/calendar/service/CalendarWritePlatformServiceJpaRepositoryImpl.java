@@ -43,6 +43,7 @@ import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanStatus;
 import org.mifosplatform.portfolio.loanaccount.service.LoanWritePlatformService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -154,6 +155,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
     }
 
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult updateCalendar(final JsonCommand command) {
 
         /*
@@ -265,6 +267,7 @@ public class CalendarWritePlatformServiceJpaRepositoryImpl implements CalendarWr
     }
 
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult deleteCalendar(final Long calendarId) {
         final Calendar calendarForDelete = this.calendarRepository.findOne(calendarId);
         if (calendarForDelete == null) { throw new CalendarNotFoundException(calendarId); }
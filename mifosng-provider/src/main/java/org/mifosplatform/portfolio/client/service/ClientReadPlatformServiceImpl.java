@@ -120,7 +120,7 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         // }
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
-        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
+        sqlBuilder.append(PaginationHelper.selectSql(searchParameters.isTotalCountRequested()));
         sqlBuilder.append(this.clientMapper.schema());
         sqlBuilder.append(" where (o.hierarchy like ? or transferToOffice.hierarchy like ?) ");
 
@@ -130,6 +130,14 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
             sqlBuilder.append(" and (").append(extraCriteria).append(")");
         }
 
+        final List<Object> paramList = new ArrayList<>();
+        paramList.add(underHierarchySearchString);
+        paramList.add(underHierarchySearchString);
+        if (searchParameters.isPageTokenPassed()) {
+            sqlBuilder.append(" and ").append(searchParameters.pageTokenSql("c.id"));
+            paramList.add(searchParameters.getPageTokenLastId());
+        }
+
         if (searchParameters.isOrderByRequested()) {
             sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
 
@@ -146,8 +154,8 @@ public class ClientReadPlatformServiceImpl implements ClientReadPlatformService
         }
 
         final String sqlCountRows = "SELECT FOUND_ROWS()";
-        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), new Object[] {
-                underHierarchySearchString, underHierarchySearchString }, this.clientMapper);
+        return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), paramList.toArray(),
+                this.clientMapper, searchParameters.isTotalCountRequested(), searchParameters.getPageTokenLimit());
     }
 
     private String buildSqlStringFromClientCriteria(final SearchParameters searchParameters) {
@@ -38,6 +38,7 @@ import javax.persistence.Version;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
 import org.joda.time.LocalDate;
@@ -121,6 +122,12 @@ import com.google.gson.JsonPrimitive;
         @UniqueConstraint(columnNames = { "external_id" }, name = "loan_externalid_UNIQUE") })
 public class Loan extends AbstractPersistable<Long> {
 
+    /**
+     * Number of loans whose collections are loaded together, when many loans
+     * are loaded at once (e.g. for the repayments of a collection sheet).
+     */
+    static final int BATCH_SIZE = 50;
+
     /** Disable optimistic locking till batch jobs failures can be fixed **/
     @Version
     int version;
@@ -274,20 +281,24 @@ public class Loan extends AbstractPersistable<Long> {
     private Integer loanProductCounter;
 
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanCharge> charges = new HashSet<>();
 
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanCollateral> collateral = null;
 
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanOfficerAssignmentHistory> loanOfficerHistory;
 
     // see
     // http://stackoverflow.com/questions/4334970/hibernate-cannot-simultaneously-fetch-multiple-bags
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private final List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments = new ArrayList<>();
 
@@ -295,6 +306,7 @@ public class Loan extends AbstractPersistable<Long> {
     // http://stackoverflow.com/questions/4334970/hibernate-cannot-simultaneously-fetch-multiple-bags
     @OrderBy(value = "dateOf, id")
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private final List<LoanTransaction> loanTransactions = new ArrayList<>();
 
@@ -324,11 +336,13 @@ public class Loan extends AbstractPersistable<Long> {
     private BigDecimal maxOutstandingLoanBalance;
 
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private Set<LoanDisbursementDetails> disbursementDetails = new HashSet<>();
 
     @OrderBy(value = "termApplicableFrom, id")
     @LazyCollection(LazyCollectionOption.FALSE)
+    @BatchSize(size = Loan.BATCH_SIZE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "loan", orphanRemoval = true)
     private final Set<LoanTermVariations> loanTermVariations = new HashSet<>();
 
@@ -2784,10 +2798,12 @@ public class Loan extends AbstractPersistable<Long> {
             reprocess = false;
         }
 
-        if (isTransactionChronologicallyLatest && adjustedTransaction == null
-                && (!reprocess || !this.repaymentScheduleDetail().isInterestRecalculationEnabled())) {
-            loanRepaymentScheduleTransactionProcessor.handleTransaction(loanTransaction, getCurrency(), this.repaymentScheduleInstallments,
-                    charges());
+        // without interest recalculation, a transaction which is not
+        // backdated is applied forward from the current installments
+        if (adjustedTransaction == null
+                && (!reprocess || !this.repaymentScheduleDetail().isInterestRecalculationEnabled())
+                && loanRepaymentScheduleTransactionProcessor.handleTransactionIncrementally(loanTransaction, this.loanTransactions,
+                        getCurrency(), this.repaymentScheduleInstallments, charges())) {
             reprocess = false;
             if (this.repaymentScheduleDetail().isInterestRecalculationEnabled()) {
                 if (currentInstallment == null || currentInstallment.isNotFullyPaidOff()) {
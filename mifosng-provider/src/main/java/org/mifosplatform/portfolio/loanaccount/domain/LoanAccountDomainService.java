@@ -19,6 +19,16 @@ public interface LoanAccountDomainService {
             BigDecimal transactionAmount, PaymentDetail paymentDetail, String noteText, String txnExternalId,
             final boolean isRecoveryRepayment, boolean isAccountTransfer);
 
+    /**
+     * Makes the repayment as {@link #makeRepayment} does, but leaves the
+     * changes to the loan to be flushed together with the changes to the other
+     * loans, when the repayments of many loans are made in one transaction.
+     * Loans whose accruals are recalculated are still flushed before the
+     * accruals are written.
+     */
+    LoanTransaction makeRepaymentWithoutFlush(Loan loan, CommandProcessingResultBuilder builderResult, LocalDate transactionDate,
+            BigDecimal transactionAmount, PaymentDetail paymentDetail, String noteText, String txnExternalId);
+
     LoanTransaction makeRefund(Long accountId, CommandProcessingResultBuilder builderResult, LocalDate transactionDate,
             BigDecimal transactionAmount, PaymentDetail paymentDetail, String noteText, String txnExternalId);
 
@@ -24,6 +24,7 @@ import org.mifosplatform.portfolio.loanaccount.domain.LoanInstallmentCharge;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleProcessingWrapper;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionComparator;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
 import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
 import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
@@ -40,6 +41,14 @@ import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.
  */
 public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implements LoanRepaymentScheduleTransactionProcessor {
 
+    private static final Comparator<LoanRepaymentScheduleInstallment> INSTALLMENTS_BY_DUE_DATE = new Comparator<LoanRepaymentScheduleInstallment>() {
+
+        @Override
+        public int compare(LoanRepaymentScheduleInstallment ord1, LoanRepaymentScheduleInstallment ord2) {
+            return ord1.getDueDate().compareTo(ord2.getDueDate());
+        }
+    };
+
     /**
      * Provides support for passing all {@link LoanTransaction}'s so it will
      * completely re-process the entire loan schedule. This is required in cases
@@ -138,14 +147,7 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
         for (final LoanTransaction loanTransaction : transactionstoBeProcessed) {
 
             if (!loanTransaction.getTypeOf().equals(LoanTransactionType.REFUND_FOR_ACTIVE_LOAN)) {
-                final Comparator<LoanRepaymentScheduleInstallment> byDate = new Comparator<LoanRepaymentScheduleInstallment>() {
-
-                    @Override
-                    public int compare(LoanRepaymentScheduleInstallment ord1, LoanRepaymentScheduleInstallment ord2) {
-                        return ord1.getDueDate().compareTo(ord2.getDueDate());
-                    }
-                };
-                Collections.sort(installments, byDate);
+                Collections.sort(installments, INSTALLMENTS_BY_DUE_DATE);
             }
 
             if (loanTransaction.isRepayment() || loanTransaction.isInterestWaiver() || loanTransaction.isRecoveryRepayment()) {
@@ -479,6 +481,42 @@ public abstract class AbstractLoanRepaymentScheduleTransactionProcessor implemen
         return unProcessed;
     }
 
+    /**
+     * Re-processing sorts the transactions with a stable sort of the loan's
+     * transactions (to which a new transaction is appended) by
+     * {@link LoanTransactionComparator}, so the new transaction is processed
+     * last when no other transaction affecting the installments sorts after
+     * it: transactions on the same date as the new one (e.g. several
+     * collections on one day) and transactions the installments do not
+     * depend on (e.g. accruals) do not force re-processing.
+     */
+    @Override
+    public boolean handleTransactionIncrementally(final LoanTransaction newTransaction, final List<LoanTransaction> loanTransactions,
+            final MonetaryCurrency currency, final List<LoanRepaymentScheduleInstallment> installments, final Set<LoanCharge> charges) {
+
+        if (!newTransaction.isRepayment() && !newTransaction.isInterestWaiver() && !newTransaction.isRecoveryRepayment()) { return false; }
+
+        final LoanTransactionComparator transactionComparator = new LoanTransactionComparator();
+        for (final LoanTransaction loanTransaction : loanTransactions) {
+            if (loanTransaction != newTransaction && isProcessedOverInstallments(loanTransaction)
+                    && transactionComparator.compare(loanTransaction, newTransaction) > 0) { return false; }
+        }
+
+        Collections.sort(installments, INSTALLMENTS_BY_DUE_DATE);
+        handleTransaction(newTransaction, currency, installments, charges);
+        newTransaction.adjustInterestComponent(currency);
+        return true;
+    }
+
+    /**
+     * @return whether re-processing applies the transaction to the
+     *         installments.
+     */
+    private static boolean isProcessedOverInstallments(final LoanTransaction loanTransaction) {
+        return loanTransaction.isChargePayment() || loanTransaction.isRepayment() || loanTransaction.isInterestWaiver()
+                || loanTransaction.isRecoveryRepayment() || loanTransaction.isWriteOff() || loanTransaction.isRefundForActiveLoan();
+    }
+
     @Override
     public boolean isInterestFirstRepaymentScheduleTransactionProcessor() {
         return false;
@@ -24,6 +24,21 @@ public interface LoanRepaymentScheduleTransactionProcessor {
     ChangedTransactionDetail handleTransaction(LocalDate disbursementDate, List<LoanTransaction> repaymentsOrWaivers,
             MonetaryCurrency currency, List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments, Set<LoanCharge> charges);
 
+    /**
+     * Applies a new repayment, recovery repayment or interest waiver forward
+     * from the current state of the installments, which must be the result of
+     * processing all other transactions of the loan.
+     * 
+     * This is only done when re-processing all transactions would process the
+     * new transaction last, in which case both give identical results.
+     * 
+     * @return <code>false</code> without having changed anything when the
+     *         new transaction is backdated, i.e. when all transactions have to
+     *         be re-processed.
+     */
+    boolean handleTransactionIncrementally(LoanTransaction newTransaction, List<LoanTransaction> loanTransactions,
+            MonetaryCurrency currency, List<LoanRepaymentScheduleInstallment> installments, Set<LoanCharge> charges);
+
     void handleWriteOff(LoanTransaction loanTransaction, MonetaryCurrency loanCurrency,
             List<LoanRepaymentScheduleInstallment> repaymentScheduleInstallments);
 
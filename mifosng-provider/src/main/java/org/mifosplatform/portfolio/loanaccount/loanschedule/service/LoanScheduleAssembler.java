@@ -76,6 +76,7 @@ import org.mifosplatform.portfolio.loanproduct.domain.RecalculationFrequencyType
 import org.mifosplatform.portfolio.loanproduct.exception.LoanProductNotFoundException;
 import org.mifosplatform.portfolio.loanproduct.service.LoanEnumerations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import com.google.gson.JsonArray;
@@ -437,6 +438,17 @@ public class LoanScheduleAssembler {
         return assembleLoanScheduleFrom(loanApplicationTerms, isHolidayEnabled, holidays, workingDays, element);
     }
 
+    /**
+     * Same as {@link #assembleLoanScheduleFrom(JsonElement)}, cached by tenant
+     * and <code>previewKey</code>, which must identify the application and
+     * the date of the preview. Cached schedules are only ever read, they must
+     * not be used to create or update a loan.
+     */
+    @Cacheable(value = "loanSchedulePreviews", key = "T(org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil).getTenant().getTenantIdentifier().concat(#p0)")
+    public LoanScheduleModel assembleLoanSchedulePreviewFrom(final String previewKey, final JsonElement element) {
+        return assembleLoanScheduleFrom(element);
+    }
+
     public LoanScheduleModel assembleLoanScheduleFrom(final LoanApplicationTerms loanApplicationTerms, final boolean isHolidayEnabled,
             final List<Holiday> holidays, final WorkingDays workingDays, final JsonElement element) {
 
@@ -13,5 +13,14 @@ public interface LoanScheduleCalculationPlatformService {
 
     LoanScheduleModel calculateLoanSchedule(JsonQuery query, Boolean validateParams);
 
+    /**
+     * Same as {@link #calculateLoanSchedule(JsonQuery, Boolean)} with
+     * validation, for schedules which are only shown to the user (the
+     * calculateLoanSchedule command): the schedule is taken from the
+     * loanSchedulePreviews cache when the same application was previewed
+     * before on the same day.
+     */
+    LoanScheduleModel previewLoanSchedule(JsonQuery query);
+
     void updateFutureSchedule(LoanScheduleData loanScheduleData, Long loanId);
 }
@@ -9,6 +9,8 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
@@ -47,6 +49,9 @@ import org.mifosplatform.portfolio.loanproduct.serialization.LoanProductDataVali
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonPrimitive;
+
 @Service
 public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleCalculationPlatformService {
 
@@ -91,6 +96,24 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
     @Override
     public LoanScheduleModel calculateLoanSchedule(final JsonQuery query, Boolean validateParams) {
 
+        validateQuery(query, validateParams);
+
+        return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+    }
+
+    @Override
+    public LoanScheduleModel previewLoanSchedule(final JsonQuery query) {
+
+        validateQuery(query, true);
+
+        // schedule generation depends on the business date (e.g. for
+        // interest recalculation)
+        final String previewKey = DateUtils.getLocalDateOfTenant().toString() + canonicalForm(query.parsedJson());
+        return this.loanScheduleAssembler.assembleLoanSchedulePreviewFrom(previewKey, query.parsedJson());
+    }
+
+    private void validateQuery(final JsonQuery query, final Boolean validateParams) {
+
         /***
          * TODO: Vishwas, this is probably not required, test and remove the
          * same
@@ -123,8 +146,39 @@ public class LoanScheduleCalculationPlatformServiceImpl implements LoanScheduleC
             this.loanProductCommandFromApiJsonDeserializer.validateMinMaxConstraints(query.parsedJson(), baseDataValidator, loanProduct);
         }
         if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException(dataValidationErrors); }
+    }
 
-        return this.loanScheduleAssembler.assembleLoanScheduleFrom(query.parsedJson());
+    /**
+     * The JSON of <code>element</code> with the members of all objects in
+     * name order, so that the same application gives the same preview key
+     * whatever the order the client sends its parameters in.
+     */
+    static String canonicalForm(final JsonElement element) {
+        if (element.isJsonObject()) {
+            final Map<String, String> members = new TreeMap<>();
+            for (final Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+                members.put(member.getKey(), canonicalForm(member.getValue()));
+            }
+            final StringBuilder canonical = new StringBuilder("{");
+            for (final Map.Entry<String, String> member : members.entrySet()) {
+                if (canonical.length() > 1) {
+                    canonical.append(',');
+                }
+                canonical.append(new JsonPrimitive(member.getKey())).append(':').append(member.getValue());
+            }
+            return canonical.append('}').toString();
+        }
+        if (element.isJsonArray()) {
+            final StringBuilder canonical = new StringBuilder("[");
+            for (final JsonElement item : element.getAsJsonArray()) {
+                if (canonical.length() > 1) {
+                    canonical.append(',');
+                }
+                canonical.append(canonicalForm(item));
+            }
+            return canonical.append(']').toString();
+        }
+        return element.toString();
     }
 
     @Override
@@ -7,23 +7,37 @@ package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.sql.DataSource;
 
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
 import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
 import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
@@ -36,16 +50,35 @@ import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
 import org.mifosplatform.portfolio.loanaccount.loanschedule.data.LoanSchedulePeriodData;
 import org.mifosplatform.portfolio.loanproduct.service.LoanEnumerations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.TransactionStatus;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlatformService {
 
+    /**
+     * Number of loans whose charges and waivers are fetched together and whose
+     * accruals are written in one transaction.
+     */
+    public final static String LOANS_PER_PAGE = "mifos.accruals.loansPerPage";
+    @Value("${" + LOANS_PER_PAGE + ":200}")
+    private int loansPerPage = 200;
+
+    /**
+     * Number of pages of loans whose accruals are added in parallel.
+     */
+    public final static String WORKER_THREADS = "mifos.accruals.threads";
+    @Value("${" + WORKER_THREADS + ":4}")
+    private int workerThreads = 4;
+
     private final LoanReadPlatformService loanReadPlatformService;
     private final LoanChargeReadPlatformService loanChargeReadPlatformService;
     private final JdbcTemplate jdbcTemplate;
@@ -69,29 +102,159 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
     @CronTarget(jobName = JobName.ADD_ACCRUAL_ENTRIES)
     public void addAccrualAccounting() throws JobExecutionException {
         Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retriveScheduleAccrualData();
+        String errors = addAccruals(loanScheduleAccrualDatas, null);
+        if (errors.length() > 0) { throw new JobExecutionException(errors); }
+    }
+
+    @Override
+    @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
+    public void addPeriodicAccruals() throws JobExecutionException {
+        String errors = addPeriodicAccruals(LocalDate.now());
+        if (errors.length() > 0) { throw new JobExecutionException(errors); }
+    }
+
+    @Override
+    public String addPeriodicAccruals(final LocalDate tilldate) {
+        Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retrivePeriodicAccrualData(tilldate);
+        return addPeriodicAccruals(tilldate, loanScheduleAccrualDatas);
+    }
+
+    @Override
+    public String addPeriodicAccruals(final LocalDate tilldate, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        return addAccruals(loanScheduleAccrualDatas, tilldate);
+    }
+
+    /**
+     * Adds the accruals in pages of {@link #LOANS_PER_PAGE} loans: charges and
+     * waivers of a page are fetched with one query each, accruals are computed
+     * in memory and written with batched statements in one transaction.
+     *
+     * Pages are processed in parallel on {@link #WORKER_THREADS} threads,
+     * unless the caller already runs in a transaction which all pages then
+     * join.
+     *
+     * @param tilldate
+     *            date to add periodic accruals till, or <code>null</code> to
+     *            accrue installments up to their due date
+     * @return error details of the loans whose accruals could not be added
+     */
+    private String addAccruals(final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas, final LocalDate tilldate) {
+        final List<List<LoanScheduleAccrualData>> pages = splitIntoPagesOfLoans(loanScheduleAccrualDatas);
+        final StringBuilder sb = new StringBuilder();
+
+        final int threads = Math.min(this.workerThreads, pages.size());
+        if (threads <= 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+            for (final List<LoanScheduleAccrualData> page : pages) {
+                sb.append(addAccrualsForPage(page, tilldate));
+            }
+            return sb.toString();
+        }
+
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<String>> results = new ArrayList<>(pages.size());
+            for (final List<LoanScheduleAccrualData> page : pages) {
+                results.add(workers.submit(new Callable<String>() {
+
+                    @Override
+                    public String call() {
+                        ThreadLocalContextUtil.setTenant(tenant);
+                        try {
+                            return addAccrualsForPage(page, tilldate);
+                        } finally {
+                            ThreadLocalContextUtil.clearTenant();
+                        }
+                    }
+                }));
+            }
+            for (final Future<String> result : results) {
+                try {
+                    sb.append(result.get());
+                } catch (final ExecutionException e) {
+                    sb.append("failed to add accruals with message " + e.getCause().getMessage());
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sb.append("adding accruals was interrupted");
+        } finally {
+            workers.shutdownNow();
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits accrual details, which are ordered by loan, into pages which
+     * never share a loan.
+     */
+    private List<List<LoanScheduleAccrualData>> splitIntoPagesOfLoans(final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
+        final int pageSize = Math.max(this.loansPerPage, 1);
+        final List<List<LoanScheduleAccrualData>> pages = new ArrayList<>();
+        List<LoanScheduleAccrualData> page = null;
+        int loansInPage = 0;
+        Long lastLoanId = null;
+        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
+            if (lastLoanId == null || !lastLoanId.equals(accrualData.getLoanId())) {
+                if (page == null || loansInPage == pageSize) {
+                    page = new ArrayList<>();
+                    pages.add(page);
+                    loansInPage = 0;
+                }
+                loansInPage++;
+                lastLoanId = accrualData.getLoanId();
+            }
+            page.add(accrualData);
+        }
+        return pages;
+    }
+
+    private String addAccrualsForPage(final List<LoanScheduleAccrualData> loanScheduleAccrualDatas, final LocalDate tilldate) {
         StringBuilder sb = new StringBuilder();
+        final Set<Long> loanIds = new LinkedHashSet<>();
+        final Set<Long> loanIdsWithWaivedInterest = new HashSet<>();
+        for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
+            loanIds.add(accrualData.getLoanId());
+            if (accrualData.getWaivedInterestIncome() != null) {
+                loanIdsWithWaivedInterest.add(accrualData.getLoanId());
+            }
+        }
+
+        final Map<Long, Collection<LoanChargeData>> loanChargeMap;
+        final Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions;
+        final Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules;
+        try {
+            loanChargeMap = this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(loanIds);
+            loanWaiverTansactions = this.loanReadPlatformService.retrieveWaiverLoanTransactions(loanIdsWithWaivedInterest);
+            loanWaiverSchedules = this.loanReadPlatformService.fetchWaiverInterestRepaymentData(loanIdsWithWaivedInterest);
+        } catch (Exception e) {
+            return "failed to retrieve accrual details for loans with ids " + loanIds + " with message " + e.getMessage();
+        }
+
+        final List<LoanAccrualPosting> postings = new ArrayList<>();
+        if (tilldate == null) {
+            addAccrualPostings(loanScheduleAccrualDatas, loanChargeMap, loanWaiverTansactions, loanWaiverSchedules, postings, sb);
+        } else {
+            addPeriodicAccrualPostings(tilldate, loanScheduleAccrualDatas, loanChargeMap, loanWaiverTansactions, loanWaiverSchedules,
+                    postings, sb);
+        }
+        writeAccrualPostings(postings, sb);
+        return sb.toString();
+    }
+
+    private void addAccrualPostings(final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas,
+            final Map<Long, Collection<LoanChargeData>> loanChargeMap,
+            final Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions,
+            final Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules, final List<LoanAccrualPosting> postings,
+            final StringBuilder sb) {
         Set<Long> loansIds = new HashSet<>();
-        Map<Long, Collection<LoanChargeData>> loanChargeMap = new HashMap<>();
-        Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions = new HashMap<>();
-        Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules = new HashMap<>();
         for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
             try {
                 if (!loansIds.contains(accrualData.getLoanId())) {
-                    if (!loanChargeMap.containsKey(accrualData.getLoanId())) {
-                        Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService
-                                .retrieveLoanChargesForAccural(accrualData.getLoanId());
-                        loanChargeMap.put(accrualData.getLoanId(), chargeData);
-                    }
-                    if (accrualData.getWaivedInterestIncome() != null && !loanWaiverTansactions.containsKey(accrualData.getLoanId())) {
-                        loanWaiverSchedules.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.fetchWaiverInterestRepaymentData(accrualData.getLoanId()));
-                        loanWaiverTansactions.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.retrieveWaiverLoanTransactions(accrualData.getLoanId()));
-                    }
                     updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
                             accrualData.getDueDateAsLocaldate());
                     updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, accrualData.getDueDateAsLocaldate());
-                    addAccrualAccounting(accrualData);
+                    addAccrualAccounting(accrualData, postings);
                 }
             } catch (Exception e) {
                 loansIds.add(accrualData.getLoanId());
@@ -103,47 +266,19 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                         + " with message " + realCause.getMessage());
             }
         }
-
-        if (sb.length() > 0) { throw new JobExecutionException(sb.toString()); }
     }
 
-    @Override
-    @CronTarget(jobName = JobName.ADD_PERIODIC_ACCRUAL_ENTRIES)
-    public void addPeriodicAccruals() throws JobExecutionException {
-        String errors = addPeriodicAccruals(LocalDate.now());
-        if (errors.length() > 0) { throw new JobExecutionException(errors); }
-    }
-
-    @Override
-    public String addPeriodicAccruals(final LocalDate tilldate) {
-        Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas = this.loanReadPlatformService.retrivePeriodicAccrualData(tilldate);
-        return addPeriodicAccruals(tilldate, loanScheduleAccrualDatas);
-    }
-
-    @Override
-    public String addPeriodicAccruals(final LocalDate tilldate, Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas) {
-        StringBuilder sb = new StringBuilder();
+    private void addPeriodicAccrualPostings(final LocalDate tilldate, final Collection<LoanScheduleAccrualData> loanScheduleAccrualDatas,
+            final Map<Long, Collection<LoanChargeData>> loanChargeMap,
+            final Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions,
+            final Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules, final List<LoanAccrualPosting> postings,
+            final StringBuilder sb) {
         Set<Long> loansIds = new HashSet<>();
         LocalDate accruredTill = null;
         Long lastLoanId = null;
-        Map<Long, Collection<LoanChargeData>> loanChargeMap = new HashMap<>();
-        Map<Long, Collection<LoanTransactionData>> loanWaiverTansactions = new HashMap<>();
-        Map<Long, Collection<LoanSchedulePeriodData>> loanWaiverSchedules = new HashMap<>();
         for (final LoanScheduleAccrualData accrualData : loanScheduleAccrualDatas) {
             try {
                 if (!loansIds.contains(accrualData.getLoanId())) {
-                    if (accrualData.getWaivedInterestIncome() != null && !loanWaiverTansactions.containsKey(accrualData.getLoanId())) {
-                        loanWaiverSchedules.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.fetchWaiverInterestRepaymentData(accrualData.getLoanId()));
-                        loanWaiverTansactions.put(accrualData.getLoanId(),
-                                this.loanReadPlatformService.retrieveWaiverLoanTransactions(accrualData.getLoanId()));
-                    }
-
-                    if (!loanChargeMap.containsKey(accrualData.getLoanId())) {
-                        Collection<LoanChargeData> chargeData = this.loanChargeReadPlatformService
-                                .retrieveLoanChargesForAccural(accrualData.getLoanId());
-                        loanChargeMap.put(accrualData.getLoanId(), chargeData);
-                    }
                     if (accrualData.getDueDateAsLocaldate().isAfter(tilldate)) {
                         if (accruredTill == null || lastLoanId == null || !lastLoanId.equals(accrualData.getLoanId())) {
                             accruredTill = accrualData.getAccruedTill();
@@ -152,13 +287,13 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
                             updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
                                     tilldate);
                             updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, tilldate);
-                            addAccrualTillSpecificDate(tilldate, accrualData);
+                            addAccrualTillSpecificDate(tilldate, accrualData, postings);
                         }
                     } else {
                         updateCharges(loanChargeMap.get(accrualData.getLoanId()), accrualData, accrualData.getFromDateAsLocaldate(),
                                 accrualData.getDueDateAsLocaldate());
                         updateInterestIncome(accrualData, loanWaiverTansactions, loanWaiverSchedules, tilldate);
-                        addAccrualAccounting(accrualData);
+                        addAccrualAccounting(accrualData, postings);
                         accruredTill = accrualData.getDueDateAsLocaldate();
                     }
                 }
@@ -173,10 +308,10 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
             lastLoanId = accrualData.getLoanId();
         }
-        return sb.toString();
     }
 
-    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData) throws Exception {
+    private void addAccrualTillSpecificDate(final LocalDate tilldate, final LoanScheduleAccrualData accrualData,
+            final List<LoanAccrualPosting> postings) {
         LocalDate interestStartDate = accrualData.getFromDateAsLocaldate();
         if (accrualData.getInterestCalculatedFrom() != null
                 && accrualData.getFromDateAsLocaldate().isBefore(accrualData.getInterestCalculatedFrom())) {
@@ -249,13 +384,12 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
         }
         if (amount.compareTo(BigDecimal.ZERO) == 1) {
-            addAccrualAccounting(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, tilldate);
+            postings.add(new LoanAccrualPosting(accrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee,
+                    penaltyportion, totalAccPenalty, tilldate));
         }
     }
 
-    @Transactional
-    public void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData) throws Exception {
+    private void addAccrualAccounting(final LoanScheduleAccrualData scheduleAccrualData, final List<LoanAccrualPosting> postings) {
 
         BigDecimal amount = BigDecimal.ZERO;
         BigDecimal interestportion = null;
@@ -300,53 +434,152 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
             }
         }
         if (amount.compareTo(BigDecimal.ZERO) == 1) {
-            addAccrualAccounting(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee, penaltyportion,
-                    totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate());
+            postings.add(new LoanAccrualPosting(scheduleAccrualData, amount, interestportion, totalAccInterest, feeportion, totalAccFee,
+                    penaltyportion, totalAccPenalty, scheduleAccrualData.getDueDateAsLocaldate()));
+        }
+    }
+
+    /**
+     * Writes the accruals of a page in one transaction. When that fails the
+     * loans are written one transaction each, to add the accruals of all loans
+     * but the failing ones.
+     */
+    private void writeAccrualPostings(final List<LoanAccrualPosting> postings, final StringBuilder sb) {
+        if (postings.isEmpty()) { return; }
+        try {
+            writeAccrualPostingsInTransaction(postings);
+        } catch (Exception e) {
+            for (final List<LoanAccrualPosting> loanPostings : groupByLoan(postings)) {
+                try {
+                    writeAccrualPostingsInTransaction(loanPostings);
+                } catch (Exception loanException) {
+                    Throwable realCause = loanException;
+                    if (loanException.getCause() != null) {
+                        realCause = loanException.getCause();
+                    }
+                    sb.append("failed to add accural transaction for repayment with id "
+                            + loanPostings.get(0).accrualData.getRepaymentScheduleId() + " with message " + realCause.getMessage());
+                }
+            }
         }
     }
 
-    private void addAccrualAccounting(LoanScheduleAccrualData scheduleAccrualData, BigDecimal amount, BigDecimal interestportion,
-            BigDecimal totalAccInterest, BigDecimal feeportion, BigDecimal totalAccFee, BigDecimal penaltyportion,
-            BigDecimal totalAccPenalty, final LocalDate accruedTill) throws Exception {
+    private void writeAccrualPostingsInTransaction(final List<LoanAccrualPosting> postings) {
         TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
         try {
-            String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
-                    + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
-            this.jdbcTemplate.update(transactionSql, scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
-                    LoanTransactionType.ACCRUAL.getValue(), accruedTill.toDate(), amount, interestportion, feeportion, penaltyportion,
-                    DateUtils.getDateOfTenant());
-            @SuppressWarnings("deprecation")
-            final Long transactonId = this.jdbcTemplate.queryForLong("SELECT LAST_INSERT_ID()");
-
-            Map<LoanChargeData, BigDecimal> applicableCharges = scheduleAccrualData.getApplicableCharges();
-            String chargespaidSql = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
-            for (Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges.entrySet()) {
-                LoanChargeData chargeData = entry.getKey();
-                this.jdbcTemplate.update(chargespaidSql, transactonId, chargeData.getId(), entry.getValue(),
-                        scheduleAccrualData.getInstallmentNumber());
+            insertAccrualTransactions(postings);
+
+            final List<Object[]> chargesPaidBy = new ArrayList<>();
+            final List<Object[]> repaymentScheduleUpdates = new ArrayList<>(postings.size());
+            final List<Object[]> loanUpdates = new ArrayList<>(postings.size());
+            for (final LoanAccrualPosting posting : postings) {
+                final LoanScheduleAccrualData scheduleAccrualData = posting.accrualData;
+                Map<LoanChargeData, BigDecimal> applicableCharges = scheduleAccrualData.getApplicableCharges();
+                for (Map.Entry<LoanChargeData, BigDecimal> entry : applicableCharges.entrySet()) {
+                    LoanChargeData chargeData = entry.getKey();
+                    chargesPaidBy.add(new Object[] { posting.transactionId, chargeData.getId(), entry.getValue(),
+                            scheduleAccrualData.getInstallmentNumber() });
+                }
+                repaymentScheduleUpdates.add(new Object[] { posting.totalAccInterest, posting.totalAccFee, posting.totalAccPenalty,
+                        scheduleAccrualData.getRepaymentScheduleId() });
+                loanUpdates.add(new Object[] { posting.accruedTill.toDate(), scheduleAccrualData.getLoanId() });
             }
 
-            Map<String, Object> transactionMap = toMapData(transactonId, amount, interestportion, feeportion, penaltyportion,
-                    scheduleAccrualData, accruedTill);
+            if (!chargesPaidBy.isEmpty()) {
+                String chargespaidSql = "INSERT INTO m_loan_charge_paid_by (loan_transaction_id, loan_charge_id, amount,installment_number) VALUES (?,?,?,?)";
+                this.jdbcTemplate.batchUpdate(chargespaidSql, chargesPaidBy);
+            }
 
             String repaymetUpdatesql = "UPDATE m_loan_repayment_schedule SET accrual_interest_derived=?, accrual_fee_charges_derived=?, "
                     + "accrual_penalty_charges_derived=? WHERE  id=?";
-            this.jdbcTemplate.update(repaymetUpdatesql, totalAccInterest, totalAccFee, totalAccPenalty,
-                    scheduleAccrualData.getRepaymentScheduleId());
+            this.jdbcTemplate.batchUpdate(repaymetUpdatesql, repaymentScheduleUpdates);
 
             String updateLoan = "UPDATE m_loan  SET accrued_till=?  WHERE  id=?";
-            this.jdbcTemplate.update(updateLoan, accruedTill.toDate(), scheduleAccrualData.getLoanId());
-            final Map<String, Object> accountingBridgeData = deriveAccountingBridgeData(scheduleAccrualData, transactionMap);
-            this.journalEntryWritePlatformService.createJournalEntriesForLoan(accountingBridgeData);
-        } catch (Exception e) {
+            this.jdbcTemplate.batchUpdate(updateLoan, loanUpdates);
+
+            for (final List<LoanAccrualPosting> loanPostings : groupByLoan(postings)) {
+                final List<Map<String, Object>> newLoanTransactions = new ArrayList<>(loanPostings.size());
+                for (final LoanAccrualPosting posting : loanPostings) {
+                    newLoanTransactions.add(toMapData(posting.transactionId, posting.amount, posting.interestportion, posting.feeportion,
+                            posting.penaltyportion, posting.accrualData, posting.accruedTill));
+                }
+                final Map<String, Object> accountingBridgeData = deriveAccountingBridgeData(loanPostings.get(0).accrualData,
+                        newLoanTransactions);
+                this.journalEntryWritePlatformService.createJournalEntriesForLoan(accountingBridgeData);
+            }
+        } catch (RuntimeException e) {
             this.transactionManager.rollback(transactionStatus);
             throw e;
         }
         this.transactionManager.commit(transactionStatus);
     }
 
+    /**
+     * Inserts the accrual transactions as one JDBC batch and assigns the
+     * generated ids to the postings.
+     */
+    private void insertAccrualTransactions(final List<LoanAccrualPosting> postings) {
+        final String transactionSql = "INSERT INTO m_loan_transaction  (loan_id,office_id,is_reversed,transaction_type_enum,transaction_date,amount,interest_portion_derived,"
+                + "fee_charges_portion_derived,penalty_charges_portion_derived, submitted_on_date) VALUES (?, ?, 0, ?, ?, ?, ?, ?, ?, ?)";
+        final Date submittedOnDate = DateUtils.getDateOfTenant();
+        this.jdbcTemplate.execute(new PreparedStatementCreator() {
+
+            @Override
+            public PreparedStatement createPreparedStatement(final Connection con) throws SQLException {
+                return con.prepareStatement(transactionSql, Statement.RETURN_GENERATED_KEYS);
+            }
+        }, new PreparedStatementCallback<Void>() {
+
+            @Override
+            public Void doInPreparedStatement(final PreparedStatement ps) throws SQLException {
+                for (final LoanAccrualPosting posting : postings) {
+                    final LoanScheduleAccrualData scheduleAccrualData = posting.accrualData;
+                    new ArgumentPreparedStatementSetter(new Object[] { scheduleAccrualData.getLoanId(), scheduleAccrualData.getOfficeId(),
+                            LoanTransactionType.ACCRUAL.getValue(), posting.accruedTill.toDate(), posting.amount, posting.interestportion,
+                            posting.feeportion, posting.penaltyportion, submittedOnDate }).setValues(ps);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                final ResultSet generatedKeys = ps.getGeneratedKeys();
+                try {
+                    for (final LoanAccrualPosting posting : postings) {
+                        if (!generatedKeys.next()) { throw new SQLException("Missing generated id of accrual transaction"); }
+                        posting.transactionId = generatedKeys.getLong(1);
+                    }
+                } finally {
+                    generatedKeys.close();
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Groups postings, which are ordered by loan, into the postings of each
+     * loan.
+     */
+    private static List<List<LoanAccrualPosting>> groupByLoan(final List<LoanAccrualPosting> postings) {
+        final List<List<LoanAccrualPosting>> postingsByLoan = new ArrayList<>();
+        List<LoanAccrualPosting> loanPostings = null;
+        for (final LoanAccrualPosting posting : postings) {
+            if (loanPostings == null || !loanPostings.get(0).accrualData.getLoanId().equals(posting.accrualData.getLoanId())) {
+                loanPostings = new ArrayList<>();
+                postingsByLoan.add(loanPostings);
+            }
+            loanPostings.add(posting);
+        }
+        return postingsByLoan;
+    }
+
     public Map<String, Object> deriveAccountingBridgeData(final LoanScheduleAccrualData loanScheduleAccrualData,
             final Map<String, Object> transactionMap) {
+        final List<Map<String, Object>> newLoanTransactions = new ArrayList<>();
+        newLoanTransactions.add(transactionMap);
+        return deriveAccountingBridgeData(loanScheduleAccrualData, newLoanTransactions);
+    }
+
+    private Map<String, Object> deriveAccountingBridgeData(final LoanScheduleAccrualData loanScheduleAccrualData,
+            final List<Map<String, Object>> newLoanTransactions) {
 
         final Map<String, Object> accountingBridgeData = new LinkedHashMap<>();
         accountingBridgeData.put("loanId", loanScheduleAccrualData.getLoanId());
@@ -357,10 +590,6 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
         accountingBridgeData.put("upfrontAccrualBasedAccountingEnabled", false);
         accountingBridgeData.put("periodicAccrualBasedAccountingEnabled", true);
         accountingBridgeData.put("isAccountTransfer", false);
-
-        final List<Map<String, Object>> newLoanTransactions = new ArrayList<>();
-        newLoanTransactions.add(transactionMap);
-
         accountingBridgeData.put("newLoanTransactions", newLoanTransactions);
         return accountingBridgeData;
     }
@@ -531,4 +760,36 @@ public class LoanAccrualWritePlatformServiceImpl implements LoanAccrualWritePlat
 
         accrualData.updateAccruableIncome(interestIncome);
     }
+
+    /**
+     * An accrual transaction computed for one installment, written together
+     * with the other accruals of its page.
+     */
+    private static final class LoanAccrualPosting {
+
+        private final LoanScheduleAccrualData accrualData;
+        private final BigDecimal amount;
+        private final BigDecimal interestportion;
+        private final BigDecimal totalAccInterest;
+        private final BigDecimal feeportion;
+        private final BigDecimal totalAccFee;
+        private final BigDecimal penaltyportion;
+        private final BigDecimal totalAccPenalty;
+        private final LocalDate accruedTill;
+        private Long transactionId;
+
+        LoanAccrualPosting(final LoanScheduleAccrualData accrualData, final BigDecimal amount, final BigDecimal interestportion,
+                final BigDecimal totalAccInterest, final BigDecimal feeportion, final BigDecimal totalAccFee,
+                final BigDecimal penaltyportion, final BigDecimal totalAccPenalty, final LocalDate accruedTill) {
+            this.accrualData = accrualData;
+            this.amount = amount;
+            this.interestportion = interestportion;
+            this.totalAccInterest = totalAccInterest;
+            this.feeportion = feeportion;
+            this.totalAccFee = totalAccFee;
+            this.penaltyportion = penaltyportion;
+            this.totalAccPenalty = totalAccPenalty;
+            this.accruedTill = accruedTill;
+        }
+    }
 }
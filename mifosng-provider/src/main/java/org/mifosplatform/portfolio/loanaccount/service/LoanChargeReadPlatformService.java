@@ -6,6 +6,7 @@
 package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.util.Collection;
+import java.util.Map;
 
 import org.mifosplatform.portfolio.charge.data.ChargeData;
 import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
@@ -29,5 +30,12 @@ public interface LoanChargeReadPlatformService {
     
     Collection<LoanChargeData> retrieveLoanChargesForAccural(Long loanId);
 
+    /**
+     * Set based variant of {@link #retrieveLoanChargesForAccural(Long)}: the
+     * accrual details of the charges of all given loans, keyed by loan id.
+     * Every loan id is present in the result.
+     */
+    Map<Long, Collection<LoanChargeData>> retrieveLoanChargesForAccural(Collection<Long> loanIds);
+
     Collection<LoanChargePaidByData> retriveLoanChargesPaidBy(Long chargeId, LoanTransactionType transactionType, Integer installmentNumber);
 }
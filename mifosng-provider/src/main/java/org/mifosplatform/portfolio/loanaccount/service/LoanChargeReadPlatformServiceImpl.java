@@ -10,6 +10,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,13 +31,16 @@ import org.mifosplatform.portfolio.loanaccount.data.LoanInstallmentChargeData;
 import org.mifosplatform.portfolio.loanaccount.domain.LoanTransactionType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatformService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final PlatformSecurityContext context;
     private final ChargeDropdownReadPlatformService chargeDropdownReadPlatformService;
     private final DropdownReadPlatformService dropdownReadPlatformService;
@@ -48,6 +52,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         this.context = context;
         this.chargeDropdownReadPlatformService = chargeDropdownReadPlatformService;
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
         this.dropdownReadPlatformService = dropdownReadPlatformService;
     }
 
@@ -246,33 +251,66 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
 
     @Override
     public Collection<LoanChargeData> retrieveLoanChargesForAccural(final Long loanId) {
+        return retrieveLoanChargesForAccural(Collections.singletonList(loanId)).get(loanId);
+    }
+
+    @Override
+    public Map<Long, Collection<LoanChargeData>> retrieveLoanChargesForAccural(final Collection<Long> loanIds) {
+
+        final Map<Long, Collection<LoanChargeData>> chargesByLoan = new HashMap<>();
+        for (final Long loanId : loanIds) {
+            chargesByLoan.put(loanId, new ArrayList<LoanChargeData>());
+        }
+        if (loanIds.isEmpty()) { return chargesByLoan; }
 
         final LoanChargeAccrualMapper rm = new LoanChargeAccrualMapper();
 
-        final String sql = "select " + rm.schema() + " where lc.loan_id=? AND lc.is_active = 1 group by  lc.id "
-                + " order by lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
+        final String sql = "select lc.loan_id as loanId, " + rm.schema() + " where lc.loan_id in (:loanIds) AND lc.is_active = 1 "
+                + " group by  lc.id "
+                + " order by lc.loan_id, lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.ACCRUAL.getValue());
+        paramMap.put("loanIds", loanIds);
 
-        Collection<LoanChargeData> charges = this.jdbcTemplate.query(sql, rm,
-                new Object[] { LoanTransactionType.ACCRUAL.getValue(), loanId });
-        charges = updateLoanChargesWithUnrecognizedIncome(loanId, charges);
+        final Map<Long, LoanChargeData> chargesById = new HashMap<>();
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
 
-        Collection<LoanChargeData> removeCharges = new ArrayList<>();
-        for (LoanChargeData loanChargeData : charges) {
-            if (loanChargeData.isInstallmentFee()) {
-                removeCharges.add(loanChargeData);
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final LoanChargeData chargeData = rm.mapRow(rs, 0);
+                chargesById.put(chargeData.getId(), chargeData);
+            }
+        });
+        updateLoanChargesWithUnrecognizedIncome(loanIds, chargesById.values(), chargesByLoan);
+
+        final List<Long> installmentFeeChargeIds = new ArrayList<>();
+        for (final Collection<LoanChargeData> charges : chargesByLoan.values()) {
+            for (final LoanChargeData loanChargeData : charges) {
+                if (loanChargeData.isInstallmentFee()) {
+                    installmentFeeChargeIds.add(loanChargeData.getId());
+                }
             }
         }
-        charges.removeAll(removeCharges);
-        for (LoanChargeData loanChargeData : removeCharges) {
-            if (loanChargeData.isInstallmentFee()) {
-                Collection<LoanInstallmentChargeData> installmentChargeDatas = retrieveInstallmentLoanChargesForAccrual(loanChargeData
-                        .getId());
-                LoanChargeData modifiedChargeData = new LoanChargeData(loanChargeData, installmentChargeDatas);
+        if (installmentFeeChargeIds.isEmpty()) { return chargesByLoan; }
+
+        final Map<Long, Collection<LoanInstallmentChargeData>> installmentChargesByCharge = retrieveInstallmentLoanChargesForAccrual(
+                installmentFeeChargeIds);
+        for (final Collection<LoanChargeData> charges : chargesByLoan.values()) {
+            final Collection<LoanChargeData> removeCharges = new ArrayList<>();
+            for (final LoanChargeData loanChargeData : charges) {
+                if (loanChargeData.isInstallmentFee()) {
+                    removeCharges.add(loanChargeData);
+                }
+            }
+            charges.removeAll(removeCharges);
+            for (final LoanChargeData loanChargeData : removeCharges) {
+                final LoanChargeData modifiedChargeData = new LoanChargeData(loanChargeData,
+                        installmentChargesByCharge.get(loanChargeData.getId()));
                 charges.add(modifiedChargeData);
             }
         }
 
-        return charges;
+        return chargesByLoan;
     }
 
     private static final class LoanChargeAccrualMapper implements RowMapper<LoanChargeData> {
@@ -292,7 +330,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append("left join (");
             sb.append("select lcp.loan_charge_id, lcp.amount");
             sb.append(" from m_loan_charge_paid_by lcp ");
-            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             sb.append(") cp on  cp.loan_charge_id= lc.id  ");
 
             schemaSql = sb.toString();
@@ -321,15 +359,26 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         }
     }
 
-    private Collection<LoanChargeData> updateLoanChargesWithUnrecognizedIncome(final Long loanId, Collection<LoanChargeData> loanChargeDatas) {
+    private void updateLoanChargesWithUnrecognizedIncome(final Collection<Long> loanIds, final Collection<LoanChargeData> loanChargeDatas,
+            final Map<Long, Collection<LoanChargeData>> chargesByLoan) {
 
         final LoanChargeUnRecognizedIncomeMapper rm = new LoanChargeUnRecognizedIncomeMapper(loanChargeDatas);
 
-        final String sql = "select " + rm.schema() + " where lc.loan_id=? AND lc.is_active = 1 group by  lc.id "
-                + " order by lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
+        final String sql = "select lc.loan_id as loanId, " + rm.schema() + " where lc.loan_id in (:loanIds) AND lc.is_active = 1 "
+                + " group by  lc.id "
+                + " order by lc.loan_id, lc.charge_time_enum ASC, lc.due_for_collection_as_of_date ASC, lc.is_penalty ASC";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.WAIVE_CHARGES.getValue());
+        paramMap.put("loanIds", loanIds);
 
-        return this.jdbcTemplate.query(sql, rm, new Object[] { LoanTransactionType.WAIVE_CHARGES.getValue(), loanId });
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
 
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long loanId = rs.getLong("loanId");
+                chargesByLoan.get(loanId).add(rm.mapRow(rs, 0));
+            }
+        });
     }
 
     private static final class LoanChargeUnRecognizedIncomeMapper implements RowMapper<LoanChargeData> {
@@ -350,7 +399,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append("left join (");
             sb.append("select cpb.loan_charge_id, lt.unrecognized_income_portion");
             sb.append(" from m_loan_charge_paid_by cpb ");
-            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             sb.append(") wt on  wt.loan_charge_id= lc.id  ");
 
             schemaSql = sb.toString();
@@ -371,20 +420,34 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         }
     }
 
-    private Collection<LoanInstallmentChargeData> retrieveInstallmentLoanChargesForAccrual(Long loanChargeId) {
+    private Map<Long, Collection<LoanInstallmentChargeData>> retrieveInstallmentLoanChargesForAccrual(final Collection<Long> loanChargeIds) {
         final LoanInstallmentChargeAccrualMapper rm = new LoanInstallmentChargeAccrualMapper();
-        String sql = "select " + rm.schema() + " where lic.loan_charge_id= ?  group by lsi.installment";
-        Collection<LoanInstallmentChargeData> chargeDatas = this.jdbcTemplate.query(sql, rm,
-                new Object[] { LoanTransactionType.ACCRUAL.getValue(), loanChargeId });
-        final Map<Integer, LoanInstallmentChargeData> installmentChargeDatas = new HashMap<>();
-        for (LoanInstallmentChargeData installmentChargeData : chargeDatas) {
-            installmentChargeDatas.put(installmentChargeData.getInstallmentNumber(), installmentChargeData);
+        final String sql = "select lic.loan_charge_id as loanChargeId, " + rm.schema()
+                + " where lic.loan_charge_id in (:loanChargeIds) group by lic.loan_charge_id, lsi.installment";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.ACCRUAL.getValue());
+        paramMap.put("loanChargeIds", loanChargeIds);
+
+        final Map<Long, Map<Integer, LoanInstallmentChargeData>> installmentChargesByCharge = new HashMap<>();
+        for (final Long loanChargeId : loanChargeIds) {
+            installmentChargesByCharge.put(loanChargeId, new HashMap<Integer, LoanInstallmentChargeData>());
         }
-        chargeDatas = updateInstallmentLoanChargesWithUnrecognizedIncome(loanChargeId, installmentChargeDatas);
-        for (LoanInstallmentChargeData installmentChargeData : chargeDatas) {
-            installmentChargeDatas.put(installmentChargeData.getInstallmentNumber(), installmentChargeData);
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long loanChargeId = rs.getLong("loanChargeId");
+                final LoanInstallmentChargeData installmentChargeData = rm.mapRow(rs, 0);
+                installmentChargesByCharge.get(loanChargeId).put(installmentChargeData.getInstallmentNumber(), installmentChargeData);
+            }
+        });
+        updateInstallmentLoanChargesWithUnrecognizedIncome(loanChargeIds, installmentChargesByCharge);
+
+        final Map<Long, Collection<LoanInstallmentChargeData>> result = new HashMap<>();
+        for (final Map.Entry<Long, Map<Integer, LoanInstallmentChargeData>> entry : installmentChargesByCharge.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().values());
         }
-        return installmentChargeDatas.values();
+        return result;
 
     }
 
@@ -406,7 +469,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append("left join (");
             sb.append("select lcp.loan_charge_id, lcp.amount as amount, lcp.installment_number ");
             sb.append(" from m_loan_charge_paid_by lcp ");
-            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = lcp.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             sb.append(") cp on  cp.loan_charge_id= lic.loan_charge_id and  cp.installment_number = lsi.installment ");
             schemaSql = sb.toString();
         }
@@ -431,11 +494,27 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
         }
     }
 
-    private Collection<LoanInstallmentChargeData> updateInstallmentLoanChargesWithUnrecognizedIncome(final Long loanChargeId,
-            final Map<Integer, LoanInstallmentChargeData> installmentChargeDatas) {
-        final LoanInstallmentChargeUnRecognizedIncomeMapper rm = new LoanInstallmentChargeUnRecognizedIncomeMapper(installmentChargeDatas);
-        String sql = "select " + rm.schema() + " where cpb.loan_charge_id = ? group by cpb.installment_number  ";
-        return this.jdbcTemplate.query(sql, rm, new Object[] { LoanTransactionType.WAIVE_CHARGES.getValue(), loanChargeId });
+    private void updateInstallmentLoanChargesWithUnrecognizedIncome(final Collection<Long> loanChargeIds,
+            final Map<Long, Map<Integer, LoanInstallmentChargeData>> installmentChargesByCharge) {
+        final Map<Long, LoanInstallmentChargeUnRecognizedIncomeMapper> mappers = new HashMap<>();
+        for (final Map.Entry<Long, Map<Integer, LoanInstallmentChargeData>> entry : installmentChargesByCharge.entrySet()) {
+            mappers.put(entry.getKey(), new LoanInstallmentChargeUnRecognizedIncomeMapper(entry.getValue()));
+        }
+        final String sql = "select cpb.loan_charge_id as loanChargeId, " + mappers.values().iterator().next().schema()
+                + " where cpb.loan_charge_id in (:loanChargeIds) group by cpb.loan_charge_id, cpb.installment_number  ";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("transactionType", LoanTransactionType.WAIVE_CHARGES.getValue());
+        paramMap.put("loanChargeIds", loanChargeIds);
+
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long loanChargeId = rs.getLong("loanChargeId");
+                final LoanInstallmentChargeData installmentChargeData = mappers.get(loanChargeId).mapRow(rs, 0);
+                installmentChargesByCharge.get(loanChargeId).put(installmentChargeData.getInstallmentNumber(), installmentChargeData);
+            }
+        });
     }
 
     private static final class LoanInstallmentChargeUnRecognizedIncomeMapper implements RowMapper<LoanInstallmentChargeData> {
@@ -449,7 +528,7 @@ public class LoanChargeReadPlatformServiceImpl implements LoanChargeReadPlatform
             sb.append(" cpb.installment_number as installmentNumber, ");
             sb.append("  sum(lt.unrecognized_income_portion) as amountUnrecognized ");
             sb.append(" from m_loan_charge_paid_by cpb ");
-            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = ?");
+            sb.append("inner join m_loan_transaction lt on lt.id = cpb.loan_transaction_id and lt.is_reversed = 0 and lt.transaction_type_enum = :transactionType");
             schemaSql = sb.toString();
         }
 
@@ -7,6 +7,7 @@ package org.mifosplatform.portfolio.loanaccount.service;
 
 import java.util.Collection;
 import java.util.Date;
+import java.util.Map;
 
 import org.joda.time.LocalDate;
 import org.mifosplatform.infrastructure.core.service.Page;
@@ -102,6 +103,18 @@ public interface LoanReadPlatformService {
 
     Collection<LoanSchedulePeriodData> fetchWaiverInterestRepaymentData(Long loanId);
 
+    /**
+     * Set based variant of {@link #retrieveWaiverLoanTransactions(Long)}, keyed
+     * by loan id; every loan id is present in the result.
+     */
+    Map<Long, Collection<LoanTransactionData>> retrieveWaiverLoanTransactions(Collection<Long> loanIds);
+
+    /**
+     * Set based variant of {@link #fetchWaiverInterestRepaymentData(Long)},
+     * keyed by loan id; every loan id is present in the result.
+     */
+    Map<Long, Collection<LoanSchedulePeriodData>> fetchWaiverInterestRepaymentData(Collection<Long> loanIds);
+
     boolean isGuaranteeRequired(Long loanId);
 
     Date retrieveMinimumDateOfRepaymentTransaction(Long loanId);
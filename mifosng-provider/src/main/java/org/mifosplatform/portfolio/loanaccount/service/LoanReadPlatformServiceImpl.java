@@ -109,6 +109,7 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
@@ -251,7 +252,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         final String hierarchySearchString = hierarchy + "%";
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
-        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
+        sqlBuilder.append(PaginationHelper.selectSql(searchParameters.isTotalCountRequested()));
         sqlBuilder.append(this.loaanLoanMapper.loanSchema());
 
         // TODO - for time being this will data scope list of loans returned to
@@ -286,6 +287,12 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
             arrayPos = arrayPos + 1;
         }
 
+        if (searchParameters.isPageTokenPassed()) {
+            sqlBuilder.append(" and ").append(searchParameters.pageTokenSql("l.id"));
+            extraCriterias.add(searchParameters.getPageTokenLastId());
+            arrayPos = arrayPos + 1;
+        }
+
         if (searchParameters.isOrderByRequested()) {
             sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
 
@@ -305,7 +312,7 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         final Object[] finalObjectArray = Arrays.copyOf(objectArray, arrayPos);
         final String sqlCountRows = "SELECT FOUND_ROWS()";
         return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray,
-                this.loaanLoanMapper);
+                this.loaanLoanMapper, searchParameters.isTotalCountRequested(), searchParameters.getPageTokenLimit());
     }
 
     @Override
@@ -1718,6 +1725,58 @@ public class LoanReadPlatformServiceImpl implements LoanReadPlatformService {
         }
     }
 
+    @Override
+    public Map<Long, Collection<LoanTransactionData>> retrieveWaiverLoanTransactions(final Collection<Long> loanIds) {
+        final Map<Long, Collection<LoanTransactionData>> transactionsByLoan = new HashMap<>();
+        for (final Long loanId : loanIds) {
+            transactionsByLoan.put(loanId, new ArrayList<LoanTransactionData>());
+        }
+        if (loanIds.isEmpty()) { return transactionsByLoan; }
+
+        final LoanTransactionDerivedComponentMapper rm = new LoanTransactionDerivedComponentMapper();
+        final String sql = "select tr.loan_id as loanId, " + rm.schema()
+                + " where tr.loan_id in (:loanIds) and tr.transaction_type_enum = :transactionType and tr.is_reversed=0 "
+                + " order by tr.loan_id, tr.transaction_date ASC, id ";
+        final Map<String, Object> paramMap = new HashMap<>(2);
+        paramMap.put("loanIds", loanIds);
+        paramMap.put("transactionType", LoanTransactionType.WAIVE_INTEREST.getValue());
+
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long loanId = rs.getLong("loanId");
+                transactionsByLoan.get(loanId).add(rm.mapRow(rs, 0));
+            }
+        });
+        return transactionsByLoan;
+    }
+
+    @Override
+    public Map<Long, Collection<LoanSchedulePeriodData>> fetchWaiverInterestRepaymentData(final Collection<Long> loanIds) {
+        final Map<Long, Collection<LoanSchedulePeriodData>> periodsByLoan = new HashMap<>();
+        for (final Long loanId : loanIds) {
+            periodsByLoan.put(loanId, new ArrayList<LoanSchedulePeriodData>());
+        }
+        if (loanIds.isEmpty()) { return periodsByLoan; }
+
+        final LoanRepaymentWaiverMapper rm = new LoanRepaymentWaiverMapper();
+        final String sql = "select lrs.loan_id as loanId, " + rm.getSchema()
+                + " where lrs.loan_id in (:loanIds) and lrs.interest_waived_derived is not null order by lrs.loan_id, lrs.installment ASC ";
+        final Map<String, Object> paramMap = new HashMap<>(1);
+        paramMap.put("loanIds", loanIds);
+
+        this.namedParameterJdbcTemplate.query(sql, paramMap, new RowCallbackHandler() {
+
+            @Override
+            public void processRow(final ResultSet rs) throws SQLException {
+                final Long loanId = rs.getLong("loanId");
+                periodsByLoan.get(loanId).add(rm.mapRow(rs, 0));
+            }
+        });
+        return periodsByLoan;
+    }
+
     @Override
     public boolean isGuaranteeRequired(final Long loanId) {
         final String sql = "select pl.hold_guarantee_funds from m_loan ml inner join m_product_loan pl on pl.id = ml.product_id where ml.id=?";
@@ -0,0 +1,29 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps track of loans whose <code>*_derived</code> summary columns need to be
+ * recomputed by the <code>UPDATE_LOAN_SUMMARY</code> job.
+ *
+ * Loans are marked automatically on every loan business event; write services
+ * changing loans without raising an event should mark them explicitly.
+ */
+public interface LoanSummaryDirtyTrackingService {
+
+    void markLoansForSummaryUpdate(Collection<Long> loanIds);
+
+    /**
+     * @return up to <code>limit</code> marked loan ids greater than
+     *         <code>afterLoanId</code>, in ascending order.
+     */
+    List<Long> retrieveLoansForSummaryUpdate(Long afterLoanId, int limit);
+
+    void clearLoansForSummaryUpdate(Collection<Long> loanIds);
+}
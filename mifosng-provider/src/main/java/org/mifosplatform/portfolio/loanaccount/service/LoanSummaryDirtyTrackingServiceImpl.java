@@ -0,0 +1,105 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.PostConstruct;
+
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.portfolio.common.BusinessEventNotificationConstants.BUSINESS_ENTITY;
+import org.mifosplatform.portfolio.common.BusinessEventNotificationConstants.BUSINESS_EVENTS;
+import org.mifosplatform.portfolio.common.service.BusinessEventListner;
+import org.mifosplatform.portfolio.common.service.BusinessEventNotifierService;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class LoanSummaryDirtyTrackingServiceImpl implements LoanSummaryDirtyTrackingService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final BusinessEventNotifierService businessEventNotifierService;
+
+    @Autowired
+    public LoanSummaryDirtyTrackingServiceImpl(final RoutingDataSource dataSource,
+            final BusinessEventNotifierService businessEventNotifierService) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.businessEventNotifierService = businessEventNotifierService;
+    }
+
+    @PostConstruct
+    public void addListners() {
+        final MarkLoanOnBusinessEvent listener = new MarkLoanOnBusinessEvent();
+        for (final BUSINESS_EVENTS businessEvent : BUSINESS_EVENTS.values()) {
+            this.businessEventNotifierService.addBusinessEventPostListners(businessEvent, listener);
+        }
+    }
+
+    @Override
+    public void markLoansForSummaryUpdate(final Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) { return; }
+
+        // sorted, so concurrent transactions lock the rows in the same order
+        final Set<Long> sortedLoanIds = new TreeSet<>(loanIds);
+        final List<Object[]> batchArgs = new ArrayList<>(sortedLoanIds.size());
+        for (final Long loanId : sortedLoanIds) {
+            batchArgs.add(new Object[] { loanId });
+        }
+        this.jdbcTemplate.batchUpdate("INSERT IGNORE INTO m_loan_summary_dirty (loan_id) VALUES (?)", batchArgs);
+    }
+
+    @Override
+    public List<Long> retrieveLoansForSummaryUpdate(final Long afterLoanId, final int limit) {
+        return this.jdbcTemplate.queryForList("select loan_id from m_loan_summary_dirty where loan_id > ? order by loan_id limit ?",
+                Long.class, afterLoanId, limit);
+    }
+
+    @Override
+    public void clearLoansForSummaryUpdate(final Collection<Long> loanIds) {
+        if (loanIds.isEmpty()) { return; }
+
+        this.namedParameterJdbcTemplate.update("delete from m_loan_summary_dirty where loan_id in (:loanIds)",
+                new MapSqlParameterSource("loanIds", loanIds));
+    }
+
+    private class MarkLoanOnBusinessEvent implements BusinessEventListner {
+
+        @Override
+        public void businessEventToBeExecuted(@SuppressWarnings("unused") Map<BUSINESS_ENTITY, Object> businessEventEntity) {}
+
+        @Override
+        public void businessEventWasExecuted(final Map<BUSINESS_ENTITY, Object> businessEventEntity) {
+            final Set<Long> loanIds = new TreeSet<>();
+            for (final Object entity : businessEventEntity.values()) {
+                Loan loan = null;
+                if (entity instanceof Loan) {
+                    loan = (Loan) entity;
+                } else if (entity instanceof LoanTransaction) {
+                    loan = ((LoanTransaction) entity).getLoan();
+                } else if (entity instanceof LoanCharge) {
+                    loan = ((LoanCharge) entity).getLoan();
+                }
+                if (loan != null && loan.getId() != null) {
+                    loanIds.add(loan.getId());
+                }
+            }
+            markLoansForSummaryUpdate(loanIds);
+        }
+    }
+}
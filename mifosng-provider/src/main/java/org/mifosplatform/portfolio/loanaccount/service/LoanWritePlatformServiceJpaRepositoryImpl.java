@@ -205,6 +205,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
     private final AccountTransferDetailRepository accountTransferDetailRepository;
     private final BusinessEventNotifierService businessEventNotifierService;
     private final GuarantorDomainService guarantorDomainService;
+    private final LoanSummaryDirtyTrackingService loanSummaryDirtyTrackingService;
 
     @Autowired
     public LoanWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
@@ -230,7 +231,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
             final LoanApplicationCommandFromApiJsonHelper loanApplicationCommandFromApiJsonHelper,
             final AccountAssociationsRepository accountAssociationRepository,
             final AccountTransferDetailRepository accountTransferDetailRepository,
-            final BusinessEventNotifierService businessEventNotifierService, final GuarantorDomainService guarantorDomainService) {
+            final BusinessEventNotifierService businessEventNotifierService, final GuarantorDomainService guarantorDomainService,
+            final LoanSummaryDirtyTrackingService loanSummaryDirtyTrackingService) {
         this.context = context;
         this.loanEventApiJsonValidator = loanEventApiJsonValidator;
         this.loanAssembler = loanAssembler;
@@ -265,6 +267,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         this.accountTransferDetailRepository = accountTransferDetailRepository;
         this.businessEventNotifierService = businessEventNotifierService;
         this.guarantorDomainService = guarantorDomainService;
+        this.loanSummaryDirtyTrackingService = loanSummaryDirtyTrackingService;
     }
 
     private LoanLifecycleStateMachine defaultLoanLifecycleStateMachine() {
@@ -531,6 +534,21 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         }
     }
 
+    private void flushLoansWithDataIntegrityViolationChecks() {
+        try {
+            this.loanRepository.flush();
+        } catch (final DataIntegrityViolationException e) {
+            final Throwable realCause = e.getCause();
+            final List<ApiParameterError> dataValidationErrors = new ArrayList<>();
+            final DataValidatorBuilder baseDataValidator = new DataValidatorBuilder(dataValidationErrors).resource("loan.transaction");
+            if (realCause.getMessage().toLowerCase().contains("external_id_unique")) {
+                baseDataValidator.reset().parameter("externalId").failWithCode("value.must.be.unique");
+            }
+            if (!dataValidationErrors.isEmpty()) { throw new PlatformApiDataValidationException("validation.msg.validation.errors.exist",
+                    "Validation errors exist.", dataValidationErrors); }
+        }
+    }
+
     /****
      * TODO Vishwas: Pair with Ashok and re-factor collection sheet code-base
      * 
@@ -788,11 +806,18 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
 
         final SingleRepaymentCommand[] repaymentCommand = bulkRepaymentCommand.getLoanTransactions();
         final Map<String, Object> changes = new LinkedHashMap<>();
-        final boolean isRecoveryRepayment = false;
 
         if (repaymentCommand == null) { return changes; }
+
+        // loads all loans of the collection sheet in a few queries, the loans
+        // are then found in the persistence context
+        final List<Long> loanIds = new ArrayList<>(repaymentCommand.length);
+        for (final SingleRepaymentCommand singleLoanRepaymentCommand : repaymentCommand) {
+            loanIds.add(singleLoanRepaymentCommand.getLoanId());
+        }
+        this.loanRepository.findAll(loanIds);
+
         List<Long> transactionIds = new ArrayList<>();
-        boolean isAccountTransfer = false;
         for (final SingleRepaymentCommand singleLoanRepaymentCommand : repaymentCommand) {
             final Loan loan = this.loanAssembler.assembleFrom(singleLoanRepaymentCommand.getLoanId());
             final PaymentDetail paymentDetail = singleLoanRepaymentCommand.getPaymentDetail();
@@ -800,12 +825,14 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 this.paymentDetailWritePlatformService.persistPaymentDetail(paymentDetail);
             }
             final CommandProcessingResultBuilder commandProcessingResultBuilder = new CommandProcessingResultBuilder();
-            LoanTransaction loanTransaction = this.loanAccountDomainService.makeRepayment(loan, commandProcessingResultBuilder,
-                    bulkRepaymentCommand.getTransactionDate(), singleLoanRepaymentCommand.getTransactionAmount(), paymentDetail,
-                    bulkRepaymentCommand.getNote(), null, isRecoveryRepayment, isAccountTransfer);
+            LoanTransaction loanTransaction = this.loanAccountDomainService.makeRepaymentWithoutFlush(loan,
+                    commandProcessingResultBuilder, bulkRepaymentCommand.getTransactionDate(),
+                    singleLoanRepaymentCommand.getTransactionAmount(), paymentDetail, bulkRepaymentCommand.getNote(), null);
             transactionIds.add(loanTransaction.getId());
 
         }
+        // the schedule and summary updates of all loans go out in JDBC batches
+        flushLoansWithDataIntegrityViolationChecks();
         changes.put("loanTransactions", transactionIds);
         return changes;
     }
@@ -2099,6 +2126,7 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         }
 
         final List<Loan> loans = this.loanRepository.findByIdsAndLoanStatusAndLoanType(loanIds, loanStatuses, loanTypes);
+        final Collection<Long> rescheduledLoanIds = new ArrayList<>(loans.size());
         List<Holiday> holidays = null;
         // loop through each loan to reschedule the repayment dates
         for (final Loan loan : loans) {
@@ -2118,8 +2146,11 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
                 }
 
                 saveLoanWithDataIntegrityViolationChecks(loan);
+                rescheduledLoanIds.add(loan.getId());
             }
         }
+        // no business event is raised for rescheduled loans
+        this.loanSummaryDirtyTrackingService.markLoansForSummaryUpdate(rescheduledLoanIds);
     }
 
     private void removeLoanCycle(final Loan loan) {
@@ -2301,11 +2332,14 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
             // get all group loans
             loans.addAll(this.loanRepository.findByGroupOfficeIdsAndLoanStatus(officeIds, loanStatuses));
 
+            final Collection<Long> rescheduledLoanIds = new ArrayList<>(loans.size());
             for (final Loan loan : loans) {
                 // apply holiday
                 loan.applyHolidayToRepaymentScheduleDates(holiday);
+                rescheduledLoanIds.add(loan.getId());
             }
             this.loanRepository.save(loans);
+            this.loanSummaryDirtyTrackingService.markLoansForSummaryUpdate(rescheduledLoanIds);
             holiday.processed();
         }
         this.holidayRepository.save(holidays);
@@ -2721,6 +2755,8 @@ public class LoanWritePlatformServiceJpaRepositoryImpl implements LoanWritePlatf
         }
 
         saveAndFlushLoanWithDataIntegrityViolationChecks(loan);
+        // no business event is raised for changes of tranches
+        this.loanSummaryDirtyTrackingService.markLoansForSummaryUpdate(Arrays.asList(loan.getId()));
 
         if (command.entityId() != null && changedTransactionDetail != null) {
             for (Map.Entry<Long, LoanTransaction> mapEntry : changedTransactionDetail.getNewTransactionMappings().entrySet()) {
@@ -37,6 +37,7 @@ import org.mifosplatform.portfolio.loanproduct.serialization.LoanProductDataVali
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -143,6 +144,7 @@ public class LoanProductWritePlatformServiceJpaRepositoryImpl implements LoanPro
 
     @Transactional
     @Override
+    @CacheEvict(value = "loanSchedulePreviews", allEntries = true)
     public CommandProcessingResult updateLoanProduct(final Long loanProductId, final JsonCommand command) {
 
         try {
@@ -25,6 +25,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
@@ -53,8 +54,11 @@ import javax.persistence.Version;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
 import org.hibernate.annotations.LazyCollection;
 import org.hibernate.annotations.LazyCollectionOption;
+import org.hibernate.annotations.ParamDef;
 import org.joda.time.LocalDate;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -104,8 +108,16 @@ import com.google.gson.JsonArray;
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "deposit_type_enum", discriminatorType = DiscriminatorType.INTEGER)
 @DiscriminatorValue("100")
+@FilterDef(name = SavingsAccount.TRANSACTION_WINDOW_FILTER, parameters = { @ParamDef(name = "windowEndDate", type = "date"),
+        @ParamDef(name = "openingTransactionId", type = "long") })
 public class SavingsAccount extends AbstractPersistable<Long> {
 
+    /**
+     * Restricts the transactions loaded with an account to the ones after an
+     * interest checkpoint, along with the last one whose balance lasts past it.
+     */
+    public static final String TRANSACTION_WINDOW_FILTER = "savingsAccountTransactionWindow";
+
     @Version
     int version;
 
@@ -266,6 +278,7 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     @OrderBy(value = "dateOf, createdDate, id")
     @LazyCollection(LazyCollectionOption.FALSE)
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
+    @Filter(name = TRANSACTION_WINDOW_FILTER, condition = "(transaction_date > :windowEndDate or id = :openingTransactionId)")
     protected final List<SavingsAccountTransaction> transactions = new ArrayList<>();
 
     @LazyCollection(LazyCollectionOption.FALSE)
@@ -276,6 +289,10 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
     private Set<SavingsOfficerAssignmentHistory> savingsOfficerHistory;
 
+    @OrderBy(value = "periodEndDate")
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "savingsAccount", orphanRemoval = true)
+    private List<SavingsAccountInterestCheckpoint> interestCheckpoints = new ArrayList<>();
+
     @Transient
     protected boolean accountNumberRequiresAutoGeneration = false;
     @Transient
@@ -283,6 +300,13 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     @Transient
     protected SavingsHelper savingsHelper;
 
+    /**
+     * The interest checkpoint after which the transactions were loaded, when
+     * only those were.
+     */
+    @Transient
+    private SavingsAccountInterestCheckpoint transactionWindow;
+
     @Column(name = "deposit_type_enum", insertable = false, updatable = false)
     private Integer depositType;
 
@@ -469,7 +493,10 @@ public class SavingsAccount extends AbstractPersistable<Long> {
 
             // update existing transactions so derived balance fields are
             // correct.
-            recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate);
+            final SavingsAccountInterestCheckpoint interestCheckpoint = findInterestCheckpointBefore(interestPostingUpToDate,
+                    interestCalculationSettings(mc, interestPostingUpToDate, isSavingsInterestPostingAtCurrentPeriodEnd,
+                            financialYearBeginningMonth));
+            recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate, interestCheckpoint);
         }
 
         this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
@@ -518,6 +545,10 @@ public class SavingsAccount extends AbstractPersistable<Long> {
      * period check if an existing 'interest posting' transaction exists for
      * date and matches the amount posted
      * 
+     * Calculation starts after the last closed posting period of which a
+     * checkpoint is still valid, if any, and the posting periods before it
+     * are not returned.
+     * 
      * @param isInterestTransfer
      *            TODO
      */
@@ -528,9 +559,14 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         // for migrations.
         final Money openingAccountBalance = Money.zero(this.currency);
 
+        final String interestSettings = interestCalculationSettings(mc, upToInterestCalculationDate,
+                isSavingsInterestPostingAtCurrentPeriodEnd, financialYearBeginningMonth);
+        final SavingsAccountInterestCheckpoint interestCheckpoint = findInterestCheckpointBefore(upToInterestCalculationDate,
+                interestSettings);
+
         // update existing transactions so derived balance fields are
         // correct.
-        recalculateDailyBalances(openingAccountBalance, upToInterestCalculationDate);
+        recalculateDailyBalances(openingAccountBalance, upToInterestCalculationDate, interestCheckpoint);
 
         // 1. default to calculate interest based on entire history OR
         // 2. determine latest 'posting period' and find interest credited to
@@ -551,7 +587,9 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         final List<PostingPeriod> allPostingPeriods = new ArrayList<>();
 
         Money periodStartingBalance;
-        if (this.startInterestCalculationDate != null) {
+        if (interestCheckpoint != null) {
+            periodStartingBalance = interestCheckpoint.closingBalance(this.currency);
+        } else if (this.startInterestCalculationDate != null) {
             LocalDate startInterestCalculationDate = new LocalDate(this.startInterestCalculationDate);
             final SavingsAccountTransaction transaction = findLastTransaction(startInterestCalculationDate);
 
@@ -578,11 +616,17 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         final BigDecimal interestRateAsFraction = getEffectiveInterestRateAsFraction(mc, upToInterestCalculationDate);
         final Collection<Long> interestPostTransactions = this.savingsHelper.fetchPostInterestTransactionIds(getId());
         final Money minBalanceForInterestCalculation = Money.of(getCurrency(), minBalanceForInterestCalculation());
+        final List<SavingsAccountTransaction> orderedNonInterestPostingTransactions = retreiveOrderedNonInterestPostingTransactionsAfter(
+                interestCheckpoint);
 
         for (final LocalDateInterval periodInterval : postingPeriodIntervals) {
 
+            if (interestCheckpoint != null && !periodInterval.endDate().isAfter(interestCheckpoint.periodEndDate())) {
+                continue;
+            }
+
             final PostingPeriod postingPeriod = PostingPeriod.createFrom(periodInterval, periodStartingBalance,
-                    retreiveOrderedNonInterestPostingTransactions(), this.currency, compoundingPeriodType, interestCalculationType,
+                    orderedNonInterestPostingTransactions, this.currency, compoundingPeriodType, interestCalculationType,
                     interestRateAsFraction, daysInYearType.getValue(), upToInterestCalculationDate, interestPostTransactions,
                     isInterestTransfer, minBalanceForInterestCalculation, isSavingsInterestPostingAtCurrentPeriodEnd);
 
@@ -591,15 +635,170 @@ public class SavingsAccount extends AbstractPersistable<Long> {
             allPostingPeriods.add(postingPeriod);
         }
 
+        BigDecimal interestCarriedForward = BigDecimal.ZERO;
+        Money interestEarnedBefore = Money.zero(this.currency);
+        if (interestCheckpoint != null) {
+            interestCarriedForward = interestCheckpoint.interestCarriedForward();
+            interestEarnedBefore = interestCheckpoint.cumulativeInterest(this.currency);
+        }
+
         this.savingsHelper.calculateInterestForAllPostingPeriods(this.currency, allPostingPeriods, getLockedInUntilLocalDate(),
-                isTransferInterestToOtherAccount());
+                isTransferInterestToOtherAccount(), interestCarriedForward);
 
-        this.summary.updateFromInterestPeriodSummaries(this.currency, allPostingPeriods);
+        this.summary.updateFromInterestPeriodSummaries(this.currency, interestEarnedBefore, allPostingPeriods);
         this.summary.updateSummary(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
 
+        addInterestCheckpoints(allPostingPeriods, interestEarnedBefore, upToInterestCalculationDate, interestSettings);
+
         return allPostingPeriods;
     }
 
+    /**
+     * Interest checkpoints are only kept for savings accounts which do not
+     * transfer their interest, as compounding then depends on transfers made
+     * after the posting period.
+     */
+    private boolean isInterestCheckpointSupported() {
+        return depositAccountType().isSavingsDeposit() && !isTransferInterestToOtherAccount();
+    }
+
+    /**
+     * @return everything the interest of a posting period depends on besides
+     *         the account's transactions, or null if the account does not keep
+     *         interest checkpoints.
+     */
+    private String interestCalculationSettings(final MathContext mc, final LocalDate upToInterestCalculationDate,
+            final boolean isSavingsInterestPostingAtCurrentPeriodEnd, final Integer financialYearBeginningMonth) {
+        if (!isInterestCheckpointSupported()) { return null; }
+
+        final StringBuilder settings = new StringBuilder(200);
+        settings.append(this.currency.getCode()).append(',').append(this.currency.getDigitsAfterDecimal()).append(',')
+                .append(this.currency.getCurrencyInMultiplesOf()).append(',')
+                .append(getEffectiveInterestRateAsFraction(mc, upToInterestCalculationDate).toPlainString()).append(',')
+                .append(this.interestCompoundingPeriodType).append(',').append(this.interestPostingPeriodType).append(',')
+                .append(this.interestCalculationType).append(',').append(this.interestCalculationDaysInYearType).append(',')
+                .append(this.minBalanceForInterestCalculation == null ? null : this.minBalanceForInterestCalculation.toPlainString())
+                .append(',').append(getStartInterestCalculationDate()).append(',').append(getLockedInUntilLocalDate()).append(',')
+                .append(isSavingsInterestPostingAtCurrentPeriodEnd).append(',').append(financialYearBeginningMonth);
+        return settings.toString();
+    }
+
+    /**
+     * Drops the checkpoints which no longer match the account's transactions
+     * or interest settings, along with all later ones.
+     * 
+     * @return the last valid checkpoint of a posting period ending before the
+     *         given date, or null to calculate from the start.
+     */
+    private SavingsAccountInterestCheckpoint findInterestCheckpointBefore(final LocalDate upToInterestCalculationDate,
+            final String interestSettings) {
+        if (interestSettings == null) { return null; }
+
+        final List<SavingsAccountTransaction> transactionsSorted = retreiveListOfTransactions();
+        int transactionIndex = 0;
+        int transactionCount = 0;
+        Long lastTransactionId = null;
+        boolean hasUnsavedTransaction = false;
+        if (this.transactionWindow != null) {
+            transactionCount = this.transactionWindow.transactionCount();
+            lastTransactionId = this.transactionWindow.lastTransactionId();
+        }
+
+        SavingsAccountInterestCheckpoint interestCheckpoint = null;
+        final Iterator<SavingsAccountInterestCheckpoint> checkpoints = this.interestCheckpoints.iterator();
+        while (checkpoints.hasNext()) {
+            final SavingsAccountInterestCheckpoint checkpoint = checkpoints.next();
+
+            // validated when the transactions after it were loaded
+            if (this.transactionWindow != null && !checkpoint.periodEndDate().isAfter(this.transactionWindow.periodEndDate())) {
+                if (checkpoint.periodEndDate().isBefore(upToInterestCalculationDate)) {
+                    interestCheckpoint = checkpoint;
+                }
+                continue;
+            }
+
+            while (transactionIndex < transactionsSorted.size()
+                    && !transactionsSorted.get(transactionIndex).isAfter(checkpoint.periodEndDate())) {
+                final SavingsAccountTransaction transaction = transactionsSorted.get(transactionIndex++);
+                if (transaction.isNotReversed() && !isBeforeTransactionWindow(transaction)) {
+                    transactionCount++;
+                    if (transaction.getId() == null) {
+                        hasUnsavedTransaction = true;
+                    } else if (lastTransactionId == null || transaction.getId() > lastTransactionId) {
+                        lastTransactionId = transaction.getId();
+                    }
+                }
+            }
+
+            if (!checkpoint.isCalculatedWith(interestSettings) || hasUnsavedTransaction
+                    || !checkpoint.matchesTransactions(transactionCount, lastTransactionId)) {
+                checkpoints.remove();
+                while (checkpoints.hasNext()) {
+                    checkpoints.next();
+                    checkpoints.remove();
+                }
+                break;
+            }
+
+            if (checkpoint.periodEndDate().isBefore(upToInterestCalculationDate)) {
+                interestCheckpoint = checkpoint;
+            }
+        }
+        return interestCheckpoint;
+    }
+
+    /**
+     * Adds a checkpoint for each posting period which has ended before the
+     * calculation date and whose interest has been posted as calculated,
+     * stopping at the first one which has not.
+     */
+    private void addInterestCheckpoints(final List<PostingPeriod> postingPeriods, final Money interestEarnedBefore,
+            final LocalDate upToInterestCalculationDate, final String interestSettings) {
+        if (interestSettings == null) { return; }
+
+        final List<SavingsAccountTransaction> transactionsSorted = retreiveListOfTransactions();
+        int transactionIndex = 0;
+        int transactionCount = 0;
+        Long lastTransactionId = null;
+        Money runningBalance = Money.zero(this.currency);
+        if (this.transactionWindow != null) {
+            transactionCount = this.transactionWindow.transactionCount();
+            lastTransactionId = this.transactionWindow.lastTransactionId();
+            runningBalance = this.transactionWindow.runningBalance(this.currency);
+        }
+        Money cumulativeInterest = interestEarnedBefore;
+
+        for (final PostingPeriod postingPeriod : postingPeriods) {
+            final LocalDate periodEndDate = postingPeriod.periodInterval().endDate();
+            if (!periodEndDate.isBefore(upToInterestCalculationDate)) {
+                break;
+            }
+
+            final SavingsAccountTransaction postingTransaction = findInterestPostingTransactionFor(postingPeriod.dateOfPostingTransaction());
+            if (postingTransaction == null || postingTransaction.getId() == null
+                    || postingTransaction.hasNotAmount(postingPeriod.getInterestEarned())) {
+                break;
+            }
+
+            while (transactionIndex < transactionsSorted.size() && !transactionsSorted.get(transactionIndex).isAfter(periodEndDate)) {
+                final SavingsAccountTransaction transaction = transactionsSorted.get(transactionIndex++);
+                if (transaction.isNotReversed() && !isBeforeTransactionWindow(transaction)) {
+                    if (transaction.getId() == null) { return; }
+                    transactionCount++;
+                    if (lastTransactionId == null || transaction.getId() > lastTransactionId) {
+                        lastTransactionId = transaction.getId();
+                    }
+                    runningBalance = transaction.getRunningBalance(this.currency);
+                }
+            }
+
+            cumulativeInterest = cumulativeInterest.plus(postingPeriod.getInterestEarned());
+            this.interestCheckpoints.add(SavingsAccountInterestCheckpoint.createFrom(this, periodEndDate, postingPeriod.closingBalance(),
+                    runningBalance, cumulativeInterest, postingPeriod.interestCarriedForward(), transactionCount, lastTransactionId,
+                    interestSettings));
+        }
+    }
+
     @SuppressWarnings("unused")
     protected BigDecimal getEffectiveInterestRateAsFraction(final MathContext mc, final LocalDate upToInterestCalculationDate) {
         return this.nominalAnnualInterestRate.divide(BigDecimal.valueOf(100l), mc);
@@ -619,6 +818,28 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         return orderedNonInterestPostingTransactions;
     }
 
+    /**
+     * @return the transactions after the checkpoint, along with the one whose
+     *         balance lasts past it.
+     */
+    private List<SavingsAccountTransaction> retreiveOrderedNonInterestPostingTransactionsAfter(
+            final SavingsAccountInterestCheckpoint interestCheckpoint) {
+        final List<SavingsAccountTransaction> orderedNonInterestPostingTransactions = retreiveOrderedNonInterestPostingTransactions();
+        if (interestCheckpoint == null) { return orderedNonInterestPostingTransactions; }
+
+        final LocalDate checkpointDate = interestCheckpoint.periodEndDate();
+        final List<SavingsAccountTransaction> transactionsAfterCheckpoint = new ArrayList<>();
+        for (int i = 0; i < orderedNonInterestPostingTransactions.size(); i++) {
+            final SavingsAccountTransaction transaction = orderedNonInterestPostingTransactions.get(i);
+            final boolean isLastBeforeCheckpoint = i + 1 == orderedNonInterestPostingTransactions.size()
+                    || orderedNonInterestPostingTransactions.get(i + 1).isAfter(checkpointDate);
+            if (transaction.isAfter(checkpointDate) || isLastBeforeCheckpoint) {
+                transactionsAfterCheckpoint.add(transaction);
+            }
+        }
+        return transactionsAfterCheckpoint;
+    }
+
     protected List<SavingsAccountTransaction> retreiveListOfTransactions() {
         final List<SavingsAccountTransaction> listOfTransactionsSorted = new ArrayList<>();
         listOfTransactionsSorted.addAll(this.transactions);
@@ -629,12 +850,30 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     }
 
     protected void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate) {
+        recalculateDailyBalances(openingAccountBalance, interestPostingUpToDate, null);
+    }
+
+    /**
+     * Only recalculates the transactions after the checkpoint, if any, or
+     * else after the transaction window.
+     */
+    private void recalculateDailyBalances(final Money openingAccountBalance, final LocalDate interestPostingUpToDate,
+            final SavingsAccountInterestCheckpoint interestCheckpoint) {
 
         Money runningBalance = openingAccountBalance.copy();
+        LocalDate checkpointDate = null;
+        final SavingsAccountInterestCheckpoint startCheckpoint = interestCheckpoint == null ? this.transactionWindow : interestCheckpoint;
+        if (startCheckpoint != null) {
+            runningBalance = startCheckpoint.runningBalance(this.currency);
+            checkpointDate = startCheckpoint.periodEndDate();
+        }
 
         List<SavingsAccountTransaction> accountTransactionsSorted = retreiveListOfTransactions();
         boolean isTransactionsModified = false;
         for (final SavingsAccountTransaction transaction : accountTransactionsSorted) {
+            if (checkpointDate != null && !transaction.isAfter(checkpointDate)) {
+                continue;
+            }
             if (transaction.isReversed()) {
                 transaction.zeroBalanceFields();
             } else {
@@ -681,17 +920,29 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         if (isTransactionsModified) {
             accountTransactionsSorted = retreiveListOfTransactions();
         }
-        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate);
+        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate, checkpointDate);
     }
 
     protected void resetAccountTransactionsEndOfDayBalances(final List<SavingsAccountTransaction> accountTransactionsSorted,
             final LocalDate interestPostingUpToDate) {
+        resetAccountTransactionsEndOfDayBalances(accountTransactionsSorted, interestPostingUpToDate, transactionWindowEndDate());
+    }
+
+    /**
+     * Stops at the last transaction on or before the checkpoint date, if any,
+     * as the ones before it are not affected.
+     */
+    private void resetAccountTransactionsEndOfDayBalances(final List<SavingsAccountTransaction> accountTransactionsSorted,
+            final LocalDate interestPostingUpToDate, final LocalDate checkpointDate) {
         // loop over transactions in reverse
         LocalDate endOfBalanceDate = interestPostingUpToDate;
         for (int i = accountTransactionsSorted.size() - 1; i >= 0; i--) {
             final SavingsAccountTransaction transaction = accountTransactionsSorted.get(i);
             if (transaction.isNotReversed() && !transaction.isInterestPostingAndNotReversed()) {
                 transaction.updateCumulativeBalanceAndDates(this.currency, endOfBalanceDate);
+                if (checkpointDate != null && !transaction.isAfter(checkpointDate)) {
+                    break;
+                }
                 // this transactions transaction date is end of balance date for
                 // previous transaction.
                 endOfBalanceDate = transaction.transactionLocalDate().minusDays(1);
@@ -860,9 +1111,12 @@ public class SavingsAccount extends AbstractPersistable<Long> {
 
     public void validateAccountBalanceDoesNotBecomeNegative(final BigDecimal transactionAmount, final boolean isException) {
         final List<SavingsAccountTransaction> transactionsSortedByDate = retreiveListOfTransactions();
-        Money runningBalance = Money.zero(this.currency);
+        Money runningBalance = openingRunningBalance();
         Money minRequiredBalance = minRequiredBalanceDerived(getCurrency());
         for (final SavingsAccountTransaction transaction : transactionsSortedByDate) {
+            if (isBeforeTransactionWindow(transaction)) {
+                continue;
+            }
             if (transaction.isNotReversed() && transaction.isCredit()) {
                 runningBalance = runningBalance.plus(transaction.getAmount(this.currency));
             } else if (transaction.isNotReversed() && transaction.isDebit()) {
@@ -885,9 +1139,12 @@ public class SavingsAccount extends AbstractPersistable<Long> {
     public void validateAccountBalanceDoesNotBecomeNegative(final String transactionAction) {
 
         final List<SavingsAccountTransaction> transactionsSortedByDate = retreiveListOfTransactions();
-        Money runningBalance = Money.zero(this.currency);
+        Money runningBalance = openingRunningBalance();
         Money minRequiredBalance = minRequiredBalanceDerived(getCurrency());
         for (final SavingsAccountTransaction transaction : transactionsSortedByDate) {
+            if (isBeforeTransactionWindow(transaction)) {
+                continue;
+            }
             if (transaction.isNotReversed() && transaction.isCredit()) {
                 runningBalance = runningBalance.plus(transaction.getAmount(this.currency));
             } else if (transaction.isNotReversed() && transaction.isDebit()) {
@@ -912,6 +1169,61 @@ public class SavingsAccount extends AbstractPersistable<Long> {
         }
     }
 
+    /**
+     * @return the interest checkpoints calculated with the current interest
+     *         settings which end before the given transaction date, latest
+     *         first; the transactions after any of them, if it is still valid,
+     *         are all an operation on that date needs.
+     */
+    public List<SavingsAccountInterestCheckpoint> findTransactionWindowCheckpointsBefore(final LocalDate transactionDate,
+            final MathContext mc, final LocalDate upToInterestCalculationDate, final boolean isSavingsInterestPostingAtCurrentPeriodEnd,
+            final Integer financialYearBeginningMonth) {
+
+        final List<SavingsAccountInterestCheckpoint> windowCheckpoints = new ArrayList<>();
+        if (transactionDate == null || isNotActive()) { return windowCheckpoints; }
+        final String interestSettings = interestCalculationSettings(mc, upToInterestCalculationDate,
+                isSavingsInterestPostingAtCurrentPeriodEnd, financialYearBeginningMonth);
+        if (interestSettings == null) { return windowCheckpoints; }
+
+        for (final SavingsAccountInterestCheckpoint checkpoint : this.interestCheckpoints) {
+            if (checkpoint.periodEndDate().isBefore(transactionDate) && checkpoint.isCalculatedWith(interestSettings)) {
+                windowCheckpoints.add(0, checkpoint);
+            }
+        }
+        return windowCheckpoints;
+    }
+
+    /**
+     * Called once only the transactions after the checkpoint, along with the
+     * last one whose balance lasts past it, have been loaded.
+     */
+    public void startTransactionWindow(final SavingsAccountInterestCheckpoint interestCheckpoint) {
+        this.transactionWindow = interestCheckpoint;
+        this.summary.startTransactionWindow(this.currency, this.savingsAccountTransactionSummaryWrapper, this.transactions);
+    }
+
+    public void endTransactionWindow() {
+        this.transactionWindow = null;
+        this.summary.endTransactionWindow();
+    }
+
+    /**
+     * @return the end of the interest checkpoint after which the transactions
+     *         were loaded, or null if they all were.
+     */
+    public LocalDate transactionWindowEndDate() {
+        return this.transactionWindow == null ? null : this.transactionWindow.periodEndDate();
+    }
+
+    private boolean isBeforeTransactionWindow(final SavingsAccountTransaction transaction) {
+        return this.transactionWindow != null && !transaction.isAfter(this.transactionWindow.periodEndDate());
+    }
+
+    private Money openingRunningBalance() {
+        if (this.transactionWindow == null) { return Money.zero(this.currency); }
+        return this.transactionWindow.runningBalance(this.currency);
+    }
+
     protected boolean isAccountLocked(final LocalDate transactionDate) {
         boolean isLocked = false;
         final boolean accountHasLockedInSetting = this.lockedInUntilDate != null;
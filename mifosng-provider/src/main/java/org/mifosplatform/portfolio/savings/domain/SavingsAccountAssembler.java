@@ -28,9 +28,12 @@ import static org.mifosplatform.portfolio.savings.SavingsApiConstants.submittedO
 import static org.mifosplatform.portfolio.savings.SavingsApiConstants.withdrawalFeeForTransfersParamName;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.List;
 import java.util.Set;
 
 import org.joda.time.LocalDate;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
 import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
@@ -53,7 +56,10 @@ import org.mifosplatform.portfolio.savings.SavingsPeriodFrequencyType;
 import org.mifosplatform.portfolio.savings.SavingsPostingInterestPeriodType;
 import org.mifosplatform.portfolio.savings.exception.SavingsProductNotFoundException;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.google.gson.JsonElement;
@@ -61,6 +67,12 @@ import com.google.gson.JsonElement;
 @Service
 public class SavingsAccountAssembler {
 
+    private final static Logger logger = LoggerFactory.getLogger(SavingsAccountAssembler.class);
+
+    public final static String TRANSACTION_WINDOW_ENABLED = "mifos.savings.transactionWindow.enabled";
+    @Value("${" + TRANSACTION_WINDOW_ENABLED + ":true}")
+    private boolean transactionWindowEnabled = true;
+
     private final SavingsAccountTransactionSummaryWrapper savingsAccountTransactionSummaryWrapper;
     private final SavingsHelper savingsHelper;
     private final ClientRepositoryWrapper clientRepository;
@@ -70,6 +82,7 @@ public class SavingsAccountAssembler {
     private final SavingsAccountRepositoryWrapper savingsAccountRepository;
     private final SavingsAccountChargeAssembler savingsAccountChargeAssembler;
     private final FromJsonHelper fromApiJsonHelper;
+    private final ConfigurationDomainService configurationDomainService;
 
     @Autowired
     public SavingsAccountAssembler(final SavingsAccountTransactionSummaryWrapper savingsAccountTransactionSummaryWrapper,
@@ -77,7 +90,8 @@ public class SavingsAccountAssembler {
             final StaffRepositoryWrapper staffRepository, final SavingsProductRepository savingProductRepository,
             final SavingsAccountRepositoryWrapper savingsAccountRepository,
             final SavingsAccountChargeAssembler savingsAccountChargeAssembler, final FromJsonHelper fromApiJsonHelper,
-            final AccountTransfersReadPlatformService accountTransfersReadPlatformService) {
+            final AccountTransfersReadPlatformService accountTransfersReadPlatformService,
+            final ConfigurationDomainService configurationDomainService) {
         this.savingsAccountTransactionSummaryWrapper = savingsAccountTransactionSummaryWrapper;
         this.clientRepository = clientRepository;
         this.groupRepository = groupRepository;
@@ -86,6 +100,7 @@ public class SavingsAccountAssembler {
         this.savingsAccountRepository = savingsAccountRepository;
         this.savingsAccountChargeAssembler = savingsAccountChargeAssembler;
         this.fromApiJsonHelper = fromApiJsonHelper;
+        this.configurationDomainService = configurationDomainService;
         savingsHelper = new SavingsHelper(accountTransfersReadPlatformService);
     }
 
@@ -253,11 +268,39 @@ public class SavingsAccountAssembler {
 
     public SavingsAccount assembleFrom(final Long savingsId) {
         final SavingsAccount account = this.savingsAccountRepository.findOneWithNotFoundDetection(savingsId);
+        endTransactionWindow(account);
         account.setHelpers(this.savingsAccountTransactionSummaryWrapper, this.savingsHelper);
         return account;
     }
 
+    /**
+     * Assembles the account for a transaction on the given date, loading only
+     * its transactions after the last valid interest checkpoint before that
+     * date, if any. Operations on older transactions, such as undoing or
+     * adjusting them, need the account from {@link #assembleFrom(Long)}.
+     *
+     * Accounts are otherwise always loaded with all their transactions, this
+     * is the only place the transaction window is applied.
+     */
+    public SavingsAccount assembleFrom(final Long savingsId, final LocalDate transactionDate) {
+        SavingsAccount account = null;
+        if (this.transactionWindowEnabled) {
+            account = this.savingsAccountRepository.findOneWithoutTransactions(savingsId);
+        }
+        if (account == null) {
+            // loaded earlier in the unit of work, either in full or windowed
+            account = this.savingsAccountRepository.findOneWithNotFoundDetection(savingsId);
+            account.setHelpers(this.savingsAccountTransactionSummaryWrapper, this.savingsHelper);
+        } else {
+            account.setHelpers(this.savingsAccountTransactionSummaryWrapper, this.savingsHelper);
+            loadTransactionWindow(account, transactionDate);
+        }
+        logTransactionsLoaded(account, transactionDate);
+        return account;
+    }
+
     public void setHelpers(final SavingsAccount account) {
+        endTransactionWindow(account);
         account.setHelpers(this.savingsAccountTransactionSummaryWrapper, this.savingsHelper);
     }
 
@@ -306,6 +349,49 @@ public class SavingsAccountAssembler {
     }
 
     public void assignSavingAccountHelpers(final SavingsAccount savingsAccount) {
+        endTransactionWindow(savingsAccount);
         savingsAccount.setHelpers(this.savingsAccountTransactionSummaryWrapper, this.savingsHelper);
     }
+
+    /**
+     * An account loaded earlier in the same unit of work for a transaction on
+     * a given date may be missing older transactions.
+     */
+    private void endTransactionWindow(final SavingsAccount account) {
+        if (account.transactionWindowEndDate() != null) {
+            this.savingsAccountRepository.reloadAllTransactions(account);
+            account.endTransactionWindow();
+        }
+    }
+
+    /**
+     * Loads the transactions of an account loaded without any.
+     */
+    private void loadTransactionWindow(final SavingsAccount account, final LocalDate transactionDate) {
+        final List<SavingsAccountInterestCheckpoint> windowCheckpoints = account.findTransactionWindowCheckpointsBefore(transactionDate,
+                MathContext.DECIMAL64, DateUtils.getLocalDateOfTenant(),
+                this.configurationDomainService.isSavingsInterestPostingAtCurrentPeriodEnd(),
+                this.configurationDomainService.retrieveFinancialYearBeginningMonth());
+        for (final SavingsAccountInterestCheckpoint checkpoint : windowCheckpoints) {
+            if (this.savingsAccountRepository.loadTransactionsAfter(account, checkpoint)) {
+                account.startTransactionWindow(checkpoint);
+                return;
+            }
+        }
+        this.savingsAccountRepository.reloadAllTransactions(account);
+    }
+
+    private void logTransactionsLoaded(final SavingsAccount account, final LocalDate transactionDate) {
+        if (logger.isDebugEnabled()) {
+            final LocalDate windowEndDate = account.transactionWindowEndDate();
+            final int transactionsLoaded = account.getTransactions().size();
+            if (windowEndDate == null) {
+                logger.debug("Savings account " + account.getId() + " loaded all " + transactionsLoaded
+                        + " transactions for a transaction on " + transactionDate);
+            } else {
+                logger.debug("Savings account " + account.getId() + " loaded " + transactionsLoaded + " transactions after "
+                        + windowEndDate + " for a transaction on " + transactionDate);
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.joda.time.LocalDate;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.springframework.data.jpa.domain.AbstractPersistable;
+
+/**
+ * Interest calculation state of a savings account at the end of a closed
+ * posting period whose interest has been posted.
+ * 
+ * A checkpoint only holds while the account's transactions up to the end of
+ * the period are the ones it was taken with (same number of active
+ * transactions, same latest transaction id) and the interest settings are
+ * unchanged; a backdated or undone transaction invalidates it.
+ */
+@Entity
+@Table(name = "m_savings_account_interest_checkpoint")
+public class SavingsAccountInterestCheckpoint extends AbstractPersistable<Long> {
+
+    @ManyToOne
+    @JoinColumn(name = "savings_account_id", nullable = false)
+    private SavingsAccount savingsAccount;
+
+    @Temporal(TemporalType.DATE)
+    @Column(name = "period_end_date", nullable = false)
+    private Date periodEndDate;
+
+    /**
+     * Balance of the transactions other than interest postings, as interest
+     * is calculated on it.
+     */
+    @Column(name = "closing_balance", scale = 6, precision = 19, nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(name = "running_balance", scale = 6, precision = 19, nullable = false)
+    private BigDecimal runningBalance;
+
+    @Column(name = "cumulative_interest", scale = 6, precision = 19, nullable = false)
+    private BigDecimal cumulativeInterest;
+
+    /**
+     * Interest earned in this and earlier periods which is compounded in the
+     * periods after.
+     */
+    @Column(name = "interest_carried_forward", scale = 6, precision = 19, nullable = false)
+    private BigDecimal interestCarriedForward;
+
+    @Column(name = "transaction_count", nullable = false)
+    private Integer transactionCount;
+
+    @Column(name = "last_transaction_id", nullable = true)
+    private Long lastTransactionId;
+
+    @Column(name = "interest_settings", length = 500, nullable = false)
+    private String interestSettings;
+
+    public static SavingsAccountInterestCheckpoint createFrom(final SavingsAccount savingsAccount, final LocalDate periodEndDate,
+            final Money closingBalance, final Money runningBalance, final Money cumulativeInterest,
+            final BigDecimal interestCarriedForward, final int transactionCount, final Long lastTransactionId,
+            final String interestSettings) {
+        return new SavingsAccountInterestCheckpoint(savingsAccount, periodEndDate.toDate(), closingBalance.getAmount(),
+                runningBalance.getAmount(), cumulativeInterest.getAmount(), interestCarriedForward, transactionCount,
+                lastTransactionId, interestSettings);
+    }
+
+    protected SavingsAccountInterestCheckpoint() {
+        //
+    }
+
+    private SavingsAccountInterestCheckpoint(final SavingsAccount savingsAccount, final Date periodEndDate,
+            final BigDecimal closingBalance, final BigDecimal runningBalance, final BigDecimal cumulativeInterest,
+            final BigDecimal interestCarriedForward, final Integer transactionCount, final Long lastTransactionId,
+            final String interestSettings) {
+        this.savingsAccount = savingsAccount;
+        this.periodEndDate = periodEndDate;
+        this.closingBalance = closingBalance;
+        this.runningBalance = runningBalance;
+        this.cumulativeInterest = cumulativeInterest;
+        this.interestCarriedForward = interestCarriedForward;
+        this.transactionCount = transactionCount;
+        this.lastTransactionId = lastTransactionId;
+        this.interestSettings = interestSettings;
+    }
+
+    public LocalDate periodEndDate() {
+        return new LocalDate(this.periodEndDate);
+    }
+
+    public Money closingBalance(final MonetaryCurrency currency) {
+        return Money.of(currency, this.closingBalance);
+    }
+
+    public Money runningBalance(final MonetaryCurrency currency) {
+        return Money.of(currency, this.runningBalance);
+    }
+
+    public Money cumulativeInterest(final MonetaryCurrency currency) {
+        return Money.of(currency, this.cumulativeInterest);
+    }
+
+    public BigDecimal interestCarriedForward() {
+        return this.interestCarriedForward;
+    }
+
+    public int transactionCount() {
+        return this.transactionCount;
+    }
+
+    public Long lastTransactionId() {
+        return this.lastTransactionId;
+    }
+
+    public boolean isCalculatedWith(final String interestSettings) {
+        return this.interestSettings.equals(interestSettings);
+    }
+
+    public boolean matchesTransactions(final int transactionCount, final Long lastTransactionId) {
+        return this.transactionCount.intValue() == transactionCount && ObjectUtils.equals(this.lastTransactionId, lastTransactionId);
+    }
+}
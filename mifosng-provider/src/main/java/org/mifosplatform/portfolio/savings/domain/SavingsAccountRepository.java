@@ -7,12 +7,14 @@ package org.mifosplatform.portfolio.savings.domain;
 
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-public interface SavingsAccountRepository extends JpaRepository<SavingsAccount, Long>, JpaSpecificationExecutor<SavingsAccount> {
+public interface SavingsAccountRepository extends JpaRepository<SavingsAccount, Long>, JpaSpecificationExecutor<SavingsAccount>,
+        SavingsAccountRepositoryCustom {
 
     @Query("from SavingsAccount s_acc where s_acc.client.id = :clientId")
     List<SavingsAccount> findSavingAccountByClientId(@Param("clientId") Long clientId);
@@ -20,6 +22,9 @@ public interface SavingsAccountRepository extends JpaRepository<SavingsAccount,
     @Query("from SavingsAccount s_acc where s_acc.status = :status")
     List<SavingsAccount> findSavingAccountByStatus(@Param("status") Integer status);
 
+    @Query("select sa.id from SavingsAccount sa where sa.status = :status and sa.id > :afterId order by sa.id")
+    List<Long> findSavingAccountIdsByStatusAfterId(@Param("status") Integer status, @Param("afterId") Long afterId, Pageable pageable);
+
     @Query("from SavingsAccount sa where sa.client.id = :clientId and sa.group.id = :groupId")
     List<SavingsAccount> findByClientIdAndGroupId(@Param("clientId") Long clientId, @Param("groupId") Long groupId);
 
@@ -0,0 +1,34 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+public interface SavingsAccountRepositoryCustom {
+
+    /**
+     * Loads the account with none of its transactions, to be followed by
+     * {@link #loadTransactionsAfter} or {@link #reloadAllTransactions}.
+     * 
+     * @return null when there is no such account or it has already been
+     *         loaded, with all its transactions, in the unit of work.
+     */
+    SavingsAccount findOneWithoutTransactions(Long savingsId);
+
+    /**
+     * Reloads the account from {@link #findOneWithoutTransactions} with only
+     * its transactions after the interest checkpoint, along with the last one
+     * whose balance lasts past it.
+     * 
+     * @return false, leaving the account without transactions, when the
+     *         checkpoint no longer matches the account's transactions.
+     */
+    boolean loadTransactionsAfter(SavingsAccount account, SavingsAccountInterestCheckpoint interestCheckpoint);
+
+    /**
+     * Flushes the account and reloads it, so that all its transactions are
+     * loaded once they are next used.
+     */
+    void reloadAllTransactions(SavingsAccount account);
+}
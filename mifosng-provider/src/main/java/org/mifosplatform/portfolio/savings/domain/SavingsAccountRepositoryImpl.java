@@ -0,0 +1,91 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.joda.time.LocalDate;
+import org.mifosplatform.portfolio.savings.SavingsAccountTransactionType;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public class SavingsAccountRepositoryImpl implements SavingsAccountRepositoryCustom {
+
+    // no transaction is dated after it
+    private static final Date END_OF_TIME = new LocalDate(9999, 12, 31).toDate();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public SavingsAccount findOneWithoutTransactions(final Long savingsId) {
+        final SessionImplementor session = this.entityManager.unwrap(SessionImplementor.class);
+        final EntityPersister persister = session.getFactory().getEntityPersister(SavingsAccount.class.getName());
+        if (session.getPersistenceContext().getEntity(session.generateEntityKey(savingsId, persister)) != null) { return null; }
+
+        enableTransactionWindow(END_OF_TIME, Long.valueOf(0));
+        try {
+            return this.entityManager.find(SavingsAccount.class, savingsId);
+        } finally {
+            disableTransactionWindow();
+        }
+    }
+
+    @Override
+    public boolean loadTransactionsAfter(final SavingsAccount account, final SavingsAccountInterestCheckpoint interestCheckpoint) {
+        final Object[] transactionsUpToCheckpoint = (Object[]) this.entityManager
+                .createQuery(
+                        "select count(t), max(t.id) from SavingsAccountTransaction t where t.savingsAccount.id = :savingsAccountId"
+                                + " and t.reversed = false and t.dateOf <= :checkpointDate")
+                .setParameter("savingsAccountId", account.getId())
+                .setParameter("checkpointDate", interestCheckpoint.periodEndDate().toDate()).getSingleResult();
+        final int transactionCount = ((Number) transactionsUpToCheckpoint[0]).intValue();
+        final Long lastTransactionId = (Long) transactionsUpToCheckpoint[1];
+        if (!interestCheckpoint.matchesTransactions(transactionCount, lastTransactionId)) { return false; }
+
+        // the transaction whose end of day balance runs into the window
+        @SuppressWarnings("unchecked")
+        final List<Long> openingTransactionIds = this.entityManager
+                .createQuery(
+                        "select t.id from SavingsAccountTransaction t where t.savingsAccount.id = :savingsAccountId"
+                                + " and t.reversed = false and t.typeOf <> :interestPosting and t.dateOf <= :checkpointDate"
+                                + " order by t.dateOf desc, t.createdDate desc, t.id desc")
+                .setParameter("savingsAccountId", account.getId())
+                .setParameter("interestPosting", SavingsAccountTransactionType.INTEREST_POSTING.getValue())
+                .setParameter("checkpointDate", interestCheckpoint.periodEndDate().toDate()).setMaxResults(1).getResultList();
+        final Long openingTransactionId = openingTransactionIds.isEmpty() ? Long.valueOf(0) : openingTransactionIds.get(0);
+
+        enableTransactionWindow(interestCheckpoint.periodEndDate().toDate(), openingTransactionId);
+        try {
+            this.entityManager.refresh(account);
+        } finally {
+            disableTransactionWindow();
+        }
+        return true;
+    }
+
+    @Override
+    public void reloadAllTransactions(final SavingsAccount account) {
+        this.entityManager.flush();
+        this.entityManager.refresh(account);
+    }
+
+    private void enableTransactionWindow(final Date windowEndDate, final Long openingTransactionId) {
+        this.entityManager.unwrap(Session.class).enableFilter(SavingsAccount.TRANSACTION_WINDOW_FILTER)
+                .setParameter("windowEndDate", windowEndDate).setParameter("openingTransactionId", openingTransactionId);
+    }
+
+    private void disableTransactionWindow() {
+        this.entityManager.unwrap(Session.class).disableFilter(SavingsAccount.TRANSACTION_WINDOW_FILTER);
+    }
+}
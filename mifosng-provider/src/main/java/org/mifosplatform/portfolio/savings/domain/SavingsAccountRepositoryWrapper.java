@@ -44,6 +44,18 @@ public class SavingsAccountRepositoryWrapper {
         return account;
     }
 
+    public SavingsAccount findOneWithoutTransactions(final Long savingsId) {
+        return this.repository.findOneWithoutTransactions(savingsId);
+    }
+
+    public boolean loadTransactionsAfter(final SavingsAccount account, final SavingsAccountInterestCheckpoint interestCheckpoint) {
+        return this.repository.loadTransactionsAfter(account, interestCheckpoint);
+    }
+
+    public void reloadAllTransactions(final SavingsAccount account) {
+        this.repository.reloadAllTransactions(account);
+    }
+
     public void save(final SavingsAccount account) {
         this.repository.save(account);
     }
@@ -57,6 +57,13 @@ public final class SavingsAccountSummary {
     @Transient
     private BigDecimal totalPenaltyChargesWaived = BigDecimal.ZERO;
 
+    /**
+     * Totals of the transactions which were not loaded with the account, when
+     * only its transactions after an interest checkpoint were.
+     */
+    @Transient
+    private SavingsAccountSummary totalsBeforeTransactionWindow;
+
     protected SavingsAccountSummary() {
         //
     }
@@ -74,14 +81,61 @@ public final class SavingsAccountSummary {
         this.totalFeeChargesWaived = wrapper.calculateTotalFeesChargeWaived(currency, transactions);
         this.totalPenaltyChargesWaived = wrapper.calculateTotalPenaltyChargeWaived(currency, transactions);
 
+        final SavingsAccountSummary before = this.totalsBeforeTransactionWindow;
+        if (before != null) {
+            this.totalDeposits = Money.of(currency, this.totalDeposits).plus(before.totalDeposits).getAmount();
+            this.totalWithdrawals = Money.of(currency, this.totalWithdrawals).plus(before.totalWithdrawals).getAmount();
+            this.totalInterestPosted = Money.of(currency, this.totalInterestPosted).plus(before.totalInterestPosted).getAmount();
+            this.totalWithdrawalFees = Money.of(currency, this.totalWithdrawalFees).plus(before.totalWithdrawalFees).getAmount();
+            this.totalAnnualFees = Money.of(currency, this.totalAnnualFees).plus(before.totalAnnualFees).getAmount();
+            this.totalFeeCharge = Money.of(currency, this.totalFeeCharge).plus(before.totalFeeCharge).getAmount();
+            this.totalPenaltyCharge = Money.of(currency, this.totalPenaltyCharge).plus(before.totalPenaltyCharge).getAmount();
+        }
+
         this.accountBalance = Money.of(currency, this.totalDeposits).plus(this.totalInterestPosted).minus(this.totalWithdrawals)
                 .minus(this.totalWithdrawalFees).minus(this.totalAnnualFees).minus(this.totalFeeCharge).minus(this.totalPenaltyCharge)
                 .getAmount();
     }
 
+    /**
+     * Keeps the totals of the account's transactions which are not in
+     * loadedTransactions, so that the summary can still be updated from the
+     * loaded ones.
+     */
+    public void startTransactionWindow(final MonetaryCurrency currency, final SavingsAccountTransactionSummaryWrapper wrapper,
+            final List<SavingsAccountTransaction> loadedTransactions) {
+
+        final SavingsAccountSummary loaded = new SavingsAccountSummary();
+        loaded.updateSummary(currency, wrapper, loadedTransactions);
+
+        final SavingsAccountSummary before = new SavingsAccountSummary();
+        before.totalDeposits = Money.of(currency, this.totalDeposits).minus(loaded.totalDeposits).getAmount();
+        before.totalWithdrawals = Money.of(currency, this.totalWithdrawals).minus(loaded.totalWithdrawals).getAmount();
+        before.totalInterestPosted = Money.of(currency, this.totalInterestPosted).minus(loaded.totalInterestPosted).getAmount();
+        before.totalWithdrawalFees = Money.of(currency, this.totalWithdrawalFees).minus(loaded.totalWithdrawalFees).getAmount();
+        before.totalAnnualFees = Money.of(currency, this.totalAnnualFees).minus(loaded.totalAnnualFees).getAmount();
+        before.totalFeeCharge = Money.of(currency, this.totalFeeCharge).minus(loaded.totalFeeCharge).getAmount();
+        before.totalPenaltyCharge = Money.of(currency, this.totalPenaltyCharge).minus(loaded.totalPenaltyCharge).getAmount();
+        this.totalsBeforeTransactionWindow = before;
+    }
+
+    public void endTransactionWindow() {
+        this.totalsBeforeTransactionWindow = null;
+    }
+
     public void updateFromInterestPeriodSummaries(final MonetaryCurrency currency, final List<PostingPeriod> allPostingPeriods) {
+        updateFromInterestPeriodSummaries(currency, Money.zero(currency), allPostingPeriods);
+    }
+
+    /**
+     * @param interestEarnedBefore
+     *            interest earned in the posting periods before
+     *            allPostingPeriods
+     */
+    public void updateFromInterestPeriodSummaries(final MonetaryCurrency currency, final Money interestEarnedBefore,
+            final List<PostingPeriod> allPostingPeriods) {
 
-        Money totalEarned = Money.zero(currency);
+        Money totalEarned = interestEarnedBefore;
 
         for (final PostingPeriod period : allPostingPeriods) {
             Money interestEarned = period.interest();
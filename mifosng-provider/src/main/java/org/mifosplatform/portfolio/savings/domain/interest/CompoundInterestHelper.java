@@ -28,12 +28,22 @@ public class CompoundInterestHelper {
      */
     public Money calculateInterestForAllPostingPeriods(final MonetaryCurrency currency, final List<PostingPeriod> allPeriods,
             LocalDate lockUntil, Boolean interestTransferEnabled) {
+        return calculateInterestForAllPostingPeriods(currency, allPeriods, lockUntil, interestTransferEnabled, BigDecimal.ZERO);
+    }
+
+    /**
+     * @param interestCarriedForward
+     *            - interest of the posting periods before allPeriods which is
+     *            compounded in them
+     */
+    public Money calculateInterestForAllPostingPeriods(final MonetaryCurrency currency, final List<PostingPeriod> allPeriods,
+            LocalDate lockUntil, Boolean interestTransferEnabled, final BigDecimal interestCarriedForward) {
 
         // sum up the 'rounded' values that are posted each posting period
         Money interestEarned = Money.zero(currency);
 
         // total interest earned in previous periods but not yet recognised
-        BigDecimal interestEarnedButNotPosted = BigDecimal.ZERO;
+        BigDecimal interestEarnedButNotPosted = interestCarriedForward;
         for (final PostingPeriod postingPeriod : allPeriods) {
 
             final BigDecimal interestEarnedThisPeriod = postingPeriod.calculateInterest(interestEarnedButNotPosted);
@@ -49,6 +59,7 @@ public class CompoundInterestHelper {
                     || (lockUntil != null && !postingPeriod.dateOfPostingTransaction().isAfter(lockUntil))) {
                 interestEarnedButNotPosted = interestEarnedButNotPosted.add(moneyToBePostedForPeriod.getAmount());
             }
+            postingPeriod.updateInterestCarriedForward(interestEarnedButNotPosted);
         }
 
         return interestEarned;
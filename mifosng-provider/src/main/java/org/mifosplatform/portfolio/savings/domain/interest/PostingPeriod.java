@@ -21,7 +21,6 @@ import org.mifosplatform.portfolio.savings.domain.SavingsAccountTransaction;
 
 public class PostingPeriod {
 
-    @SuppressWarnings("unused")
     private final LocalDateInterval periodInterval;
     private final MonetaryCurrency currency;
     private final SavingsCompoundingInterestPeriodType interestCompoundingType;
@@ -33,6 +32,8 @@ public class PostingPeriod {
     private final LocalDate dateOfPostingTransaction;
     private BigDecimal interestEarnedUnrounded;
     private Money interestEarnedRounded;
+    // interest compounded in the posting periods after this one
+    private BigDecimal interestCarriedForward;
 
     // opening/closing details
     private final Money openingBalance;
@@ -155,6 +156,18 @@ public class PostingPeriod {
         return this.openingBalance;
     }
 
+    public LocalDateInterval periodInterval() {
+        return this.periodInterval;
+    }
+
+    public BigDecimal interestCarriedForward() {
+        return this.interestCarriedForward;
+    }
+
+    public void updateInterestCarriedForward(final BigDecimal interestCarriedForward) {
+        this.interestCarriedForward = interestCarriedForward;
+    }
+
     public BigDecimal calculateInterest(final BigDecimal interestFromPreviousPostingPeriod) {
         BigDecimal interestEarned = BigDecimal.ZERO;
 
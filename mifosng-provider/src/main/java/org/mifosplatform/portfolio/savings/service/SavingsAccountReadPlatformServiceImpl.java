@@ -126,13 +126,13 @@ public class SavingsAccountReadPlatformServiceImpl implements SavingsAccountRead
         final String hierarchySearchString = hierarchy + "%";
 
         final StringBuilder sqlBuilder = new StringBuilder(200);
-        sqlBuilder.append("select SQL_CALC_FOUND_ROWS ");
+        sqlBuilder.append(PaginationHelper.selectSql(searchParameters.isTotalCountRequested()));
         sqlBuilder.append(this.savingAccountMapper.schema());
 
         sqlBuilder.append(" join m_office o on o.id = c.office_id");
         sqlBuilder.append(" where o.hierarchy like ?");
 
-        final Object[] objectArray = new Object[2];
+        final Object[] objectArray = new Object[3];
         objectArray[0] = hierarchySearchString;
         int arrayPos = 1;
 
@@ -148,6 +148,12 @@ public class SavingsAccountReadPlatformServiceImpl implements SavingsAccountRead
             arrayPos = arrayPos + 1;
         }
 
+        if (searchParameters.isPageTokenPassed()) {
+            sqlBuilder.append(" and ").append(searchParameters.pageTokenSql("sa.id"));
+            objectArray[arrayPos] = searchParameters.getPageTokenLastId();
+            arrayPos = arrayPos + 1;
+        }
+
         if (searchParameters.isOrderByRequested()) {
             sqlBuilder.append(" order by ").append(searchParameters.getOrderBy());
 
@@ -166,7 +172,7 @@ public class SavingsAccountReadPlatformServiceImpl implements SavingsAccountRead
         final Object[] finalObjectArray = Arrays.copyOf(objectArray, arrayPos);
         final String sqlCountRows = "SELECT FOUND_ROWS()";
         return this.paginationHelper.fetchPage(this.jdbcTemplate, sqlCountRows, sqlBuilder.toString(), finalObjectArray,
-                this.savingAccountMapper);
+                this.savingAccountMapper, searchParameters.isTotalCountRequested(), searchParameters.getPageTokenLimit());
     }
 
     @Override
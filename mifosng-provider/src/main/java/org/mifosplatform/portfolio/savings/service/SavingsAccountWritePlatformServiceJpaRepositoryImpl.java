@@ -16,12 +16,19 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.joda.time.LocalDate;
@@ -35,10 +42,16 @@ import org.mifosplatform.infrastructure.core.data.CommandProcessingResult;
 import org.mifosplatform.infrastructure.core.data.CommandProcessingResultBuilder;
 import org.mifosplatform.infrastructure.core.data.DataValidatorBuilder;
 import org.mifosplatform.infrastructure.core.exception.PlatformApiDataValidationException;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
 import org.mifosplatform.infrastructure.core.exception.PlatformServiceUnavailableException;
 import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
+import org.mifosplatform.infrastructure.jobs.data.JobRunCheckpointData;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunCheckpointService;
+import org.mifosplatform.infrastructure.jobs.service.JobRunDetailsHolder;
 import org.mifosplatform.infrastructure.security.service.PlatformSecurityContext;
 import org.mifosplatform.organisation.holiday.service.HolidayWritePlatformService;
 import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
@@ -85,14 +98,39 @@ import org.mifosplatform.portfolio.savings.exception.SavingsOfficerAssignmentExc
 import org.mifosplatform.portfolio.savings.exception.SavingsOfficerUnassignmentException;
 import org.mifosplatform.portfolio.savings.exception.TransactionUpdateNotAllowedException;
 import org.mifosplatform.useradministration.domain.AppUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.util.CollectionUtils;
 
 @Service
 public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements SavingsAccountWritePlatformService {
 
+    private final static Logger logger = LoggerFactory.getLogger(SavingsAccountWritePlatformServiceJpaRepositoryImpl.class);
+
+    /**
+     * Number of savings accounts whose interest is posted (and committed) in
+     * one transaction by the Post Interest For Savings job.
+     */
+    public final static String POST_INTEREST_CHUNK_SIZE = "mifos.jobs.postInterestForSavings.chunkSize";
+    @Value("${" + POST_INTEREST_CHUNK_SIZE + ":500}")
+    private int postInterestChunkSize = 500;
+
+    /**
+     * Number of chunks the Post Interest For Savings job processes in
+     * parallel.
+     */
+    public final static String POST_INTEREST_THREADS = "mifos.jobs.postInterestForSavings.threads";
+    @Value("${" + POST_INTEREST_THREADS + ":4}")
+    private int postInterestThreads = 4;
+
     private final PlatformSecurityContext context;
     private final SavingsAccountRepository savingAccountRepository;
     private final SavingsAccountDataValidator fromApiJsonDeserializer;
@@ -114,6 +152,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
     private final HolidayWritePlatformService holidayWritePlatformService;
     private final WorkingDaysWritePlatformService workingDaysWritePlatformService;
     private final ConfigurationDomainService configurationDomainService;
+    private final JpaTransactionManager transactionManager;
+    private final JobRunCheckpointService jobRunCheckpointService;
 
     @Autowired
     public SavingsAccountWritePlatformServiceJpaRepositoryImpl(final PlatformSecurityContext context,
@@ -132,7 +172,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
             final HolidayWritePlatformService holidayWritePlatformService,
             final WorkingDaysWritePlatformService workingDaysWritePlatformService,
             final SavingsAccountDataValidator fromApiJsonDeserializer, final SavingsAccountRepositoryWrapper savingsRepository,
-            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService) {
+            final StaffRepositoryWrapper staffRepository, final ConfigurationDomainService configurationDomainService,
+            final JpaTransactionManager transactionManager, final JobRunCheckpointService jobRunCheckpointService) {
         this.context = context;
         this.savingAccountRepository = savingAccountRepository;
         this.savingsAccountTransactionRepository = savingsAccountTransactionRepository;
@@ -154,6 +195,8 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         this.savingsRepository = savingsRepository;
         this.staffRepository = staffRepository;
         this.configurationDomainService = configurationDomainService;
+        this.transactionManager = transactionManager;
+        this.jobRunCheckpointService = jobRunCheckpointService;
     }
 
     @Transactional
@@ -221,15 +264,15 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
 
         this.savingsAccountTransactionDataValidator.validate(command);
 
-        final SavingsAccount account = this.savingAccountAssembler.assembleFrom(savingsId);
+        final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
+        final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
+
+        final SavingsAccount account = this.savingAccountAssembler.assembleFrom(savingsId, transactionDate);
         checkClientOrGroupActive(account);
 
         final Locale locale = command.extractLocale();
         final DateTimeFormatter fmt = DateTimeFormat.forPattern(command.dateFormat()).withLocale(locale);
 
-        final LocalDate transactionDate = command.localDateValueOfParameterNamed("transactionDate");
-        final BigDecimal transactionAmount = command.bigDecimalValueOfParameterNamed("transactionAmount");
-
         final Map<String, Object> changes = new LinkedHashMap<>();
         final PaymentDetail paymentDetail = this.paymentDetailWritePlatformService.createAndPersistPaymentDetail(command, changes);
         boolean isAccountTransfer = false;
@@ -267,7 +310,7 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         final Map<String, Object> changes = new LinkedHashMap<>();
         final PaymentDetail paymentDetail = this.paymentDetailWritePlatformService.createAndPersistPaymentDetail(command, changes);
 
-        final SavingsAccount account = this.savingAccountAssembler.assembleFrom(savingsId);
+        final SavingsAccount account = this.savingAccountAssembler.assembleFrom(savingsId, transactionDate);
         checkClientOrGroupActive(account);
 
         final boolean isAccountTransfer = false;
@@ -386,14 +429,187 @@ public class SavingsAccountWritePlatformServiceJpaRepositoryImpl implements Savi
         }
     }
 
+    /**
+     * Pages through the ids of all active savings accounts and posts their
+     * interest in chunks of {@link #POST_INTEREST_CHUNK_SIZE} accounts, each
+     * chunk in a transaction (and persistence context) of its own on one of
+     * {@link #POST_INTEREST_THREADS} worker threads.
+     *
+     * Every committed chunk leaves a checkpoint, so a run which is interrupted
+     * and started again on the same day continues with the remaining accounts.
+     * Timing of every chunk is reported with the job's run history.
+     */
     @CronTarget(jobName = JobName.POST_INTEREST_FOR_SAVINGS)
     @Override
-    public void postInterestForAccounts() {
-        final List<SavingsAccount> savingsAccounts = this.savingAccountRepository.findSavingAccountByStatus(SavingsAccountStatusType.ACTIVE
-                .getValue());
-        for (final SavingsAccount savingsAccount : savingsAccounts) {
-            this.savingAccountAssembler.assignSavingAccountHelpers(savingsAccount);
-            postInterest(savingsAccount);
+    public void postInterestForAccounts() throws JobExecutionException {
+        final long startTime = System.currentTimeMillis();
+        final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+        final LocalDate runDate = DateUtils.getLocalDateOfTenant();
+        final List<JobRunCheckpointData> checkpoints = this.jobRunCheckpointService.retrieveCheckpointsOfRun(
+                JobName.POST_INTEREST_FOR_SAVINGS, runDate);
+
+        final int threads = Math.max(this.postInterestThreads, 1);
+        final int chunkSize = Math.max(this.postInterestChunkSize, 1);
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // limits the chunks (ids) waiting for a worker
+        final Semaphore pendingChunks = new Semaphore(threads * 2);
+        final Map<Integer, String> chunkDetails = new ConcurrentSkipListMap<>();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+        final AtomicInteger failedAccounts = new AtomicInteger();
+
+        int chunkNumber = 0;
+        int accountCount = 0;
+        int skippedAccountCount = 0;
+        try {
+            Long afterId = Long.valueOf(0);
+            while (true) {
+                final List<Long> accountIds = this.savingAccountRepository.findSavingAccountIdsByStatusAfterId(
+                        SavingsAccountStatusType.ACTIVE.getValue(), afterId, new PageRequest(0, chunkSize));
+                if (accountIds.isEmpty()) {
+                    break;
+                }
+                afterId = accountIds.get(accountIds.size() - 1);
+
+                final List<Long> pendingAccountIds = withoutCheckpointedIds(accountIds, checkpoints);
+                skippedAccountCount += accountIds.size() - pendingAccountIds.size();
+                if (pendingAccountIds.isEmpty()) {
+                    continue;
+                }
+                accountCount += pendingAccountIds.size();
+                chunkNumber++;
+
+                pendingChunks.acquire();
+                workers.execute(new PostInterestChunk(tenant, runDate, chunkNumber, pendingAccountIds, pendingChunks, chunkDetails,
+                        errors, failedAccounts));
+            }
+            workers.shutdown();
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.info("Waiting for interest posting of savings accounts to finish");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            errors.add("interest posting of savings accounts was interrupted");
+        } finally {
+            workers.shutdownNow();
+        }
+
+        for (final String chunkDetail : chunkDetails.values()) {
+            JobRunDetailsHolder.append(chunkDetail);
+        }
+        JobRunDetailsHolder.append("Posted interest for " + accountCount + " savings accounts in " + chunkNumber + " chunks on "
+                + threads + " threads in " + (System.currentTimeMillis() - startTime) + " ms, " + failedAccounts.get()
+                + " accounts failed, " + skippedAccountCount + " accounts were already done by an earlier run");
+
+        if (!errors.isEmpty()) {
+            final StringBuilder sb = new StringBuilder();
+            for (final String error : errors) {
+                sb.append(error);
+            }
+            throw new JobExecutionException(sb.toString());
+        }
+        this.jobRunCheckpointService.clearCheckpointsOfRun(JobName.POST_INTEREST_FOR_SAVINGS, runDate);
+    }
+
+    private static List<Long> withoutCheckpointedIds(final List<Long> ids, final List<JobRunCheckpointData> checkpoints) {
+        if (checkpoints.isEmpty()) { return ids; }
+        final List<Long> remainingIds = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            boolean checkpointed = false;
+            for (final JobRunCheckpointData checkpoint : checkpoints) {
+                if (checkpoint.covers(id)) {
+                    checkpointed = true;
+                    break;
+                }
+            }
+            if (!checkpointed) {
+                remainingIds.add(id);
+            }
+        }
+        return remainingIds;
+    }
+
+    /**
+     * Posts interest for the accounts in one transaction; the checkpoint, when
+     * asked for, is committed together with the postings.
+     */
+    private void postInterestInTransaction(final List<Long> accountIds, final LocalDate runDate, final boolean recordCheckpoint) {
+        final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            for (final Long accountId : accountIds) {
+                final SavingsAccount account = this.savingAccountAssembler.assembleFrom(accountId);
+                // could have been closed since its id was read
+                if (account.isActive()) {
+                    postInterest(account);
+                }
+            }
+            if (recordCheckpoint) {
+                this.jobRunCheckpointService.recordCheckpoint(JobName.POST_INTEREST_FOR_SAVINGS, runDate, accountIds.get(0),
+                        accountIds.get(accountIds.size() - 1));
+            }
+        } catch (final RuntimeException e) {
+            this.transactionManager.rollback(transactionStatus);
+            throw e;
+        }
+        this.transactionManager.commit(transactionStatus);
+    }
+
+    private final class PostInterestChunk implements Runnable {
+
+        private final MifosPlatformTenant tenant;
+        private final LocalDate runDate;
+        private final int chunkNumber;
+        private final List<Long> accountIds;
+        private final Semaphore pendingChunks;
+        private final Map<Integer, String> chunkDetails;
+        private final List<String> errors;
+        private final AtomicInteger failedAccounts;
+
+        PostInterestChunk(final MifosPlatformTenant tenant, final LocalDate runDate, final int chunkNumber, final List<Long> accountIds,
+                final Semaphore pendingChunks, final Map<Integer, String> chunkDetails, final List<String> errors,
+                final AtomicInteger failedAccounts) {
+            this.tenant = tenant;
+            this.runDate = runDate;
+            this.chunkNumber = chunkNumber;
+            this.accountIds = accountIds;
+            this.pendingChunks = pendingChunks;
+            this.chunkDetails = chunkDetails;
+            this.errors = errors;
+            this.failedAccounts = failedAccounts;
+        }
+
+        @Override
+        public void run() {
+            final long startTime = System.currentTimeMillis();
+            int failed = 0;
+            ThreadLocalContextUtil.setTenant(this.tenant);
+            try {
+                try {
+                    postInterestInTransaction(this.accountIds, this.runDate, true);
+                } catch (final Exception e) {
+                    // find the failing accounts, the others still get their
+                    // interest; no checkpoint so that a re-run retries them
+                    for (final Long accountId : this.accountIds) {
+                        try {
+                            postInterestInTransaction(Collections.singletonList(accountId), this.runDate, false);
+                        } catch (final Exception accountException) {
+                            failed++;
+                            Throwable realCause = accountException;
+                            if (accountException.getCause() != null) {
+                                realCause = accountException.getCause();
+                            }
+                            this.errors.add("failed to post interest for savings account with id " + accountId + " with message "
+                                    + realCause.getMessage());
+                        }
+                    }
+                }
+            } finally {
+                ThreadLocalContextUtil.clearTenant();
+                this.failedAccounts.addAndGet(failed);
+                this.chunkDetails.put(this.chunkNumber, "Chunk " + this.chunkNumber + ": savings accounts " + this.accountIds.get(0)
+                        + " to " + this.accountIds.get(this.accountIds.size() - 1) + " (" + this.accountIds.size() + " accounts, "
+                        + failed + " failed) in " + (System.currentTimeMillis() - startTime) + " ms");
+                this.pendingChunks.release();
+            }
         }
     }
 
@@ -11,6 +11,8 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
+import javax.sql.DataSource;
+
 import org.joda.time.LocalDate;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
@@ -22,6 +24,8 @@ import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
 import org.mifosplatform.infrastructure.jobs.annotation.CronTarget;
 import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
 import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunDetailsHolder;
+import org.mifosplatform.portfolio.loanaccount.service.LoanSummaryDirtyTrackingService;
 import org.mifosplatform.portfolio.savings.DepositAccountType;
 import org.mifosplatform.portfolio.savings.DepositAccountUtils;
 import org.mifosplatform.portfolio.savings.data.DepositAccountData;
@@ -33,9 +37,15 @@ import org.mifosplatform.portfolio.savings.service.SavingsAccountWritePlatformSe
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 @Service(value = "scheduledJobRunnerService")
 public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService {
@@ -44,32 +54,98 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
     private final DateTimeFormatter formatter = DateTimeFormat.forPattern("yyyy-MM-dd");
     private final DateTimeFormatter formatterWithTime = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm:ss");
 
+    /**
+     * Number of loans whose summary is recomputed in one transaction.
+     */
+    public final static String LOAN_SUMMARY_CHUNK_SIZE = "mifos.jobs.updateLoanSummary.chunkSize";
+    @Value("${" + LOAN_SUMMARY_CHUNK_SIZE + ":500}")
+    private int loanSummaryChunkSize = 500;
+
+    /**
+     * Recompute the summary of every disbursed loan instead of only the loans
+     * changed since the last run, e.g. to repair summaries after changes made
+     * directly in the database.
+     */
+    public final static String LOAN_SUMMARY_FULL_REBUILD = "mifos.jobs.updateLoanSummary.fullRebuild";
+    @Value("${" + LOAN_SUMMARY_FULL_REBUILD + ":false}")
+    private boolean loanSummaryFullRebuild = false;
+
     private final RoutingDataSourceServiceFactory dataSourceServiceFactory;
     private final SavingsAccountWritePlatformService savingsAccountWritePlatformService;
     private final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService;
     private final DepositAccountReadPlatformService depositAccountReadPlatformService;
     private final DepositAccountWritePlatformService depositAccountWritePlatformService;
+    private final LoanSummaryDirtyTrackingService loanSummaryDirtyTrackingService;
+    private final JpaTransactionManager transactionManager;
 
     @Autowired
     public ScheduledJobRunnerServiceImpl(final RoutingDataSourceServiceFactory dataSourceServiceFactory,
             final SavingsAccountWritePlatformService savingsAccountWritePlatformService,
             final SavingsAccountChargeReadPlatformService savingsAccountChargeReadPlatformService,
             final DepositAccountReadPlatformService depositAccountReadPlatformService,
-            final DepositAccountWritePlatformService depositAccountWritePlatformService) {
+            final DepositAccountWritePlatformService depositAccountWritePlatformService,
+            final LoanSummaryDirtyTrackingService loanSummaryDirtyTrackingService, final JpaTransactionManager transactionManager) {
         this.dataSourceServiceFactory = dataSourceServiceFactory;
         this.savingsAccountWritePlatformService = savingsAccountWritePlatformService;
         this.savingsAccountChargeReadPlatformService = savingsAccountChargeReadPlatformService;
         this.depositAccountReadPlatformService = depositAccountReadPlatformService;
         this.depositAccountWritePlatformService = depositAccountWritePlatformService;
+        this.loanSummaryDirtyTrackingService = loanSummaryDirtyTrackingService;
+        this.transactionManager = transactionManager;
     }
 
-    @Transactional
     @Override
     @CronTarget(jobName = JobName.UPDATE_LOAN_SUMMARY)
     public void updateLoanSummaryDetails() {
 
-        final JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource());
+        final DataSource dataSource = this.dataSourceServiceFactory.determineDataSourceService().retrieveDataSource();
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        final NamedParameterJdbcTemplate namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        final String updateSql = loanSummaryUpdateSql();
+
+        int loansUpdated = 0;
+        int result = 0;
+        Long lastLoanId = Long.valueOf(0);
+        while (true) {
+            final List<Long> loanIds;
+            if (this.loanSummaryFullRebuild) {
+                loanIds = jdbcTemplate.queryForList(
+                        "select id from m_loan where disbursedon_date is not null and id > ? order by id limit ?", Long.class,
+                        lastLoanId, this.loanSummaryChunkSize);
+            } else {
+                loanIds = this.loanSummaryDirtyTrackingService.retrieveLoansForSummaryUpdate(lastLoanId, this.loanSummaryChunkSize);
+            }
+            if (loanIds.isEmpty()) {
+                break;
+            }
+
+            // every chunk in its own (short) transaction, a failure only
+            // leaves the loans of this chunk marked for the next run
+            final TransactionStatus transactionStatus = this.transactionManager.getTransaction(new DefaultTransactionDefinition());
+            try {
+                this.loanSummaryDirtyTrackingService.clearLoansForSummaryUpdate(loanIds);
+                result += namedParameterJdbcTemplate.update(updateSql, new MapSqlParameterSource("loanIds", loanIds));
+            } catch (final RuntimeException e) {
+                this.transactionManager.rollback(transactionStatus);
+                throw e;
+            }
+            this.transactionManager.commit(transactionStatus);
+
+            loansUpdated += loanIds.size();
+            lastLoanId = loanIds.get(loanIds.size() - 1);
+        }
+
+        final String runDetails = (this.loanSummaryFullRebuild ? "Full rebuild: " : "") + "Summary recomputed for " + loansUpdated
+                + " loans, results affected by update: " + result;
+        JobRunDetailsHolder.append(runDetails);
+        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": " + runDetails);
+    }
 
+    /**
+     * @return update of the derived summary columns of the loans given as
+     *         <code>:loanIds</code> from their repayment schedule.
+     */
+    private static String loanSummaryUpdateSql() {
         final StringBuilder updateSqlBuilder = new StringBuilder(900);
         updateSqlBuilder.append("update m_loan ");
         updateSqlBuilder.append("join (");
@@ -93,7 +169,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder.append("SUM(IFNULL(mr.penalty_charges_writtenoff_derived,0)) as penalty_charges_writtenoff_derived ");
         updateSqlBuilder.append(" FROM m_loan ml ");
         updateSqlBuilder.append("INNER JOIN m_loan_repayment_schedule mr on mr.loan_id = ml.id ");
-        updateSqlBuilder.append("WHERE ml.disbursedon_date is not null ");
+        updateSqlBuilder.append("WHERE ml.disbursedon_date is not null and ml.id in (:loanIds) ");
         updateSqlBuilder.append("GROUP BY ml.id ");
         updateSqlBuilder.append(") x on x.loanId = m_loan.id ");
 
@@ -141,9 +217,7 @@ public class ScheduledJobRunnerServiceImpl implements ScheduledJobRunnerService
         updateSqlBuilder
                 .append(" (x.penalty_charges_charged_derived - (x.penalty_charges_repaid_derived + x.penalty_charges_waived_derived + x.penalty_charges_writtenoff_derived))");
 
-        final int result = jdbcTemplate.update(updateSqlBuilder.toString());
-
-        logger.info(ThreadLocalContextUtil.getTenant().getName() + ": Results affected by update: " + result);
+        return updateSqlBuilder.toString();
     }
 
     @Transactional
@@ -37,15 +37,20 @@ public class TemplateMergeService {
 
     // private final FromJsonHelper fromApiJsonHelper;
     private Map<String, Object> scopes;
-    private String authToken;
+    private String authorization;
 
     // @Autowired
     // public TemplateMergeService(final FromJsonHelper fromApiJsonHelper) {
     // this.fromApiJsonHelper = fromApiJsonHelper;
     // }
 
-    public void setAuthToken(final String authToken) {
-        this.authToken = authToken;
+    /**
+     * @param authorization
+     *            authorization header value the mapper URLs are read with,
+     *            the credentials of the current user are used if null.
+     */
+    public void setAuthorization(final String authorization) {
+        this.authorization = authorization;
     }
 
     public String compile(final Template template, final Map<String, Object> scopes) throws MalformedURLException, IOException {
@@ -109,7 +114,7 @@ public class TemplateMergeService {
 
     private HttpURLConnection getConnection(final String url) {
 
-        if (this.authToken == null) {
+        if (this.authorization == null) {
             final String name = SecurityContextHolder.getContext().getAuthentication().getName();
             final String password = SecurityContextHolder.getContext().getAuthentication().getCredentials().toString();
 
@@ -125,8 +130,8 @@ public class TemplateMergeService {
         HttpURLConnection connection = null;
         try {
             connection = (HttpURLConnection) new URL(url).openConnection();
-            if (this.authToken != null) {
-                connection.setRequestProperty("Authorization", "Basic " + this.authToken);
+            if (this.authorization != null) {
+                connection.setRequestProperty("Authorization", this.authorization);
             }
             TrustModifier.relaxHostChecking(connection);
 
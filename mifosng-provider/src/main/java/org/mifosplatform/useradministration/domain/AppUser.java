@@ -24,6 +24,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 
 import org.mifosplatform.infrastructure.core.api.JsonCommand;
@@ -94,6 +95,13 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
     @JoinTable(name = "m_appuser_role", joinColumns = @JoinColumn(name = "appuser_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles;
 
+    /**
+     * Compiled from the roles on the first permission check, the user itself
+     * is cached across requests.
+     */
+    @Transient
+    private transient volatile AppUserPermissions permissions;
+
     @Column(name = "last_time_password_updated")
     @Temporal(TemporalType.DATE)
     private Date lastTimePasswordUpdated;
@@ -187,6 +195,7 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
         if (!allRoles.isEmpty()) {
             this.roles.clear();
             this.roles = allRoles;
+            this.permissions = null;
         }
     }
 
@@ -451,27 +460,16 @@ public class AppUser extends AbstractPersistable<Long> implements PlatformUser {
     }
 
     private boolean hasPermissionTo(final String permissionCode) {
-        boolean hasPermission = hasAllFunctionsPermission();
-        if (!hasPermission) {
-            for (final Role role : this.roles) {
-                if (role.hasPermissionTo(permissionCode)) {
-                    hasPermission = true;
-                    break;
-                }
-            }
-        }
-        return hasPermission;
+        return permissions().hasPermissionTo(permissionCode);
     }
 
-    private boolean hasAllFunctionsPermission() {
-        boolean match = false;
-        for (final Role role : this.roles) {
-            if (role.hasPermissionTo("ALL_FUNCTIONS")) {
-                match = true;
-                break;
-            }
+    private AppUserPermissions permissions() {
+        AppUserPermissions permissions = this.permissions;
+        if (permissions == null) {
+            permissions = AppUserPermissions.of(this.roles);
+            this.permissions = permissions;
         }
-        return match;
+        return permissions;
     }
 
     public boolean hasIdOf(final Long userId) {
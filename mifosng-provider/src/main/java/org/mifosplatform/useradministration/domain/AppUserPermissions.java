@@ -0,0 +1,77 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.useradministration.domain;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The permission codes granted to a user through its roles, as bits indexed
+ * by a table of all permission codes seen so far (shared by all tenants, as
+ * permission codes are the same for every tenant).
+ *
+ * Permission codes are matched ignoring case, as {@link Permission#hasCode}
+ * does. Instances are immutable; they are built once for the roles of an
+ * {@link AppUser} and live as long as that user instance, which is cached
+ * across requests until users, roles or permissions change.
+ */
+final class AppUserPermissions {
+
+    private static final ConcurrentMap<String, Integer> permissionCodeIndexes = new ConcurrentHashMap<>();
+
+    private final BitSet grantedPermissionCodes;
+    private final boolean allFunctions;
+
+    public static AppUserPermissions of(final Collection<Role> roles) {
+        final BitSet grantedPermissionCodes = new BitSet();
+        for (final Role role : roles) {
+            for (final Permission permission : role.getPermissions()) {
+                grantedPermissionCodes.set(indexOf(permission.getCode()));
+            }
+        }
+        return new AppUserPermissions(grantedPermissionCodes);
+    }
+
+    private AppUserPermissions(final BitSet grantedPermissionCodes) {
+        this.grantedPermissionCodes = grantedPermissionCodes;
+        this.allFunctions = isGranted("ALL_FUNCTIONS");
+    }
+
+    /**
+     * @return true if the user has the permission or the ALL_FUNCTIONS
+     *         permission.
+     */
+    public boolean hasPermissionTo(final String permissionCode) {
+        return this.allFunctions || isGranted(permissionCode);
+    }
+
+    private boolean isGranted(final String permissionCode) {
+        if (permissionCode == null) { return false; }
+        final Integer index = permissionCodeIndexes.get(normalized(permissionCode));
+        return index != null && this.grantedPermissionCodes.get(index);
+    }
+
+    private static int indexOf(final String permissionCode) {
+        final String code = normalized(permissionCode);
+        final Integer index = permissionCodeIndexes.get(code);
+        if (index != null) { return index; }
+
+        synchronized (permissionCodeIndexes) {
+            final Integer existingIndex = permissionCodeIndexes.get(code);
+            if (existingIndex != null) { return existingIndex; }
+            final int newIndex = permissionCodeIndexes.size();
+            permissionCodeIndexes.put(code, newIndex);
+            return newIndex;
+        }
+    }
+
+    private static String normalized(final String permissionCode) {
+        return permissionCode.toUpperCase(Locale.ENGLISH);
+    }
+}
@@ -178,6 +178,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
     /**
      * Method for Delete Role
      */
+    @Caching(evict = { @CacheEvict(value = "users", allEntries = true), @CacheEvict(value = "usersByUsername", allEntries = true) })
     @Transactional
     @Override
     public CommandProcessingResult deleteRole(Long roleId) {
@@ -206,6 +207,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
     /**
      * Method for disabling the role
      */
+    @Caching(evict = { @CacheEvict(value = "users", allEntries = true), @CacheEvict(value = "usersByUsername", allEntries = true) })
     @Transactional
     @Override
     public CommandProcessingResult disableRole(Long roleId) {
@@ -239,6 +241,7 @@ public class RoleWritePlatformServiceJpaRepositoryImpl implements RoleWritePlatf
     /**
      * Method for Enabling the role
      */
+    @Caching(evict = { @CacheEvict(value = "users", allEntries = true), @CacheEvict(value = "usersByUsername", allEntries = true) })
     @Transactional
     @Override
     public CommandProcessingResult enableRole(Long roleId) {
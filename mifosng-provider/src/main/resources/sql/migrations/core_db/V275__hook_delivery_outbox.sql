@@ -0,0 +1,23 @@
+-- -----------------------------------------------------
+-- Table `m_hook_delivery`
+-- Outbox of hook notifications, written in the same transaction as the
+-- command that triggered them and drained asynchronously.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `m_hook_delivery` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `hook_id` BIGINT(20) NOT NULL,
+  `entity_name` VARCHAR(45) NOT NULL,
+  `action_name` VARCHAR(45) NOT NULL,
+  `payload` MEDIUMTEXT NOT NULL,
+  `status_enum` SMALLINT(5) NOT NULL DEFAULT 100,
+  `attempts` INT(11) NOT NULL DEFAULT 0,
+  `next_attempt_time` DATETIME NOT NULL,
+  `last_error` VARCHAR(500) NULL DEFAULT NULL,
+  `created_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `IX_m_hook_delivery_status_next_attempt` (`status_enum`, `next_attempt_time`),
+  CONSTRAINT `FK_m_hook_delivery_m_hook`
+    FOREIGN KEY (`hook_id`)
+    REFERENCES `m_hook` (`id`)
+    ON DELETE CASCADE)
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,18 @@
+ALTER TABLE `job_run_history`
+	ADD COLUMN `run_details` MEDIUMTEXT NULL DEFAULT NULL AFTER `error_log`;
+
+-- -----------------------------------------------------
+-- Table `job_run_checkpoint`
+-- Ranges of entity ids already committed by a chunked job on a given run
+-- date, used to resume an interrupted run where it stopped.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `job_run_checkpoint` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `job_name` VARCHAR(100) NOT NULL,
+  `run_date` DATE NOT NULL,
+  `from_id` BIGINT(20) NOT NULL,
+  `to_id` BIGINT(20) NOT NULL,
+  `created_date` DATETIME NOT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE INDEX `UQ_job_run_checkpoint` (`job_name`, `run_date`, `from_id`))
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
@@ -0,0 +1,2 @@
+ALTER TABLE `job_run_history`
+	ADD COLUMN `queue_wait_millis` BIGINT(20) NULL DEFAULT NULL AFTER `start_time`;
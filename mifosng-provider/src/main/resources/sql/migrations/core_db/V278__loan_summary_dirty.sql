@@ -0,0 +1,13 @@
+-- -----------------------------------------------------
+-- Table `m_loan_summary_dirty`
+-- Loans changed since the last run of the Update loan Summary job. No foreign
+-- key to m_loan, so that marked loans can still be deleted.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `m_loan_summary_dirty` (
+  `loan_id` BIGINT(20) NOT NULL,
+  PRIMARY KEY (`loan_id`))
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
+
+-- the first run after the upgrade recomputes the summary of every disbursed loan
+INSERT INTO `m_loan_summary_dirty` (`loan_id`)
+SELECT `id` FROM `m_loan` WHERE `disbursedon_date` IS NOT NULL;
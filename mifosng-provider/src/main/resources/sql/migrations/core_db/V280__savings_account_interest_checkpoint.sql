@@ -0,0 +1,21 @@
+-- -----------------------------------------------------
+-- Table `m_savings_account_interest_checkpoint`
+-- Interest calculation state at the end of each closed posting period of a
+-- savings account, so that recalculation can start from the last one still
+-- matching the account's transactions and interest settings.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `m_savings_account_interest_checkpoint` (
+  `id` BIGINT(20) NOT NULL AUTO_INCREMENT,
+  `savings_account_id` BIGINT(20) NOT NULL,
+  `period_end_date` DATE NOT NULL,
+  `closing_balance` DECIMAL(19,6) NOT NULL,
+  `running_balance` DECIMAL(19,6) NOT NULL,
+  `cumulative_interest` DECIMAL(19,6) NOT NULL,
+  `interest_carried_forward` DECIMAL(19,6) NOT NULL,
+  `transaction_count` INT(11) NOT NULL,
+  `last_transaction_id` BIGINT(20) NULL DEFAULT NULL,
+  `interest_settings` VARCHAR(500) NOT NULL,
+  PRIMARY KEY (`id`),
+  INDEX `IX_savings_interest_checkpoint_account` (`savings_account_id`),
+  CONSTRAINT `FK_savings_interest_checkpoint_account` FOREIGN KEY (`savings_account_id`) REFERENCES `m_savings_account` (`id`) ON DELETE CASCADE)
+ENGINE = InnoDB DEFAULT CHARSET=utf8;
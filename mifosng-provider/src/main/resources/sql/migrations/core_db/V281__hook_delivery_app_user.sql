@@ -0,0 +1,5 @@
+-- the user whose command triggered a hook notification; retries are sent with
+-- a short lived token issued to that user, no credentials are stored
+ALTER TABLE `m_hook_delivery`
+	ADD COLUMN `app_user_id` BIGINT(20) NULL DEFAULT NULL AFTER `payload`,
+	ADD CONSTRAINT `FK_m_hook_delivery_m_appuser` FOREIGN KEY (`app_user_id`) REFERENCES `m_appuser` (`id`);
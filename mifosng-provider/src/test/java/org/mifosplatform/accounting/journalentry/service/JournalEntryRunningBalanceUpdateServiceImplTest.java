@@ -0,0 +1,250 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.accounting.glaccount.domain.GLAccountType;
+import org.mifosplatform.accounting.journalentry.data.JournalEntryDataValidator;
+import org.mifosplatform.accounting.journalentry.domain.JournalEntryType;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.CountingTransactionManager;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.organisation.office.domain.OfficeRepository;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class JournalEntryRunningBalanceUpdateServiceImplTest {
+
+    private static final long ASSET_ACCOUNT = 10;
+    private static final long LIABILITY_ACCOUNT = 20;
+
+    private static final Date FIRST_DAY = new LocalDate(2014, 6, 1).toDate();
+    private static final Date SECOND_DAY = new LocalDate(2014, 6, 2).toDate();
+    private static final Date THIRD_DAY = new LocalDate(2014, 6, 3).toDate();
+
+    /**
+     * Journal entries, ids are not in entry date order; in (entry date, id)
+     * order they are 1, 2, 4, 5 and 3.
+     */
+    private static final List<Entry> JOURNAL = Arrays.asList( //
+            new Entry(1, FIRST_DAY, 1, ASSET_ACCOUNT, JournalEntryType.DEBIT, "5"), //
+            new Entry(2, SECOND_DAY, 2, ASSET_ACCOUNT, JournalEntryType.CREDIT, "3"), //
+            new Entry(3, THIRD_DAY, 1, ASSET_ACCOUNT, JournalEntryType.DEBIT, "2"), //
+            new Entry(4, SECOND_DAY, 1, LIABILITY_ACCOUNT, JournalEntryType.CREDIT, "7"), //
+            new Entry(5, SECOND_DAY, 1, ASSET_ACCOUNT, JournalEntryType.DEBIT, "1"));
+
+    /** Updates in (entry date, id) order: organization balance, office balance and id. */
+    private static final Object[][] UPDATES_FROM_FIRST_DAY = { //
+            { new BigDecimal("105"), new BigDecimal("45"), 1L }, //
+            { new BigDecimal("102"), new BigDecimal("57"), 2L }, //
+            { new BigDecimal("7"), new BigDecimal("7"), 4L }, //
+            { new BigDecimal("103"), new BigDecimal("46"), 5L }, //
+            { new BigDecimal("105"), new BigDecimal("48"), 3L } };
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+    private final List<Object[]> updates = new ArrayList<>();
+    private JournalEntryRunningBalanceUpdateServiceImpl service;
+
+    @Before
+    public void setUp() {
+        this.service = new JournalEntryRunningBalanceUpdateServiceImpl(mock(RoutingDataSource.class), mock(OfficeRepository.class),
+                mock(JournalEntryDataValidator.class), mock(FromJsonHelper.class), this.transactionManager);
+        ReflectionTestUtils.setField(this.service, "jdbcTemplate", this.jdbcTemplate);
+
+        doAnswer(new Answer<int[]>() {
+
+            @Override
+            public int[] answer(final InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                final List<Object[]> batchArgs = (List<Object[]>) invocation.getArguments()[1];
+                JournalEntryRunningBalanceUpdateServiceImplTest.this.updates.addAll(batchArgs);
+                return new int[batchArgs.size()];
+            }
+        }).when(this.jdbcTemplate).batchUpdate(anyString(), anyListOf(Object[].class));
+    }
+
+    @Test
+    public void runningBalancesAreCarriedOverFromChunkToChunk() {
+        openingBalances("100", "40", "60");
+        ReflectionTestUtils.setField(this.service, "chunkSize", 2);
+
+        runFrom(FIRST_DAY);
+
+        assertUpdates(UPDATES_FROM_FIRST_DAY, 0);
+        // the second chunk starts after the first entry of the second day
+        verify(this.jdbcTemplate).query(chunkSql(), any(RowCallbackHandler.class), eq(SECOND_DAY), eq(SECOND_DAY), eq((Object) 2L));
+        assertEquals(3, this.transactionManager.commits());
+    }
+
+    @Test
+    public void chunkSizeDoesNotChangeTheBalances() {
+        openingBalances("100", "40", "60");
+        ReflectionTestUtils.setField(this.service, "chunkSize", 1000);
+        runFrom(FIRST_DAY);
+        final List<Object[]> unchunked = new ArrayList<>(this.updates);
+        this.updates.clear();
+
+        ReflectionTestUtils.setField(this.service, "chunkSize", 1);
+        runFrom(FIRST_DAY);
+
+        assertEquals(unchunked.size(), this.updates.size());
+        for (int i = 0; i < unchunked.size(); i++) {
+            assertArrayEquals(unchunked.get(i), this.updates.get(i));
+        }
+    }
+
+    @Test
+    public void runRestartsFromTheEarliestEntryNotCalculated() {
+        // balances after the first day, as a previous run left them
+        openingBalances("105", "45", "60");
+        ReflectionTestUtils.setField(this.service, "chunkSize", 3);
+
+        runFrom(SECOND_DAY);
+
+        assertUpdates(UPDATES_FROM_FIRST_DAY, 1);
+        verify(this.jdbcTemplate).query(chunkSql(), any(RowCallbackHandler.class), eq(SECOND_DAY), eq(SECOND_DAY), eq((Object) 0L));
+    }
+
+    private void assertUpdates(final Object[][] expected, final int from) {
+        assertEquals(expected.length - from, this.updates.size());
+        for (int i = from; i < expected.length; i++) {
+            assertArrayEquals(expected[i], this.updates.get(i - from));
+        }
+    }
+
+    private static String chunkSql() {
+        return contains("order by je.entry_date, je.id limit");
+    }
+
+    /**
+     * Balances of the asset account before the first entry processed: of the
+     * organization, of office one and of office two.
+     */
+    private void openingBalances(final String organization, final String officeOne, final String officeTwo) {
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) throws SQLException {
+                final String sql = (String) invocation.getArguments()[0];
+                final RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+                if (sql.contains("order by je.entry_date, je.id limit")) {
+                    readChunk(sql, handler, invocation.getArguments());
+                } else if (sql.contains("organization_running_balance as runningBalance")) {
+                    handler.processRow(balanceRow(organization, ASSET_ACCOUNT, null));
+                } else {
+                    handler.processRow(balanceRow(officeOne, ASSET_ACCOUNT, 1L));
+                    handler.processRow(balanceRow(officeTwo, ASSET_ACCOUNT, 2L));
+                }
+                return null;
+            }
+        }).when(this.jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), anyVararg());
+    }
+
+    private void runFrom(final Date earliestEntryNotCalculated) {
+        when(this.jdbcTemplate.queryForObject(anyString(), eq(Date.class))).thenReturn(earliestEntryNotCalculated);
+        this.service.updateRunningBalance();
+    }
+
+    /**
+     * Reads the entries after the (entry date, id) in the arguments, as the
+     * keyset query does.
+     */
+    private static void readChunk(final String sql, final RowCallbackHandler handler, final Object[] arguments) throws SQLException {
+        final long after = ((Date) arguments[2]).getTime();
+        final long afterId = (Long) arguments[4];
+        final int limit = Integer.parseInt(sql.substring(sql.lastIndexOf(' ') + 1));
+
+        final List<Entry> entries = new ArrayList<>(JOURNAL);
+        Collections.sort(entries, new Comparator<Entry>() {
+
+            @Override
+            public int compare(final Entry one, final Entry other) {
+                final int byDate = one.entryDate.compareTo(other.entryDate);
+                return byDate != 0 ? byDate : Long.compare(one.id, other.id);
+            }
+        });
+        int read = 0;
+        for (final Entry entry : entries) {
+            final long entryDate = entry.entryDate.getTime();
+            if (read < limit && (entryDate > after || (entryDate == after && entry.id > afterId))) {
+                handler.processRow(entry.row());
+                read++;
+            }
+        }
+    }
+
+    private static ResultSet balanceRow(final String runningBalance, final long accountId, final Long officeId) throws SQLException {
+        final ResultSet rs = mock(ResultSet.class);
+        when(rs.getBigDecimal("runningBalance")).thenReturn(new BigDecimal(runningBalance));
+        when(rs.getLong("accountId")).thenReturn(accountId);
+        if (officeId != null) {
+            when(rs.getLong("officeId")).thenReturn(officeId);
+        }
+        return rs;
+    }
+
+    private static final class Entry {
+
+        private final long id;
+        private final Date entryDate;
+        private final long officeId;
+        private final long accountId;
+        private final JournalEntryType type;
+        private final BigDecimal amount;
+
+        Entry(final long id, final Date entryDate, final long officeId, final long accountId, final JournalEntryType type,
+                final String amount) {
+            this.id = id;
+            this.entryDate = entryDate;
+            this.officeId = officeId;
+            this.accountId = accountId;
+            this.type = type;
+            this.amount = new BigDecimal(amount);
+        }
+
+        ResultSet row() throws SQLException {
+            final GLAccountType accountType = this.accountId == ASSET_ACCOUNT ? GLAccountType.ASSET : GLAccountType.LIABILITY;
+            final ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong("id")).thenReturn(this.id);
+            when(rs.getInt("classification")).thenReturn(accountType.getValue());
+            when(rs.getInt("entryType")).thenReturn(this.type.getValue());
+            when(rs.getLong("officeId")).thenReturn(this.officeId);
+            when(rs.getLong("glAccountId")).thenReturn(this.accountId);
+            when(rs.getBigDecimal("amount")).thenReturn(this.amount);
+            when(rs.getDate("entryDate")).thenReturn(new java.sql.Date(this.entryDate.getTime()));
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.accounting.journalentry.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RunningBalanceMapTest {
+
+    /** Initial capacity of the map, a power of two. */
+    private static final int SLOTS = 64;
+
+    private final RunningBalanceMap balances = new RunningBalanceMap();
+
+    @Test
+    public void missingKeysHaveNoBalance() {
+        this.balances.put(1, 10, BigDecimal.ONE);
+
+        assertNull(this.balances.get(1, 11));
+        assertNull(this.balances.get(2, 10));
+        assertNull(this.balances.get(10, 1));
+        assertNull(this.balances.get(RunningBalanceMap.ORGANIZATION, 10));
+    }
+
+    @Test
+    public void putReplacesAndPutIfAbsentKeepsTheBalance() {
+        this.balances.putIfAbsent(1, 10, BigDecimal.ONE);
+        this.balances.putIfAbsent(1, 10, BigDecimal.TEN);
+        assertEquals(BigDecimal.ONE, this.balances.get(1, 10));
+
+        this.balances.put(1, 10, BigDecimal.TEN);
+        assertEquals(BigDecimal.TEN, this.balances.get(1, 10));
+
+        this.balances.put(1, 10, null);
+        assertEquals(BigDecimal.TEN, this.balances.get(1, 10));
+    }
+
+    @Test
+    public void keysOfTheSameSlotAreKeptApart() {
+        final List<Long> accountIds = accountIdsInSlotOf(1, 1, 5);
+        for (final Long accountId : accountIds) {
+            this.balances.put(1, accountId, BigDecimal.valueOf(accountId));
+        }
+
+        for (final Long accountId : accountIds) {
+            assertEquals(BigDecimal.valueOf(accountId), this.balances.get(1, accountId));
+        }
+        // probing for a missing key of the same slot ends at the first free one
+        assertNull(this.balances.get(2, accountIds.get(0)));
+    }
+
+    @Test
+    public void balancesSurviveResizing() {
+        for (long officeId = 0; officeId < 20; officeId++) {
+            for (long accountId = 1; accountId <= 500; accountId++) {
+                this.balances.put(officeId, accountId, BigDecimal.valueOf(officeId * 1000 + accountId));
+            }
+        }
+
+        for (long officeId = 0; officeId < 20; officeId++) {
+            for (long accountId = 1; accountId <= 500; accountId++) {
+                assertEquals(BigDecimal.valueOf(officeId * 1000 + accountId), this.balances.get(officeId, accountId));
+            }
+            assertNull(this.balances.get(officeId, 501));
+        }
+    }
+
+    private static List<Long> accountIdsInSlotOf(final long officeId, final long accountId, final int count) {
+        final int slot = RunningBalanceMap.hash(officeId, accountId) & (SLOTS - 1);
+        final List<Long> accountIds = new ArrayList<>();
+        for (long candidate = accountId; accountIds.size() < count; candidate++) {
+            if ((RunningBalanceMap.hash(officeId, candidate) & (SLOTS - 1)) == slot) {
+                accountIds.add(candidate);
+            }
+        }
+        return accountIds;
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.batch.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mifosplatform.batch.domain.BatchRequest;
+import org.mifosplatform.batch.service.ResolutionHelper.BatchRequestNode;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+
+public class BatchApiServiceImplTest {
+
+    private final ResolutionHelper resolutionHelper = new ResolutionHelper(new FromJsonHelper());
+    private final List<BatchRequest> batchRequests = new ArrayList<>();
+
+    @Test
+    public void shouldExecuteRootsOnTheSameLoanOneAfterTheOther() {
+        request(1L, "loans/12/transactions?command=repayment", null);
+        request(2L, "clients", null);
+        request(3L, "loans/12/charges", null);
+        request(4L, "loans/13/transactions?command=repayment", null);
+
+        final List<List<BatchRequestNode>> groups = group();
+
+        assertEquals(3, groups.size());
+        assertEquals("[1, 3]", requestIds(groups.get(0)));
+        assertEquals("[2]", requestIds(groups.get(1)));
+        assertEquals("[4]", requestIds(groups.get(2)));
+    }
+
+    @Test
+    public void shouldGroupRootsWhoseDependingRequestsTargetTheSameResource() {
+        request(1L, "clients", null);
+        request(2L, "savingsaccounts/7?command=deposit", 1L);
+        request(3L, "savingsaccounts/8?command=deposit", null);
+        request(4L, "savingsaccounts/7?command=withdrawal", null);
+
+        final List<List<BatchRequestNode>> groups = group();
+
+        assertEquals(2, groups.size());
+        assertEquals("[1, 4]", requestIds(groups.get(0)));
+        assertEquals("[3]", requestIds(groups.get(1)));
+    }
+
+    @Test
+    public void shouldMergeGroupsJoinedByALaterRoot() {
+        request(1L, "loans/12?command=approve", null);
+        request(2L, "clients/5", null);
+        request(3L, "loans/12/charges", null);
+        request(4L, "clients/5?command=activate", 3L);
+
+        final List<List<BatchRequestNode>> groups = group();
+
+        assertEquals(1, groups.size());
+        assertEquals("[1, 2, 3]", requestIds(groups.get(0)));
+    }
+
+    @Test
+    public void shouldNotGroupRequestsWithoutKnownTarget() {
+        request(1L, "clients", null);
+        request(2L, "clients", null);
+        request(3L, "loans/$.loanId/charges", null);
+        request(4L, "loans/$.loanId/charges", null);
+
+        assertEquals(4, group().size());
+    }
+
+    private void request(final Long requestId, final String relativeUrl, final Long reference) {
+        final BatchRequest request = new BatchRequest();
+        request.setRequestId(requestId);
+        request.setRelativeUrl(relativeUrl);
+        request.setMethod("POST");
+        request.setReference(reference);
+        this.batchRequests.add(request);
+    }
+
+    private List<List<BatchRequestNode>> group() {
+        return BatchApiServiceImpl.groupByTargetedResource(this.resolutionHelper.getDependingRequests(this.batchRequests));
+    }
+
+    private static String requestIds(final List<BatchRequestNode> rootNodes) {
+        final List<Long> requestIds = new ArrayList<>();
+        for (final BatchRequestNode rootNode : rootNodes) {
+            requestIds.add(rootNode.getRequest().getRequestId());
+        }
+        return requestIds.toString();
+    }
+}
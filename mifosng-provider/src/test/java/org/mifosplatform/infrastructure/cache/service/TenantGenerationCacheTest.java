@@ -0,0 +1,134 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.cache.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TenantGenerationCacheTest {
+
+    private final TenantGenerationCache<String> cache = new TenantGenerationCache<>(new CacheStatisticsCounter("test"));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldKeepTheValueOfEachTenantUntilItIsInvalidated() {
+        useTenant("default");
+        assertEquals("default-1", this.cache.get(loader()));
+        assertEquals("default-1", this.cache.get(loader()));
+
+        useTenant("other");
+        assertEquals("other-2", this.cache.get(loader()));
+        this.cache.invalidate();
+        assertNull(this.cache.getIfCurrent());
+        assertEquals("other-3", this.cache.get(loader()));
+
+        useTenant("default");
+        assertEquals("default-1", this.cache.getIfCurrent());
+    }
+
+    @Test
+    public void shouldInvalidateOnlyOnceTheTransactionHasCompleted() {
+        useTenant("default");
+        this.cache.get(loader());
+
+        TransactionSynchronizationManager.initSynchronization();
+        this.cache.invalidate();
+        this.cache.invalidate();
+        final AtomicReference<String> otherTransactionValue = new AtomicReference<>();
+        final Thread otherTransaction = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                useTenant("default");
+                otherTransactionValue.set(TenantGenerationCacheTest.this.cache.getIfCurrent());
+            }
+        });
+        otherTransaction.start();
+        join(otherTransaction);
+        assertEquals("default-1", otherTransactionValue.get());
+
+        // the writer itself does not get the cached value
+        assertNull(this.cache.getIfCurrent());
+        assertEquals("default-2-uncached", this.cache.get(loader()));
+        assertEquals("default-3-uncached", this.cache.get(loader()));
+
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        assertNull(this.cache.getIfCurrent());
+        assertEquals("default-4", this.cache.get(loader()));
+    }
+
+    @Test
+    public void shouldNotKeepAValueLoadedWhileTheTenantWasInvalidated() {
+        useTenant("default");
+
+        final String value = this.cache.rebuild(new TenantGenerationCache.Loader<String>() {
+
+            @Override
+            public String load(@SuppressWarnings("unused") final boolean cached) {
+                TenantGenerationCacheTest.this.cache.invalidate();
+                return "stale";
+            }
+        });
+
+        assertEquals("stale", value);
+        assertNull(this.cache.getIfCurrent());
+    }
+
+    @Test
+    public void shouldNotCacheWithoutTenant() {
+        assertEquals("null-1-uncached", this.cache.get(loader()));
+        assertEquals("null-2-uncached", this.cache.get(loader()));
+        assertNull(this.cache.getIfCurrent());
+    }
+
+    private TenantGenerationCache.Loader<String> loader() {
+        return new TenantGenerationCache.Loader<String>() {
+
+            @Override
+            public String load(final boolean cached) {
+                final MifosPlatformTenant tenant = ThreadLocalContextUtil.getTenant();
+                final String tenantIdentifier = tenant == null ? null : tenant.getTenantIdentifier();
+                return tenantIdentifier + "-" + TenantGenerationCacheTest.this.loads.incrementAndGet() + (cached ? "" : "-uncached");
+            }
+        };
+    }
+
+    private static void join(final Thread thread) {
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void useTenant(final String tenantIdentifier) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        ThreadLocalContextUtil.setTenant(tenant);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.configuration.domain;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.cache.domain.CacheType;
+import org.mifosplatform.infrastructure.cache.domain.PlatformCache;
+import org.mifosplatform.infrastructure.cache.domain.PlatformCacheRepository;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.useradministration.domain.Permission;
+import org.mifosplatform.useradministration.domain.PermissionRepository;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigurationDomainServiceJpaTest {
+
+    @Mock
+    private PermissionRepository permissionRepository;
+    @Mock
+    private GlobalConfigurationRepositoryWrapper globalConfigurationRepository;
+    @Mock
+    private PlatformCacheRepository cacheTypeRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ConfigurationDomainServiceJpa configurationDomainService;
+
+    @Before
+    public void setUp() {
+        when(this.cacheTypeRepository.findOne(Long.valueOf(1))).thenReturn(new PlatformCache(CacheType.NO_CACHE));
+        when(this.permissionRepository.findAll()).thenReturn(Collections.<Permission> emptyList());
+        when(this.transactionManager.getTransaction(any(TransactionDefinition.class))).thenReturn(mock(TransactionStatus.class));
+        amazonS3(false);
+
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        this.configurationDomainService = new ConfigurationDomainServiceJpa(this.permissionRepository, this.globalConfigurationRepository,
+                this.cacheTypeRepository, this.transactionManager);
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldLoadTheSnapshotInANewTransactionOnceUntilInvalidated() {
+        assertFalse(this.configurationDomainService.isAmazonS3Enabled());
+        amazonS3(true);
+        assertFalse(this.configurationDomainService.isAmazonS3Enabled());
+
+        this.configurationDomainService.invalidateConfigurationSnapshot();
+
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+        verify(this.globalConfigurationRepository, times(2)).findAll();
+        verify(this.transactionManager, times(2)).getTransaction(argThat(new ArgumentMatcher<TransactionDefinition>() {
+
+            @Override
+            public boolean matches(final Object definition) {
+                return ((TransactionDefinition) definition).getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW;
+            }
+        }));
+    }
+
+    @Test
+    public void shouldLetTheWriterReadItsOwnChangesUntilTheTransactionHasCompleted() {
+        assertFalse(this.configurationDomainService.isAmazonS3Enabled());
+
+        TransactionSynchronizationManager.initSynchronization();
+        amazonS3(true);
+        this.configurationDomainService.invalidateConfigurationSnapshot();
+
+        // read within the writer's transaction, without caching
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+        verify(this.transactionManager, times(1)).getTransaction(any(TransactionDefinition.class));
+        verify(this.globalConfigurationRepository, times(3)).findAll();
+
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+        verify(this.transactionManager, times(2)).getTransaction(any(TransactionDefinition.class));
+        verify(this.globalConfigurationRepository, times(4)).findAll();
+    }
+
+    @Test
+    public void shouldNotTouchTheSnapshotOfOtherTenants() {
+        assertFalse(this.configurationDomainService.isAmazonS3Enabled());
+        amazonS3(true);
+
+        final MifosPlatformTenant other = mock(MifosPlatformTenant.class);
+        when(other.getTenantIdentifier()).thenReturn("other");
+        ThreadLocalContextUtil.setTenant(other);
+        this.configurationDomainService.invalidateConfigurationSnapshot();
+        assertTrue(this.configurationDomainService.isAmazonS3Enabled());
+
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+        assertFalse(this.configurationDomainService.isAmazonS3Enabled());
+    }
+
+    private void amazonS3(final boolean enabled) {
+        when(this.globalConfigurationRepository.findAll()).thenReturn(
+                Arrays.asList(new GlobalConfigurationProperty("amazon-S3", enabled, null, null)));
+    }
+}
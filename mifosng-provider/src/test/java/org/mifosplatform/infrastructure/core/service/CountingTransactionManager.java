@@ -0,0 +1,64 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Transaction manager for services that demarcate their own transactions,
+ * tested without a database. It only counts the transactions committed and
+ * rolled back; the methods the services call cannot be mocked as they are
+ * final.
+ */
+@SuppressWarnings("serial")
+public class CountingTransactionManager extends JpaTransactionManager {
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger rollbacks = new AtomicInteger();
+
+    public int commits() {
+        return this.commits.get();
+    }
+
+    public int rollbacks() {
+        return this.rollbacks.get();
+    }
+
+    @Override
+    protected Object doGetTransaction() {
+        return new Object();
+    }
+
+    @Override
+    protected boolean isExistingTransaction(@SuppressWarnings("unused") final Object transaction) {
+        return false;
+    }
+
+    @Override
+    protected void doBegin(@SuppressWarnings("unused") final Object transaction,
+            @SuppressWarnings("unused") final TransactionDefinition definition) {
+        // nothing to begin
+    }
+
+    @Override
+    protected void doCommit(@SuppressWarnings("unused") final DefaultTransactionStatus status) {
+        this.commits.incrementAndGet();
+    }
+
+    @Override
+    protected void doRollback(@SuppressWarnings("unused") final DefaultTransactionStatus status) {
+        this.rollbacks.incrementAndGet();
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(@SuppressWarnings("unused") final Object transaction) {
+        // nothing to clean up
+    }
+}
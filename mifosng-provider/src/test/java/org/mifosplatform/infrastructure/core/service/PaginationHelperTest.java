@@ -0,0 +1,121 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.data.PaginationParameters;
+import org.mifosplatform.infrastructure.core.exception.UnrecognizedQueryParamException;
+
+public class PaginationHelperTest {
+
+    @Test
+    public void pageTokenCarriesTheLastIdOfThePage() {
+        for (final long lastId : new long[] { 0L, 1L, 35L, 36L, 123456789L, Long.MAX_VALUE }) {
+            assertEquals(Long.valueOf(lastId), PaginationHelper.lastIdOf(PaginationHelper.pageTokenOf(lastId)));
+        }
+        assertEquals("2n9c", PaginationHelper.pageTokenOf(123456L));
+    }
+
+    @Test
+    public void noPageTokenIsPassed() {
+        assertNull(PaginationHelper.lastIdOf(null));
+        assertNull(PaginationHelper.lastIdOf(" "));
+        assertNull(PaginationHelper.lastIdOf(null, "display_name"));
+    }
+
+    @Test
+    public void malformedPageTokenIsRejected() {
+        try {
+            PaginationHelper.lastIdOf("not a token");
+            fail();
+        } catch (final UnrecognizedQueryParamException e) {
+            assertEquals("pageToken", e.getQueryParamKey());
+            assertEquals("not a token", e.getQueryParamValue());
+        }
+    }
+
+    @Test
+    public void pageTokenIsRejectedWithAnyOtherOrderThanById() {
+        assertEquals(Long.valueOf(35L), PaginationHelper.lastIdOf("z", null));
+        assertEquals(Long.valueOf(35L), PaginationHelper.lastIdOf("z", "ID"));
+
+        try {
+            PaginationHelper.lastIdOf("z", "display_name");
+            fail();
+        } catch (final UnrecognizedQueryParamException e) {
+            assertEquals("orderBy", e.getQueryParamKey());
+            assertEquals("display_name", e.getQueryParamValue());
+            assertEquals(PaginationHelper.PAGE_TOKEN_ORDER_BY, e.getSupportedParams()[0]);
+        }
+    }
+
+    @Test
+    public void pageTokenConditionFollowsTheSortOrder() {
+        assertEquals("c.id > ?", PaginationHelper.pageTokenSql("c.id", null));
+        assertEquals("c.id > ?", PaginationHelper.pageTokenSql("c.id", "ASC"));
+        assertEquals("c.id < ?", PaginationHelper.pageTokenSql("c.id", "DESC"));
+        assertEquals("c.id < ?", PaginationHelper.pageTokenSql("c.id", " desc "));
+    }
+
+    @Test
+    public void onlyLimitedPagesOrderedByIdCarryAPageToken() {
+        assertEquals(Integer.valueOf(50), PaginationHelper.pageTokenLimit("id", 50));
+        assertNull(PaginationHelper.pageTokenLimit("id", null));
+        assertNull(PaginationHelper.pageTokenLimit("display_name", 50));
+        assertNull(PaginationHelper.pageTokenLimit(null, 50));
+    }
+
+    @Test
+    public void searchParametersContinueAfterThePageToken() {
+        final SearchParameters searchParameters = SearchParameters.forPagination(400, 50, null, "desc").withPaging("z", false);
+
+        assertTrue(searchParameters.isPageTokenPassed());
+        assertEquals(Long.valueOf(35L), searchParameters.getPageTokenLastId());
+        assertNull(searchParameters.getOffset());
+        assertEquals("id", searchParameters.getOrderBy());
+        assertEquals("m.id < ?", searchParameters.pageTokenSql("m.id"));
+        assertEquals(Integer.valueOf(50), searchParameters.getPageTokenLimit());
+        assertFalse(searchParameters.isTotalCountRequested());
+    }
+
+    @Test
+    public void searchParametersWithoutPageTokenAreUnchanged() {
+        final SearchParameters searchParameters = SearchParameters.forPagination(400, 50, "display_name", null).withPaging(null, null);
+
+        assertFalse(searchParameters.isPageTokenPassed());
+        assertEquals(Integer.valueOf(400), searchParameters.getOffset());
+        assertEquals("display_name", searchParameters.getOrderBy());
+        assertNull(searchParameters.getPageTokenLimit());
+        assertTrue(searchParameters.isTotalCountRequested());
+    }
+
+    @Test(expected = UnrecognizedQueryParamException.class)
+    public void searchParametersRejectPageTokenWithOtherOrder() {
+        SearchParameters.forPagination(null, 50, "display_name", null).withPaging("z", null);
+    }
+
+    @Test
+    public void paginationParametersContinueAfterThePageToken() {
+        final PaginationParameters parameters = PaginationParameters.instance(true, 400, 50, "id", null).withPaging("z", null);
+
+        assertTrue(parameters.isPageTokenPassed());
+        assertNull(parameters.getOffset());
+        assertEquals("a.id > ?", parameters.pageTokenSql("a.id"));
+        assertEquals(Integer.valueOf(50), parameters.getPageTokenLimit());
+        assertTrue(parameters.isTotalCountRequested());
+    }
+
+    @Test(expected = UnrecognizedQueryParamException.class)
+    public void paginationParametersRejectPageTokenWithOtherOrder() {
+        PaginationParameters.instance(true, null, 50, "made_on_date", null).withPaging("z", null);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.core.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TomcatJdbcDataSourcePerTenantServiceTest {
+
+    private static final long IDLE_EVICTION_MILLIS = 60000;
+
+    private final TomcatJdbcDataSourcePerTenantService service = new TomcatJdbcDataSourcePerTenantService(
+            new org.apache.tomcat.jdbc.pool.DataSource());
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(this.service, "idleEvictionMillis", IDLE_EVICTION_MILLIS);
+
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getId()).thenReturn(Long.valueOf(1));
+        when(tenant.getSchemaName()).thenReturn("mifostenant-default");
+        ThreadLocalContextUtil.setTenant(tenant);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldKeepHandingOutTheDataSourceOfATenantInUse() {
+        final DataSource dataSource = this.service.retrieveDataSource();
+
+        this.service.evictIdlePools(System.currentTimeMillis());
+
+        assertSame(dataSource, this.service.retrieveDataSource());
+        assertEquals(0, retiredDataSources().size());
+    }
+
+    @Test
+    public void shouldHandOutANewDataSourceOnceIdleAndCloseTheOldOneAfterTheGracePeriod() {
+        final DataSource dataSource = this.service.retrieveDataSource();
+        final long idle = System.currentTimeMillis() + IDLE_EVICTION_MILLIS + 1;
+
+        this.service.evictIdlePools(idle);
+
+        // threads which already got the old datasource may still use it
+        assertEquals(1, retiredDataSources().size());
+        this.service.evictIdlePools(idle + 1);
+        assertEquals(1, retiredDataSources().size());
+
+        this.service.evictIdlePools(idle + IDLE_EVICTION_MILLIS / 4);
+        assertEquals(0, retiredDataSources().size());
+        assertNotSame(dataSource, this.service.retrieveDataSource());
+    }
+
+    @Test
+    public void shouldCachePreparedStatementsOnTheServerByDefault() {
+        final Properties properties = dbPropertiesOf(this.service.retrieveDataSource());
+
+        assertEquals("true", properties.getProperty("useServerPrepStmts"));
+        assertEquals("true", properties.getProperty("cachePrepStmts"));
+        assertEquals("64", properties.getProperty("prepStmtCacheSize"));
+        assertEquals("2048", properties.getProperty("prepStmtCacheSqlLimit"));
+    }
+
+    @Test
+    public void shouldLeaveTheDriverDefaultsWithoutConnectionProperties() {
+        ReflectionTestUtils.setField(this.service, "connectionProperties", "");
+
+        final Properties properties = dbPropertiesOf(this.service.retrieveDataSource());
+
+        assertEquals(null, properties.getProperty("useServerPrepStmts"));
+        assertEquals(null, properties.getProperty("cachePrepStmts"));
+    }
+
+    private static Properties dbPropertiesOf(final DataSource dataSource) {
+        return ((org.apache.tomcat.jdbc.pool.DataSource) dataSource).getPoolProperties().getDbProperties();
+    }
+
+    private Collection<?> retiredDataSources() {
+        return (Collection<?>) ReflectionTestUtils.getField(this.service, "retiredDataSources");
+    }
+}
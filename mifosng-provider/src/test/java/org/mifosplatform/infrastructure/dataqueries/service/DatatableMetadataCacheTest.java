@@ -0,0 +1,104 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.cache.data.CacheStatisticsData;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class DatatableMetadataCacheTest {
+
+    private final DatatableMetadataCache cache = new DatatableMetadataCache();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        useTenant("default");
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldLoadTheApplicationTableOfADatatableOnce() {
+        assertEquals("m_loan-1", this.cache.applicationTableName("loan_extra", loader()));
+        assertEquals("m_loan-1", this.cache.applicationTableName("loan_extra", loader()));
+        assertEquals("m_loan-2", this.cache.applicationTableName("loan_more", loader()));
+
+        final CacheStatisticsData statistics = this.cache.retrieveCacheStatistics();
+        assertEquals(1L, ReflectionTestUtils.getField(statistics, "hits"));
+        assertEquals(2L, ReflectionTestUtils.getField(statistics, "misses"));
+    }
+
+    @Test
+    public void shouldReloadOnlyTheInvalidatedTenantOnceTheTransactionHasCompleted() {
+        assertEquals("m_loan-1", this.cache.applicationTableName("loan_extra", loader()));
+        useTenant("other");
+        assertEquals("m_loan-2", this.cache.applicationTableName("loan_extra", loader()));
+
+        TransactionSynchronizationManager.initSynchronization();
+        this.cache.invalidate();
+        // the writer reads its own changes
+        assertEquals("m_loan-3", this.cache.applicationTableName("loan_extra", loader()));
+        for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals("m_loan-4", this.cache.applicationTableName("loan_extra", loader()));
+        assertEquals("m_loan-4", this.cache.applicationTableName("loan_extra", loader()));
+        useTenant("default");
+        assertEquals("m_loan-1", this.cache.applicationTableName("loan_extra", loader()));
+    }
+
+    @Test
+    public void shouldNotServeMetadataLoadedWhileTheTenantWasInvalidated() {
+        assertEquals("m_loan-1", this.cache.applicationTableName("loan_extra", new DatatableMetadataCache.Loader<String>() {
+
+            @Override
+            public String load(@SuppressWarnings("unused") final String datatable) {
+                DatatableMetadataCacheTest.this.cache.invalidate();
+                return "m_loan-" + DatatableMetadataCacheTest.this.loads.incrementAndGet();
+            }
+        }));
+
+        assertEquals("m_loan-2", this.cache.applicationTableName("loan_extra", loader()));
+        assertEquals(1L, ReflectionTestUtils.getField(this.cache.retrieveCacheStatistics(), "invalidations"));
+    }
+
+    private DatatableMetadataCache.Loader<String> loader() {
+        return new DatatableMetadataCache.Loader<String>() {
+
+            @Override
+            public String load(@SuppressWarnings("unused") final String datatable) {
+                return "m_loan-" + DatatableMetadataCacheTest.this.loads.incrementAndGet();
+            }
+        };
+    }
+
+    private static void useTenant(final String tenantIdentifier) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        ThreadLocalContextUtil.setTenant(tenant);
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class GenericResultsetCursorTest {
+
+    private final DataSource dataSource = mock(DataSource.class);
+
+    @After
+    public void tearDown() {
+        GenericResultsetCursor.closeOpenedOnThisThread();
+    }
+
+    @Test
+    public void cursorsNeverWrittenAreClosedWithTheRequest() throws SQLException {
+        final Connection connection = mock(Connection.class);
+        final Statement statement = mock(Statement.class);
+        final ResultSet resultSet = mock(ResultSet.class);
+        new GenericResultsetCursor(this.dataSource, connection, statement, resultSet, true);
+
+        assertEquals(1, GenericResultsetCursor.closeOpenedOnThisThread());
+
+        verify(resultSet).close();
+        verify(statement).close();
+        verify(connection).close();
+        assertEquals(0, GenericResultsetCursor.closeOpenedOnThisThread());
+    }
+
+    @Test
+    public void writtenCursorsAreNotClosedAgain() throws SQLException, IOException {
+        final Connection connection = mock(Connection.class);
+        final ResultSet resultSet = emptyResultSet();
+        final GenericResultsetCursor written = new GenericResultsetCursor(this.dataSource, connection, mock(Statement.class),
+                resultSet, false);
+        final Connection unwrittenConnection = mock(Connection.class);
+        new GenericResultsetCursor(this.dataSource, unwrittenConnection, mock(Statement.class), emptyResultSet(), false);
+
+        written.writeTo(new GenericResultsetCsvWriter(new StringWriter()));
+        verify(connection).close();
+
+        assertEquals(1, GenericResultsetCursor.closeOpenedOnThisThread());
+        verify(unwrittenConnection).close();
+    }
+
+    @Test
+    public void cursorsOfOtherThreadsAreLeftOpen() throws Exception {
+        final Connection connection = mock(Connection.class);
+        final Thread other = new Thread() {
+
+            @Override
+            public void run() {
+                new GenericResultsetCursor(GenericResultsetCursorTest.this.dataSource, connection, mock(Statement.class),
+                        mock(ResultSet.class), true);
+            }
+        };
+        other.start();
+        other.join();
+
+        assertEquals(0, GenericResultsetCursor.closeOpenedOnThisThread());
+        verify(connection, never()).close();
+    }
+
+    private static ResultSet emptyResultSet() throws SQLException {
+        final ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnCount()).thenReturn(0);
+        final ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getMetaData()).thenReturn(metaData);
+        return resultSet;
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.util.Locale;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.pentaho.reporting.engine.classic.core.ClassicEngineBoot;
+import org.pentaho.reporting.engine.classic.core.DefaultReportEnvironment;
+import org.pentaho.reporting.engine.classic.core.MasterReport;
+
+public class ReadReportingServiceImplTest {
+
+    @BeforeClass
+    public static void bootReportingEngine() {
+        ClassicEngineBoot.getInstance().start();
+    }
+
+    @Test
+    public void copyOfReportHasItsOwnReportEnvironment() {
+        final MasterReport cached = new MasterReport();
+        final Locale cachedLocale = cached.getReportEnvironment().getLocale();
+
+        final MasterReport copy = ReadReportingServiceImpl.copyOf(cached);
+        assertNotSame(cached.getReportEnvironment(), copy.getReportEnvironment());
+
+        final Locale requestLocale = Locale.JAPANESE.equals(cachedLocale) ? Locale.FRENCH : Locale.JAPANESE;
+        ((DefaultReportEnvironment) copy.getReportEnvironment()).setLocale(requestLocale);
+
+        assertEquals(requestLocale, copy.getReportEnvironment().getLocale());
+        assertEquals(cachedLocale, cached.getReportEnvironment().getLocale());
+    }
+
+    @Test
+    public void copyOfReportHasItsOwnParameterValues() {
+        final MasterReport cached = new MasterReport();
+
+        final MasterReport copy = ReadReportingServiceImpl.copyOf(cached);
+        copy.getParameterValues().put("officeId", Long.valueOf(1));
+
+        assertEquals(null, cached.getParameterValues().get("officeId"));
+    }
+}
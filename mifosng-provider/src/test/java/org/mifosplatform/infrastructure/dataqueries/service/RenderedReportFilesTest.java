@@ -0,0 +1,79 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mifosplatform.infrastructure.core.exception.PlatformDataIntegrityException;
+
+public class RenderedReportFilesTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void suffixComesFromTheOutputTypeNotTheRequestValue() {
+        assertEquals(".pdf", RenderedReportFiles.suffixOf("PDF"));
+        assertEquals(".xls", RenderedReportFiles.suffixOf("xls"));
+        assertEquals(".csv", RenderedReportFiles.suffixOf("Csv"));
+        assertEquals(".html", RenderedReportFiles.suffixOf("HTML"));
+    }
+
+    @Test
+    public void unknownOutputTypeIsRejected() throws IOException {
+        final RenderedReportFiles files = new RenderedReportFiles(this.folder.getRoot().toPath());
+        try {
+            files.create("pdf/../../etc");
+            fail();
+        } catch (final PlatformDataIntegrityException e) {
+            assertEquals("error.msg.invalid.outputType", e.getGlobalisationMessageCode());
+        }
+        assertEquals(0, this.folder.getRoot().list().length);
+    }
+
+    @Test
+    public void fileIsCreatedInTheReportDirectory() throws IOException {
+        final Path directory = this.folder.getRoot().toPath().resolve("reports");
+        final File file = new RenderedReportFiles(directory).create("pdf");
+
+        assertTrue(file.exists());
+        assertEquals(directory.toFile(), file.getParentFile());
+        assertTrue(file.getName().startsWith(RenderedReportFiles.FILE_PREFIX));
+        assertTrue(file.getName().endsWith(".pdf"));
+    }
+
+    @Test
+    public void filesOfResponsesNeverWrittenAreDeletedOnceStale() throws IOException {
+        final Path directory = this.folder.getRoot().toPath();
+        final RenderedReportFiles files = new RenderedReportFiles(directory);
+
+        final File stale = files.create("csv");
+        Files.setLastModifiedTime(stale.toPath(),
+                FileTime.fromMillis(System.currentTimeMillis() - RenderedReportFiles.STALE_AFTER_MILLIS - 1000));
+        final File recent = files.create("csv");
+        final File unrelated = Files.createFile(directory.resolve("other.csv")).toFile();
+        Files.setLastModifiedTime(unrelated.toPath(), FileTime.fromMillis(0));
+
+        final File created = files.create("html");
+
+        assertFalse(stale.exists());
+        assertTrue(recent.exists());
+        assertTrue(created.exists());
+        assertTrue(unrelated.exists());
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.dataqueries.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.dataqueries.service.ReportSqlTemplate.BoundSql;
+
+public class ReportSqlTemplateTest {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        this.values.put("${officeId}", "1");
+        this.values.put("${currentUserHierarchy}", ".2.");
+        this.values.put("${startDate}", "2014-01-01");
+        this.values.put("${orderBy}", "2");
+    }
+
+    @Test
+    public void shouldBindIntegersAndQuotedPlaceholders() {
+        final BoundSql sql = bind("select * from m_office o where o.id = ${officeId} and o.opening_date > '${startDate}'");
+
+        assertEquals("select * from m_office o where o.id = ? and o.opening_date > ?", sql.getSql());
+        assertArrayEquals(new Object[] { Long.valueOf(1), "2014-01-01" }, sql.getParameters());
+    }
+
+    @Test
+    public void shouldInlinePlaceholdersWithinLiteralsCommentsAndOrderBy() {
+        final BoundSql sql = bind("select o.id, o.name from m_office o where o.hierarchy like concat('${currentUserHierarchy}', '%')"
+                + " and o.name like '${officeId}%' /* ${officeId} */ order by ${orderBy}");
+
+        assertEquals("select o.id, o.name from m_office o where o.hierarchy like concat(?, '%')"
+                + " and o.name like '1%' /* 1 */ order by 2", sql.getSql());
+        assertArrayEquals(new Object[] { ".2." }, sql.getParameters());
+    }
+
+    @Test
+    public void shouldInlineEveryPlaceholderOfOrderByAndLimitClauses() {
+        final BoundSql sql = bind("select o.id, o.name from m_office o where o.id >= ${officeId}"
+                + " order by if(o.id = 1, 0, 1), ${orderBy} desc limit ${officeId}, ${orderBy}");
+
+        assertEquals("select o.id, o.name from m_office o where o.id >= ?"
+                + " order by if(o.id = 1, 0, 1), 2 desc limit 1, 2", sql.getSql());
+        assertArrayEquals(new Object[] { Long.valueOf(1) }, sql.getParameters());
+    }
+
+    @Test
+    public void shouldBindAgainOnceTheOrderByClauseHasEnded() {
+        final BoundSql sql = bind("select * from (select o.id from m_office o order by ${orderBy} limit ${orderBy}) x"
+                + " where x.id = ${officeId} group by x.id having count(*) > ${officeId}"
+                + " union select o.id from m_office o where o.id = ${officeId}");
+
+        assertEquals("select * from (select o.id from m_office o order by 2 limit 2) x"
+                + " where x.id = ? group by x.id having count(*) > ?"
+                + " union select o.id from m_office o where o.id = ?", sql.getSql());
+        assertArrayEquals(new Object[] { Long.valueOf(1), Long.valueOf(1), Long.valueOf(1) }, sql.getParameters());
+    }
+
+    @Test
+    public void shouldInlinePlaceholdersWhereANameIsExpected() {
+        final BoundSql sql = bind("select t${orderBy}.id from m_loan_${orderBy} t${orderBy} join ${orderBy} x on x.id = t${orderBy}.id"
+                + " where t${orderBy}.office_id = ${officeId} and t${orderBy}.id <> ${officeId}${orderBy}");
+
+        assertEquals("select t2.id from m_loan_2 t2 join 2 x on x.id = t2.id where t2.office_id = ? and t2.id <> 12", sql.getSql());
+        assertArrayEquals(new Object[] { Long.valueOf(1) }, sql.getParameters());
+    }
+
+    @Test
+    public void shouldInlineAllValuesWhenTheReportHasItsOwnMarkers() {
+        final BoundSql sql = bind("select * from m_office o where o.id = ${officeId} and o.opening_date > '${startDate}' and ?");
+
+        assertEquals("select * from m_office o where o.id = 1 and o.opening_date > '2014-01-01' and ?", sql.getSql());
+        assertEquals(0, sql.getParameters().length);
+    }
+
+    @Test
+    public void shouldLeavePlaceholdersWithoutValue() {
+        final BoundSql sql = bind("select * from m_office o where o.id in (${officeIds}) and o.id <> '${parentId}'");
+
+        assertEquals("select * from m_office o where o.id in (${officeIds}) and o.id <> '${parentId}'", sql.getSql());
+        assertEquals(0, sql.getParameters().length);
+    }
+
+    private BoundSql bind(final String sql) {
+        return ReportSqlTemplate.parse(sql).bind(this.values);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.hooks.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.hooks.data.HookDeliveryData;
+import org.mifosplatform.infrastructure.hooks.domain.Hook;
+import org.mifosplatform.infrastructure.hooks.domain.HookRepository;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessor;
+import org.mifosplatform.infrastructure.hooks.processor.HookProcessorProvider;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore;
+import org.mifosplatform.useradministration.domain.AppUser;
+import org.mifosplatform.useradministration.domain.AppUserRepository;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HookDeliveryWritePlatformServiceImplTest {
+
+    private static final String TENANT = "default";
+    private static final Long HOOK_ID = 3L;
+    private static final Long APP_USER_ID = 7L;
+
+    private final HookRepository hookRepository = mock(HookRepository.class);
+    private final HookProcessorProvider hookProcessorProvider = mock(HookProcessorProvider.class);
+    private final AppUserRepository appUserRepository = mock(AppUserRepository.class);
+    private final AuthenticationTokenStore authenticationTokenStore = new AuthenticationTokenStore();
+    private final HookProcessor processor = mock(HookProcessor.class);
+
+    private HookDeliveryWritePlatformServiceImpl service;
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(TENANT);
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        final Hook hook = mock(Hook.class);
+        when(hook.isActive()).thenReturn(true);
+        when(this.hookRepository.findOne(HOOK_ID)).thenReturn(hook);
+        when(this.hookProcessorProvider.getProcessor(hook)).thenReturn(this.processor);
+
+        final AppUser appUser = mock(AppUser.class);
+        when(appUser.getId()).thenReturn(APP_USER_ID);
+        when(appUser.getUsername()).thenReturn("mifos");
+        when(appUser.getPassword()).thenReturn("encodedPassword");
+        when(this.appUserRepository.findOne(APP_USER_ID)).thenReturn(appUser);
+
+        this.service = new HookDeliveryWritePlatformServiceImpl(mock(RoutingDataSource.class), this.hookRepository,
+                this.hookProcessorProvider, this.appUserRepository, this.authenticationTokenStore);
+        ReflectionTestUtils.setField(this.service, "jdbcTemplate", mock(JdbcTemplate.class));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldHandOnAuthorizationOfTheTriggeringRequest() {
+        ReflectionTestUtils.setField(this.authenticationTokenStore, "enabled", true);
+
+        this.service.deliver(delivery(APP_USER_ID), "Basic bWlmb3M6cGFzc3dvcmQ=");
+
+        assertEquals("Basic bWlmb3M6cGFzc3dvcmQ=", deliveredAuthorization());
+    }
+
+    @Test
+    public void shouldIssueTokenOfTheTriggeringUserForRetries() {
+        ReflectionTestUtils.setField(this.authenticationTokenStore, "enabled", true);
+
+        this.service.deliver(delivery(APP_USER_ID), null);
+
+        final String authorization = deliveredAuthorization();
+        assertTrue(authorization.startsWith("Token "));
+        final AuthenticationTokenStore.IssuedToken issuedToken = this.authenticationTokenStore.find(TENANT,
+                authorization.substring("Token ".length()));
+        assertNotNull(issuedToken);
+        assertEquals("mifos", issuedToken.getUsername());
+    }
+
+    @Test
+    public void shouldHandOnNoAuthorizationForRetriesWhenTokensAreDisabled() {
+        this.service.deliver(delivery(APP_USER_ID), null);
+
+        assertNull(deliveredAuthorization());
+    }
+
+    @Test
+    public void shouldHandOnNoAuthorizationForRetriesWithoutUser() {
+        ReflectionTestUtils.setField(this.authenticationTokenStore, "enabled", true);
+
+        this.service.deliver(delivery(null), null);
+
+        assertNull(deliveredAuthorization());
+    }
+
+    private static HookDeliveryData delivery(final Long appUserId) {
+        return new HookDeliveryData(1L, HOOK_ID, "CLIENT", "CREATE", "{}", appUserId, 1);
+    }
+
+    private String deliveredAuthorization() {
+        final ArgumentCaptor<String> authorization = ArgumentCaptor.forClass(String.class);
+        verify(this.processor).process(any(Hook.class), any(AppUser.class), eq("{}"), eq("CLIENT"), eq("CREATE"), eq(TENANT),
+                authorization.capture());
+        return authorization.getValue();
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobDetail;
+import org.mifosplatform.infrastructure.jobs.domain.ScheduledJobRunHistory;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SchedulerJobListenerTest {
+
+    @Mock
+    private SchedularWritePlatformService schedularService;
+    @Mock
+    private JobExecutionContext context;
+
+    private final TenantJobExecutionGate gate = new TenantJobExecutionGate();
+    private final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+    private final Date fireTime = new Date(System.currentTimeMillis() - 60000);
+    private SchedulerJobListener listener;
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobs", 1);
+        when(this.tenant.getTenantIdentifier()).thenReturn("default");
+        when(this.tenant.databaseServer()).thenReturn("localhost:3306");
+        ThreadLocalContextUtil.setTenant(this.tenant);
+
+        final Map<Object, Object> data = new HashMap<>();
+        doAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return data.put(invocation.getArguments()[0], invocation.getArguments()[1]);
+            }
+        }).when(this.context).put(any(), any());
+        when(this.context.get(any())).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return data.get(invocation.getArguments()[0]);
+            }
+        });
+        final JobDetail jobDetail = mock(JobDetail.class);
+        when(jobDetail.getKey()).thenReturn(new JobKey("Apply Annual Fee", "default"));
+        when(this.context.getJobDetail()).thenReturn(jobDetail);
+        when(this.context.getTrigger()).thenReturn(mock(Trigger.class));
+        when(this.context.getMergedJobDataMap()).thenReturn(new JobDataMap());
+        when(this.context.getFireTime()).thenReturn(this.fireTime);
+        when(this.schedularService.findByJobKey(anyString())).thenReturn(mock(ScheduledJobDetail.class));
+        when(this.schedularService.fetchMaxVersionBy(anyString())).thenReturn(Long.valueOf(0));
+
+        this.listener = new SchedulerJobListener(this.schedularService, this.gate);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldReleaseTheSlotOfAFailedJobAndRecordWhenItActuallyStarted() {
+        this.listener.jobToBeExecuted(this.context);
+        assertEquals(1, ReflectionTestUtils.getField(this.gate, "runningJobs"));
+        this.listener.jobWasExecuted(this.context, new JobExecutionException("failed"));
+        assertEquals(0, ReflectionTestUtils.getField(this.gate, "runningJobs"));
+
+        final ArgumentCaptor<ScheduledJobRunHistory> runHistory = ArgumentCaptor.forClass(ScheduledJobRunHistory.class);
+        verify(this.schedularService).saveOrUpdate(any(ScheduledJobDetail.class), runHistory.capture());
+        final Date startTime = (Date) ReflectionTestUtils.getField(runHistory.getValue(), "startTime");
+        final Long queueWaitMillis = (Long) ReflectionTestUtils.getField(runHistory.getValue(), "queueWaitMillis");
+        assertEquals(this.fireTime.getTime() + queueWaitMillis, startTime.getTime());
+        assertEquals(SchedulerServiceConstants.STATUS_FAILED, ReflectionTestUtils.getField(runHistory.getValue(), "status"));
+    }
+
+    @Test
+    public void shouldReleaseTheSlotOfAVetoedJobOnlyOnce() {
+        this.listener.jobToBeExecuted(this.context);
+        this.listener.jobExecutionVetoed(this.context);
+        this.listener.jobExecutionVetoed(this.context);
+
+        assertEquals(0, ReflectionTestUtils.getField(this.gate, "runningJobs"));
+    }
+}
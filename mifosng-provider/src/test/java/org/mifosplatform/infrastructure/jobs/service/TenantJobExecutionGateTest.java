@@ -0,0 +1,169 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.jobs.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TenantJobExecutionGateTest {
+
+    private final TenantJobExecutionGate gate = new TenantJobExecutionGate();
+    private final List<String> admissions = Collections.synchronizedList(new ArrayList<String>());
+    private final List<Thread> jobs = new ArrayList<>();
+
+    private final MifosPlatformTenant tenantA = tenant("a", "server1");
+    private final MifosPlatformTenant tenantB = tenant("b", "server1");
+    private final MifosPlatformTenant tenantC = tenant("c", "server2");
+
+    @Before
+    public void setUp() {
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobs", 10);
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobsPerTenant", 2);
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobsPerDatabaseServer", 3);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        for (final Thread job : this.jobs) {
+            job.interrupt();
+            job.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    @Test
+    public void shouldLetTheJobsOfATenantWaitOnceItsLimitIsReached() throws InterruptedException {
+        this.gate.admit(this.tenantA);
+        this.gate.admit(this.tenantA);
+
+        startJob(this.tenantA, "a3");
+        awaitWaitingJobs(1);
+        this.gate.admit(this.tenantC);
+        assertTrue(this.admissions.isEmpty());
+
+        this.gate.release(this.tenantA);
+        awaitAdmissions(1);
+        assertEquals("a3", this.admissions.get(0));
+    }
+
+    @Test
+    public void shouldLetTheJobsOfADatabaseServerWaitOnceItsLimitIsReached() throws InterruptedException {
+        this.gate.admit(this.tenantA);
+        this.gate.admit(this.tenantA);
+        this.gate.admit(this.tenantB);
+
+        startJob(this.tenantB, "b2");
+        awaitWaitingJobs(1);
+
+        this.gate.release(this.tenantA);
+        awaitAdmissions(1);
+    }
+
+    @Test
+    public void shouldAdmitWaitingJobsRoundRobinAcrossTenants() throws InterruptedException {
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobs", 1);
+        this.gate.admit(this.tenantC);
+
+        startJob(this.tenantA, "a1");
+        awaitWaitingJobs(1);
+        startJob(this.tenantA, "a2");
+        awaitWaitingJobs(2);
+        startJob(this.tenantB, "b1");
+        awaitWaitingJobs(3);
+
+        this.gate.release(this.tenantC);
+        awaitAdmissions(1);
+        this.gate.release(this.tenantA);
+        awaitAdmissions(2);
+        this.gate.release(this.tenantB);
+        awaitAdmissions(3);
+
+        assertEquals(Arrays.asList("a1", "b1", "a2"), this.admissions);
+    }
+
+    @Test
+    public void shouldGiveUpTheTurnOfAnInterruptedJob() throws InterruptedException {
+        ReflectionTestUtils.setField(this.gate, "maxConcurrentJobs", 1);
+        this.gate.admit(this.tenantC);
+
+        final Thread interrupted = startJob(this.tenantA, "a1");
+        awaitWaitingJobs(1);
+        startJob(this.tenantB, "b1");
+        awaitWaitingJobs(2);
+
+        interrupted.interrupt();
+        awaitWaitingJobs(1);
+        this.gate.release(this.tenantC);
+        awaitAdmissions(1);
+        assertEquals("b1", this.admissions.get(0));
+    }
+
+    private Thread startJob(final MifosPlatformTenant tenant, final String name) {
+        final Thread job = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    TenantJobExecutionGateTest.this.gate.admit(tenant);
+                    TenantJobExecutionGateTest.this.admissions.add(name);
+                } catch (final InterruptedException e) {
+                    // not admitted
+                }
+            }
+        }, name);
+        job.start();
+        this.jobs.add(job);
+        return job;
+    }
+
+    private void awaitWaitingJobs(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (waitingJobs() != count) {
+            assertTrue("expected " + count + " waiting jobs", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private int waitingJobs() {
+        synchronized (this.gate) {
+            int count = 0;
+            for (final Object waiting : ((Map<?, ?>) ReflectionTestUtils.getField(this.gate, "waitingJobsByTenant")).values()) {
+                count += ((Collection<?>) waiting).size();
+            }
+            return count;
+        }
+    }
+
+    private void awaitAdmissions(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (this.admissions.size() != count) {
+            assertTrue("expected " + count + " admitted jobs", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static MifosPlatformTenant tenant(final String tenantIdentifier, final String databaseServer) {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(tenantIdentifier);
+        when(tenant.databaseServer()).thenReturn(databaseServer);
+        return tenant;
+    }
+}
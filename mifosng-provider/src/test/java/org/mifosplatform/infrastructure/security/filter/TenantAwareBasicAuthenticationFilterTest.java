@@ -0,0 +1,146 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.cache.service.CacheWritePlatformService;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.dataqueries.service.DatatableMetadataCache;
+import org.mifosplatform.infrastructure.dataqueries.service.GenericDataService;
+import org.mifosplatform.infrastructure.dataqueries.service.GenericDataServiceImpl;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore;
+import org.mifosplatform.infrastructure.security.service.BasicAuthTenantDetailsService;
+import org.mifosplatform.infrastructure.security.service.PlatformRequestLogWriter;
+import org.mifosplatform.infrastructure.security.service.PlatformUserDetailsService;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class TenantAwareBasicAuthenticationFilterTest {
+
+    private static final String TENANT = "default";
+    private static final String BASIC_CREDENTIALS = "bWlmb3M6cGFzc3dvcmQ=";
+
+    private final AuthenticationTokenStore authenticationTokenStore = new AuthenticationTokenStore();
+    private TenantAwareBasicAuthenticationFilter filter;
+
+    private String authTokenInChain;
+    private final Connection reportConnection = mock(Connection.class);
+    private GenericDataService reportOpenedInChain;
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn(TENANT);
+        final BasicAuthTenantDetailsService tenantDetailsService = mock(BasicAuthTenantDetailsService.class);
+        when(tenantDetailsService.loadTenantById(TENANT)).thenReturn(tenant);
+
+        final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+        when(authenticationManager.authenticate(any(Authentication.class))).thenReturn(mock(Authentication.class));
+
+        ReflectionTestUtils.setField(this.authenticationTokenStore, "enabled", true);
+
+        this.filter = new TenantAwareBasicAuthenticationFilter(authenticationManager, mock(AuthenticationEntryPoint.class),
+                tenantDetailsService, mock(PlatformRequestLogWriter.class), mock(ConfigurationDomainService.class),
+                mock(CacheWritePlatformService.class), this.authenticationTokenStore, mock(PlatformUserDetailsService.class));
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.setAuthToken(null);
+        ThreadLocalContextUtil.clearTenant();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void shouldHandOnBasicCredentialsForTheRequestOnly() throws Exception {
+        doFilter("Basic " + BASIC_CREDENTIALS);
+
+        assertEquals(BASIC_CREDENTIALS, this.authTokenInChain);
+        assertNull(ThreadLocalContextUtil.getAuthToken());
+    }
+
+    @Test
+    public void shouldNotHandOnCredentialsOfAnEarlierRequestToTokenRequest() throws Exception {
+        ThreadLocalContextUtil.setAuthToken(BASIC_CREDENTIALS);
+
+        doFilter("Token 0123456789abcdef");
+
+        assertNull(this.authTokenInChain);
+        assertNull(ThreadLocalContextUtil.getAuthToken());
+    }
+
+    @Test
+    public void shouldNotHandOnCredentialsOfAnEarlierRequestToRequestWithoutAuthorization() throws Exception {
+        ThreadLocalContextUtil.setAuthToken(BASIC_CREDENTIALS);
+
+        doFilter(null);
+
+        assertNull(this.authTokenInChain);
+        assertNull(ThreadLocalContextUtil.getAuthToken());
+    }
+
+    @Test
+    public void shouldCloseReportsNeverWrittenToTheResponse() throws Exception {
+        final RoutingDataSource dataSource = mock(RoutingDataSource.class);
+        when(dataSource.getConnection()).thenReturn(this.reportConnection);
+        final PreparedStatement statement = mock(PreparedStatement.class);
+        when(this.reportConnection.prepareStatement("select 1", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)).thenReturn(
+                statement);
+        when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+        this.reportOpenedInChain = new GenericDataServiceImpl(dataSource, mock(DatatableMetadataCache.class));
+
+        doFilter("Basic " + BASIC_CREDENTIALS);
+
+        verify(this.reportConnection).close();
+    }
+
+    private void doFilter(final String authorization) throws IOException, ServletException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/mifosng-provider/api/v1/clients");
+        request.setPathInfo("/clients");
+        request.addHeader("X-Mifos-Platform-TenantId", TENANT);
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+
+        this.filter.doFilter(request, new MockHttpServletResponse(), new FilterChain() {
+
+            @Override
+            public void doFilter(@SuppressWarnings("unused") final ServletRequest req, @SuppressWarnings("unused") final ServletResponse res) {
+                TenantAwareBasicAuthenticationFilterTest.this.authTokenInChain = ThreadLocalContextUtil.getAuthToken();
+                if (TenantAwareBasicAuthenticationFilterTest.this.reportOpenedInChain != null) {
+                    TenantAwareBasicAuthenticationFilterTest.this.reportOpenedInChain.openGenericResultSet("select 1");
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.security.service.AuthenticationTokenStore.IssuedToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AuthenticationTokenStoreTest {
+
+    private static final String TENANT = "default";
+    private static final String PASSWORD = "encodedPassword";
+
+    private final AuthenticationTokenStore store = new AuthenticationTokenStore();
+
+    @Test
+    public void shouldFindIssuedTokenForTheTenantOnly() {
+        final String token = this.store.issue(TENANT, 1L, "mifos", PASSWORD);
+
+        final IssuedToken issuedToken = this.store.find(TENANT, token);
+        assertNotNull(issuedToken);
+        assertEquals("mifos", issuedToken.getUsername());
+        assertTrue(this.store.isValidFor(issuedToken, user(PASSWORD, true, true)));
+
+        assertNull(this.store.find("other", token));
+        assertNull(this.store.find(TENANT, token.substring(1) + "0"));
+    }
+
+    @Test
+    public void shouldNotFindExpiredToken() {
+        ReflectionTestUtils.setField(this.store, "timeToLiveSeconds", 0);
+        final String token = this.store.issue(TENANT, 1L, "mifos", PASSWORD);
+
+        assertNull(this.store.find(TENANT, token));
+    }
+
+    @Test
+    public void shouldNotFindRevokedToken() {
+        final String token = this.store.issue(TENANT, 1L, "mifos", PASSWORD);
+        final String otherUsersToken = this.store.issue(TENANT, 2L, "other", PASSWORD);
+
+        this.store.revokeTokensOf(TENANT, 1L);
+
+        assertNull(this.store.find(TENANT, token));
+        assertNotNull(this.store.find(TENANT, otherUsersToken));
+    }
+
+    @Test
+    public void shouldNotBeValidForDisabledUser() {
+        final IssuedToken issuedToken = this.store.find(TENANT, this.store.issue(TENANT, 1L, "mifos", PASSWORD));
+
+        assertFalse(this.store.isValidFor(issuedToken, user(PASSWORD, false, true)));
+    }
+
+    @Test
+    public void shouldNotBeValidForUserWithExpiredPassword() {
+        final IssuedToken issuedToken = this.store.find(TENANT, this.store.issue(TENANT, 1L, "mifos", PASSWORD));
+
+        assertFalse(this.store.isValidFor(issuedToken, user(PASSWORD, true, false)));
+    }
+
+    @Test
+    public void shouldNotBeValidOncePasswordChanged() {
+        final IssuedToken issuedToken = this.store.find(TENANT, this.store.issue(TENANT, 1L, "mifos", PASSWORD));
+
+        assertFalse(this.store.isValidFor(issuedToken, user("newEncodedPassword", true, true)));
+    }
+
+    private static UserDetails user(final String password, final boolean enabled, final boolean credentialsNonExpired) {
+        return new User("mifos", password, enabled, true, credentialsNonExpired, true, Collections.<GrantedAuthority> emptyList());
+    }
+}
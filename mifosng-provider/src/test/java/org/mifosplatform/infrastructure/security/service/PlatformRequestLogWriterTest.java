@@ -0,0 +1,127 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.serialization.ToApiJsonSerializer;
+import org.mifosplatform.infrastructure.security.data.PlatformRequestLog;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PlatformRequestLogWriterTest {
+
+    private PlatformRequestLogWriter writer;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        this.writer = new PlatformRequestLogWriter(mock(ToApiJsonSerializer.class));
+        ReflectionTestUtils.setField(this.writer, "bufferSize", 2);
+        ReflectionTestUtils.setField(this.writer, "sampleRate", 0.0d);
+        // the writer thread is not started, the test writes the requests
+        this.writer.allocateBuffer();
+    }
+
+    @Test
+    public void shouldDropRequestsWhileTheBufferIsFullAndReuseItsSlotsOnceWritten() {
+        this.writer.record(request("GET", "/loans/1"), "default", 0, 10);
+        this.writer.record(request("GET", "/loans/2"), "default", 0, 10);
+        this.writer.record(request("GET", "/loans/3"), "default", 0, 10);
+
+        assertEquals(2, this.writer.writeRecordedRequests());
+        assertEquals(0, this.writer.writeRecordedRequests());
+
+        this.writer.record(request("GET", "/loans/4"), "default", 0, 10);
+        this.writer.record(request("GET", "/loans/5"), "default", 0, 10);
+        this.writer.record(request("GET", "/loans/6"), "default", 0, 10);
+
+        assertEquals(2, this.writer.writeRecordedRequests());
+        assertEquals(4L, ReflectionTestUtils.getField(single(this.writer.retrieveLatencies("default")), "count"));
+    }
+
+    @Test
+    public void shouldKeepTheLatenciesOfEachTenantApart() {
+        this.writer.record(request("GET", "/loans/1"), "default", 0, 10);
+        this.writer.record(request("POST", "/clients"), "other", 0, 10);
+        this.writer.writeRecordedRequests();
+        this.writer.record(request("GET", "/offices"), null, 0, 10);
+        this.writer.writeRecordedRequests();
+
+        assertEquals("GET /loans/{id}", single(this.writer.retrieveLatencies("default")).getEndpoint());
+        assertEquals("POST /clients", single(this.writer.retrieveLatencies("other")).getEndpoint());
+        assertTrue(this.writer.retrieveLatencies("unknown").isEmpty());
+    }
+
+    @Test
+    public void shouldFreeTheSlotOfARequestThatCouldNotBeRecorded() {
+        final HttpServletRequest failing = request("GET", "/loans/1");
+        when(failing.getMethod()).thenThrow(new IllegalStateException("request already recycled"));
+        try {
+            this.writer.record(failing, "default", 0, 10);
+            fail();
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+        this.writer.record(request("GET", "/clients"), "default", 0, 10);
+
+        // the first slot is published empty
+        assertEquals(2, this.writer.writeRecordedRequests());
+        assertEquals("GET /clients", single(this.writer.retrieveLatencies("default")).getEndpoint());
+    }
+
+    @Test
+    public void shouldSkipASlotClaimedButNeverPublishedOnceItTimesOut() {
+        ReflectionTestUtils.setField(this.writer, "unpublishedSlotTimeoutMillis", 0L);
+        // as a request thread dying after claiming its slot
+        ((AtomicLong) ReflectionTestUtils.getField(this.writer, "nextSequence")).incrementAndGet();
+        this.writer.record(request("GET", "/clients"), "default", 0, 10);
+
+        assertEquals(0, this.writer.writeRecordedRequests());
+        assertEquals(1, this.writer.writeRecordedRequests());
+        assertEquals("GET /clients", single(this.writer.retrieveLatencies("default")).getEndpoint());
+
+        // the freed slot is used again
+        this.writer.record(request("GET", "/clients"), "default", 0, 10);
+        this.writer.record(request("GET", "/clients"), "default", 0, 10);
+        assertEquals(2, this.writer.writeRecordedRequests());
+    }
+
+    @Test
+    public void shouldWaitForASlotClaimedButNotYetPublished() {
+        ((AtomicLong) ReflectionTestUtils.getField(this.writer, "nextSequence")).incrementAndGet();
+        this.writer.record(request("GET", "/clients"), "default", 0, 10);
+
+        assertEquals(0, this.writer.writeRecordedRequests());
+        assertEquals(0, this.writer.writeRecordedRequests());
+    }
+
+    private static RequestLatencyData single(final Collection<RequestLatencyData> latencies) {
+        assertEquals(1, latencies.size());
+        return latencies.iterator().next();
+    }
+
+    private static HttpServletRequest request(final String method, final String pathInfo) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getMethod()).thenReturn(method);
+        when(request.getPathInfo()).thenReturn(pathInfo);
+        when(request.getRequestURL()).thenReturn(new StringBuffer("https://localhost/mifosng-provider/api/v1" + pathInfo));
+        when(request.getParameterMap()).thenReturn(new HashMap<String, String[]>());
+        return request;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.infrastructure.security.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mifosplatform.infrastructure.security.data.RequestLatencyData;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RequestLatencyHistogramTest {
+
+    private final RequestLatencyHistogram histogram = new RequestLatencyHistogram("GET /loans/{id}");
+
+    @Test
+    public void shouldCountLatenciesInTheBucketOfTheirInclusiveUpperBound() {
+        this.histogram.record(0);
+        this.histogram.record(5);
+        this.histogram.record(6);
+        this.histogram.record(30000);
+        this.histogram.record(30001);
+
+        final RequestLatencyData data = this.histogram.toData();
+
+        assertArrayEquals(new long[] { 2, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1 }, (long[]) field(data, "bucketCounts"));
+        assertEquals(5L, field(data, "count"));
+        assertEquals(30001L, field(data, "maxMillis"));
+        assertEquals(12002L, field(data, "meanMillis"));
+    }
+
+    @Test
+    public void shouldReportPercentilesAsBucketUpperBoundsCappedAtTheMaximum() {
+        for (int i = 0; i < 90; i++) {
+            this.histogram.record(3);
+        }
+        for (int i = 0; i < 9; i++) {
+            this.histogram.record(200);
+        }
+        this.histogram.record(40000);
+
+        final RequestLatencyData data = this.histogram.toData();
+
+        assertEquals(5L, field(data, "percentile50Millis"));
+        assertEquals(250L, field(data, "percentile95Millis"));
+        assertEquals(250L, field(data, "percentile99Millis"));
+        assertEquals(40000L, field(data, "maxMillis"));
+
+        final RequestLatencyHistogram fast = new RequestLatencyHistogram("GET /clients");
+        fast.record(2);
+        assertEquals(2L, field(fast.toData(), "percentile99Millis"));
+    }
+
+    @Test
+    public void shouldReportZerosWithoutRequests() {
+        final RequestLatencyData data = this.histogram.toData();
+
+        assertEquals(0L, field(data, "count"));
+        assertEquals(0L, field(data, "meanMillis"));
+        assertEquals(0L, field(data, "percentile50Millis"));
+    }
+
+    private static Object field(final RequestLatencyData data, final String name) {
+        return ReflectionTestUtils.getField(data, name);
+    }
+}
@@ -0,0 +1,170 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.joda.time.LocalDate;
+import org.joda.time.LocalDateTime;
+import org.junit.Test;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.organisation.monetary.domain.Money;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanCharge;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepaymentScheduleInstallment;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanTransaction;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.LoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.CreocoreLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.EarlyPaymentLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.HeavensFamilyLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.MifosStyleLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor;
+import org.mifosplatform.portfolio.loanaccount.domain.transactionprocessor.impl.RBILoanRepaymentScheduleTransactionProcessor;
+
+/**
+ * Applying transactions one by one with
+ * {@link LoanRepaymentScheduleTransactionProcessor#handleTransactionIncrementally}
+ * must leave the installments and transactions exactly as re-processing all
+ * transactions does, for every processing strategy.
+ */
+public class IncrementalLoanRepaymentScheduleTransactionProcessingTest {
+
+    private final LocalDate disbursementDate = new LocalDate(2012, 6, 2);
+    private final MonetaryCurrency usDollars = new MonetaryCurrencyBuilder().withCode("USD").withDigitsAfterDecimal(2).build();
+    private final Set<LoanCharge> charges = new HashSet<>();
+
+    @Test
+    public void incrementalProcessingMatchesFullReprocessingForAllStrategies() {
+
+        for (final LoanRepaymentScheduleTransactionProcessor processor : allProcessors()) {
+            final String strategy = processor.getClass().getSimpleName();
+
+            final List<LoanRepaymentScheduleInstallment> replayedInstallments = twelveMonthlyInstallments();
+            final List<LoanTransaction> replayedTransactions = transactionsInChronologicalOrder();
+            processor.handleTransaction(this.disbursementDate, replayedTransactions, this.usDollars, replayedInstallments, this.charges);
+
+            final List<LoanRepaymentScheduleInstallment> installments = twelveMonthlyInstallments();
+            final List<LoanTransaction> transactions = transactionsInChronologicalOrder();
+            final List<LoanTransaction> loanTransactions = new ArrayList<>();
+            for (final LoanTransaction transaction : transactions) {
+                loanTransactions.add(transaction);
+                assertTrue(strategy + ": transaction of " + transaction.getTransactionDate() + " should be applied forward",
+                        processor.handleTransactionIncrementally(transaction, loanTransactions, this.usDollars, installments, this.charges));
+            }
+
+            assertEquals(strategy, describeInstallments(replayedInstallments), describeInstallments(installments));
+            assertEquals(strategy, describeTransactions(replayedTransactions), describeTransactions(transactions));
+        }
+    }
+
+    @Test
+    public void backdatedTransactionsAreLeftForFullReprocessing() {
+
+        for (final LoanRepaymentScheduleTransactionProcessor processor : allProcessors()) {
+            final String strategy = processor.getClass().getSimpleName();
+
+            final List<LoanRepaymentScheduleInstallment> installments = twelveMonthlyInstallments();
+            final List<LoanTransaction> loanTransactions = transactionsInChronologicalOrder();
+            processor.handleTransaction(this.disbursementDate, loanTransactions, this.usDollars, installments, this.charges);
+            final String installmentsBefore = describeInstallments(installments);
+
+            final LoanTransaction backdatedRepayment = repayment(new LocalDate(2012, 8, 1), "300.00");
+            loanTransactions.add(backdatedRepayment);
+            if (processor.handleTransactionIncrementally(backdatedRepayment, loanTransactions, this.usDollars, installments, this.charges)) {
+                fail(strategy + ": backdated repayment should not be applied forward");
+            }
+
+            // full reprocessing places an interest waiver before repayments of
+            // the same day
+            final LoanTransaction sameDayWaiver = interestWaiver(new LocalDate(2013, 6, 2), "10.00");
+            loanTransactions.add(sameDayWaiver);
+            if (processor.handleTransactionIncrementally(sameDayWaiver, loanTransactions, this.usDollars, installments, this.charges)) {
+                fail(strategy + ": interest waiver on the day of a repayment should not be applied forward");
+            }
+
+            assertEquals(strategy, installmentsBefore, describeInstallments(installments));
+        }
+    }
+
+    private List<LoanRepaymentScheduleTransactionProcessor> allProcessors() {
+        return Arrays.<LoanRepaymentScheduleTransactionProcessor> asList(new MifosStyleLoanRepaymentScheduleTransactionProcessor(),
+                new HeavensFamilyLoanRepaymentScheduleTransactionProcessor(), new EarlyPaymentLoanRepaymentScheduleTransactionProcessor(),
+                new CreocoreLoanRepaymentScheduleTransactionProcessor(), new RBILoanRepaymentScheduleTransactionProcessor(),
+                new PrincipalInterestPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor(),
+                new InterestPrincipalPenaltyFeesOrderLoanRepaymentScheduleTransactionProcessor());
+    }
+
+    private List<LoanRepaymentScheduleInstallment> twelveMonthlyInstallments() {
+        final List<LoanRepaymentScheduleInstallment> installments = new ArrayList<>();
+        for (int installmentNumber = 1; installmentNumber <= 12; installmentNumber++) {
+            installments.add(new LoanRepaymentScheduleInstallmentBuilder(this.usDollars).withInstallmentNumber(installmentNumber)
+                    .withDueDate(this.disbursementDate.plusMonths(installmentNumber)).withPrincipal("1000.00").withInterest("200.00")
+                    .build());
+        }
+        return installments;
+    }
+
+    /**
+     * On time, late, partial, same day, early and over payments and an
+     * interest waiver.
+     */
+    private List<LoanTransaction> transactionsInChronologicalOrder() {
+        return new ArrayList<>(Arrays.asList(repayment(new LocalDate(2012, 7, 2), "1200.00"),
+                repayment(new LocalDate(2012, 8, 10), "500.00"), repayment(new LocalDate(2012, 8, 10), "700.00"),
+                interestWaiver(new LocalDate(2012, 9, 1), "200.00"), repayment(new LocalDate(2012, 9, 2), "3000.00"),
+                repayment(new LocalDate(2013, 1, 5), "100.55"), repayment(new LocalDate(2013, 6, 2), "20000.00")));
+    }
+
+    private LoanTransaction repayment(final LocalDate date, final String amount) {
+        return LoanTransaction.repayment(null, money(amount), null, date, null, new LocalDateTime(), null);
+    }
+
+    private LoanTransaction interestWaiver(final LocalDate date, final String amount) {
+        return LoanTransaction.waiver(null, null, money(amount), date, money(amount), Money.zero(this.usDollars), new LocalDateTime(),
+                null);
+    }
+
+    private Money money(final String amount) {
+        return new MoneyBuilder().with(this.usDollars).with(amount).build();
+    }
+
+    private String describeInstallments(final List<LoanRepaymentScheduleInstallment> installments) {
+        final StringBuilder description = new StringBuilder();
+        for (final LoanRepaymentScheduleInstallment installment : installments) {
+            description.append(installment.getInstallmentNumber()).append(": principal ")
+                    .append(installment.getPrincipalCompleted(this.usDollars)).append(", interest ")
+                    .append(installment.getInterestPaid(this.usDollars)).append(" paid ")
+                    .append(installment.getInterestWaived(this.usDollars)).append(" waived, fees ")
+                    .append(installment.getFeeChargesPaid(this.usDollars)).append(", penalties ")
+                    .append(installment.getPenaltyChargesPaid(this.usDollars)).append(", in advance ")
+                    .append(installment.getTotalPaidInAdvance(this.usDollars)).append(", late ")
+                    .append(installment.getTotalPaidLate(this.usDollars)).append(", met ").append(installment.isObligationsMet())
+                    .append('\n');
+        }
+        return description.toString();
+    }
+
+    private String describeTransactions(final List<LoanTransaction> transactions) {
+        final StringBuilder description = new StringBuilder();
+        for (final LoanTransaction transaction : transactions) {
+            description.append(transaction.getTransactionDate()).append(": principal ")
+                    .append(transaction.getPrincipalPortion(this.usDollars)).append(", interest ")
+                    .append(transaction.getInterestPortion(this.usDollars)).append(", fees ")
+                    .append(transaction.getFeeChargesPortion(this.usDollars)).append(", penalties ")
+                    .append(transaction.getPenaltyChargesPortion(this.usDollars)).append(", overpaid ")
+                    .append(transaction.getOverPaymentPortion(this.usDollars)).append('\n');
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,214 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.loanschedule.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.configuration.service.GlobalConfigurationWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.infrastructure.core.api.JsonCommand;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.organisation.holiday.service.HolidayWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.organisation.workingdays.data.WorkingDayValidator;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDays;
+import org.mifosplatform.organisation.workingdays.domain.WorkingDaysRepositoryWrapper;
+import org.mifosplatform.organisation.workingdays.service.WorkingDaysWritePlatformService;
+import org.mifosplatform.organisation.workingdays.service.WorkingDaysWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.portfolio.calendar.service.CalendarWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.portfolio.charge.service.ChargeWritePlatformServiceJpaRepositoryImpl;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModel;
+import org.mifosplatform.portfolio.loanaccount.loanschedule.domain.LoanScheduleModelPeriod;
+import org.mifosplatform.portfolio.loanproduct.service.LoanProductWritePlatformServiceJpaRepositoryImpl;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.CacheEvictOperation;
+import org.springframework.cache.interceptor.CacheOperation;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * Tests the loanSchedulePreviews cache through the Spring cache proxies, with
+ * the preview keys of {@link LoanScheduleCalculationPlatformServiceImpl} and
+ * the cache held in memory.
+ */
+public class LoanScheduleAssemblerTest {
+
+    private static final String APPLICATION = "{\"productId\": 1, \"principal\": 1000, \"charges\": [{\"chargeId\": 2, \"amount\": 10}]}";
+
+    private AnnotationConfigApplicationContext context;
+    private CountingLoanScheduleAssembler assembler;
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTenantIdentifier()).thenReturn("default");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        this.context = new AnnotationConfigApplicationContext(PreviewCacheConfiguration.class);
+        this.assembler = this.context.getBean(CountingLoanScheduleAssembler.class);
+    }
+
+    @After
+    public void tearDown() {
+        this.context.close();
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void sameApplicationIsGeneratedOnce() {
+        final LoanScheduleModel schedule = preview(APPLICATION);
+
+        assertSame(schedule, preview(APPLICATION));
+        assertEquals(1, this.assembler.generated());
+    }
+
+    @Test
+    public void applicationsDifferingInMemberOrderOrWhitespaceShareOneEntry() {
+        final LoanScheduleModel schedule = preview(APPLICATION);
+
+        assertSame(schedule, preview("{\"charges\":[{\"amount\":10,\"chargeId\":2}],\"principal\":1000,\"productId\":1}"));
+        assertSame(schedule, preview("{\n  \"principal\" : 1000,\n  \"charges\" : [ { \"chargeId\" : 2, \"amount\" : 10 } ],\n"
+                + "  \"productId\" : 1\n}"));
+        assertEquals(1, this.assembler.generated());
+    }
+
+    @Test
+    public void differentApplicationsOrTenantsAreGeneratedApart() {
+        preview(APPLICATION);
+        preview("{\"productId\": 1, \"principal\": 2000, \"charges\": [{\"chargeId\": 2, \"amount\": 10}]}");
+        preview("{\"productId\": 1, \"principal\": \"1000\", \"charges\": [{\"chargeId\": 2, \"amount\": 10}]}");
+        // the order of array items is significant
+        preview("{\"productId\": 1, \"principal\": 1000, \"charges\": [{\"chargeId\": 2, \"amount\": 10}, {\"chargeId\": 3}]}");
+        preview("{\"productId\": 1, \"principal\": 1000, \"charges\": [{\"chargeId\": 3}, {\"chargeId\": 2, \"amount\": 10}]}");
+        assertEquals(5, this.assembler.generated());
+
+        when(ThreadLocalContextUtil.getTenant().getTenantIdentifier()).thenReturn("other");
+        preview(APPLICATION);
+        assertEquals(6, this.assembler.generated());
+    }
+
+    @Test
+    public void updatingWorkingDaysClearsThePreviews() {
+        final LoanScheduleModel schedule = preview(APPLICATION);
+
+        final String json = "{\"recurrence\": \"FREQ=WEEKLY;INTERVAL=1;BYDAY=MO,TU,WE,TH,FR\"}";
+        final JsonCommand command = JsonCommand.from(json, new JsonParser().parse(json), new FromJsonHelper(), null, null, null, null,
+                null, null, null, null, null, null);
+        this.context.getBean(WorkingDaysWritePlatformService.class).updateWorkingDays(command);
+
+        assertNotSame(schedule, preview(APPLICATION));
+        assertEquals(2, this.assembler.generated());
+    }
+
+    @Test
+    public void changesTheSchedulesDependOnClearThePreviews() throws NoSuchMethodException {
+        assertEvictsPreviews(GlobalConfigurationWritePlatformServiceJpaRepositoryImpl.class, "update", Long.class, JsonCommand.class);
+        assertEvictsPreviews(HolidayWritePlatformServiceJpaRepositoryImpl.class, "createHoliday", JsonCommand.class);
+        assertEvictsPreviews(HolidayWritePlatformServiceJpaRepositoryImpl.class, "updateHoliday", JsonCommand.class);
+        assertEvictsPreviews(HolidayWritePlatformServiceJpaRepositoryImpl.class, "activateHoliday", Long.class);
+        assertEvictsPreviews(HolidayWritePlatformServiceJpaRepositoryImpl.class, "deleteHoliday", Long.class);
+        assertEvictsPreviews(WorkingDaysWritePlatformServiceJpaRepositoryImpl.class, "updateWorkingDays", JsonCommand.class);
+        assertEvictsPreviews(CalendarWritePlatformServiceJpaRepositoryImpl.class, "updateCalendar", JsonCommand.class);
+        assertEvictsPreviews(CalendarWritePlatformServiceJpaRepositoryImpl.class, "deleteCalendar", Long.class);
+        assertEvictsPreviews(ChargeWritePlatformServiceJpaRepositoryImpl.class, "updateCharge", Long.class, JsonCommand.class);
+        assertEvictsPreviews(ChargeWritePlatformServiceJpaRepositoryImpl.class, "deleteCharge", Long.class);
+        assertEvictsPreviews(LoanProductWritePlatformServiceJpaRepositoryImpl.class, "updateLoanProduct", Long.class, JsonCommand.class);
+    }
+
+    /**
+     * Previews <code>json</code> keyed as
+     * {@link LoanScheduleCalculationPlatformServiceImpl#previewLoanSchedule}
+     * keys it on a given business date.
+     */
+    private LoanScheduleModel preview(final String json) {
+        final JsonElement element = new JsonParser().parse(json);
+        final String previewKey = "2014-06-01" + LoanScheduleCalculationPlatformServiceImpl.canonicalForm(element);
+        return this.assembler.assembleLoanSchedulePreviewFrom(previewKey, element);
+    }
+
+    private static void assertEvictsPreviews(final Class<?> serviceClass, final String methodName, final Class<?>... parameterTypes)
+            throws NoSuchMethodException {
+        final Method method = serviceClass.getMethod(methodName, parameterTypes);
+        final Collection<CacheOperation> operations = new AnnotationCacheOperationSource().getCacheOperations(method, serviceClass);
+        boolean evicts = false;
+        if (operations != null) {
+            for (final CacheOperation operation : operations) {
+                evicts |= operation instanceof CacheEvictOperation && ((CacheEvictOperation) operation).isCacheWide()
+                        && operation.getCacheNames().contains("loanSchedulePreviews");
+            }
+        }
+        assertTrue(serviceClass.getSimpleName() + "." + methodName + " does not clear the previews", evicts);
+    }
+
+    /**
+     * Assembler whose schedules are empty and counted; its cached preview
+     * method is left as is.
+     */
+    static class CountingLoanScheduleAssembler extends LoanScheduleAssembler {
+
+        private final AtomicInteger generated = new AtomicInteger();
+
+        CountingLoanScheduleAssembler() {
+            super(null, null, null, null, null, null, null, null, null, null, null, null);
+        }
+
+        @Override
+        public LoanScheduleModel assembleLoanScheduleFrom(@SuppressWarnings("unused") final JsonElement element) {
+            this.generated.incrementAndGet();
+            return LoanScheduleModel.from(Collections.<LoanScheduleModelPeriod> emptyList(), null, 0, null, null, null, null, null, null,
+                    null, null);
+        }
+
+        int generated() {
+            return this.generated.get();
+        }
+    }
+
+    @Configuration
+    @EnableCaching
+    static class PreviewCacheConfiguration {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager("loanSchedulePreviews");
+        }
+
+        @Bean
+        public CountingLoanScheduleAssembler loanScheduleAssembler() {
+            return new CountingLoanScheduleAssembler();
+        }
+
+        @Bean
+        public WorkingDaysWritePlatformService workingDaysWritePlatformService() {
+            final WorkingDaysRepositoryWrapper workingDaysRepository = mock(WorkingDaysRepositoryWrapper.class);
+            final WorkingDays workingDays = mock(WorkingDays.class);
+            when(workingDaysRepository.findOne()).thenReturn(workingDays);
+            return new WorkingDaysWritePlatformServiceJpaRepositoryImpl(workingDaysRepository, mock(ConfigurationDomainService.class),
+                    mock(WorkingDayValidator.class));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.CountingTransactionManager;
+import org.mifosplatform.infrastructure.core.service.RoutingDataSource;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.organisation.monetary.data.CurrencyData;
+import org.mifosplatform.portfolio.common.domain.PeriodFrequencyType;
+import org.mifosplatform.portfolio.loanaccount.data.LoanChargeData;
+import org.mifosplatform.portfolio.loanaccount.data.LoanScheduleAccrualData;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class LoanAccrualWritePlatformServiceImplTest {
+
+    private static final CurrencyData CURRENCY = new CurrencyData("USD", "US Dollar", 2, null, "$", "currency.USD");
+    private static final int LOANS = 5;
+    private static final LocalDate TILL_DATE = new LocalDate(2014, 7, 15);
+
+    private final LoanReadPlatformService loanReadPlatformService = mock(LoanReadPlatformService.class);
+    private final LoanChargeReadPlatformService loanChargeReadPlatformService = mock(LoanChargeReadPlatformService.class);
+    private final JournalEntryWritePlatformService journalEntryWritePlatformService = mock(JournalEntryWritePlatformService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private CountingTransactionManager transactionManager;
+    private LoanAccrualWritePlatformServiceImpl service;
+
+    /** Rows written and journal entries created, in the order they were. */
+    private final List<String> output = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTimezoneId()).thenReturn("Asia/Kolkata");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        when(this.loanChargeReadPlatformService.retrieveLoanChargesForAccural(anyCollectionOf(Long.class))).thenAnswer(
+                new Answer<Map<Long, Collection<LoanChargeData>>>() {
+
+                    @Override
+                    public Map<Long, Collection<LoanChargeData>> answer(final InvocationOnMock invocation) {
+                        @SuppressWarnings("unchecked")
+                        final Collection<Long> loanIds = (Collection<Long>) invocation.getArguments()[0];
+                        final Map<Long, Collection<LoanChargeData>> charges = new HashMap<>();
+                        for (final Long loanId : loanIds) {
+                            charges.put(loanId, chargesOf(loanId));
+                        }
+                        return charges;
+                    }
+                });
+        recordOutput();
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void pagedAccrualsAreThoseOfOneLoanAtATime() throws JobExecutionException {
+        final List<String> oneLoanAtATime = addAccruals(1, 1, null);
+        final List<String> paged = addAccruals(2, 3, null);
+
+        assertEquals(oneLoanAtATime, paged);
+        assertEquals(LOANS * 2, count(paged, "accrual transaction"));
+        // loan, office, type, date, amount, interest, fee and penalty
+        assertTrue(paged.contains("accrual transaction [2, 10, 10, 2014-06-01 00:00:00.0, 127, 102, 25, null]"));
+        assertTrue(paged.contains("charge paid by [0, 21, 25, 1]"));
+    }
+
+    @Test
+    public void pagedPeriodicAccrualsAreThoseOfOneLoanAtATime() throws JobExecutionException {
+        final List<String> oneLoanAtATime = addAccruals(1, 1, TILL_DATE);
+        final List<String> paged = addAccruals(2, 3, TILL_DATE);
+
+        assertEquals(oneLoanAtATime, paged);
+        assertEquals(LOANS * 2, count(paged, "accrual transaction"));
+        // 14 of the 31 days of the second installment, and the penalty due
+        // within them
+        assertTrue(paged.contains("repayment schedule [46.97, null, 10, 42]"));
+        assertTrue(paged.contains("loan [" + TILL_DATE.toDate() + ", 4]"));
+    }
+
+    /**
+     * Adds the accruals of {@link #LOANS} loans and returns what was written,
+     * in an order which does not depend on pages and threads.
+     */
+    private List<String> addAccruals(final int loansPerPage, final int threads, final LocalDate tillDate) throws JobExecutionException {
+        this.output.clear();
+        this.transactionManager = new CountingTransactionManager();
+        this.service = new LoanAccrualWritePlatformServiceImpl(mock(RoutingDataSource.class), this.loanReadPlatformService,
+                this.journalEntryWritePlatformService, this.transactionManager, this.loanChargeReadPlatformService);
+        ReflectionTestUtils.setField(this.service, "jdbcTemplate", this.jdbcTemplate);
+        ReflectionTestUtils.setField(this.service, "loansPerPage", loansPerPage);
+        ReflectionTestUtils.setField(this.service, "workerThreads", threads);
+
+        final String errors;
+        if (tillDate == null) {
+            when(this.loanReadPlatformService.retriveScheduleAccrualData()).thenReturn(accrualData());
+            // failures are reported by the job with an exception
+            this.service.addAccrualAccounting();
+            errors = "";
+        } else {
+            errors = this.service.addPeriodicAccruals(tillDate, accrualData());
+        }
+        assertEquals("", errors);
+        assertEquals((LOANS + loansPerPage - 1) / loansPerPage, this.transactionManager.commits());
+
+        final List<String> sorted = new ArrayList<>(this.output);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Two installments of each loan, in loan order; the second one is due
+     * after {@link #TILL_DATE}.
+     */
+    private static List<LoanScheduleAccrualData> accrualData() {
+        final List<LoanScheduleAccrualData> accrualData = new ArrayList<>();
+        for (long loanId = 1; loanId <= LOANS; loanId++) {
+            final BigDecimal interest = BigDecimal.valueOf(100 + loanId);
+            accrualData.add(new LoanScheduleAccrualData(loanId, 10L, 1, null, PeriodFrequencyType.MONTHS, 1, new LocalDate(2014, 6, 1),
+                    new LocalDate(2014, 5, 1), loanId * 10 + 1, 100L, interest, null, null, null, null, null, CURRENCY, null, null));
+            accrualData.add(new LoanScheduleAccrualData(loanId, 10L, 2, null, PeriodFrequencyType.MONTHS, 1, new LocalDate(2014, 8, 1),
+                    new LocalDate(2014, 7, 1), loanId * 10 + 2, 100L, interest, null, null, null, null, null, CURRENCY, null, null));
+        }
+        return accrualData;
+    }
+
+    /**
+     * A fee of loan 2 due with its first installment, a penalty of loan 4 due
+     * before {@link #TILL_DATE} within its second installment.
+     */
+    private static Collection<LoanChargeData> chargesOf(final Long loanId) {
+        if (loanId == 2) { return Arrays.asList(new LoanChargeData(21L, 7L, new LocalDate(2014, 5, 15), null, new BigDecimal("25"),
+                null, null, false)); }
+        if (loanId == 4) { return Arrays.asList(new LoanChargeData(41L, 8L, new LocalDate(2014, 7, 10), null, new BigDecimal("10"),
+                null, null, true)); }
+        return Collections.emptyList();
+    }
+
+    private void recordOutput() {
+        when(this.jdbcTemplate.execute(any(PreparedStatementCreator.class), any(PreparedStatementCallback.class))).thenAnswer(
+                new Answer<Object>() {
+
+                    @Override
+                    public Object answer(final InvocationOnMock invocation) throws Exception {
+                        final PreparedStatementCallback<?> callback = (PreparedStatementCallback<?>) invocation.getArguments()[1];
+                        return callback.doInPreparedStatement(accrualTransactionStatement());
+                    }
+                });
+
+        doAnswer(new Answer<int[]>() {
+
+            @Override
+            public int[] answer(final InvocationOnMock invocation) {
+                final String sql = (String) invocation.getArguments()[0];
+                @SuppressWarnings("unchecked")
+                final List<Object[]> rows = (List<Object[]>) invocation.getArguments()[1];
+                final String table = sql.contains("m_loan_charge_paid_by") ? "charge paid by" : sql
+                        .contains("m_loan_repayment_schedule") ? "repayment schedule" : "loan";
+                for (final Object[] row : rows) {
+                    LoanAccrualWritePlatformServiceImplTest.this.output.add(table + " " + Arrays.toString(row));
+                }
+                return new int[rows.size()];
+            }
+        }).when(this.jdbcTemplate).batchUpdate(anyString(), anyListOf(Object[].class));
+
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                @SuppressWarnings("unchecked")
+                final Map<String, Object> accountingBridgeData = (Map<String, Object>) invocation.getArguments()[0];
+                LoanAccrualWritePlatformServiceImplTest.this.output.add("journal entries " + describe(accountingBridgeData));
+                return null;
+            }
+        }).when(this.journalEntryWritePlatformService).createJournalEntriesForLoan(anyMapOf(String.class, Object.class));
+    }
+
+    /**
+     * Records the parameters of each accrual transaction inserted, the
+     * generated ids are all 0 so that they do not depend on the order of the
+     * inserts.
+     */
+    private PreparedStatement accrualTransactionStatement() {
+        final ResultSet generatedKeys = mock(ResultSet.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                final Class<?> returnType = invocation.getMethod().getReturnType();
+                if (returnType == boolean.class) { return true; }
+                if (returnType == long.class) { return 0L; }
+                return null;
+            }
+        });
+        final Map<Integer, Object> parameters = new TreeMap<>();
+        return mock(PreparedStatement.class, new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                final Method method = invocation.getMethod();
+                final Object[] arguments = invocation.getArguments();
+                if (method.getName().startsWith("set") && arguments.length >= 2 && arguments[0] instanceof Integer) {
+                    parameters.put((Integer) arguments[0], method.getName().equals("setNull") ? null : arguments[1]);
+                } else if (method.getName().equals("addBatch")) {
+                    // the submitted on date is the tenant's date of today
+                    parameters.remove(9);
+                    LoanAccrualWritePlatformServiceImplTest.this.output.add("accrual transaction " + parameters.values());
+                    parameters.clear();
+                } else if (method.getName().equals("getGeneratedKeys")) {
+                    return generatedKeys;
+                } else if (method.getReturnType() == int[].class) { return new int[0]; }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Journal entry details without the currency and transaction type, which
+     * have no value based string form.
+     */
+    private static String describe(final Object value) {
+        if (value instanceof Map) {
+            final StringBuilder sb = new StringBuilder("{");
+            for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                if (!"currency".equals(entry.getKey()) && !"type".equals(entry.getKey())) {
+                    sb.append(entry.getKey()).append('=').append(describe(entry.getValue())).append(' ');
+                }
+            }
+            return sb.append('}').toString();
+        }
+        if (value instanceof Collection) {
+            final StringBuilder sb = new StringBuilder("[");
+            for (final Object element : (Collection<?>) value) {
+                sb.append(describe(element)).append(' ');
+            }
+            return sb.append(']').toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private static int count(final List<String> output, final String prefix) {
+        int count = 0;
+        for (final String line : output) {
+            if (line.startsWith(prefix)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.loanaccount.service;
+
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.organisation.holiday.domain.Holiday;
+import org.mifosplatform.organisation.holiday.domain.HolidayRepositoryWrapper;
+import org.mifosplatform.organisation.office.domain.Office;
+import org.mifosplatform.portfolio.loanaccount.domain.Loan;
+import org.mifosplatform.portfolio.loanaccount.domain.LoanRepository;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LoanWritePlatformServiceJpaRepositoryImplTest {
+
+    @Mock
+    private ConfigurationDomainService configurationDomainService;
+    @Mock
+    private HolidayRepositoryWrapper holidayRepository;
+    @Mock
+    private LoanRepository loanRepository;
+    @Mock
+    private LoanSummaryDirtyTrackingService loanSummaryDirtyTrackingService;
+    @InjectMocks
+    private LoanWritePlatformServiceJpaRepositoryImpl loanWritePlatformService;
+
+    @Test
+    public void shouldMarkLoansRescheduledForHolidaysForSummaryUpdate() {
+        final Office office = mock(Office.class);
+        when(office.getId()).thenReturn(1L);
+        final Holiday holiday = mock(Holiday.class);
+        when(holiday.getOffices()).thenReturn(new HashSet<>(Arrays.asList(office)));
+        final Loan loan = mock(Loan.class);
+        when(loan.getId()).thenReturn(42L);
+
+        when(this.configurationDomainService.isRescheduleRepaymentsOnHolidaysEnabled()).thenReturn(true);
+        when(this.holidayRepository.findUnprocessed()).thenReturn(Arrays.asList(holiday));
+        when(this.loanRepository.findByClientOfficeIdsAndLoanStatus(anyCollectionOf(Long.class), anyCollectionOf(Integer.class)))
+                .thenReturn(new ArrayList<>(Arrays.asList(loan)));
+        when(this.loanRepository.findByGroupOfficeIdsAndLoanStatus(anyCollectionOf(Long.class), anyCollectionOf(Integer.class)))
+                .thenReturn(Collections.<Loan> emptyList());
+
+        this.loanWritePlatformService.applyHolidaysToLoans();
+
+        verify(loan).applyHolidayToRepaymentScheduleDates(holiday);
+        verify(this.loanSummaryDirtyTrackingService).markLoansForSummaryUpdate(Arrays.asList(42L));
+    }
+}
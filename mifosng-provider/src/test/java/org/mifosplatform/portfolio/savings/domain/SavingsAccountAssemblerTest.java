@@ -0,0 +1,113 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.domain;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.serialization.FromJsonHelper;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.organisation.staff.domain.StaffRepositoryWrapper;
+import org.mifosplatform.portfolio.account.service.AccountTransfersReadPlatformService;
+import org.mifosplatform.portfolio.client.domain.ClientRepositoryWrapper;
+import org.mifosplatform.portfolio.group.domain.GroupRepositoryWrapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SavingsAccountAssemblerTest {
+
+    private static final Long SAVINGS_ID = 5L;
+    private static final LocalDate TRANSACTION_DATE = new LocalDate(2014, 6, 15);
+
+    private final SavingsAccountRepositoryWrapper savingsAccountRepository = mock(SavingsAccountRepositoryWrapper.class);
+    private final SavingsAccount account = mock(SavingsAccount.class);
+    private SavingsAccountAssembler assembler;
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTimezoneId()).thenReturn("Asia/Kolkata");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        this.assembler = new SavingsAccountAssembler(new SavingsAccountTransactionSummaryWrapper(),
+                mock(ClientRepositoryWrapper.class), mock(GroupRepositoryWrapper.class), mock(StaffRepositoryWrapper.class),
+                mock(SavingsProductRepository.class), this.savingsAccountRepository, mock(SavingsAccountChargeAssembler.class),
+                mock(FromJsonHelper.class), mock(AccountTransfersReadPlatformService.class), mock(ConfigurationDomainService.class));
+        when(this.savingsAccountRepository.findOneWithNotFoundDetection(SAVINGS_ID)).thenReturn(this.account);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void shouldLoadOnlyTheTransactionsAfterTheFirstValidCheckpoint() {
+        final SavingsAccountInterestCheckpoint latest = mock(SavingsAccountInterestCheckpoint.class);
+        final SavingsAccountInterestCheckpoint earlier = mock(SavingsAccountInterestCheckpoint.class);
+        when(this.savingsAccountRepository.findOneWithoutTransactions(SAVINGS_ID)).thenReturn(this.account);
+        windowCheckpoints(latest, earlier);
+        when(this.savingsAccountRepository.loadTransactionsAfter(this.account, latest)).thenReturn(false);
+        when(this.savingsAccountRepository.loadTransactionsAfter(this.account, earlier)).thenReturn(true);
+
+        assertSame(this.account, this.assembler.assembleFrom(SAVINGS_ID, TRANSACTION_DATE));
+
+        verify(this.account).startTransactionWindow(earlier);
+        verify(this.savingsAccountRepository, never()).reloadAllTransactions(this.account);
+    }
+
+    @Test
+    public void shouldLoadAllTransactionsWithoutValidCheckpoint() {
+        when(this.savingsAccountRepository.findOneWithoutTransactions(SAVINGS_ID)).thenReturn(this.account);
+        windowCheckpoints();
+
+        assertSame(this.account, this.assembler.assembleFrom(SAVINGS_ID, TRANSACTION_DATE));
+
+        verify(this.savingsAccountRepository).reloadAllTransactions(this.account);
+        verify(this.account, never()).startTransactionWindow(any(SavingsAccountInterestCheckpoint.class));
+    }
+
+    @Test
+    public void shouldKeepTheTransactionsOfAnAccountLoadedEarlier() {
+        assertSame(this.account, this.assembler.assembleFrom(SAVINGS_ID, TRANSACTION_DATE));
+
+        verify(this.savingsAccountRepository).findOneWithNotFoundDetection(SAVINGS_ID);
+        verify(this.savingsAccountRepository, never()).reloadAllTransactions(this.account);
+        verify(this.account, never()).startTransactionWindow(any(SavingsAccountInterestCheckpoint.class));
+    }
+
+    @Test
+    public void shouldLoadAccountsInFullWhenTheWindowIsDisabled() {
+        ReflectionTestUtils.setField(this.assembler, "transactionWindowEnabled", false);
+
+        assertSame(this.account, this.assembler.assembleFrom(SAVINGS_ID, TRANSACTION_DATE));
+
+        verify(this.savingsAccountRepository, never()).findOneWithoutTransactions(SAVINGS_ID);
+        verify(this.savingsAccountRepository).findOneWithNotFoundDetection(SAVINGS_ID);
+    }
+
+    private void windowCheckpoints(final SavingsAccountInterestCheckpoint... checkpoints) {
+        when(this.account.findTransactionWindowCheckpointsBefore(eq(TRANSACTION_DATE), any(MathContext.class), any(LocalDate.class),
+                anyBoolean(), anyInt())).thenReturn(
+                checkpoints.length == 0 ? Collections.<SavingsAccountInterestCheckpoint> emptyList() : Arrays.asList(checkpoints));
+    }
+}
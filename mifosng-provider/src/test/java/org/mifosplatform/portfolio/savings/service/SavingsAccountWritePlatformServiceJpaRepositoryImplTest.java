@@ -0,0 +1,221 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.portfolio.savings.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anySetOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mifosplatform.accounting.journalentry.service.JournalEntryWritePlatformService;
+import org.mifosplatform.infrastructure.configuration.domain.ConfigurationDomainService;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.CountingTransactionManager;
+import org.mifosplatform.infrastructure.core.service.DateUtils;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.jobs.data.JobRunCheckpointData;
+import org.mifosplatform.infrastructure.jobs.exception.JobExecutionException;
+import org.mifosplatform.infrastructure.jobs.service.JobName;
+import org.mifosplatform.infrastructure.jobs.service.JobRunCheckpointService;
+import org.mifosplatform.organisation.monetary.data.CurrencyData;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrency;
+import org.mifosplatform.organisation.monetary.domain.ApplicationCurrencyRepositoryWrapper;
+import org.mifosplatform.organisation.monetary.domain.MonetaryCurrency;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccount;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountAssembler;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountRepository;
+import org.mifosplatform.portfolio.savings.domain.SavingsAccountStatusType;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SavingsAccountWritePlatformServiceJpaRepositoryImplTest {
+
+    /** Ids of the active savings accounts, with gaps. */
+    private static final List<Long> ACCOUNT_IDS = Arrays.asList(1L, 2L, 3L, 5L, 8L, 9L, 10L, 12L, 13L, 20L, 21L);
+
+    @Mock
+    private SavingsAccountRepository savingAccountRepository;
+    @Mock
+    private SavingsAccountAssembler savingAccountAssembler;
+    @Mock
+    private ApplicationCurrencyRepositoryWrapper applicationCurrencyRepositoryWrapper;
+    @Mock
+    private JournalEntryWritePlatformService journalEntryWritePlatformService;
+    @Mock
+    private ConfigurationDomainService configurationDomainService;
+    @Mock
+    private JobRunCheckpointService jobRunCheckpointService;
+
+    @InjectMocks
+    private SavingsAccountWritePlatformServiceJpaRepositoryImpl service;
+
+    private final CountingTransactionManager transactionManager = new CountingTransactionManager();
+
+    /** Interest postings and journal entries, in the order they were made. */
+    private final List<String> postings = Collections.synchronizedList(new ArrayList<String>());
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTimezoneId()).thenReturn("Asia/Kolkata");
+        ThreadLocalContextUtil.setTenant(tenant);
+
+        ReflectionTestUtils.setField(this.service, "transactionManager", this.transactionManager);
+        ReflectionTestUtils.setField(this.service, "postInterestChunkSize", 3);
+        ReflectionTestUtils.setField(this.service, "postInterestThreads", 4);
+
+        when(this.configurationDomainService.isSavingsInterestPostingAtCurrentPeriodEnd()).thenReturn(true);
+        when(this.configurationDomainService.retrieveFinancialYearBeginningMonth()).thenReturn(4);
+        final ApplicationCurrency currency = mock(ApplicationCurrency.class);
+        when(this.applicationCurrencyRepositoryWrapper.findOneWithNotFoundDetection(any(MonetaryCurrency.class))).thenReturn(currency);
+        doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                final Object accountingBridgeData = invocation.getArguments()[0];
+                SavingsAccountWritePlatformServiceJpaRepositoryImplTest.this.postings.add("journal entries " + accountingBridgeData);
+                return null;
+            }
+        }).when(this.journalEntryWritePlatformService).createJournalEntriesForSavings(anyMapOf(String.class, Object.class));
+
+        when(this.savingAccountRepository.findSavingAccountIdsByStatusAfterId(eq(SavingsAccountStatusType.ACTIVE.getValue()), anyLong(),
+                any(Pageable.class))).thenAnswer(new Answer<List<Long>>() {
+
+            @Override
+            public List<Long> answer(final InvocationOnMock invocation) {
+                final Long afterId = (Long) invocation.getArguments()[1];
+                final Pageable page = (Pageable) invocation.getArguments()[2];
+                final List<Long> ids = new ArrayList<>();
+                for (final Long id : ACCOUNT_IDS) {
+                    if (id > afterId && ids.size() < page.getPageSize()) {
+                        ids.add(id);
+                    }
+                }
+                return ids;
+            }
+        });
+        when(this.jobRunCheckpointService.retrieveCheckpointsOfRun(eq(JobName.POST_INTEREST_FOR_SAVINGS), any(LocalDate.class)))
+                .thenReturn(Collections.<JobRunCheckpointData> emptyList());
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void jobPostsTheInterestOfEachAccountAsTheCommandDoes() throws JobExecutionException {
+        final List<SavingsAccount> commandAccounts = activeAccounts();
+        for (final Long id : ACCOUNT_IDS) {
+            this.service.postInterest(id);
+        }
+        final List<String> commandPostings = sortedPostings();
+
+        final List<SavingsAccount> jobAccounts = activeAccounts();
+        this.service.postInterestForAccounts();
+
+        assertEquals(commandPostings, sortedPostings());
+        assertEquals(ACCOUNT_IDS.size() * 2, commandPostings.size());
+        for (int i = 0; i < ACCOUNT_IDS.size(); i++) {
+            verify(this.savingAccountRepository).save(commandAccounts.get(i));
+            verify(this.savingAccountRepository).save(jobAccounts.get(i));
+        }
+    }
+
+    @Test
+    public void eachChunkIsCommittedWithItsCheckpoint() throws JobExecutionException {
+        activeAccounts();
+
+        this.service.postInterestForAccounts();
+
+        assertEquals(4, this.transactionManager.commits());
+        final LocalDate runDate = DateUtils.getLocalDateOfTenant();
+        verify(this.jobRunCheckpointService).recordCheckpoint(JobName.POST_INTEREST_FOR_SAVINGS, runDate, 1L, 3L);
+        verify(this.jobRunCheckpointService).recordCheckpoint(JobName.POST_INTEREST_FOR_SAVINGS, runDate, 5L, 9L);
+        verify(this.jobRunCheckpointService).recordCheckpoint(JobName.POST_INTEREST_FOR_SAVINGS, runDate, 10L, 13L);
+        verify(this.jobRunCheckpointService).recordCheckpoint(JobName.POST_INTEREST_FOR_SAVINGS, runDate, 20L, 21L);
+        verify(this.jobRunCheckpointService).clearCheckpointsOfRun(JobName.POST_INTEREST_FOR_SAVINGS, runDate);
+    }
+
+    @Test
+    public void restartedJobSkipsTheChunksAlreadyCommitted() throws JobExecutionException {
+        final List<SavingsAccount> accounts = activeAccounts();
+        when(this.jobRunCheckpointService.retrieveCheckpointsOfRun(eq(JobName.POST_INTEREST_FOR_SAVINGS), any(LocalDate.class)))
+                .thenReturn(Arrays.asList(JobRunCheckpointData.instance(1L, 3L), JobRunCheckpointData.instance(5L, 9L)));
+
+        this.service.postInterestForAccounts();
+
+        for (int i = 0; i < ACCOUNT_IDS.size(); i++) {
+            if (ACCOUNT_IDS.get(i) < 10L) {
+                verify(this.savingAccountRepository, never()).save(accounts.get(i));
+            } else {
+                verify(this.savingAccountRepository).save(accounts.get(i));
+            }
+        }
+        assertEquals(2, this.transactionManager.commits());
+    }
+
+    /**
+     * Fresh accounts for {@link #ACCOUNT_IDS}, which record their interest
+     * postings.
+     */
+    private List<SavingsAccount> activeAccounts() {
+        this.postings.clear();
+        final List<SavingsAccount> accounts = new ArrayList<>();
+        for (final Long id : ACCOUNT_IDS) {
+            final SavingsAccount account = mock(SavingsAccount.class);
+            when(account.isActive()).thenReturn(true);
+            when(account.getNominalAnnualInterestRate()).thenReturn(BigDecimal.TEN);
+            doAnswer(new Answer<Void>() {
+
+                @Override
+                public Void answer(final InvocationOnMock invocation) {
+                    SavingsAccountWritePlatformServiceJpaRepositoryImplTest.this.postings.add("interest of " + id + " posted with "
+                            + Arrays.toString(invocation.getArguments()));
+                    return null;
+                }
+            }).when(account).postInterest(any(MathContext.class), any(LocalDate.class), anyBoolean(), anyBoolean(), anyInt());
+            when(account.deriveAccountingBridgeData(any(CurrencyData.class), anySetOf(Long.class), anySetOf(Long.class), anyBoolean()))
+                    .thenReturn(Collections.<String, Object> singletonMap("savingsId", id));
+            when(this.savingAccountAssembler.assembleFrom(id)).thenReturn(account);
+            accounts.add(account);
+        }
+        return accounts;
+    }
+
+    private List<String> sortedPostings() {
+        final List<String> sorted = new ArrayList<>(this.postings);
+        Collections.sort(sorted);
+        return sorted;
+    }
+}
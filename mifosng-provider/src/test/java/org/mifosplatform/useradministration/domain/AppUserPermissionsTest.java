@@ -0,0 +1,152 @@
+/**
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this file,
+ * You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package org.mifosplatform.useradministration.domain;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mifosplatform.infrastructure.core.domain.MifosPlatformTenant;
+import org.mifosplatform.infrastructure.core.service.ThreadLocalContextUtil;
+import org.mifosplatform.infrastructure.security.exception.NoAuthorizationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+public class AppUserPermissionsTest {
+
+    @Before
+    public void setUp() {
+        final MifosPlatformTenant tenant = mock(MifosPlatformTenant.class);
+        when(tenant.getTimezoneId()).thenReturn("Asia/Kolkata");
+        ThreadLocalContextUtil.setTenant(tenant);
+    }
+
+    @After
+    public void tearDown() {
+        ThreadLocalContextUtil.clearTenant();
+    }
+
+    @Test
+    public void allFunctionsGrantsEveryPermission() {
+        final AppUserPermissions permissions = AppUserPermissions.of(Arrays.asList(role("ALL_FUNCTIONS")));
+
+        assertTrue(permissions.hasPermissionTo("ALL_FUNCTIONS"));
+        assertTrue(permissions.hasPermissionTo("CREATE_LOAN"));
+        assertTrue(permissions.hasPermissionTo("APPROVE_LOAN_CHECKER"));
+        assertTrue(permissions.hasPermissionTo("NO_SUCH_PERMISSION_EVER"));
+
+        final AppUser user = user(role("ALL_FUNCTIONS"));
+        assertFalse(user.canNotApproveLoanInPast());
+        assertFalse(user.hasNotPermissionForReport("Client Listing"));
+        assertFalse(user.hasNotPermissionForDatatable("extra_client_details", "UPDATE"));
+        user.validateHasPermissionTo("DISBURSE_LOAN");
+        user.validateHasCheckerPermissionTo("DISBURSE_LOAN");
+    }
+
+    @Test
+    public void allFunctionsReadOnlyGrantsReading() {
+        final AppUserPermissions permissions = AppUserPermissions.of(Arrays.asList(role("ALL_FUNCTIONS_READ")));
+
+        assertTrue(permissions.hasPermissionTo("ALL_FUNCTIONS_READ"));
+        assertFalse(permissions.hasPermissionTo("ALL_FUNCTIONS"));
+        assertFalse(permissions.hasPermissionTo("READ_LOAN"));
+        assertFalse(permissions.hasPermissionTo("CREATE_LOAN"));
+
+        final AppUser user = user(role("ALL_FUNCTIONS_READ"));
+        user.validateHasReadPermission("loan");
+        assertFalse(user.hasNotPermissionForReport("Client Listing"));
+        assertFalse(user.hasNotPermissionForDatatable("extra_client_details", "READ"));
+        assertTrue(user.hasNotPermissionForDatatable("extra_client_details", "UPDATE"));
+        assertTrue(user.canNotApproveLoanInPast());
+    }
+
+    @Test(expected = NoAuthorizationException.class)
+    public void allFunctionsReadDoesNotGrantWriting() {
+        user(role("ALL_FUNCTIONS_READ")).validateHasPermissionTo("CREATE_LOAN");
+    }
+
+    @Test
+    public void checkerPermissionsAreOnlyThoseOfTheirFunction() {
+        final AppUserPermissions permissions = AppUserPermissions.of(Arrays.asList(role("APPROVE_LOAN_CHECKER")));
+        assertTrue(permissions.hasPermissionTo("APPROVE_LOAN_CHECKER"));
+        assertFalse(permissions.hasPermissionTo("APPROVE_LOAN"));
+        assertFalse(permissions.hasPermissionTo("REJECT_LOAN_CHECKER"));
+
+        final AppUser user = user(role("APPROVE_LOAN_CHECKER"));
+        user.validateHasCheckerPermissionTo("approve_loan");
+        assertCannotCheck(user, "REJECT_LOAN");
+
+        user(role("CHECKER_SUPER_USER")).validateHasCheckerPermissionTo("REJECT_LOAN");
+    }
+
+    @Test
+    public void unknownCodesAreNotGranted() {
+        final AppUserPermissions permissions = AppUserPermissions.of(Arrays.asList(role("CREATE_LOAN", "READ_LOAN")));
+
+        assertFalse(permissions.hasPermissionTo("NO_SUCH_PERMISSION_EVER"));
+        assertFalse(permissions.hasPermissionTo(null));
+        assertFalse(AppUserPermissions.of(Collections.<Role> emptyList()).hasPermissionTo("CREATE_LOAN"));
+
+        // a code first seen in a check is granted once a role has it
+        assertFalse(permissions.hasPermissionTo("UNKNOWN_UNTIL_GRANTED"));
+        assertTrue(AppUserPermissions.of(Arrays.asList(role("UNKNOWN_UNTIL_GRANTED"))).hasPermissionTo("UNKNOWN_UNTIL_GRANTED"));
+        assertFalse(permissions.hasPermissionTo("UNKNOWN_UNTIL_GRANTED"));
+    }
+
+    @Test
+    public void codesOfAllRolesAreMatchedIgnoringCase() {
+        final AppUserPermissions permissions = AppUserPermissions.of(Arrays.asList(role("create_loan"), role("READ_Client")));
+
+        assertTrue(permissions.hasPermissionTo("CREATE_LOAN"));
+        assertTrue(permissions.hasPermissionTo("read_client"));
+        assertFalse(permissions.hasPermissionTo("READ_LOAN"));
+    }
+
+    @Test
+    public void updatingTheRolesOfAUserRecompilesItsPermissions() {
+        final AppUser user = user(role("READ_LOAN"));
+        assertTrue(user.hasNotPermissionForAnyOf("CREATE_LOAN"));
+
+        user.updateRoles(new HashSet<>(Arrays.asList(role("CREATE_LOAN"))));
+
+        assertFalse(user.hasNotPermissionForAnyOf("CREATE_LOAN"));
+        assertTrue(user.hasNotPermissionForAnyOf("READ_LOAN"));
+    }
+
+    private static void assertCannotCheck(final AppUser user, final String function) {
+        try {
+            user.validateHasCheckerPermissionTo(function);
+        } catch (final NoAuthorizationException e) {
+            return;
+        }
+        throw new AssertionError("user can check " + function);
+    }
+
+    private static Role role(final String... permissionCodes) {
+        final Role role = new Role("role", "");
+        for (final String permissionCode : permissionCodes) {
+            final int separator = permissionCode.indexOf('_');
+            role.updatePermission(new Permission("grouping", permissionCode.substring(separator + 1), permissionCode.substring(0,
+                    separator)), true);
+        }
+        return role;
+    }
+
+    private static AppUser user(final Role role) {
+        final Set<Role> roles = new HashSet<>(Arrays.asList(role));
+        final User user = new User("mifos", "password", Collections.<GrantedAuthority> emptyList());
+        return new AppUser(null, user, roles, "", "Mifos", "User", null, false);
+    }
+}